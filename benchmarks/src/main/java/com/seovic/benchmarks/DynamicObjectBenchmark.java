@@ -0,0 +1,103 @@
+/*
+ * Copyright 2009 Aleksandar Seovic
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.seovic.benchmarks;
+
+
+import com.seovic.core.objects.DynamicObject;
+import com.seovic.core.objects.PropertyList;
+import com.seovic.test.objects.Address;
+import com.seovic.test.objects.Person;
+import com.tangosol.io.pof.PortableObjectSerializer;
+import com.tangosol.io.pof.SimplePofContext;
+import com.tangosol.util.Binary;
+import com.tangosol.util.ExternalizableHelper;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Measures construction, merging and POF serialization of
+ * {@link DynamicObject} instances.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DynamicObjectBenchmark {
+    private static final PropertyList PROPERTIES =
+            PropertyList.fromString("id,name,dateOfBirth,address:(street,city,country)");
+
+    private Person person;
+    private DynamicObject object;
+    private SimplePofContext pofContext;
+    private Binary binary;
+
+    @Setup
+    public void setup() {
+        person = new Person(1L, "Homer", new Date(),
+                            new Address("742 Evergreen Terrace", "Springfield", "USA"));
+        object = new DynamicObject(person, PROPERTIES);
+
+        pofContext = new SimplePofContext();
+        pofContext.registerUserType(1, DynamicObject.class, new PortableObjectSerializer(1));
+
+        binary = ExternalizableHelper.toBinary(object, pofContext);
+    }
+
+    @Benchmark
+    public DynamicObject mergeBean() {
+        DynamicObject o = new DynamicObject();
+        o.merge(person);
+        return o;
+    }
+
+    @Benchmark
+    public DynamicObject mergeBeanWithPropertyList() {
+        DynamicObject o = new DynamicObject();
+        o.merge(person, PROPERTIES);
+        return o;
+    }
+
+    @Benchmark
+    public DynamicObject mergeDynamicObject() {
+        DynamicObject o = new DynamicObject();
+        o.merge(object);
+        return o;
+    }
+
+    @Benchmark
+    public Binary serialize() {
+        return ExternalizableHelper.toBinary(object, pofContext);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return ExternalizableHelper.fromBinary(binary, pofContext);
+    }
+}
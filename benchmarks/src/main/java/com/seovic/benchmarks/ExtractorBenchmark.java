@@ -0,0 +1,104 @@
+/*
+ * Copyright 2009 Aleksandar Seovic
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.seovic.benchmarks;
+
+
+import com.seovic.core.Expression;
+import com.seovic.core.Extractor;
+import com.seovic.core.expression.MvelExpression;
+import com.seovic.core.expression.OgnlExpression;
+import com.seovic.core.expression.ScriptExpression;
+import com.seovic.core.expression.SpelExpression;
+import com.seovic.core.extractor.ExpressionExtractor;
+import com.seovic.core.extractor.PropertyExtractor;
+import com.seovic.scripting.groovy.GroovyExpression;
+import com.seovic.test.objects.Address;
+import com.seovic.test.objects.Person;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Compares {@link PropertyExtractor} with {@link ExpressionExtractor} for each
+ * of the supported expression languages.
+ * <p/>
+ * Every extractor reads the <tt>name</tt> property of the same
+ * {@link Person}; script languages access it through the <tt>target</tt>
+ * variable.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExtractorBenchmark {
+    @Param({"property", "mvel", "ognl", "spel", "javascript", "groovy"})
+    public String language;
+
+    private Extractor extractor;
+    private Person person;
+
+    @Setup
+    public void setup() {
+        person = new Person(1L, "Homer", new Date(),
+                            new Address("742 Evergreen Terrace", "Springfield", "USA"));
+        extractor = "property".equals(language)
+                    ? new PropertyExtractor("name")
+                    : new ExpressionExtractor(createExpression(language));
+
+        if (!"Homer".equals(extractor.extract(person))) {
+            throw new IllegalStateException(language + " extractor returned "
+                                            + extractor.extract(person));
+        }
+    }
+
+    @Benchmark
+    public Object extract() {
+        return extractor.extract(person);
+    }
+
+    private static Expression createExpression(String language) {
+        if ("mvel".equals(language)) {
+            return new MvelExpression("name");
+        }
+        if ("ognl".equals(language)) {
+            return new OgnlExpression("name");
+        }
+        if ("spel".equals(language)) {
+            return new SpelExpression("name");
+        }
+        if ("javascript".equals(language)) {
+            return new ScriptExpression("target.name", language);
+        }
+        if ("groovy".equals(language)) {
+            return new GroovyExpression("target.name");
+        }
+        throw new IllegalArgumentException("Unknown language: " + language);
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2009 Aleksandar Seovic
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.seovic.benchmarks;
+
+
+import com.seovic.core.extractor.PropertyExtractor;
+import com.seovic.core.filter.AnyWordStartsWithFilter;
+import com.seovic.core.filter.StartsWithFilter;
+import com.seovic.core.index.CaseInsensitiveIndexExtractor;
+import com.seovic.core.index.WordPrefixIndexExtractor;
+import com.seovic.test.objects.Country;
+import com.tangosol.util.MapIndex;
+import com.tangosol.util.SimpleMapEntry;
+import com.tangosol.util.SimpleMapIndex;
+import com.tangosol.util.ValueExtractor;
+import com.tangosol.util.filter.IndexAwareFilter;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Measures {@link StartsWithFilter} and {@link AnyWordStartsWithFilter}
+ * evaluation against individual objects, and index application against a map
+ * of indexes built the same way a cache service would build them.
+ * <p/>
+ * Because <tt>applyIndex</tt> modifies the candidate key set, each invocation
+ * works on a fresh copy of all keys; the <tt>copyKeys</tt> benchmark measures
+ * the cost of that copy alone.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@SuppressWarnings("unchecked")
+public class FilterBenchmark {
+    private static final String[] WORDS = {
+            "Republic", "United", "States", "Kingdom", "Democratic", "People's",
+            "Federal", "Islands", "Saint", "South", "North", "Central", "New",
+            "Guinea", "Korea", "America", "African", "Arab", "Emirates", "Union"
+    };
+
+    @Param({"startsWith", "startsWithIgnoreCase", "anyWordStartsWith"})
+    public String filter;
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    private Country[] countries;
+    private Set keys;
+    private Map indexes;
+    private IndexAwareFilter indexAwareFilter;
+    private int next;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+
+        countries = new Country[size];
+        keys = new HashSet(size);
+        for (int i = 0; i < size; i++) {
+            StringBuilder name = new StringBuilder();
+            for (int j = random.nextInt(4); j >= 0; j--) {
+                name.append(WORDS[random.nextInt(WORDS.length)]).append(j > 0 ? " " : "");
+            }
+            countries[i] = new Country(String.valueOf(i), name.toString());
+            keys.add(i);
+        }
+
+        indexes = new HashMap();
+        if ("startsWith".equals(filter)) {
+            ValueExtractor extractor = new PropertyExtractor("name");
+            indexes.put(extractor, new SimpleMapIndex(extractor, true, null, null));
+            indexAwareFilter = new StartsWithFilter(extractor, "Re", false);
+        }
+        else if ("startsWithIgnoreCase".equals(filter)) {
+            CaseInsensitiveIndexExtractor extractor = new CaseInsensitiveIndexExtractor("name");
+            extractor.createIndex(true, null, indexes, null);
+            indexAwareFilter = new StartsWithFilter(extractor, "re", true);
+        }
+        else if ("anyWordStartsWith".equals(filter)) {
+            WordPrefixIndexExtractor extractor = new WordPrefixIndexExtractor("name", true);
+            extractor.createIndex(false, null, indexes, null);
+            indexAwareFilter = new AnyWordStartsWithFilter(extractor, "rep", true);
+        }
+        else {
+            throw new IllegalArgumentException("Unknown filter: " + filter);
+        }
+
+        for (Object index : indexes.values()) {
+            for (int i = 0; i < size; i++) {
+                ((MapIndex) index).insert(new SimpleMapEntry(i, countries[i]));
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean evaluate() {
+        int i = next;
+        next = i + 1 == size ? 0 : i + 1;
+        return indexAwareFilter.evaluate(countries[i]);
+    }
+
+    @Benchmark
+    public Set applyIndex() {
+        Set candidates = new HashSet(keys);
+        indexAwareFilter.applyIndex(indexes, candidates);
+        return candidates;
+    }
+
+    @Benchmark
+    public Set copyKeys() {
+        return new HashSet(keys);
+    }
+}
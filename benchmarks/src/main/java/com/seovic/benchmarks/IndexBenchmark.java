@@ -0,0 +1,172 @@
+/*
+ * Copyright 2009 Aleksandar Seovic
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.seovic.benchmarks;
+
+
+import com.seovic.core.index.BaseIndex;
+import com.seovic.core.index.CaseInsensitiveIndex;
+import com.seovic.core.index.NumericIndex;
+import com.seovic.core.index.WordPrefixIndex;
+import com.tangosol.util.SimpleMapEntry;
+import com.tangosol.util.extractor.IdentityExtractor;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Measures insert and update throughput of the {@link BaseIndex}
+ * implementations.
+ * <p/>
+ * Updates are measured both from a single thread and from four threads that
+ * update disjoint key ranges, the way concurrent cache service threads would.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@SuppressWarnings("unchecked")
+public class IndexBenchmark {
+    private static final int ENTRIES = 10000;
+    private static final int THREADS = 4;
+
+    private static final String[] WORDS = {
+            "Republic", "United", "States", "Kingdom", "Democratic", "People's",
+            "Federal", "Islands", "Saint", "South", "North", "Central", "New",
+            "Guinea", "Korea", "America", "African", "Arab", "Emirates", "Union"
+    };
+
+    @Param({"caseInsensitive", "wordPrefix", "numeric"})
+    public String index;
+
+    @Param({"100", "10000"})
+    public int cardinality;
+
+    private Map.Entry[] entries;
+    private Map.Entry[] updates;
+    private BaseIndex populated;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        Object[] values = new Object[cardinality];
+        for (int i = 0; i < cardinality; i++) {
+            values[i] = "numeric".equals(index)
+                        ? (Object) (long) random.nextInt()
+                        : WORDS[random.nextInt(WORDS.length)] + " "
+                          + WORDS[random.nextInt(WORDS.length)] + " " + i;
+        }
+
+        entries = new Map.Entry[ENTRIES];
+        updates = new Map.Entry[ENTRIES];
+        for (int i = 0; i < ENTRIES; i++) {
+            entries[i] = new SimpleMapEntry(i, values[random.nextInt(cardinality)]);
+            updates[i] = new SimpleMapEntry(i, values[random.nextInt(cardinality)]);
+        }
+
+        populated = createIndex();
+        for (Map.Entry entry : entries) {
+            populated.insert(entry);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ENTRIES)
+    public BaseIndex insert() {
+        BaseIndex index = createIndex();
+        for (Map.Entry entry : entries) {
+            index.insert(entry);
+        }
+        return index;
+    }
+
+    @Benchmark
+    public void update(UpdateState state) {
+        int i = state.next(0, 1);
+        populated.update(state.flip() ? updates[i] : entries[i]);
+    }
+
+    @Benchmark
+    @Threads(THREADS)
+    public void updateConcurrent(UpdateState state) {
+        int i = state.next(state.thread, THREADS);
+        populated.update(state.flip() ? updates[i] : entries[i]);
+    }
+
+    private BaseIndex createIndex() {
+        if ("caseInsensitive".equals(index)) {
+            return new CaseInsensitiveIndex(IdentityExtractor.INSTANCE);
+        }
+        if ("wordPrefix".equals(index)) {
+            return new WordPrefixIndex(IdentityExtractor.INSTANCE, true);
+        }
+        if ("numeric".equals(index)) {
+            return new NumericIndex(IdentityExtractor.INSTANCE, Long.class);
+        }
+        throw new IllegalArgumentException("Unknown index: " + index);
+    }
+
+    // ---- inner class: UpdateState ----------------------------------------
+
+    /**
+     * Per-thread position within the entries to update.
+     * <p/>
+     * Each thread updates only the keys that are equal to its thread number
+     * modulo the number of threads, and alternates between the original and
+     * the updated value of each key.
+     */
+    @State(Scope.Thread)
+    public static class UpdateState {
+        private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+        final int thread = THREAD_COUNTER.getAndIncrement() % THREADS;
+
+        private int position;
+        private int pass;
+
+        int next(int offset, int stride) {
+            int i = offset + position * stride;
+            if (i >= ENTRIES) {
+                position = 0;
+                pass++;
+                i = offset;
+            }
+            position++;
+            return i;
+        }
+
+        boolean flip() {
+            return (pass & 1) == 0;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2009 Aleksandar Seovic
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.seovic.benchmarks;
+
+
+import com.seovic.core.Expression;
+import com.seovic.core.expression.ScriptExpression;
+import com.seovic.test.objects.Person;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Measures the throughput of {@link ScriptExpression} evaluation by 1, 4 and
+ * 16 concurrent threads.
+ * <p/>
+ * Each thread uses its own expression instance, the way Coherence service
+ * threads use the instances they deserialize, so the threads only share the
+ * compiled scripts cached by the expression.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScriptExpressionBenchmark {
+    @Param({"javascript"})
+    public String language;
+
+    private Expression expression;
+    private Person person;
+
+    @Setup
+    public void setup() {
+        person = new Person(1L, "Homer");
+        expression = new ScriptExpression("target.name", language);
+
+        if (!"Homer".equals(expression.evaluate(person))) {
+            throw new IllegalStateException(language + " expression returned "
+                                            + expression.evaluate(person));
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Object evaluate1() {
+        return expression.evaluate(person);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object evaluate4() {
+        return expression.evaluate(person);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public Object evaluate16() {
+        return expression.evaluate(person);
+    }
+}
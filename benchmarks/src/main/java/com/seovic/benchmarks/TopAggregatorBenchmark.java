@@ -0,0 +1,136 @@
+/*
+ * Copyright 2009 Aleksandar Seovic
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.seovic.benchmarks;
+
+
+import com.seovic.core.aggregator.DoubleTopAggregator;
+import com.seovic.core.aggregator.LongTopAggregator;
+import com.seovic.core.aggregator.TopAggregator;
+import com.seovic.core.extractor.PropertyExtractor;
+import com.seovic.test.objects.Person;
+import com.tangosol.net.NamedCache;
+import com.tangosol.net.cache.WrapperNamedCache;
+import com.tangosol.util.SimpleMapEntry;
+import com.tangosol.util.ValueExtractor;
+import com.tangosol.util.filter.AlwaysFilter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Measures {@link TopAggregator} and its primitive specializations for various
+ * numbers of entries (n) and returned items (k).
+ * <p/>
+ * The <tt>partial</tt> benchmark measures the work done within a single
+ * partition, <tt>merge</tt> measures combining the partial results of 16
+ * partitions, and <tt>aggregate</tt> runs both against a local cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@SuppressWarnings("unchecked")
+public class TopAggregatorBenchmark {
+    private static final int PARTITIONS = 16;
+
+    @Param({"generic", "long", "double"})
+    public String type;
+
+    @Param({"1000", "100000"})
+    public int n;
+
+    @Param({"10", "100", "1000"})
+    public int k;
+
+    private TopAggregator aggregator;
+    private Set entries;
+    private List<List<TopAggregator.KeyValuePair>> partialResults;
+    private NamedCache cache;
+
+    @Setup
+    public void setup() {
+        ValueExtractor extractor = new PropertyExtractor("id");
+        if ("generic".equals(type)) {
+            aggregator = new TopAggregator(extractor, null, k);
+        }
+        else if ("long".equals(type)) {
+            aggregator = new LongTopAggregator(extractor, false, k);
+        }
+        else if ("double".equals(type)) {
+            aggregator = new DoubleTopAggregator(extractor, false, k);
+        }
+        else {
+            throw new IllegalArgumentException("Unknown aggregator type: " + type);
+        }
+
+        Random random = new Random(42);
+        cache = new WrapperNamedCache(new HashMap(), "benchmark");
+        entries = new HashSet(n);
+        for (int i = 0; i < n; i++) {
+            Person person = new Person(random.nextLong(), "Person " + i);
+            cache.put(i, person);
+            entries.add(new SimpleMapEntry(i, person));
+        }
+
+        // partial results as they would be returned by each partition
+        List<Set> partitions = new ArrayList<Set>(PARTITIONS);
+        for (int i = 0; i < PARTITIONS; i++) {
+            partitions.add(new HashSet());
+        }
+        int i = 0;
+        for (Object entry : entries) {
+            partitions.get(i++ % PARTITIONS).add(entry);
+        }
+        partialResults = new ArrayList<List<TopAggregator.KeyValuePair>>(PARTITIONS);
+        for (Set partition : partitions) {
+            partialResults.add((List<TopAggregator.KeyValuePair>) aggregator.aggregate(partition));
+        }
+    }
+
+    @Benchmark
+    public Object partial() {
+        return aggregator.aggregate(entries);
+    }
+
+    @Benchmark
+    public Object merge() {
+        return aggregator.aggregateResults(partialResults);
+    }
+
+    @Benchmark
+    public Object aggregate() {
+        return cache.aggregate(AlwaysFilter.INSTANCE, aggregator);
+    }
+}
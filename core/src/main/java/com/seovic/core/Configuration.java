@@ -49,6 +49,8 @@ public final class Configuration
 
     private static final String SCRIPT_LANGUAGE = "script.language";
 
+    private static final String EXPRESSION_CACHE_SIZE = "expression.cache.size";
+
     // default values
     private static final String DEFAULT_EXPRESSION_TYPE =
             "com.seovic.core.expression.MvelExpression";
@@ -64,6 +66,8 @@ public final class Configuration
 
     private static final String DEFAULT_SCRIPT_LANGUAGE = "javascript";
 
+    private static final String DEFAULT_EXPRESSION_CACHE_SIZE = "1000";
+
     // ---- data members ----------------------------------------------------
 
     /**
@@ -99,6 +103,7 @@ public final class Configuration
         props.put(UPDATER_TYPE, DEFAULT_UPDATER_TYPE);
         props.put(CONDITION_TYPE, DEFAULT_CONDITION_TYPE);
         props.put(SCRIPT_LANGUAGE, DEFAULT_SCRIPT_LANGUAGE);
+        props.put(EXPRESSION_CACHE_SIZE, DEFAULT_EXPRESSION_CACHE_SIZE);
 
         try
             {
@@ -183,4 +188,14 @@ public final class Configuration
         {
         return INSTANCE.configuration.get(SCRIPT_LANGUAGE);
         }
+
+    /**
+     * Get the maximum number of compiled expressions to cache.
+     *
+     * @return the maximum size of the compiled expression cache
+     */
+    public static int getExpressionCacheSize()
+        {
+        return Integer.parseInt(INSTANCE.configuration.get(EXPRESSION_CACHE_SIZE).trim());
+        }
     }
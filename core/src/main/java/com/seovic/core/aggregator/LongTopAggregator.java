@@ -0,0 +1,129 @@
+/*
+ * Copyright 2009 Aleksandar Seovic
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.seovic.core.aggregator;
+
+
+import com.tangosol.io.pof.PofReader;
+import com.tangosol.io.pof.PofWriter;
+import com.tangosol.util.InvocableMap;
+import com.tangosol.util.ValueExtractor;
+import com.tangosol.util.comparator.InverseComparator;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.Set;
+
+
+/**
+ * {@link TopAggregator} specialized for extracted values that are integral
+ * numbers.
+ * <p/>
+ * Values are compared as primitive <tt>long</tt>s within each partition, which
+ * avoids both the per-entry {@link TopAggregator.KeyValuePair} allocation and
+ * the boxed comparisons performed by the generic aggregator. Entries with a
+ * <tt>null</tt> value are ignored.
+ */
+public class LongTopAggregator
+        extends TopAggregator {
+
+    private transient LongSizeLimitedList results;
+
+    private boolean descending;
+
+    public LongTopAggregator() {
+    }
+
+    public LongTopAggregator(ValueExtractor extractor, boolean descending, int maxItems) {
+        super(extractor, null, maxItems);
+        this.descending = descending;
+    }
+
+    @Override
+    public Object aggregate(Set entries) {
+        init(false);
+        ValueExtractor extractor = getPairValueExtractor();
+        for (Object o : entries) {
+            InvocableMap.Entry entry = (InvocableMap.Entry) o;
+            if (entry.isPresent()) {
+                Number value = (Number) entry.extract(extractor);
+                if (value != null) {
+                    results.add(entry.getKey(), value.longValue());
+                }
+            }
+        }
+        return finalizeResult(false);
+    }
+
+    @Override
+    protected void init(boolean isFinal) {
+        if (isFinal) {
+            super.init(true);
+        }
+        else {
+            results = new LongSizeLimitedList(getMaxItems(), descending);
+        }
+    }
+
+    @Override
+    protected void process(Object o, boolean isFinal) {
+        if (isFinal) {
+            super.process(o, true);
+        }
+        else {
+            KeyValuePair pair = (KeyValuePair) o;
+            Number value = (Number) pair.getValue();
+            if (value != null) {
+                results.add(pair.getKey(), value.longValue());
+            }
+        }
+    }
+
+    @Override
+    protected Object finalizeResult(boolean isFinal) {
+        return isFinal ? super.finalizeResult(true) : results.toList();
+    }
+
+    @Override
+    protected Comparator getComparator() {
+        return descending ? new InverseComparator() : null;
+    }
+
+    @Override
+    public void readExternal(DataInput in) throws IOException {
+        super.readExternal(in);
+        descending = in.readBoolean();
+    }
+
+    @Override
+    public void writeExternal(DataOutput out) throws IOException {
+        super.writeExternal(out);
+        out.writeBoolean(descending);
+    }
+
+    @Override
+    public void readExternal(PofReader in) throws IOException {
+        super.readExternal(in);
+        descending = in.readBoolean(12);
+    }
+
+    @Override
+    public void writeExternal(PofWriter out) throws IOException {
+        super.writeExternal(out);
+        out.writeBoolean(12, descending);
+    }
+}
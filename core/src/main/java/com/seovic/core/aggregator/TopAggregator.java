@@ -28,20 +28,32 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 
 
 /**
  * Sample aggregator that retrieves top N keys from each node
  * and merges them into a final result.
+ * <p/>
+ * Each partition keeps its candidates in a bounded heap, so processing n
+ * entries costs O(n log k) instead of O(n k), and partial results are
+ * combined using a k-way merge of already sorted lists.
+ *
+ * @see LongTopAggregator
+ * @see DoubleTopAggregator
  */
 @SuppressWarnings("unchecked")
 public class TopAggregator
         extends AbstractAggregator {
 
     private transient SortedSizeLimitedList results;
+    private transient List<List<KeyValuePair>> partialResults;
 
     private Comparator comparator;
     private int maxItems;
@@ -56,12 +68,17 @@ public class TopAggregator
     }
 
     protected void init(boolean isFinal) {
-        results = new SortedSizeLimitedList(maxItems, comparator);
+        if (isFinal) {
+            partialResults = new ArrayList<List<KeyValuePair>>();
+        }
+        else {
+            results = new SortedSizeLimitedList(maxItems, comparator);
+        }
     }
 
     protected void process(Object o, boolean isFinal) {
         if (isFinal) {
-            results.addAll((List) o);
+            partialResults.add((List<KeyValuePair>) o);
         }
         else {
             results.add((KeyValuePair) o);
@@ -71,7 +88,9 @@ public class TopAggregator
     protected Object finalizeResult(boolean isFinal) {
         if (isFinal) {
             // get a list of keys
-            return results.toKeyList();
+            List<KeyValuePair> merged = merge(partialResults, maxItems, getComparator());
+            partialResults = null;
+            return toKeyList(merged);
         }
         else {
             // get a list of KeyValuePair objects
@@ -79,6 +98,84 @@ public class TopAggregator
         }
     }
 
+    /**
+     * Return the comparator used to order extracted values.
+     *
+     * @return the comparator, or <tt>null</tt> if natural ordering is used
+     */
+    protected Comparator getComparator() {
+        return comparator;
+    }
+
+    /**
+     * Return the maximum number of items this aggregator should return.
+     *
+     * @return the maximum number of items to return
+     */
+    protected int getMaxItems() {
+        return maxItems;
+    }
+
+    /**
+     * Return the extractor used to extract the value items are ordered by.
+     *
+     * @return the value extractor wrapped by {@link KeyValuePairExtractor}
+     */
+    protected ValueExtractor getPairValueExtractor() {
+        return ((KeyValuePairExtractor) getValueExtractor()).getValueExtractor();
+    }
+
+    /**
+     * Merge already sorted partial results into a single sorted list of at
+     * most <tt>maxItems</tt> elements.
+     * <p/>
+     * This is a k-way merge that only ever looks at the head of each partial
+     * result, so it costs O(k log m) for m partial results, regardless of how
+     * many elements each of them contains.
+     *
+     * @param lists       sorted partial results to merge
+     * @param maxItems    the maximum number of items to return
+     * @param comparator  the comparator to use, or <tt>null</tt> for natural
+     *                    ordering of extracted values
+     *
+     * @return merged list of key-value pairs
+     */
+    public static List<KeyValuePair> merge(Collection<? extends List<KeyValuePair>> lists,
+                                           int maxItems, Comparator comparator) {
+        final KeyValuePairComparator pairComparator = new KeyValuePairComparator(comparator);
+
+        PriorityQueue<Cursor> cursors = new PriorityQueue<Cursor>(
+                Math.max(lists.size(), 1),
+                new Comparator<Cursor>() {
+                    public int compare(Cursor c1, Cursor c2) {
+                        return pairComparator.compare(c1.current(), c2.current());
+                    }
+                });
+        for (List<KeyValuePair> list : lists) {
+            if (list != null && !list.isEmpty()) {
+                cursors.add(new Cursor(list));
+            }
+        }
+
+        List<KeyValuePair> merged = new ArrayList<KeyValuePair>(Math.max(Math.min(maxItems, 1024), 0));
+        while (merged.size() < maxItems && !cursors.isEmpty()) {
+            Cursor cursor = cursors.poll();
+            merged.add(cursor.current());
+            if (cursor.advance()) {
+                cursors.add(cursor);
+            }
+        }
+        return merged;
+    }
+
+    private static List toKeyList(List<KeyValuePair> pairs) {
+        ArrayList list = new ArrayList(pairs.size());
+        for (KeyValuePair pair : pairs) {
+            list.add(pair.getKey());
+        }
+        return list;
+    }
+
     @Override
     public void readExternal(DataInput in) throws IOException {
         super.readExternal(in);
@@ -111,9 +208,6 @@ public class TopAggregator
         private Object key;
         private Object value;
 
-        private transient KeyValuePair previous;
-        private transient KeyValuePair next;
-
         public KeyValuePair() {
         }
 
@@ -130,18 +224,6 @@ public class TopAggregator
             return value;
         }
 
-        public void insertBefore(KeyValuePair previous) {
-            this.previous.next = previous;
-            previous.previous = this.previous;
-            previous.next = this;
-            this.previous = previous;
-        }
-
-        public void remove() {
-           this.previous.next = this.next;
-           this.next.previous = this.previous;
-        }
-
         public void readExternal(DataInput in) throws IOException {
             key = readObject(in);
             value = readObject(in);
@@ -181,6 +263,10 @@ public class TopAggregator
             this.valueExtractor = valueExtractor;
         }
 
+        public ValueExtractor getValueExtractor() {
+            return valueExtractor;
+        }
+
         public Object extractFromEntry(Map.Entry entry) {
             return new KeyValuePair(entry.getKey(), valueExtractor.extract(entry.getValue()));
         }
@@ -231,6 +317,15 @@ public class TopAggregator
         }
     }
 
+    /**
+     * Bounded list that retains the first <tt>maxLength</tt> elements
+     * according to the specified comparator.
+     * <p/>
+     * Elements are kept in a binary max-heap with the "worst" retained element
+     * at the root, so rejecting a candidate is a single comparison and
+     * accepting one costs O(log maxLength). Sorting happens only once, when
+     * the contents are retrieved.
+     */
     public static class SortedSizeLimitedList {
 
         private KeyValuePairComparator comparator;
@@ -238,92 +333,360 @@ public class TopAggregator
         private int maxLength;
         private int length;
 
-        private KeyValuePair head;
+        private KeyValuePair[] heap;
 
         public SortedSizeLimitedList(int maxLength, Comparator comparator) {
             this.maxLength = maxLength;
             this.comparator = new KeyValuePairComparator(comparator);
+            this.heap = new KeyValuePair[initialCapacity(maxLength)];
         }
 
-        public void add(KeyValuePair el) {
-            if (length < maxLength || comparator.compare(head.previous, el) > 0) {
-                insert(el);
+        /**
+         * Add an element to this list if it ranks within the first
+         * <tt>maxLength</tt> elements.
+         *
+         * @param el  the element to add
+         *
+         * @return <tt>true</tt> if the element was added, <tt>false</tt> if it
+         *         was rejected
+         */
+        public boolean add(KeyValuePair el) {
+            if (length < maxLength) {
+                if (length == heap.length) {
+                    heap = Arrays.copyOf(heap, grow(heap.length, maxLength));
+                }
+                heap[length] = el;
+                siftUp(length++);
+                return true;
+            }
+            if (length > 0 && comparator.compare(heap[0], el) > 0) {
+                heap[0] = el;
+                siftDown(0);
+                return true;
             }
+            return false;
         }
 
+        /**
+         * Add all elements from a list that is already sorted using the same
+         * comparator.
+         * <p/>
+         * Stops at the first rejected element, as none of the remaining
+         * elements can rank higher than it.
+         *
+         * @param elements  sorted elements to add
+         */
         public void addAll(List<KeyValuePair> elements) {
-            if (head == null || comparator.compare(head.previous, elements.get(0)) > 0) {
-                for (KeyValuePair element : elements) {
-                    add(element);
+            for (KeyValuePair element : elements) {
+                if (!add(element)) {
+                    break;
                 }
             }
         }
 
-        public List<KeyValuePair> toList() {
-            ArrayList<KeyValuePair> list = new ArrayList<KeyValuePair>(length);
-            KeyValuePair cur = head;
-            do {
-                list.add(cur);
-                cur = cur.next;
-            } while (cur != head);
+        public int size() {
+            return length;
+        }
 
-            return list;
+        public List<KeyValuePair> toList() {
+            KeyValuePair[] sorted = Arrays.copyOf(heap, length);
+            Arrays.sort(sorted, comparator);
+            return new ArrayList<KeyValuePair>(Arrays.asList(sorted));
         }
 
         public List toKeyList() {
-            ArrayList list = new ArrayList(length);
-            KeyValuePair cur = head;
-            do {
-                list.add(cur.getKey());
-                cur = cur.next;
-            } while (cur != head);
+            return TopAggregator.toKeyList(toList());
+        }
+
+        private void siftUp(int i) {
+            KeyValuePair el = heap[i];
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (comparator.compare(heap[parent], el) >= 0) {
+                    break;
+                }
+                heap[i] = heap[parent];
+                i = parent;
+            }
+            heap[i] = el;
+        }
 
-            return list;
+        private void siftDown(int i) {
+            KeyValuePair el = heap[i];
+            int half = length >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                int right = child + 1;
+                if (right < length && comparator.compare(heap[right], heap[child]) > 0) {
+                    child = right;
+                }
+                if (comparator.compare(el, heap[child]) >= 0) {
+                    break;
+                }
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = el;
         }
 
-        private void insert(KeyValuePair el) {
-            if (length == 0) {       // empty
-                head = el;
-                head.previous = head;
-                head.next = head;
+        @Override
+        public String toString() {
+            StringBuffer sb = new StringBuffer("{ length: " + length + "  ");
+            for (KeyValuePair el : toList()) {
+                sb.append(el).append(" ");
             }
-            else {                   // general case
-                KeyValuePair cur = head;
-                boolean inserted = false;
-                do {
-                    if (comparator.compare(cur, el) > 0) {
-                        cur.insertBefore(el);
-                        if (cur == head) {
-                            head = el;
-                        }
-                        inserted = true;
-                        break;
-                    }
-                    cur = cur.next;
-                } while (cur != head);
+            return sb.append(" }").toString();
+        }
+    }
+
+    /**
+     * Specialized version of {@link SortedSizeLimitedList} for <tt>long</tt>
+     * values, which keeps values in a primitive array and compares them
+     * directly instead of through a {@link KeyValuePairComparator}.
+     */
+    public static class LongSizeLimitedList {
+
+        private boolean descending;
+
+        private int maxLength;
+        private int length;
+
+        private long[] values;
+        private Object[] keys;
+
+        public LongSizeLimitedList(int maxLength, boolean descending) {
+            this.maxLength = maxLength;
+            this.descending = descending;
+            this.values = new long[initialCapacity(maxLength)];
+            this.keys = new Object[values.length];
+        }
+
+        public boolean add(Object key, long value) {
+            if (length < maxLength) {
+                if (length == values.length) {
+                    int capacity = grow(values.length, maxLength);
+                    values = Arrays.copyOf(values, capacity);
+                    keys = Arrays.copyOf(keys, capacity);
+                }
+                values[length] = value;
+                keys[length] = key;
+                siftUp(length++);
+                return true;
+            }
+            if (length > 0 && isWorse(values[0], value)) {
+                values[0] = value;
+                keys[0] = key;
+                siftDown(values, keys, 0, length);
+                return true;
+            }
+            return false;
+        }
+
+        public int size() {
+            return length;
+        }
+
+        public List<KeyValuePair> toList() {
+            long[] v = Arrays.copyOf(values, length);
+            Object[] k = Arrays.copyOf(keys, length);
+
+            // heap sort a copy: the root is always the worst remaining element
+            KeyValuePair[] sorted = new KeyValuePair[length];
+            for (int n = length - 1; n >= 0; n--) {
+                sorted[n] = new KeyValuePair(k[0], v[0]);
+                v[0] = v[n];
+                k[0] = k[n];
+                siftDown(v, k, 0, n);
+            }
+            return new ArrayList<KeyValuePair>(Arrays.asList(sorted));
+        }
+
+        private boolean isWorse(long v1, long v2) {
+            return descending ? v1 < v2 : v1 > v2;
+        }
 
-                if (!inserted) {
-                    head.insertBefore(el);
+        private void siftUp(int i) {
+            long value = values[i];
+            Object key = keys[i];
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!isWorse(value, values[parent])) {
+                    break;
                 }
+                values[i] = values[parent];
+                keys[i] = keys[parent];
+                i = parent;
             }
+            values[i] = value;
+            keys[i] = key;
+        }
 
-            if (++length > maxLength) {
-                head.previous.remove();
-                length--;
+        private void siftDown(long[] values, Object[] keys, int i, int length) {
+            long value = values[i];
+            Object key = keys[i];
+            int half = length >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                int right = child + 1;
+                if (right < length && isWorse(values[right], values[child])) {
+                    child = right;
+                }
+                if (!isWorse(values[child], value)) {
+                    break;
+                }
+                values[i] = values[child];
+                keys[i] = keys[child];
+                i = child;
             }
+            values[i] = value;
+            keys[i] = key;
         }
 
         @Override
         public String toString() {
-            StringBuffer sb = new StringBuffer("{ length: " + length + "  ");
+            return "{ length: " + length + "  " + toList() + " }";
+        }
+    }
 
-            KeyValuePair cur = head;
-            do {
-                sb.append(cur).append(" ");
-                cur = cur.next;
-            } while (cur != head);
+    /**
+     * Specialized version of {@link SortedSizeLimitedList} for <tt>double</tt>
+     * values, which keeps values in a primitive array and compares them
+     * directly instead of through a {@link KeyValuePairComparator}.
+     */
+    public static class DoubleSizeLimitedList {
 
-            return sb.append(" }").toString();
+        private boolean descending;
+
+        private int maxLength;
+        private int length;
+
+        private double[] values;
+        private Object[] keys;
+
+        public DoubleSizeLimitedList(int maxLength, boolean descending) {
+            this.maxLength = maxLength;
+            this.descending = descending;
+            this.values = new double[initialCapacity(maxLength)];
+            this.keys = new Object[values.length];
+        }
+
+        public boolean add(Object key, double value) {
+            if (length < maxLength) {
+                if (length == values.length) {
+                    int capacity = grow(values.length, maxLength);
+                    values = Arrays.copyOf(values, capacity);
+                    keys = Arrays.copyOf(keys, capacity);
+                }
+                values[length] = value;
+                keys[length] = key;
+                siftUp(length++);
+                return true;
+            }
+            if (length > 0 && isWorse(values[0], value)) {
+                values[0] = value;
+                keys[0] = key;
+                siftDown(values, keys, 0, length);
+                return true;
+            }
+            return false;
+        }
+
+        public int size() {
+            return length;
+        }
+
+        public List<KeyValuePair> toList() {
+            double[] v = Arrays.copyOf(values, length);
+            Object[] k = Arrays.copyOf(keys, length);
+
+            // heap sort a copy: the root is always the worst remaining element
+            KeyValuePair[] sorted = new KeyValuePair[length];
+            for (int n = length - 1; n >= 0; n--) {
+                sorted[n] = new KeyValuePair(k[0], v[0]);
+                v[0] = v[n];
+                k[0] = k[n];
+                siftDown(v, k, 0, n);
+            }
+            return new ArrayList<KeyValuePair>(Arrays.asList(sorted));
+        }
+
+        private boolean isWorse(double v1, double v2) {
+            int c = Double.compare(v1, v2);
+            return descending ? c < 0 : c > 0;
+        }
+
+        private void siftUp(int i) {
+            double value = values[i];
+            Object key = keys[i];
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!isWorse(value, values[parent])) {
+                    break;
+                }
+                values[i] = values[parent];
+                keys[i] = keys[parent];
+                i = parent;
+            }
+            values[i] = value;
+            keys[i] = key;
+        }
+
+        private void siftDown(double[] values, Object[] keys, int i, int length) {
+            double value = values[i];
+            Object key = keys[i];
+            int half = length >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                int right = child + 1;
+                if (right < length && isWorse(values[right], values[child])) {
+                    child = right;
+                }
+                if (!isWorse(values[child], value)) {
+                    break;
+                }
+                values[i] = values[child];
+                keys[i] = keys[child];
+                i = child;
+            }
+            values[i] = value;
+            keys[i] = key;
+        }
+
+        @Override
+        public String toString() {
+            return "{ length: " + length + "  " + toList() + " }";
+        }
+    }
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private static int initialCapacity(int maxLength) {
+        return Math.max(Math.min(maxLength, INITIAL_CAPACITY), 0);
+    }
+
+    private static int grow(int capacity, int maxLength) {
+        return (int) Math.min((long) capacity << 1, (long) maxLength);
+    }
+
+    private static class Cursor {
+        private final Iterator<KeyValuePair> iterator;
+        private KeyValuePair current;
+
+        Cursor(List<KeyValuePair> list) {
+            this.iterator = list.iterator();
+            this.current = iterator.next();
+        }
+
+        KeyValuePair current() {
+            return current;
+        }
+
+        boolean advance() {
+            if (iterator.hasNext()) {
+                current = iterator.next();
+                return true;
+            }
+            return false;
         }
     }
 }
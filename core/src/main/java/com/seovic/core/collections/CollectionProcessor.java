@@ -0,0 +1,739 @@
+/*
+ * Copyright 2009 Aleksandar Seovic
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.seovic.core.collections;
+
+
+import com.seovic.core.Factory;
+import com.seovic.core.processor.AbstractBinaryProcessor;
+import com.seovic.core.processor.BinaryPofPath;
+
+import com.tangosol.io.ReadBuffer;
+import com.tangosol.io.WriteBuffer;
+import com.tangosol.io.pof.PofConstants;
+import com.tangosol.io.pof.PofReader;
+import com.tangosol.io.pof.PofWriter;
+import com.tangosol.util.Binary;
+import com.tangosol.util.BinaryEntry;
+import com.tangosol.util.BinaryWriteBuffer;
+import com.tangosol.util.ExternalizableHelper;
+import com.tangosol.util.InvocableMap;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+
+/**
+ * Base class for entry processors that operate on a {@link PortableList} or
+ * {@link PortableSet} stored as a cache entry value.
+ * <p/>
+ * Whenever possible, the operation is performed directly against the
+ * serialized collection, so only the elements that are read or written are
+ * deserialized or serialized, and the rest of the binary value is copied as
+ * is. If the binary value is not available, or the collection is not encoded
+ * in the expected format, the processor falls back to deserializing the
+ * whole collection.
+ *
+ * @author Aleksandar Seovic  2012.07.14
+ */
+@SuppressWarnings({"unchecked"})
+public abstract class CollectionProcessor
+        extends AbstractBinaryProcessor
+        implements PofConstants {
+    // ---- constants -------------------------------------------------------
+
+    /**
+     * Result indicating that the operation could not be performed against
+     * the binary value.
+     */
+    protected static final Object NOT_HANDLED = new Object();
+
+    /**
+     * Path to the elements of PortableList and PortableSet.
+     */
+    private static final BinaryPofPath ELEMENTS = new BinaryPofPath(1);
+
+    // ---- data members ----------------------------------------------------
+
+    /**
+     * Factory used to create the collection if the entry does not exist.
+     */
+    private Factory factory;
+
+    // ---- constructors ----------------------------------------------------
+
+    /**
+     * Deserialization constructor (for internal use only).
+     */
+    protected CollectionProcessor() {
+    }
+
+    /**
+     * Construct CollectionProcessor instance.
+     *
+     * @param factory factory used to create the collection if the entry does
+     *                not exist
+     */
+    protected CollectionProcessor(Factory factory) {
+        this.factory = factory;
+    }
+
+    // ---- abstract methods ------------------------------------------------
+
+    /**
+     * Perform the operation against the serialized collection.
+     *
+     * @param entry    entry to process
+     * @param elements serialized elements of the collection
+     *
+     * @return the result of the operation, or {@link #NOT_HANDLED} if the
+     *         operation should be performed against the deserialized
+     *         collection instead
+     */
+    protected abstract Object process(BinaryEntry entry, Elements elements);
+
+    /**
+     * Perform the operation against the deserialized collection.
+     *
+     * @param collection collection to process
+     *
+     * @return the result of the operation
+     */
+    protected abstract Object process(Collection collection);
+
+    /**
+     * Return whether this processor modifies the collection.
+     *
+     * @return <tt>true</tt> if this processor modifies the collection
+     */
+    protected abstract boolean isMutator();
+
+    // ---- AbstractBinaryProcessor implementation --------------------------
+
+    @Override
+    public Object process(InvocableMap.Entry entry) {
+        if (entry instanceof BinaryEntry && getPofContext() != null) {
+            return process((BinaryEntry) entry);
+        }
+        return processObject(entry);
+    }
+
+    @Override
+    protected Object process(BinaryEntry entry) {
+        Elements elements = Elements.parse(entry.getBinaryValue());
+        if (elements != null) {
+            Object result = process(entry, elements);
+            if (result != NOT_HANDLED) {
+                return result;
+            }
+        }
+        return processObject(entry);
+    }
+
+    // ---- helper methods --------------------------------------------------
+
+    /**
+     * Perform the operation against the deserialized collection.
+     *
+     * @param entry entry to process
+     *
+     * @return the result of the operation
+     */
+    protected Object processObject(InvocableMap.Entry entry) {
+        Collection collection = (Collection) entry.getValue();
+        if (collection == null) {
+            collection = factory.create() instanceof Set
+                         ? new PortableSet(factory)
+                         : new PortableList(factory);
+        }
+
+        Object result = process(collection);
+        if (isMutator()) {
+            entry.setValue(collection);
+        }
+        return result;
+    }
+
+    /**
+     * Return whether the processed collection is a list.
+     *
+     * @return <tt>true</tt> if the collection is a list, <tt>false</tt> if
+     *         it is a set
+     */
+    protected boolean isList() {
+        return factory.create() instanceof List;
+    }
+
+    /**
+     * Return whether the serialized form of the specified value can be used
+     * to test it for equality with the serialized elements.
+     *
+     * @param value value to check
+     *
+     * @return <tt>true</tt> if the value is equal to an element if and only
+     *         if their serialized forms are equal
+     */
+    protected static boolean isBinaryComparable(Object value) {
+        if (value instanceof Integer
+            || value instanceof Long
+            || value instanceof Short) {
+            // small values of all integer types share the same compact
+            // encoding, so they cannot be told apart by the serialized form
+            long n = ((Number) value).longValue();
+            return n < -1 || n > 22;
+        }
+        return value instanceof String
+               || value instanceof Character
+               || value instanceof Boolean;
+    }
+
+    /**
+     * Serialize a single element.
+     *
+     * @param element element to serialize
+     *
+     * @return serialized element, including its type identifier
+     */
+    protected Binary toElementBinary(Object element) {
+        Binary binValue = toBinary(element);
+        return binValue.toBinary(1, binValue.length() - 1);
+    }
+
+    /**
+     * Deserialize a single element.
+     *
+     * @param binElement serialized element, including its type identifier
+     *
+     * @return deserialized element
+     */
+    protected Object fromElementBinary(Binary binElement) {
+        try {
+            BinaryWriteBuffer buf = new BinaryWriteBuffer(binElement.length() + 1);
+            WriteBuffer.BufferOutput out = buf.getBufferOutput();
+            out.writeByte(ExternalizableHelper.FMT_EXT);
+            out.writeBuffer(binElement);
+            return fromBinary(buf.toBinary());
+        }
+        catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // ---- PortableObject implementation -----------------------------------
+
+    @Override
+    public void readExternal(PofReader reader)
+            throws IOException {
+        super.readExternal(reader);
+        factory = (Factory) reader.readObject(0);
+    }
+
+    @Override
+    public void writeExternal(PofWriter writer)
+            throws IOException {
+        super.writeExternal(writer);
+        writer.writeObject(0, factory);
+    }
+
+    // ---- Elements class --------------------------------------------------
+
+    /**
+     * Serialized elements of a PortableList or PortableSet.
+     */
+    protected static class Elements {
+        private final Binary binValue;
+        private final int ofCollection;
+        private final int ofFirst;
+        private final int size;
+
+        private Elements(Binary binValue, int ofCollection, int ofFirst, int size) {
+            this.binValue     = binValue;
+            this.ofCollection = ofCollection;
+            this.ofFirst      = ofFirst;
+            this.size         = size;
+        }
+
+        /**
+         * Locate the serialized elements within the specified binary value.
+         *
+         * @param binValue serialized PortableList or PortableSet
+         *
+         * @return the elements, or <tt>null</tt> if the elements are not
+         *         encoded as a non-uniform collection
+         */
+        static Elements parse(Binary binValue) {
+            int of = ELEMENTS.seek(binValue);
+            if (of < 0) {
+                return null;
+            }
+
+            try {
+                ReadBuffer.BufferInput in = binValue.getBufferInput();
+                in.setOffset(of);
+                if (in.readPackedInt() != T_COLLECTION) {
+                    return null;
+                }
+                int size = in.readPackedInt();
+                return new Elements(binValue, of, in.getOffset(), size);
+            }
+            catch (IOException e) {
+                return null;
+            }
+        }
+
+        /**
+         * Return the number of elements.
+         *
+         * @return the number of elements
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Return the offset of the specified element.
+         *
+         * @param index index of the element; if equal to the number of
+         *              elements, the offset just past the last element is
+         *              returned
+         *
+         * @return the offset of the element
+         */
+        public int offsetOf(int index) {
+            if (index < 0 || index > size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+
+            int of = ofFirst;
+            for (int i = 0; i < index; i++) {
+                of += BinaryPofPath.getLength(binValue, of);
+            }
+            return of;
+        }
+
+        /**
+         * Return the specified element.
+         *
+         * @param index index of the element
+         *
+         * @return serialized element, including its type identifier
+         */
+        public Binary get(int index) {
+            if (index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return BinaryPofPath.extract(binValue, offsetOf(index));
+        }
+
+        /**
+         * Return the index of the first element equal to the specified one.
+         *
+         * @param binElement serialized element, including its type
+         *                   identifier
+         *
+         * @return the index of the element, or -1 if not found
+         */
+        public int indexOf(Binary binElement) {
+            int cb = binElement.length();
+            int of = ofFirst;
+            for (int i = 0; i < size; i++) {
+                int cbElement = BinaryPofPath.getLength(binValue, of);
+                if (cbElement == cb && binValue.toBinary(of, cb).equals(binElement)) {
+                    return i;
+                }
+                of += cbElement;
+            }
+            return -1;
+        }
+
+        /**
+         * Return a copy of the binary value with the specified element
+         * inserted.
+         *
+         * @param index      index to insert the element at
+         * @param binElement serialized element, including its type
+         *                   identifier
+         *
+         * @return the updated binary value
+         */
+        public Binary insert(int index, Binary binElement) {
+            return splice(offsetOf(index), 0, binElement, size + 1);
+        }
+
+        /**
+         * Return a copy of the binary value with the specified element
+         * removed.
+         *
+         * @param index index of the element to remove
+         *
+         * @return the updated binary value
+         */
+        public Binary remove(int index) {
+            if (index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            int of = offsetOf(index);
+            return splice(of, BinaryPofPath.getLength(binValue, of), null, size - 1);
+        }
+
+        /**
+         * Replace the specified range of the binary value and update the
+         * collection size.
+         */
+        private Binary splice(int of, int cbRemove, Binary binInsert, int newSize) {
+            try {
+                int cbInsert = binInsert == null ? 0 : binInsert.length();
+                BinaryWriteBuffer buf = new BinaryWriteBuffer(binValue.length() + cbInsert + 5);
+                WriteBuffer.BufferOutput out = buf.getBufferOutput();
+                out.writeBuffer(binValue, 0, ofCollection);
+                out.writePackedInt(T_COLLECTION);
+                out.writePackedInt(newSize);
+                out.writeBuffer(binValue, ofFirst, of - ofFirst);
+                if (binInsert != null) {
+                    out.writeBuffer(binInsert);
+                }
+                out.writeBuffer(binValue, of + cbRemove, binValue.length() - of - cbRemove);
+                return buf.toBinary();
+            }
+            catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+
+    // ---- Size class ------------------------------------------------------
+
+    /**
+     * Return the number of elements in the collection.
+     */
+    public static class Size extends CollectionProcessor {
+        public Size() {
+        }
+
+        public Size(Factory factory) {
+            super(factory);
+        }
+
+        @Override
+        protected Object process(BinaryEntry entry, Elements elements) {
+            return elements.size();
+        }
+
+        @Override
+        protected Object process(Collection collection) {
+            return collection.size();
+        }
+
+        @Override
+        protected boolean isMutator() {
+            return false;
+        }
+    }
+
+    // ---- Contains class --------------------------------------------------
+
+    /**
+     * Return whether the collection contains the specified element.
+     */
+    public static class Contains extends CollectionProcessor {
+        private Object value;
+
+        public Contains() {
+        }
+
+        public Contains(Factory factory, Object value) {
+            super(factory);
+            this.value = value;
+        }
+
+        @Override
+        protected Object process(BinaryEntry entry, Elements elements) {
+            if (isList() && isBinaryComparable(value)) {
+                return elements.indexOf(toElementBinary(value)) >= 0;
+            }
+            return NOT_HANDLED;
+        }
+
+        @Override
+        protected Object process(Collection collection) {
+            return collection.contains(value);
+        }
+
+        @Override
+        protected boolean isMutator() {
+            return false;
+        }
+
+        @Override
+        public void readExternal(PofReader reader) throws IOException {
+            super.readExternal(reader);
+            value = reader.readObject(1);
+        }
+
+        @Override
+        public void writeExternal(PofWriter writer) throws IOException {
+            super.writeExternal(writer);
+            writer.writeObject(1, value);
+        }
+    }
+
+    // ---- Get class -------------------------------------------------------
+
+    /**
+     * Return the list element at the specified index.
+     */
+    public static class Get extends CollectionProcessor {
+        private int index;
+
+        public Get() {
+        }
+
+        public Get(Factory factory, int index) {
+            super(factory);
+            this.index = index;
+        }
+
+        @Override
+        protected Object process(BinaryEntry entry, Elements elements) {
+            return fromElementBinary(elements.get(index));
+        }
+
+        @Override
+        protected Object process(Collection collection) {
+            return ((List) collection).get(index);
+        }
+
+        @Override
+        protected boolean isMutator() {
+            return false;
+        }
+
+        @Override
+        public void readExternal(PofReader reader) throws IOException {
+            super.readExternal(reader);
+            index = reader.readInt(1);
+        }
+
+        @Override
+        public void writeExternal(PofWriter writer) throws IOException {
+            super.writeExternal(writer);
+            writer.writeInt(1, index);
+        }
+    }
+
+    // ---- Append class ----------------------------------------------------
+
+    /**
+     * Add the specified element to the collection.
+     * <p/>
+     * Elements are appended to lists without deserializing them. Sets need
+     * to be deserialized in order to check whether they already contain the
+     * element.
+     */
+    public static class Append extends CollectionProcessor {
+        private Object value;
+
+        public Append() {
+        }
+
+        public Append(Factory factory, Object value) {
+            super(factory);
+            this.value = value;
+        }
+
+        @Override
+        protected Object process(BinaryEntry entry, Elements elements) {
+            if (isList()) {
+                entry.updateBinaryValue(elements.insert(elements.size(), toElementBinary(value)));
+                return true;
+            }
+            return NOT_HANDLED;
+        }
+
+        @Override
+        protected Object process(Collection collection) {
+            return collection.add(value);
+        }
+
+        @Override
+        protected boolean isMutator() {
+            return true;
+        }
+
+        @Override
+        public void readExternal(PofReader reader) throws IOException {
+            super.readExternal(reader);
+            value = reader.readObject(1);
+        }
+
+        @Override
+        public void writeExternal(PofWriter writer) throws IOException {
+            super.writeExternal(writer);
+            writer.writeObject(1, value);
+        }
+    }
+
+    // ---- InsertAt class --------------------------------------------------
+
+    /**
+     * Insert the specified element into the list at the specified index.
+     */
+    public static class InsertAt extends CollectionProcessor {
+        private int index;
+        private Object value;
+
+        public InsertAt() {
+        }
+
+        public InsertAt(Factory factory, int index, Object value) {
+            super(factory);
+            this.index = index;
+            this.value = value;
+        }
+
+        @Override
+        protected Object process(BinaryEntry entry, Elements elements) {
+            entry.updateBinaryValue(elements.insert(index, toElementBinary(value)));
+            return null;
+        }
+
+        @Override
+        protected Object process(Collection collection) {
+            ((List) collection).add(index, value);
+            return null;
+        }
+
+        @Override
+        protected boolean isMutator() {
+            return true;
+        }
+
+        @Override
+        public void readExternal(PofReader reader) throws IOException {
+            super.readExternal(reader);
+            index = reader.readInt(1);
+            value = reader.readObject(2);
+        }
+
+        @Override
+        public void writeExternal(PofWriter writer) throws IOException {
+            super.writeExternal(writer);
+            writer.writeInt(1, index);
+            writer.writeObject(2, value);
+        }
+    }
+
+    // ---- RemoveAt class --------------------------------------------------
+
+    /**
+     * Remove the list element at the specified index and return it.
+     */
+    public static class RemoveAt extends CollectionProcessor {
+        private int index;
+
+        public RemoveAt() {
+        }
+
+        public RemoveAt(Factory factory, int index) {
+            super(factory);
+            this.index = index;
+        }
+
+        @Override
+        protected Object process(BinaryEntry entry, Elements elements) {
+            Binary binRemoved = elements.get(index);
+            entry.updateBinaryValue(elements.remove(index));
+            return fromElementBinary(binRemoved);
+        }
+
+        @Override
+        protected Object process(Collection collection) {
+            return ((List) collection).remove(index);
+        }
+
+        @Override
+        protected boolean isMutator() {
+            return true;
+        }
+
+        @Override
+        public void readExternal(PofReader reader) throws IOException {
+            super.readExternal(reader);
+            index = reader.readInt(1);
+        }
+
+        @Override
+        public void writeExternal(PofWriter writer) throws IOException {
+            super.writeExternal(writer);
+            writer.writeInt(1, index);
+        }
+    }
+
+    // ---- Remove class ----------------------------------------------------
+
+    /**
+     * Remove the specified element from the collection.
+     */
+    public static class Remove extends CollectionProcessor {
+        private Object value;
+
+        public Remove() {
+        }
+
+        public Remove(Factory factory, Object value) {
+            super(factory);
+            this.value = value;
+        }
+
+        @Override
+        protected Object process(BinaryEntry entry, Elements elements) {
+            if (isList() && isBinaryComparable(value)) {
+                int index = elements.indexOf(toElementBinary(value));
+                if (index < 0) {
+                    return false;
+                }
+                entry.updateBinaryValue(elements.remove(index));
+                return true;
+            }
+            return NOT_HANDLED;
+        }
+
+        @Override
+        protected Object process(Collection collection) {
+            return collection.remove(value);
+        }
+
+        @Override
+        protected boolean isMutator() {
+            return true;
+        }
+
+        @Override
+        public void readExternal(PofReader reader) throws IOException {
+            super.readExternal(reader);
+            value = reader.readObject(1);
+        }
+
+        @Override
+        public void writeExternal(PofWriter writer) throws IOException {
+            super.writeExternal(writer);
+            writer.writeObject(1, value);
+        }
+    }
+}
@@ -23,6 +23,7 @@ import com.tangosol.io.pof.PofReader;
 import com.tangosol.io.pof.PofWriter;
 import com.tangosol.io.pof.PortableObject;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
@@ -138,6 +139,42 @@ public class PortableList<E> implements List<E>, PortableObject {
         return remove(i);
     }
 
+    /**
+     * Return a copy of the specified range of elements.
+     *
+     * @param start  the index of the first element to return
+     * @param count  the maximum number of elements to return
+     *
+     * @return a list of at most <tt>count</tt> elements, starting at the
+     *         specified index
+     */
+    public List<E> getPage(int start, int count) {
+        int end = Math.min(start + count, delegate.size());
+        return new ArrayList<E>(delegate.subList(start, Math.max(start, end)));
+    }
+
+    /**
+     * Replace the specified range of elements with the given elements, if
+     * the range still contains the expected elements.
+     *
+     * @param start     the index of the first element to replace
+     * @param expected  the elements the range is expected to contain
+     * @param elements  the replacement elements
+     *
+     * @return <tt>true</tt> if the range was replaced, <tt>false</tt> if it
+     *         no longer contains the expected elements
+     */
+    public boolean replacePage(int start, List<?> expected, Collection<? extends E> elements) {
+        int end = start + expected.size();
+        if (start < 0 || end > delegate.size()
+            || !delegate.subList(start, end).equals(expected)) {
+            return false;
+        }
+        delegate.subList(start, end).clear();
+        delegate.addAll(start, elements);
+        return true;
+    }
+
 
     // ---- PortableObject implementation -----------------------------------
 
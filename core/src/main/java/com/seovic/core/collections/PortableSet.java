@@ -23,8 +23,10 @@ import com.tangosol.io.pof.PofReader;
 import com.tangosol.io.pof.PofWriter;
 import com.tangosol.io.pof.PortableObject;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 
 
@@ -112,6 +114,30 @@ public class PortableSet<E> implements Set<E>, PortableObject {
     }
 
 
+    // ---- helper methods --------------------------------------------------
+
+    /**
+     * Return a copy of the specified range of elements, in iteration order.
+     *
+     * @param start  the position of the first element to return
+     * @param count  the maximum number of elements to return
+     *
+     * @return a list of at most <tt>count</tt> elements, starting at the
+     *         specified position
+     */
+    public List<E> getPage(int start, int count) {
+        List<E> page = new ArrayList<E>(Math.min(count, delegate.size()));
+        Iterator<E> it = delegate.iterator();
+        for (int i = 0; i < start && it.hasNext(); i++) {
+            it.next();
+        }
+        while (it.hasNext() && page.size() < count) {
+            page.add(it.next());
+        }
+        return page;
+    }
+
+
     // ---- PortableObject implementation -----------------------------------
 
     @Override
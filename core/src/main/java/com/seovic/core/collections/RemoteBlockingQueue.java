@@ -0,0 +1,179 @@
+/*
+ * Copyright 2009 Aleksandar Seovic
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.seovic.core.collections;
+
+
+import com.tangosol.net.CacheFactory;
+import com.tangosol.net.NamedCache;
+import com.tangosol.util.MapEvent;
+import com.tangosol.util.MapListener;
+import com.tangosol.util.MultiplexingMapListener;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Unbounded blocking queue that stores its elements in a cache.
+ * <p/>
+ * Consumers waiting for an element do not poll the cache. Instead, they
+ * are notified by a listener registered for the queue's head entry
+ * whenever the queue changes, and only then retry to take an element.
+ * This allows the queue to be used as a cluster-wide work queue.
+ * <p/>
+ * Because events can be lost, for example during partition failover or
+ * when an Extend client reconnects, waiting consumers also retry after
+ * each poll interval (see {@link #setPollInterval(long)}) without being
+ * notified.
+ * <p/>
+ * The listener is registered when the queue is created, and should be
+ * unregistered by calling {@link #release()} once the queue is no longer
+ * needed.
+ *
+ * @author Aleksandar Seovic  2012.08.04
+ */
+public class RemoteBlockingQueue<E>
+        extends RemoteDeque<E>
+        implements BlockingQueue<E> {
+    public static final long DEFAULT_POLL_INTERVAL = 1000L;
+
+    private final Object monitor = new Object();
+    private long changeCount;
+    private volatile long pollInterval = DEFAULT_POLL_INTERVAL;
+
+    private final MapListener listener = new MultiplexingMapListener() {
+        @Override
+        protected void onMapEvent(MapEvent evt) {
+            synchronized (monitor) {
+                changeCount++;
+                monitor.notifyAll();
+            }
+        }
+    };
+
+    public RemoteBlockingQueue(String cacheName, Object key) {
+        this(CacheFactory.getCache(cacheName), key);
+    }
+
+    public RemoteBlockingQueue(NamedCache cache, Object key) {
+        super(cache, key);
+        cache.addMapListener(listener, key, true);
+    }
+
+
+    // ---- properties ------------------------------------------------------
+
+    /**
+     * Return the maximum time consumers wait for a change notification
+     * before they check the queue again.
+     *
+     * @return the poll interval in milliseconds
+     */
+    public long getPollInterval() {
+        return pollInterval;
+    }
+
+    /**
+     * Set the maximum time consumers wait for a change notification before
+     * they check the queue again.
+     *
+     * @param pollInterval  the poll interval in milliseconds
+     */
+    public void setPollInterval(long pollInterval) {
+        if (pollInterval <= 0L) {
+            throw new IllegalArgumentException("Poll interval must be positive");
+        }
+        this.pollInterval = pollInterval;
+    }
+
+
+    // ---- BlockingQueue implementation ------------------------------------
+
+    public void put(E e) {
+        offer(e);
+    }
+
+    public boolean offer(E e, long timeout, TimeUnit unit) {
+        return offer(e);
+    }
+
+    public E take() throws InterruptedException {
+        while (true) {
+            long count = getChangeCount();
+            E e = poll();
+            if (e != null) {
+                return e;
+            }
+            awaitChange(count, pollInterval);
+        }
+    }
+
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + unit.toMillis(timeout);
+        while (true) {
+            long count = getChangeCount();
+            E e = poll();
+            if (e != null) {
+                return e;
+            }
+
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0L) {
+                return null;
+            }
+            awaitChange(count, Math.min(remaining, pollInterval));
+        }
+    }
+
+    public int remainingCapacity() {
+        return Integer.MAX_VALUE;
+    }
+
+
+    // ---- lifecycle -------------------------------------------------------
+
+    /**
+     * Unregister the listener used to wait for new elements.
+     */
+    public void release() {
+        getCache().removeMapListener(listener, getKey());
+    }
+
+
+    // ---- helper methods --------------------------------------------------
+
+    private long getChangeCount() {
+        synchronized (monitor) {
+            return changeCount;
+        }
+    }
+
+    /**
+     * Wait until the queue changes after the specified change count was
+     * observed, or the timeout expires.
+     *
+     * @param count    the last observed change count
+     * @param timeout  the maximum time to wait in milliseconds
+     */
+    private void awaitChange(long count, long timeout) throws InterruptedException {
+        synchronized (monitor) {
+            if (changeCount == count) {
+                monitor.wait(timeout);
+            }
+        }
+    }
+}
@@ -0,0 +1,625 @@
+/*
+ * Copyright 2009 Aleksandar Seovic
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.seovic.core.collections;
+
+
+import com.tangosol.io.pof.PofReader;
+import com.tangosol.io.pof.PofWriter;
+import com.tangosol.io.pof.PortableObject;
+import com.tangosol.net.CacheFactory;
+import com.tangosol.net.NamedCache;
+import com.tangosol.net.cache.KeyAssociation;
+import com.tangosol.util.Binary;
+import com.tangosol.util.BinaryEntry;
+import com.tangosol.util.InvocableMap;
+import com.tangosol.util.processor.AbstractProcessor;
+
+import java.io.IOException;
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+
+/**
+ * Double-ended queue that stores its elements in a cache.
+ * <p/>
+ * Each element is stored in a separate cache entry, and the head entry keeps
+ * track of the positions of the first and the last element. The element
+ * keys are associated with the head entry's key, which allows the elements
+ * to be added and removed by a single entry processor executed against the
+ * head entry, so the cost of each operation depends only on the number of
+ * elements it adds or removes, and not on the size of the queue.
+ * <p/>
+ * Elements can be added and removed at either end only. Iterators are weakly
+ * consistent: they traverse the elements that were in the queue when the
+ * iterator was created, skipping the ones removed in the meantime, and do
+ * not support removal.
+ * <p/>
+ * Positions are never reused, even after the queue is emptied or cleared,
+ * so that an iterator never returns elements added after it was created.
+ * The head entry is therefore kept when the queue is cleared, and should
+ * only be removed directly once the queue is no longer used.
+ *
+ * @author Aleksandar Seovic  2012.08.04
+ */
+@SuppressWarnings({"unchecked"})
+public class RemoteDeque<E> extends AbstractQueue<E> implements Deque<E> {
+    public static final int DEFAULT_PAGE_SIZE = 1000;
+
+    private final NamedCache cache;
+    private final Object key;
+    private volatile int pageSize = DEFAULT_PAGE_SIZE;
+
+    public RemoteDeque(String cacheName, Object key) {
+        this(CacheFactory.getCache(cacheName), key);
+    }
+
+    public RemoteDeque(NamedCache cache, Object key) {
+        this.cache = cache;
+        this.key   = key;
+    }
+
+
+    // ---- properties ------------------------------------------------------
+
+    /**
+     * Return the number of elements fetched by a single iterator round trip.
+     *
+     * @return the page size
+     */
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Set the number of elements fetched by a single iterator round trip.
+     *
+     * @param pageSize  the page size
+     */
+    public void setPageSize(int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        this.pageSize = pageSize;
+    }
+
+
+    // ---- Queue implementation --------------------------------------------
+
+    @Override
+    public int size() {
+        Header header = (Header) cache.get(key);
+        return header == null ? 0 : header.size();
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new RemoteDequeIterator(false);
+    }
+
+    @Override
+    public boolean offer(E e) {
+        return offerLast(e);
+    }
+
+    @Override
+    public E poll() {
+        return pollFirst();
+    }
+
+    @Override
+    public E peek() {
+        return peekFirst();
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends E> c) {
+        if (c == this) {
+            throw new IllegalArgumentException("Cannot add a queue to itself");
+        }
+        return offerAll(c);
+    }
+
+    @Override
+    public void clear() {
+        cache.invoke(key, new Clear());
+    }
+
+
+    // ---- Deque implementation --------------------------------------------
+
+    public void addFirst(E e) {
+        offerFirst(e);
+    }
+
+    public void addLast(E e) {
+        offerLast(e);
+    }
+
+    public boolean offerFirst(E e) {
+        return offer(true, Collections.singletonList(e));
+    }
+
+    public boolean offerLast(E e) {
+        return offer(false, Collections.singletonList(e));
+    }
+
+    public E removeFirst() {
+        return ensureElement(pollFirst());
+    }
+
+    public E removeLast() {
+        return ensureElement(pollLast());
+    }
+
+    public E pollFirst() {
+        return first(poll(true, 1, true));
+    }
+
+    public E pollLast() {
+        return first(poll(false, 1, true));
+    }
+
+    public E getFirst() {
+        return ensureElement(peekFirst());
+    }
+
+    public E getLast() {
+        return ensureElement(peekLast());
+    }
+
+    public E peekFirst() {
+        return first(poll(true, 1, false));
+    }
+
+    public E peekLast() {
+        return first(poll(false, 1, false));
+    }
+
+    public boolean removeFirstOccurrence(Object o) {
+        throw new UnsupportedOperationException("Elements can only be removed from either end of the queue.");
+    }
+
+    public boolean removeLastOccurrence(Object o) {
+        throw new UnsupportedOperationException("Elements can only be removed from either end of the queue.");
+    }
+
+    public void push(E e) {
+        addFirst(e);
+    }
+
+    public E pop() {
+        return removeFirst();
+    }
+
+    public Iterator<E> descendingIterator() {
+        return new RemoteDequeIterator(true);
+    }
+
+
+    // ---- batch operations ------------------------------------------------
+
+    /**
+     * Add all of the specified elements to the tail of this queue, using a
+     * single entry processor call.
+     *
+     * @param elements  the elements to add
+     *
+     * @return <tt>true</tt> if the queue changed as a result of this call
+     */
+    public boolean offerAll(Collection<? extends E> elements) {
+        return !elements.isEmpty() && offer(false, elements);
+    }
+
+    /**
+     * Remove all elements from this queue and add them to the specified
+     * collection, using a single entry processor call.
+     *
+     * @param c  the collection to add the elements to
+     *
+     * @return the number of elements transferred
+     */
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Remove at most the specified number of elements from the head of this
+     * queue and add them to the specified collection, using a single entry
+     * processor call.
+     *
+     * @param c            the collection to add the elements to
+     * @param maxElements  the maximum number of elements to transfer
+     *
+     * @return the number of elements transferred
+     */
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        if (c == this) {
+            throw new IllegalArgumentException("Cannot drain a queue into itself");
+        }
+        if (maxElements <= 0) {
+            return 0;
+        }
+
+        List<E> elements = poll(true, maxElements, true);
+        c.addAll(elements);
+        return elements.size();
+    }
+
+
+    // ---- helper methods --------------------------------------------------
+
+    protected NamedCache getCache() {
+        return cache;
+    }
+
+    protected Object getKey() {
+        return key;
+    }
+
+    private boolean offer(boolean first, Collection<? extends E> elements) {
+        for (E e : elements) {
+            checkElement(e);
+        }
+        cache.invoke(key, new Offer(first, new ArrayList<E>(elements)));
+        return true;
+    }
+
+    private List<E> poll(boolean first, int maxElements, boolean remove) {
+        return (List<E>) cache.invoke(key, new Poll(first, maxElements, remove));
+    }
+
+    private static void checkElement(Object e) {
+        if (e == null) {
+            throw new NullPointerException("Queue elements cannot be null");
+        }
+    }
+
+    private static <E> E first(List<E> elements) {
+        return elements.isEmpty() ? null : elements.get(0);
+    }
+
+    private static <E> E ensureElement(E e) {
+        if (e == null) {
+            throw new NoSuchElementException();
+        }
+        return e;
+    }
+
+
+    // ---- RemoteDequeIterator class ---------------------------------------
+
+    private class RemoteDequeIterator implements Iterator<E> {
+        private final boolean descending;
+        private final long head;
+        private final long tail;
+        private long position;
+        private Iterator<E> page = Collections.<E>emptyList().iterator();
+
+        public RemoteDequeIterator(boolean descending) {
+            Header header = (Header) cache.get(key);
+            this.descending = descending;
+            this.head       = header == null ? 0 : header.head;
+            this.tail       = header == null ? 0 : header.tail;
+            this.position   = descending ? tail : head;
+        }
+
+        public boolean hasNext() {
+            while (!page.hasNext() && (descending ? position > head : position < tail)) {
+                fetch();
+            }
+            return page.hasNext();
+        }
+
+        public E next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return page.next();
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException("Elements can only be removed from either end of the queue.");
+        }
+
+        private void fetch() {
+            int count = (int) Math.min(pageSize, descending ? position - head : tail - position);
+            List<ElementKey> keys = new ArrayList<ElementKey>(count);
+            for (int i = 0; i < count; i++) {
+                keys.add(new ElementKey(key, descending ? --position : position++));
+            }
+
+            Map<ElementKey, E> elements = cache.getAll(keys);
+            List<E> result = new ArrayList<E>(elements.size());
+            for (ElementKey elementKey : keys) {
+                E e = elements.get(elementKey);
+                if (e != null) {
+                    result.add(e);
+                }
+            }
+            page = result.iterator();
+        }
+    }
+
+
+    // ---- Header class ----------------------------------------------------
+
+    /**
+     * Head entry value that keeps track of the positions of the first and
+     * the last element.
+     */
+    public static class Header implements PortableObject {
+        private long head;
+        private long tail;
+
+        public Header() {
+        }
+
+        /**
+         * Return the number of elements in the queue.
+         *
+         * @return the number of elements
+         */
+        public int size() {
+            return (int) Math.min(tail - head, Integer.MAX_VALUE);
+        }
+
+        @Override
+        public void readExternal(PofReader reader) throws IOException {
+            head = reader.readLong(0);
+            tail = reader.readLong(1);
+        }
+
+        @Override
+        public void writeExternal(PofWriter writer) throws IOException {
+            writer.writeLong(0, head);
+            writer.writeLong(1, tail);
+        }
+    }
+
+
+    // ---- ElementKey class ------------------------------------------------
+
+    /**
+     * Key of a queue element, associated with the key of the head entry.
+     */
+    public static class ElementKey implements KeyAssociation, PortableObject {
+        private Object key;
+        private long position;
+
+        public ElementKey() {
+        }
+
+        public ElementKey(Object key, long position) {
+            this.key      = key;
+            this.position = position;
+        }
+
+        @Override
+        public Object getAssociatedKey() {
+            return key;
+        }
+
+        @Override
+        public void readExternal(PofReader reader) throws IOException {
+            key      = reader.readObject(0);
+            position = reader.readLong(1);
+        }
+
+        @Override
+        public void writeExternal(PofWriter writer) throws IOException {
+            writer.writeObject(0, key);
+            writer.writeLong(1, position);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+
+            ElementKey that = (ElementKey) o;
+            return position == that.position && key.equals(that.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * key.hashCode() + (int) (position ^ (position >>> 32));
+        }
+
+        @Override
+        public String toString() {
+            return "ElementKey{key=" + key + ", position=" + position + '}';
+        }
+    }
+
+
+    // ---- DequeProcessor class --------------------------------------------
+
+    /**
+     * Base class for processors that execute against the head entry.
+     */
+    protected abstract static class DequeProcessor
+            extends AbstractProcessor
+            implements PortableObject {
+        protected abstract Object process(BinaryEntry entry, Header header);
+
+        @Override
+        public Object process(InvocableMap.Entry entry) {
+            Header header = (Header) entry.getValue();
+            return process((BinaryEntry) entry, header == null ? new Header() : header);
+        }
+
+        /**
+         * Return the backing map entry for the element at the specified
+         * position.
+         */
+        protected InvocableMap.Entry getElementEntry(BinaryEntry entry, long position) {
+            Object key = new ElementKey(entry.getKey(), position);
+            Binary binKey = (Binary) entry.getContext().getKeyToInternalConverter().convert(key);
+            return entry.getBackingMapContext().getBackingMapEntry(binKey);
+        }
+
+        /**
+         * Store the updated header.
+         */
+        protected void updateHeader(BinaryEntry entry, Header header) {
+            entry.setValue(header);
+        }
+    }
+
+
+    // ---- Offer class -----------------------------------------------------
+
+    /**
+     * Add elements to either end of the queue.
+     */
+    public static class Offer extends DequeProcessor {
+        private boolean first;
+        private Collection elements;
+
+        public Offer() {
+        }
+
+        public Offer(boolean first, Collection elements) {
+            this.first    = first;
+            this.elements = elements;
+        }
+
+        @Override
+        protected Object process(BinaryEntry entry, Header header) {
+            for (Object e : elements) {
+                long position = first ? --header.head : header.tail++;
+                getElementEntry(entry, position).setValue(e);
+            }
+            updateHeader(entry, header);
+            return null;
+        }
+
+        @Override
+        public void readExternal(PofReader reader) throws IOException {
+            first    = reader.readBoolean(0);
+            elements = reader.readCollection(1, new ArrayList());
+        }
+
+        @Override
+        public void writeExternal(PofWriter writer) throws IOException {
+            writer.writeBoolean(0, first);
+            writer.writeCollection(1, elements);
+        }
+    }
+
+
+    // ---- Poll class ------------------------------------------------------
+
+    /**
+     * Return, and optionally remove, elements from either end of the queue.
+     */
+    public static class Poll extends DequeProcessor {
+        private boolean first;
+        private int maxElements;
+        private boolean remove;
+
+        public Poll() {
+        }
+
+        public Poll(boolean first, int maxElements, boolean remove) {
+            this.first       = first;
+            this.maxElements = maxElements;
+            this.remove      = remove;
+        }
+
+        @Override
+        protected Object process(BinaryEntry entry, Header header) {
+            int count = Math.min(maxElements, header.size());
+            List result = new ArrayList(count);
+            for (int i = 0; i < count; i++) {
+                long position = first ? header.head + i : header.tail - 1 - i;
+                InvocableMap.Entry element = getElementEntry(entry, position);
+                result.add(element.getValue());
+                if (remove) {
+                    element.remove(false);
+                }
+            }
+
+            if (remove && count > 0) {
+                if (first) {
+                    header.head += count;
+                }
+                else {
+                    header.tail -= count;
+                }
+                updateHeader(entry, header);
+            }
+            return result;
+        }
+
+        @Override
+        public void readExternal(PofReader reader) throws IOException {
+            first       = reader.readBoolean(0);
+            maxElements = reader.readInt(1);
+            remove      = reader.readBoolean(2);
+        }
+
+        @Override
+        public void writeExternal(PofWriter writer) throws IOException {
+            writer.writeBoolean(0, first);
+            writer.writeInt(1, maxElements);
+            writer.writeBoolean(2, remove);
+        }
+    }
+
+
+    // ---- Clear class -----------------------------------------------------
+
+    /**
+     * Remove all elements from the queue.
+     */
+    public static class Clear extends DequeProcessor {
+        public Clear() {
+        }
+
+        @Override
+        protected Object process(BinaryEntry entry, Header header) {
+            if (header.head != header.tail) {
+                for (long position = header.head; position < header.tail; position++) {
+                    getElementEntry(entry, position).remove(false);
+                }
+                header.head = header.tail;
+                updateHeader(entry, header);
+            }
+            return null;
+        }
+
+        @Override
+        public void readExternal(PofReader reader) throws IOException {
+        }
+
+        @Override
+        public void writeExternal(PofWriter writer) throws IOException {
+        }
+    }
+}
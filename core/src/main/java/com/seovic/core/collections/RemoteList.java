@@ -25,24 +25,59 @@ import com.tangosol.io.pof.PofReader;
 import com.tangosol.io.pof.PofWriter;
 import com.tangosol.net.CacheFactory;
 import com.tangosol.net.NamedCache;
+import com.tangosol.util.BinaryEntry;
 import com.tangosol.util.InvocableMap;
 
+import java.io.Closeable;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
 
 /**
+ * List implementation that stores its elements in a cache entry and executes
+ * all operations against it using entry processors.
+ * <p/>
+ * Iterators and bulk reads fetch the elements a page at a time, and buffer
+ * the changes made through a {@link ListIterator} locally until the iterator
+ * moves to another page, reaches either end of the list, or another
+ * operation is invoked on this list. An iterator that is abandoned before
+ * reaching the end of the list keeps its pending changes until the next
+ * operation on this list writes them, so it should be flushed or closed
+ * explicitly (see {@link RemoteListIterator#close()}) if the changes have
+ * to be visible to others right away.
+ * <p/>
+ * The changes are written back only if the page they were made to has not
+ * been modified by someone else since it was fetched; otherwise the
+ * iterator fails with a {@link ConcurrentModificationException}.
+ * <p/>
+ * Large lists can be stored in segmented mode, in which the elements are
+ * split into segments stored in separate cache entries, and a single
+ * operation only reads and updates the segments it affects. See
+ * {@link SegmentedList} for details. Segmented lists should be removed
+ * using {@link #clear()}, as removing the head entry directly leaves the
+ * segment entries behind.
+ *
  * @author Aleksandar Seovic  2010.11.06
  */
 @SuppressWarnings({"unchecked", "SuspiciousToArrayCall"})
 public class RemoteList<E> implements List<E> {
+    public static final int DEFAULT_PAGE_SIZE = 1000;
+
     private final NamedCache cache;
     private final Object key;
     private final Factory<List<E>> listFactory;
+    private final int segmentSize;
+    private final Set<RemoteListIterator> dirtyIterators =
+            new LinkedHashSet<RemoteListIterator>();
+    private volatile int pageSize = DEFAULT_PAGE_SIZE;
 
     public RemoteList(String cacheName, Object key) {
         this(cacheName, key, new ArrayListFactory<E>());
@@ -57,9 +92,63 @@ public class RemoteList<E> implements List<E> {
     }
 
     public RemoteList(NamedCache cache, Object key, Factory<List<E>> listFactory) {
+        this(cache, key, listFactory, 0);
+    }
+
+    /**
+     * Construct RemoteList instance.
+     *
+     * @param cacheName    the name of the cache to store the list in
+     * @param key          the key of the list
+     * @param listFactory  factory used to create the list
+     * @param segmentSize  the maximum number of elements per segment, or
+     *                     zero to store the whole list in a single entry
+     */
+    public RemoteList(String cacheName, Object key, Factory<List<E>> listFactory, int segmentSize) {
+        this(CacheFactory.getCache(cacheName), key, listFactory, segmentSize);
+    }
+
+    /**
+     * Construct RemoteList instance.
+     *
+     * @param cache        the cache to store the list in
+     * @param key          the key of the list
+     * @param listFactory  factory used to create the list
+     * @param segmentSize  the maximum number of elements per segment, or
+     *                     zero to store the whole list in a single entry
+     */
+    public RemoteList(NamedCache cache, Object key, Factory<List<E>> listFactory, int segmentSize) {
+        if (segmentSize < 0) {
+            throw new IllegalArgumentException("Segment size must not be negative");
+        }
         this.cache = cache;
         this.key   = key;
         this.listFactory = listFactory;
+        this.segmentSize = segmentSize;
+    }
+
+
+    // ---- properties ------------------------------------------------------
+
+    /**
+     * Return the number of elements fetched by a single iterator round trip.
+     *
+     * @return the page size
+     */
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Set the number of elements fetched by a single iterator round trip.
+     *
+     * @param pageSize  the page size
+     */
+    public void setPageSize(int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        this.pageSize = pageSize;
     }
 
 
@@ -67,42 +156,42 @@ public class RemoteList<E> implements List<E> {
 
     @Override
     public int size() {
-        return (Integer) remoteInvoke("size", false);
+        return (Integer) remoteInvoke(new CollectionProcessor.Size(listFactory), "size");
     }
 
     @Override
     public boolean isEmpty() {
-        return (Boolean) remoteInvoke("isEmpty", false);
+        return size() == 0;
     }
 
     @Override
     public boolean contains(Object o) {
-        return (Boolean) remoteInvoke("contains", false, o);
+        return (Boolean) remoteInvoke(new CollectionProcessor.Contains(listFactory, o), "contains", o);
     }
 
     @Override
-    public Iterator<E> iterator() {
+    public RemoteListIterator iterator() {
         return listIterator(0);
     }
 
     @Override
     public Object[] toArray() {
-        return remoteList().toArray();
+        return fetchAll().toArray();
     }
 
     @Override
     public <T> T[] toArray(T[] ts) {
-        return remoteList().toArray(ts);
+        return fetchAll().toArray(ts);
     }
 
     @Override
     public boolean add(E e) {
-        return (Boolean) remoteInvoke("add", true, e);
+        return (Boolean) remoteInvoke(new CollectionProcessor.Append(listFactory, e), "add", e);
     }
 
     @Override
     public boolean remove(Object o) {
-        return (Boolean) remoteInvoke("remove", true, o);
+        return (Boolean) remoteInvoke(new CollectionProcessor.Remove(listFactory, o), "remove", o);
     }
 
     @Override
@@ -137,7 +226,7 @@ public class RemoteList<E> implements List<E> {
 
     @Override
     public E get(int i) {
-        return (E) remoteInvoke("get", false, i);
+        return (E) remoteInvoke(new CollectionProcessor.Get(listFactory, i), "get", i);
     }
 
     @Override
@@ -147,12 +236,12 @@ public class RemoteList<E> implements List<E> {
 
     @Override
     public void add(int i, E e) {
-        remoteInvoke("add", true, i, e);
+        remoteInvoke(new CollectionProcessor.InsertAt(listFactory, i, e), "add", i, e);
     }
 
     @Override
     public E remove(int i) {
-        return (E) remoteInvoke("removeByIndex", true, i);
+        return (E) remoteInvoke(new CollectionProcessor.RemoveAt(listFactory, i), "removeByIndex", i);
     }
 
     @Override
@@ -166,13 +255,13 @@ public class RemoteList<E> implements List<E> {
     }
 
     @Override
-    public ListIterator<E> listIterator() {
+    public RemoteListIterator listIterator() {
         return listIterator(0);
     }
 
     @Override
-    public ListIterator<E> listIterator(int i) {
-        return new RemoteListIterator(remoteList(), i);
+    public RemoteListIterator listIterator(int i) {
+        return new RemoteListIterator(i);
     }
 
     @Override
@@ -195,52 +284,122 @@ public class RemoteList<E> implements List<E> {
 
     @Override
     public String toString() {
-        return remoteList().toString();
+        return fetchAll().toString();
     }
 
     
     // ---- helper methods --------------------------------------------------
 
-    private List<E> remoteList() {
-        List<E> result = (List<E>) cache.get(key);
-        return result == null ? (List<E>) Collections.emptyList() : result;
+    private List<E> fetchAll() {
+        List<E> result = new ArrayList<E>();
+        for (Iterator<E> it = iterator(); it.hasNext(); ) {
+            result.add(it.next());
+        }
+        return result;
     }
 
     private Object remoteInvoke(String method, boolean mutator, Object... args) {
-        return cache.invoke(key, new RemoteListProcessor(listFactory, method, mutator, args));
+        flushIterators();
+        return invoke(method, mutator, args);
+    }
+
+    private Object invoke(String method, boolean mutator, Object... args) {
+        return cache.invoke(key, segmentSize > 0
+                                 ? new SegmentedListProcessor(listFactory, segmentSize, method, mutator, args)
+                                 : new RemoteListProcessor(listFactory, method, mutator, args));
+    }
+
+    private Object remoteInvoke(CollectionProcessor processor, String method, Object... args) {
+        if (segmentSize > 0) {
+            return remoteInvoke(method, processor.isMutator(), args);
+        }
+        flushIterators();
+        return cache.invoke(key, processor);
+    }
+
+    private void flushIterators() {
+        Object[] iterators;
+        synchronized (dirtyIterators) {
+            if (dirtyIterators.isEmpty()) {
+                return;
+            }
+            iterators = dirtyIterators.toArray();
+        }
+        for (Object iterator : iterators) {
+            ((RemoteListIterator) iterator).write();
+        }
     }
 
 
     // ---- RemoteListIterator class ----------------------------------------
 
-    private class RemoteListIterator implements ListIterator<E> {
-        private ListIterator<E> iterator;
-        private int cursor = 0;
+    /**
+     * List iterator that works against a locally cached page of elements.
+     * <p/>
+     * Modifications are applied to the page and written back with a single
+     * call that replaces the range of elements the page was fetched from,
+     * provided that the range has not been modified in the meantime.
+     */
+    public class RemoteListIterator implements ListIterator<E>, Closeable {
+        private List<E> page;
+        private List<E> fetched;
+        private int pageStart;
+        private boolean tail;
+        private boolean dirty;
+        private boolean conflict;
+        private int cursor;
         private int last = -1;
 
-        public RemoteListIterator(List<E> list, int index) {
-            this.iterator = list.listIterator(index);
-            this.cursor   = index;
+        private RemoteListIterator(int index) {
+            fetch(index, pageSize);
+            this.cursor = index;
         }
 
         public boolean hasNext() {
-            return iterator.hasNext();
+            checkConflict();
+            if (cursor < pageStart + page.size()) {
+                return true;
+            }
+            if (!tail) {
+                // the new page starts with the last element returned, so
+                // that it can still be removed or replaced
+                int start = last >= 0 && last == cursor - 1 ? last : cursor;
+                fetch(start, pageSize + cursor - start);
+                if (cursor < pageStart + page.size()) {
+                    return true;
+                }
+            }
+            flush();
+            return false;
         }
 
         public E next() {
-            E next = iterator.next();
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
             last = cursor++;
-            return next;
+            return page.get(last - pageStart);
         }
 
         public boolean hasPrevious() {
-            return iterator.hasPrevious();
+            checkConflict();
+            if (cursor > 0) {
+                return true;
+            }
+            flush();
+            return false;
         }
 
         public E previous() {
-            E previous = iterator.previous();
+            if (!hasPrevious()) {
+                throw new NoSuchElementException();
+            }
+            if (cursor == pageStart) {
+                int start = Math.max(0, cursor - pageSize);
+                fetch(start, cursor - start);
+            }
             last = --cursor;
-            return previous;
+            return page.get(last - pageStart);
         }
 
         public int nextIndex() {
@@ -252,21 +411,97 @@ public class RemoteList<E> implements List<E> {
         }
 
         public void remove() {
-            iterator.remove();
-            RemoteList.this.remove(last);
+            checkConflict();
+            if (last < 0) {
+                throw new IllegalStateException();
+            }
+            page.remove(last - pageStart);
             if (last < cursor) {
                 cursor--;
             }
+            last = -1;
+            markDirty();
         }
 
         public void set(E e) {
-            iterator.set(e);
-            RemoteList.this.set(last, e);
+            checkConflict();
+            if (last < 0) {
+                throw new IllegalStateException();
+            }
+            page.set(last - pageStart, e);
+            markDirty();
         }
 
         public void add(E e) {
-            iterator.add(e);
-            RemoteList.this.add(cursor++, e); 
+            checkConflict();
+            page.add(cursor++ - pageStart, e);
+            last = -1;
+            markDirty();
+        }
+
+        /**
+         * Write the changes made through this iterator back to the list.
+         *
+         * @throws ConcurrentModificationException if the elements the
+         *         changes were made to have been modified by someone else
+         */
+        public void flush() {
+            write();
+            checkConflict();
+        }
+
+        /**
+         * Write the changes made through this iterator back to the list.
+         * <p/>
+         * This method should be called when the iteration ends before the
+         * iterator reaches the end of the list.
+         *
+         * @throws ConcurrentModificationException if the elements the
+         *         changes were made to have been modified by someone else
+         */
+        public void close() {
+            flush();
+        }
+
+        private void fetch(int start, int count) {
+            flush();
+            List<E> elements = (List<E>) remoteInvoke("getPage", false, start, count);
+            page      = new ArrayList<E>(elements);
+            fetched   = elements;
+            pageStart = start;
+            tail      = elements.size() < count;
+        }
+
+        private void markDirty() {
+            if (!dirty) {
+                dirty = true;
+                synchronized (dirtyIterators) {
+                    dirtyIterators.add(this);
+                }
+            }
+        }
+
+        private void write() {
+            if (dirty) {
+                dirty = false;
+                synchronized (dirtyIterators) {
+                    dirtyIterators.remove(this);
+                }
+                List<E> elements = new ArrayList<E>(page);
+                if ((Boolean) invoke("replacePage", true, pageStart, fetched, elements)) {
+                    fetched = elements;
+                }
+                else {
+                    conflict = true;
+                }
+            }
+        }
+
+        private void checkConflict() {
+            if (conflict) {
+                throw new ConcurrentModificationException(
+                        "List elements changed by this iterator have been modified concurrently");
+            }
         }
     }
 
@@ -304,4 +539,45 @@ public class RemoteList<E> implements List<E> {
             writer.writeObject(10, factory);
         }
     }
+
+
+    // ---- SegmentedListProcessor class ------------------------------------
+
+    public static class SegmentedListProcessor extends MethodInvocationProcessor {
+        private Factory factory;
+        private int segmentSize;
+
+        public SegmentedListProcessor() {
+        }
+
+        public SegmentedListProcessor(Factory factory, int segmentSize, String name, boolean mutator, Object... args) {
+            super(name, mutator, args);
+            this.factory     = factory;
+            this.segmentSize = segmentSize;
+        }
+
+        @Override
+        public Object process(InvocableMap.Entry entry) {
+            SegmentedList list = new SegmentedList((BinaryEntry) entry, factory, segmentSize);
+            Object result = invoke(list);
+            if (isMutator()) {
+                list.commit();
+            }
+            return result;
+        }
+
+        @Override
+        public void readExternal(PofReader reader) throws IOException {
+            super.readExternal(reader);
+            factory     = (Factory) reader.readObject(10);
+            segmentSize = reader.readInt(11);
+        }
+
+        @Override
+        public void writeExternal(PofWriter writer) throws IOException {
+            super.writeExternal(writer);
+            writer.writeObject(10, factory);
+            writer.writeInt(11, segmentSize);
+        }
+    }
 }
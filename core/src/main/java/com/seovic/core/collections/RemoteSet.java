@@ -27,21 +27,41 @@ import com.tangosol.net.CacheFactory;
 import com.tangosol.net.NamedCache;
 import com.tangosol.util.InvocableMap;
 
+import java.io.Closeable;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 
 /**
+ * Set implementation that stores its elements in a cache entry and executes
+ * all operations against it using entry processors.
+ * <p/>
+ * Iterators and bulk reads fetch the elements a page at a time, and buffer
+ * the removals made through an {@link Iterator} locally until the iteration
+ * completes or another operation is invoked on this set. An iterator that is
+ * abandoned before the iteration completes keeps its pending removals
+ * until the next operation on this set writes them, so it should be flushed
+ * or closed explicitly (see {@link RemoteSetIterator#close()}) if the
+ * removals have to be visible to others right away.
+ *
  * @author Aleksandar Seovic  2010.11.06
  */
 @SuppressWarnings({"unchecked", "SuspiciousToArrayCall"})
 public class RemoteSet<E> implements Set<E> {
+    public static final int DEFAULT_PAGE_SIZE = 1000;
+
     private final NamedCache cache;
     private final Object key;
     private final Factory<Set<E>> factory;
+    private final Set<RemoteSetIterator> dirtyIterators =
+            new LinkedHashSet<RemoteSetIterator>();
+    private volatile int pageSize = DEFAULT_PAGE_SIZE;
 
     public RemoteSet(String cacheName, Object key) {
         this(cacheName, key, new HashSetFactory<E>());
@@ -62,46 +82,70 @@ public class RemoteSet<E> implements Set<E> {
     }
 
 
+    // ---- properties ------------------------------------------------------
+
+    /**
+     * Return the number of elements fetched by a single iterator round trip.
+     *
+     * @return the page size
+     */
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Set the number of elements fetched by a single iterator round trip.
+     *
+     * @param pageSize  the page size
+     */
+    public void setPageSize(int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        this.pageSize = pageSize;
+    }
+
+
     // ---- Set implementation ---------------------------------------------
 
     @Override
     public int size() {
-        return (Integer) remoteInvoke("size", false);
+        return (Integer) remoteInvoke(new CollectionProcessor.Size(factory));
     }
 
     @Override
     public boolean isEmpty() {
-        return (Boolean) remoteInvoke("isEmpty", false);
+        return size() == 0;
     }
 
     @Override
     public boolean contains(Object o) {
-        return (Boolean) remoteInvoke("contains", false, o);
+        return (Boolean) remoteInvoke(new CollectionProcessor.Contains(factory, o));
     }
 
     @Override
-    public Iterator<E> iterator() {
-        return new RemoteSetIterator(remoteSet());
+    public RemoteSetIterator iterator() {
+        return new RemoteSetIterator();
     }
 
     @Override
     public Object[] toArray() {
-        return remoteSet().toArray();
+        return fetchAll().toArray();
     }
 
     @Override
     public <T> T[] toArray(T[] ts) {
-        return remoteSet().toArray(ts);
+        return fetchAll().toArray(ts);
     }
 
     @Override
     public boolean add(E e) {
-        return (Boolean) remoteInvoke("add", true, e);
+        return (Boolean) remoteInvoke(new CollectionProcessor.Append(factory, e));
     }
 
     @Override
     public boolean remove(Object o) {
-        return (Boolean) remoteInvoke("remove", true, o);
+        return (Boolean) remoteInvoke(new CollectionProcessor.Remove(factory, o));
     }
 
     @Override
@@ -144,44 +188,134 @@ public class RemoteSet<E> implements Set<E> {
 
     @Override
     public String toString() {
-        return remoteSet().toString();
+        return fetchAll().toString();
     }
 
 
     // ---- helper methods --------------------------------------------------
 
-    private Set<E> remoteSet() {
-        Set<E> result = (Set<E>) cache.get(key);
-        return result == null ? (Set<E>) Collections.emptySet() : result;
+    private List<E> fetchAll() {
+        List<E> result = new ArrayList<E>();
+        for (Iterator<E> it = iterator(); it.hasNext(); ) {
+            result.add(it.next());
+        }
+        return result;
     }
 
     private Object remoteInvoke(String method, boolean mutator, Object... args) {
+        flushIterators();
+        return invoke(method, mutator, args);
+    }
+
+    private Object invoke(String method, boolean mutator, Object... args) {
         return cache.invoke(key, new RemoteSetProcessor(factory, method, mutator, args));
     }
 
+    private Object remoteInvoke(InvocableMap.EntryProcessor processor) {
+        flushIterators();
+        return cache.invoke(key, processor);
+    }
 
-    // ---- RemoteSetIterator class -----------------------------------------
+    private void flushIterators() {
+        Object[] iterators;
+        synchronized (dirtyIterators) {
+            if (dirtyIterators.isEmpty()) {
+                return;
+            }
+            iterators = dirtyIterators.toArray();
+        }
+        for (Object iterator : iterators) {
+            ((RemoteSetIterator) iterator).flush();
+        }
+    }
 
-    private class RemoteSetIterator implements Iterator<E> {
-        private Iterator<E> iterator;
-        private E last;
 
-        public RemoteSetIterator(Set<E> set) {
-            this.iterator = set.iterator();
+    // ---- RemoteSetIterator class -----------------------------------------
+
+    /**
+     * Iterator that works against a locally cached page of elements.
+     * <p/>
+     * Removed elements are collected and removed with a single call once the
+     * iteration completes. Pages are fetched by position, so if the removals
+     * have to be flushed earlier the position is adjusted accordingly, which
+     * assumes that removing elements does not change the iteration order of
+     * the remaining ones.
+     */
+    public class RemoteSetIterator implements Iterator<E>, Closeable {
+        private List<E> page;
+        private int index;
+        private int position;
+        private boolean tail;
+        private List<E> removed = new ArrayList<E>();
+        private boolean canRemove;
+
+        private RemoteSetIterator() {
+            flushIterators();
+            fetch();
         }
 
         public boolean hasNext() {
-            return iterator.hasNext();
+            if (index < page.size()) {
+                return true;
+            }
+            if (!tail) {
+                fetch();
+                if (!page.isEmpty()) {
+                    return true;
+                }
+            }
+            flush();
+            return false;
         }
 
         public E next() {
-            last = iterator.next();
-            return last;
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            canRemove = true;
+            return page.get(index++);
         }
 
         public void remove() {
-            iterator.remove();
-            RemoteSet.this.remove(last);
+            if (!canRemove) {
+                throw new IllegalStateException();
+            }
+            canRemove = false;
+            removed.add(page.get(index - 1));
+            synchronized (dirtyIterators) {
+                dirtyIterators.add(this);
+            }
+        }
+
+        /**
+         * Remove the elements removed through this iterator from the set.
+         */
+        public void flush() {
+            if (!removed.isEmpty()) {
+                synchronized (dirtyIterators) {
+                    dirtyIterators.remove(this);
+                }
+                invoke("removeAll", true, removed);
+                position -= removed.size();
+                removed = new ArrayList<E>();
+            }
+        }
+
+        /**
+         * Remove the elements removed through this iterator from the set.
+         * <p/>
+         * This method should be called when the iteration ends before the
+         * iterator has returned all elements.
+         */
+        public void close() {
+            flush();
+        }
+
+        private void fetch() {
+            page     = (List<E>) invoke("getPage", false, position, pageSize);
+            index    = 0;
+            position += page.size();
+            tail     = page.size() < pageSize;
         }
     }
 
@@ -0,0 +1,415 @@
+/*
+ * Copyright 2009 Aleksandar Seovic
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.seovic.core.collections;
+
+
+import com.seovic.core.Factory;
+
+import com.tangosol.io.pof.PofReader;
+import com.tangosol.io.pof.PofWriter;
+import com.tangosol.io.pof.PortableObject;
+import com.tangosol.net.cache.KeyAssociation;
+import com.tangosol.util.Binary;
+import com.tangosol.util.BinaryEntry;
+import com.tangosol.util.InvocableMap;
+
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+
+/**
+ * Server-side view of a list that is split into a number of segments.
+ * <p/>
+ * The head entry holds a {@link Header} with the size of each segment,
+ * while the elements are stored in {@link PortableList} entries whose
+ * {@link SegmentKey keys} are associated with the head entry's key, which
+ * places all of them in the same partition. This allows the segments to be
+ * loaded and updated from an entry processor executing against the head
+ * entry, so each operation only deserializes and updates the segments it
+ * actually touches.
+ * <p/>
+ * New elements are appended to the last segment until it reaches the
+ * segment size, and a segment that grows beyond the segment size as a result
+ * of an insertion is split in two.
+ *
+ * @author Aleksandar Seovic  2012.07.21
+ */
+@SuppressWarnings({"unchecked"})
+public class SegmentedList<E> extends AbstractList<E> {
+    // ---- data members ----------------------------------------------------
+
+    private final BinaryEntry entry;
+    private final Factory<List<E>> factory;
+    private final int segmentSize;
+    private final Header header;
+
+    private final Map<Integer, List<E>> segments = new HashMap<Integer, List<E>>();
+    private final Set<Integer> dirtySegments = new HashSet<Integer>();
+    private final Set<Integer> removedSegments = new HashSet<Integer>();
+
+
+    // ---- constructors ----------------------------------------------------
+
+    /**
+     * Construct SegmentedList instance.
+     *
+     * @param entry        the head entry
+     * @param factory      factory used to create the segment lists
+     * @param segmentSize  the maximum number of elements in a segment
+     */
+    public SegmentedList(BinaryEntry entry, Factory<List<E>> factory, int segmentSize) {
+        Header header = (Header) entry.getValue();
+
+        this.entry       = entry;
+        this.factory     = factory;
+        this.segmentSize = segmentSize;
+        this.header      = header == null ? new Header() : header;
+    }
+
+
+    // ---- List implementation ---------------------------------------------
+
+    @Override
+    public int size() {
+        return header.size;
+    }
+
+    @Override
+    public E get(int i) {
+        int s = locate(i);
+        return getSegment(s).get(i - header.offsetOf(s));
+    }
+
+    @Override
+    public E set(int i, E e) {
+        int s = locate(i);
+        E previous = getSegment(s).set(i - header.offsetOf(s), e);
+        dirtySegments.add(header.ids.get(s));
+        return previous;
+    }
+
+    @Override
+    public void add(int i, E e) {
+        if (i < 0 || i > header.size) {
+            throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + header.size);
+        }
+
+        int s = i == header.size ? header.ids.size() - 1 : locate(i);
+        if (s < 0 || i == header.size && header.sizes.get(s) >= segmentSize) {
+            s = header.addSegment(s + 1);
+        }
+
+        List<E> segment = getSegment(s);
+        segment.add(i - header.offsetOf(s), e);
+        header.sizes.set(s, segment.size());
+        header.size++;
+        dirtySegments.add(header.ids.get(s));
+
+        if (segment.size() > segmentSize) {
+            split(s);
+        }
+        modCount++;
+    }
+
+    @Override
+    public E remove(int i) {
+        int s = locate(i);
+        List<E> segment = getSegment(s);
+        E removed = segment.remove(i - header.offsetOf(s));
+        header.size--;
+
+        if (segment.isEmpty()) {
+            removeSegment(s);
+        }
+        else {
+            header.sizes.set(s, segment.size());
+            dirtySegments.add(header.ids.get(s));
+        }
+        modCount++;
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        while (!header.ids.isEmpty()) {
+            removeSegment(header.ids.size() - 1);
+        }
+        header.size = 0;
+        modCount++;
+    }
+
+
+    // ---- helper methods --------------------------------------------------
+
+    public E removeByIndex(int i) {
+        return remove(i);
+    }
+
+    /**
+     * Return a copy of the specified range of elements.
+     *
+     * @param start  the index of the first element to return
+     * @param count  the maximum number of elements to return
+     *
+     * @return a list of at most <tt>count</tt> elements, starting at the
+     *         specified index
+     */
+    public List<E> getPage(int start, int count) {
+        int end = Math.min(start + count, header.size);
+        return new ArrayList<E>(subList(start, Math.max(start, end)));
+    }
+
+    /**
+     * Replace the specified range of elements with the given elements, if
+     * the range still contains the expected elements.
+     *
+     * @param start     the index of the first element to replace
+     * @param expected  the elements the range is expected to contain
+     * @param elements  the replacement elements
+     *
+     * @return <tt>true</tt> if the range was replaced, <tt>false</tt> if it
+     *         no longer contains the expected elements
+     */
+    public boolean replacePage(int start, List<?> expected, Collection<? extends E> elements) {
+        int end = start + expected.size();
+        if (start < 0 || end > header.size
+            || !subList(start, end).equals(expected)) {
+            return false;
+        }
+        subList(start, end).clear();
+        addAll(start, elements);
+        return true;
+    }
+
+    /**
+     * Write the header and all modified segments back to the cache.
+     */
+    public void commit() {
+        for (Integer id : removedSegments) {
+            getSegmentEntry(id).remove(false);
+        }
+        for (Integer id : dirtySegments) {
+            PortableList<E> segment = new PortableList<E>(factory);
+            segment.addAll(segments.get(id));
+            getSegmentEntry(id).setValue(segment);
+        }
+        entry.setValue(header);
+
+        removedSegments.clear();
+        dirtySegments.clear();
+    }
+
+    /**
+     * Return the position of the segment containing the specified element.
+     */
+    private int locate(int i) {
+        if (i < 0 || i >= header.size) {
+            throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + header.size);
+        }
+
+        int offset = 0;
+        for (int s = 0; ; s++) {
+            offset += header.sizes.get(s);
+            if (i < offset) {
+                return s;
+            }
+        }
+    }
+
+    /**
+     * Return the elements of the segment at the specified position.
+     */
+    private List<E> getSegment(int s) {
+        Integer id = header.ids.get(s);
+        List<E> segment = segments.get(id);
+        if (segment == null) {
+            segment = factory.create();
+            if (header.sizes.get(s) > 0) {
+                segment.addAll((List<E>) getSegmentEntry(id).getValue());
+            }
+            segments.put(id, segment);
+        }
+        return segment;
+    }
+
+    /**
+     * Move the upper half of the segment at the specified position into a
+     * new segment that follows it.
+     */
+    private void split(int s) {
+        List<E> segment = getSegment(s);
+        List<E> upper = segment.subList(segment.size() / 2, segment.size());
+
+        int next = header.addSegment(s + 1);
+        getSegment(next).addAll(upper);
+        upper.clear();
+
+        header.sizes.set(s, segment.size());
+        header.sizes.set(next, getSegment(next).size());
+        dirtySegments.add(header.ids.get(next));
+    }
+
+    /**
+     * Remove the segment at the specified position.
+     */
+    private void removeSegment(int s) {
+        Integer id = header.ids.remove(s);
+        header.sizes.remove(s);
+        segments.remove(id);
+        dirtySegments.remove(id);
+        removedSegments.add(id);
+    }
+
+    /**
+     * Return the backing map entry for the segment with the specified id.
+     */
+    private InvocableMap.Entry getSegmentEntry(int id) {
+        Object key = new SegmentKey(entry.getKey(), id);
+        Binary binKey = (Binary) entry.getContext().getKeyToInternalConverter().convert(key);
+        return entry.getBackingMapContext().getBackingMapEntry(binKey);
+    }
+
+
+    // ---- Header class ----------------------------------------------------
+
+    /**
+     * Head entry value that keeps track of the list segments.
+     */
+    public static class Header implements PortableObject {
+        private int size;
+        private int nextId;
+        private List<Integer> ids = new ArrayList<Integer>();
+        private List<Integer> sizes = new ArrayList<Integer>();
+
+        public Header() {
+        }
+
+        /**
+         * Return the total number of elements.
+         *
+         * @return the number of elements
+         */
+        public int getSize() {
+            return size;
+        }
+
+        /**
+         * Return the number of segments.
+         *
+         * @return the number of segments
+         */
+        public int getSegmentCount() {
+            return ids.size();
+        }
+
+        private int offsetOf(int s) {
+            int offset = 0;
+            for (int i = 0; i < s; i++) {
+                offset += sizes.get(i);
+            }
+            return offset;
+        }
+
+        private int addSegment(int s) {
+            ids.add(s, nextId++);
+            sizes.add(s, 0);
+            return s;
+        }
+
+        @Override
+        public void readExternal(PofReader reader) throws IOException {
+            size   = reader.readInt(0);
+            nextId = reader.readInt(1);
+            reader.readCollection(2, ids);
+            reader.readCollection(3, sizes);
+        }
+
+        @Override
+        public void writeExternal(PofWriter writer) throws IOException {
+            writer.writeInt(0, size);
+            writer.writeInt(1, nextId);
+            writer.writeCollection(2, ids, Integer.class);
+            writer.writeCollection(3, sizes, Integer.class);
+        }
+    }
+
+
+    // ---- SegmentKey class ------------------------------------------------
+
+    /**
+     * Key of a list segment, associated with the key of the head entry.
+     */
+    public static class SegmentKey implements KeyAssociation, PortableObject {
+        private Object key;
+        private int id;
+
+        public SegmentKey() {
+        }
+
+        public SegmentKey(Object key, int id) {
+            this.key = key;
+            this.id  = id;
+        }
+
+        @Override
+        public Object getAssociatedKey() {
+            return key;
+        }
+
+        @Override
+        public void readExternal(PofReader reader) throws IOException {
+            key = reader.readObject(0);
+            id  = reader.readInt(1);
+        }
+
+        @Override
+        public void writeExternal(PofWriter writer) throws IOException {
+            writer.writeObject(0, key);
+            writer.writeInt(1, id);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+
+            SegmentKey that = (SegmentKey) o;
+            return id == that.id && key.equals(that.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * key.hashCode() + id;
+        }
+
+        @Override
+        public String toString() {
+            return "SegmentKey{key=" + key + ", id=" + id + '}';
+        }
+    }
+}
@@ -24,11 +24,12 @@ import com.tangosol.net.InvocationService;
 import com.tangosol.net.Member;
 import com.tangosol.net.MemberEvent;
 import com.tangosol.net.MemberListener;
+import com.tangosol.net.cache.KeyAssociation;
 import com.tangosol.util.Base;
 
 import java.io.Serializable;
 import java.util.Collections;
-import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.AbstractExecutorService;
@@ -36,6 +37,7 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.RunnableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -46,6 +48,9 @@ import org.springframework.core.task.TaskExecutor;
 /**
  * ExecutorService implementation that parallelizes task execution across the
  * cluster nodes using Invocation Service.
+ * <p/>
+ * The member each task is executed on is chosen by a {@link MemberSelector},
+ * which assigns the tasks in a round-robin fashion by default.
  *
  * @author Aleksandar Seovic  2009.11.02
  */
@@ -66,14 +71,14 @@ public class ClusteredExecutorService
     private volatile InvocationService invocationService;
 
     /**
-     * A set of members that can be used to execute tasks.
+     * The strategy used to choose the member to execute each task on.
      */
-    private volatile Set<Member> serviceMembers;
+    private final MemberSelector memberSelector;
 
     /**
-     * Member set iterator.
+     * The members that can be used to execute tasks.
      */
-    private volatile Iterator<Member> memberIterator;
+    private volatile Member[] serviceMembers;
 
     // ---- constructors and initializers -----------------------------------
 
@@ -91,7 +96,20 @@ public class ClusteredExecutorService
      * @param invocationServiceName the name of the invocation service to use
      */
     public ClusteredExecutorService(String invocationServiceName) {
+        this(invocationServiceName, new RoundRobinMemberSelector());
+    }
+
+    /**
+     * Construct <tt>ClusteredExecutorService</tt> instance.
+     *
+     * @param invocationServiceName the name of the invocation service to use
+     * @param memberSelector        the strategy used to choose the member to
+     *                              execute each task on
+     */
+    public ClusteredExecutorService(String invocationServiceName,
+                                    MemberSelector memberSelector) {
         this.invocationServiceName = invocationServiceName;
+        this.memberSelector = memberSelector;
         initialize();
     }
 
@@ -109,8 +127,8 @@ public class ClusteredExecutorService
         }
 
         invocationService.addMemberListener(this);
-        serviceMembers = invocationService.getInfo().getServiceMembers();
-        memberIterator = serviceMembers.iterator();
+        Set<Member> members = invocationService.getInfo().getServiceMembers();
+        serviceMembers = members.toArray(new Member[members.size()]);
     }
 
 
@@ -180,14 +198,17 @@ public class ClusteredExecutorService
     /**
      * Return the member that should execute submitted command.
      *
+     * @param task the task to execute
+     *
      * @return the member to execute submitted command on
      */
-    protected synchronized Member getExecutionMember() {
-        Iterator<Member> it = memberIterator;
-        if (it == null || !it.hasNext()) {
-            memberIterator = it = serviceMembers.iterator();
+    protected Member getExecutionMember(Object task) {
+        Member[] members = serviceMembers;
+        if (members.length == 0) {
+            throw new RejectedExecutionException("There are no members running invocation service ["
+                                                 + invocationServiceName + "].");
         }
-        return it.next();
+        return memberSelector.select(members, task);
     }
 
     /**
@@ -196,8 +217,9 @@ public class ClusteredExecutorService
      * @param member member to add
      */
     protected synchronized void addMember(Member member) {
-        serviceMembers.add(member);
-        memberIterator = serviceMembers.iterator();
+        Set<Member> members = getMemberSet();
+        members.add(member);
+        serviceMembers = members.toArray(new Member[members.size()]);
     }
 
     /**
@@ -206,8 +228,15 @@ public class ClusteredExecutorService
      * @param member member to remove
      */
     protected synchronized void removeMember(Member member) {
-        serviceMembers.remove(member);
-        memberIterator = serviceMembers.iterator();
+        Set<Member> members = getMemberSet();
+        members.remove(member);
+        serviceMembers = members.toArray(new Member[members.size()]);
+    }
+
+    private Set<Member> getMemberSet() {
+        Set<Member> members = new LinkedHashSet<Member>();
+        Collections.addAll(members, serviceMembers);
+        return members;
     }
 
 
@@ -263,9 +292,10 @@ public class ClusteredExecutorService
     // ---- inner class: ClusteredFutureTask -----------------------------------
 
     private class ClusteredFutureTask<T>
-            implements RunnableFuture<T>, InvocationObserver {
+            implements RunnableFuture<T>, InvocationObserver, KeyAssociation {
         // ---- data members --------------------------------------------
 
+        private final Object task;
         private final Callable<T> callable;
         private final CountDownLatch latch;
         private volatile T result;
@@ -275,21 +305,33 @@ public class ClusteredExecutorService
         // ---- constructors --------------------------------------------
 
         public ClusteredFutureTask(Callable<T> callable) {
-            this.callable = callable;
-            this.latch = new CountDownLatch(1);
+            this(callable, callable);
         }
 
         public ClusteredFutureTask(Runnable runnable, T result) {
-            this(new CallableAdapter<T>(runnable, result));
+            this(new CallableAdapter<T>(runnable, result), runnable);
+        }
+
+        private ClusteredFutureTask(Callable<T> callable, Object task) {
+            this.task = task;
+            this.callable = callable;
+            this.latch = new CountDownLatch(1);
         }
 
         // ---- RunnableFuture implementation ---------------------------
 
         public void run() {
-            invocationService.execute(
-                    new InvocableAdapter(callable),
-                    Collections.singleton(getExecutionMember()),
-                    this);
+            Member member = getExecutionMember(this);
+            try {
+                invocationService.execute(
+                        new InvocableAdapter(callable),
+                        Collections.singleton(member),
+                        this);
+            }
+            catch (RuntimeException e) {
+                memberSelector.completed(member, this);
+                throw e;
+            }
         }
 
         public boolean cancel(boolean b) {
@@ -331,18 +373,21 @@ public class ClusteredExecutorService
         // ---- InvocationObserver implementation -----------------------
 
         public void memberCompleted(Member member, Object result) {
+            memberSelector.completed(member, this);
             this.result = (T) result;
             fDone = true;
             latch.countDown();
         }
 
         public void memberFailed(Member member, Throwable throwable) {
+            memberSelector.completed(member, this);
             exception = throwable;
             fDone = true;
             latch.countDown();
         }
 
         public void memberLeft(Member member) {
+            memberSelector.completed(member, this);
             exception = new MemberLeftException(member);
             fDone = true;
             latch.countDown();
@@ -350,5 +395,13 @@ public class ClusteredExecutorService
 
         public void invocationCompleted() {
         }
+
+        // ---- KeyAssociation implementation ---------------------------
+
+        public Object getAssociatedKey() {
+            return task instanceof KeyAssociation
+                   ? ((KeyAssociation) task).getAssociatedKey()
+                   : null;
+        }
     }
 }
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2009 Aleksandar Seovic
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.seovic.core.concurrent;
+
+
+import com.tangosol.net.CacheFactory;
+import com.tangosol.net.CacheService;
+import com.tangosol.net.DistributedCacheService;
+import com.tangosol.net.Member;
+import com.tangosol.net.cache.KeyAssociation;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * {@link MemberSelector} implementation that executes tasks on the member
+ * that owns the partition of a cache key, which allows the task to access
+ * the data associated with that key locally.
+ * <p/>
+ * The key is obtained from the tasks that implement {@link KeyAssociation}.
+ * All other tasks, as well as the tasks whose key owner does not run the
+ * invocation service, are assigned by the fallback selector.
+ *
+ * @author Aleksandar Seovic  2012.08.11
+ */
+public class KeyAffinityMemberSelector
+        implements MemberSelector {
+    // ---- data members ----------------------------------------------------
+
+    /**
+     * The cache service used to determine the key owner.
+     */
+    private final DistributedCacheService cacheService;
+
+    /**
+     * The selector to use for the tasks that cannot be routed by key.
+     */
+    private final MemberSelector fallback;
+
+    /**
+     * The tasks assigned by the fallback selector that have not completed
+     * yet.
+     */
+    private final Set<Object> fallbackTasks =
+            Collections.newSetFromMap(new ConcurrentHashMap<Object, Boolean>());
+
+    // ---- constructors ----------------------------------------------------
+
+    /**
+     * Construct <tt>KeyAffinityMemberSelector</tt> instance that uses
+     * round-robin selection for the tasks that cannot be routed by key.
+     *
+     * @param cacheName the name of the cache whose partitioning should be
+     *                  used
+     */
+    public KeyAffinityMemberSelector(String cacheName) {
+        this(cacheName, new RoundRobinMemberSelector());
+    }
+
+    /**
+     * Construct <tt>KeyAffinityMemberSelector</tt> instance.
+     *
+     * @param cacheName the name of the cache whose partitioning should be
+     *                  used
+     * @param fallback  the selector to use for the tasks that cannot be
+     *                  routed by key
+     */
+    public KeyAffinityMemberSelector(String cacheName, MemberSelector fallback) {
+        this(getCacheService(cacheName), fallback);
+    }
+
+    /**
+     * Construct <tt>KeyAffinityMemberSelector</tt> instance.
+     *
+     * @param cacheService the cache service used to determine the key owner
+     * @param fallback     the selector to use for the tasks that cannot be
+     *                     routed by key
+     */
+    public KeyAffinityMemberSelector(DistributedCacheService cacheService,
+                                     MemberSelector fallback) {
+        this.cacheService = cacheService;
+        this.fallback     = fallback;
+    }
+
+    // ---- MemberSelector implementation -----------------------------------
+
+    public Member select(Member[] members, Object task) {
+        Member owner = getKeyOwner(task);
+        if (owner != null) {
+            for (Member member : members) {
+                if (member.equals(owner)) {
+                    return member;
+                }
+            }
+        }
+
+        Member member = fallback.select(members, task);
+        fallbackTasks.add(task);
+        return member;
+    }
+
+    public void completed(Member member, Object task) {
+        // the key owner may have changed since the task was submitted, so
+        // only the recorded assignment tells which selector chose the member
+        if (fallbackTasks.remove(task)) {
+            fallback.completed(member, task);
+        }
+    }
+
+    // ---- helper methods --------------------------------------------------
+
+    /**
+     * Return the owner of the partition the specified task is associated
+     * with.
+     *
+     * @param task the task
+     *
+     * @return the owner of the task's key, or <tt>null</tt> if the task is
+     *         not associated with a key or the key has no owner
+     */
+    protected Member getKeyOwner(Object task) {
+        if (task instanceof KeyAssociation) {
+            Object key = ((KeyAssociation) task).getAssociatedKey();
+            return key == null ? null : cacheService.getKeyOwner(key);
+        }
+        return null;
+    }
+
+    private static DistributedCacheService getCacheService(String cacheName) {
+        CacheService service = CacheFactory.getCache(cacheName).getCacheService();
+        if (!(service instanceof DistributedCacheService)) {
+            throw new IllegalArgumentException("Cache [" + cacheName
+                                               + "] is not a partitioned cache.");
+        }
+        return (DistributedCacheService) service;
+    }
+}
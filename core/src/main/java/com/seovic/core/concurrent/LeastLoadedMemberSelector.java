@@ -0,0 +1,123 @@
+/*
+ * Copyright 2009 Aleksandar Seovic
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.seovic.core.concurrent;
+
+
+import com.tangosol.net.Member;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * {@link MemberSelector} implementation that assigns each task to the member
+ * with the fewest outstanding tasks submitted by this executor.
+ * <p/>
+ * Ties are resolved in a round-robin fashion, so the tasks are spread evenly
+ * across idle members.
+ * <p/>
+ * The counts of the members that are no longer passed to {@link #select}
+ * are discarded, so the members that left the cluster are not tracked
+ * forever.
+ *
+ * @author Aleksandar Seovic  2012.08.11
+ */
+public class LeastLoadedMemberSelector
+        implements MemberSelector {
+    // ---- data members ----------------------------------------------------
+
+    /**
+     * The number of outstanding tasks per member.
+     */
+    private final ConcurrentMap<Member, AtomicInteger> outstanding =
+            new ConcurrentHashMap<Member, AtomicInteger>();
+
+    /**
+     * The number of tasks assigned so far, used to resolve ties.
+     */
+    private final AtomicInteger counter = new AtomicInteger();
+
+    /**
+     * The members passed to the last {@link #select} call.
+     */
+    private volatile Member[] lastMembers;
+
+    // ---- MemberSelector implementation -----------------------------------
+
+    public Member select(Member[] members, Object task) {
+        if (members != lastMembers) {
+            // the executor passes a new snapshot whenever the membership
+            // changes, so this is the time to forget the departed members
+            lastMembers = members;
+            outstanding.keySet().retainAll(Arrays.asList(members));
+        }
+
+        int cMembers = members.length;
+        int nStart   = (counter.getAndIncrement() & Integer.MAX_VALUE) % cMembers;
+
+        Member        selected = null;
+        AtomicInteger count    = null;
+        int           nMin     = Integer.MAX_VALUE;
+        for (int i = 0; i < cMembers; i++) {
+            Member        member = members[(nStart + i) % cMembers];
+            AtomicInteger c      = getCount(member);
+            int           n      = c.get();
+            if (n < nMin) {
+                selected = member;
+                count    = c;
+                nMin     = n;
+            }
+        }
+
+        count.incrementAndGet();
+        return selected;
+    }
+
+    public void completed(Member member, Object task) {
+        AtomicInteger count = outstanding.get(member);
+        if (count != null) {
+            count.decrementAndGet();
+        }
+    }
+
+    // ---- helper methods --------------------------------------------------
+
+    /**
+     * Return the number of outstanding tasks for the specified member.
+     *
+     * @param member the member
+     *
+     * @return the number of tasks submitted to the member that have not
+     *         completed yet
+     */
+    public int getOutstandingTasks(Member member) {
+        AtomicInteger count = outstanding.get(member);
+        return count == null ? 0 : count.get();
+    }
+
+    private AtomicInteger getCount(Member member) {
+        AtomicInteger count = outstanding.get(member);
+        if (count == null) {
+            AtomicInteger existing = outstanding.putIfAbsent(member, count = new AtomicInteger());
+            if (existing != null) {
+                count = existing;
+            }
+        }
+        return count;
+    }
+}
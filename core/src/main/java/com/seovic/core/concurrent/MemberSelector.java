@@ -0,0 +1,57 @@
+/*
+ * Copyright 2009 Aleksandar Seovic
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.seovic.core.concurrent;
+
+
+import com.tangosol.net.Member;
+
+
+/**
+ * Strategy used by {@link ClusteredExecutorService} to choose the member
+ * that should execute a submitted task.
+ * <p/>
+ * Implementations are invoked concurrently by all submitting threads, and
+ * should avoid locking.
+ * <p/>
+ * Each execution is represented by a distinct task instance, even if the
+ * same <tt>Runnable</tt> or <tt>Callable</tt> is submitted more than once.
+ * The instance passed to {@link #select} is passed to {@link #completed}
+ * once the execution has finished.
+ *
+ * @author Aleksandar Seovic  2012.08.11
+ */
+public interface MemberSelector {
+    /**
+     * Select the member that should execute the specified task.
+     *
+     * @param members the members running the invocation service; never empty
+     * @param task    the task to execute; it implements {@link
+     *                com.tangosol.net.cache.KeyAssociation} if the
+     *                submitted <tt>Runnable</tt> or <tt>Callable</tt> does
+     *
+     * @return the member to execute the task on
+     */
+    Member select(Member[] members, Object task);
+
+    /**
+     * Notify this selector that the execution of a task on the specified
+     * member has finished, whether successfully or not.
+     *
+     * @param member the member the task was executed on
+     * @param task   the task passed to {@link #select}
+     */
+    void completed(Member member, Object task);
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2009 Aleksandar Seovic
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.seovic.core.concurrent;
+
+
+import com.tangosol.net.Member;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * {@link MemberSelector} implementation that assigns tasks to the members in
+ * turn.
+ *
+ * @author Aleksandar Seovic  2012.08.11
+ */
+public class RoundRobinMemberSelector
+        implements MemberSelector {
+    // ---- data members ----------------------------------------------------
+
+    /**
+     * The number of tasks assigned so far.
+     */
+    private final AtomicInteger counter = new AtomicInteger();
+
+    // ---- MemberSelector implementation -----------------------------------
+
+    public Member select(Member[] members, Object task) {
+        int n = counter.getAndIncrement() & Integer.MAX_VALUE;
+        return members[n % members.length];
+    }
+
+    public void completed(Member member, Object task) {
+    }
+}
@@ -0,0 +1,312 @@
+/*
+ * Copyright 2009 Aleksandar Seovic
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.seovic.core.expression;
+
+
+import com.seovic.core.Configuration;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Bounded cache of compiled expressions, shared by all expression instances
+ * within the process.
+ * <p/>
+ * Expressions are deserialized together with the filters, extractors and
+ * entry processors that use them, so without this cache every deserialized
+ * instance would compile the same expression again. Compiled expressions are
+ * keyed by language and expression text, and the least recently used ones are
+ * evicted once the cache reaches its maximum size.
+ * <p/>
+ * The cache is split into segments that are locked independently, and each
+ * segment evicts entries in its own LRU order. Expressions are compiled
+ * outside of the segment lock, so a slow compilation does not block lookups
+ * of other expressions.
+ * <p/>
+ * The maximum size of the shared instance can be configured using the
+ * <tt>expression.cache.size</tt> property; a size of zero disables caching.
+ */
+public class ExpressionCache {
+    // ---- constants -------------------------------------------------------
+
+    private static final int SEGMENTS = 16;
+
+    private static final ExpressionCache INSTANCE =
+            new ExpressionCache(Configuration.getExpressionCacheSize());
+
+    // ---- data members ----------------------------------------------------
+
+    private final int maxSize;
+    private final Segment[] segments;
+
+    private final AtomicLong hits      = new AtomicLong();
+    private final AtomicLong misses    = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    // ---- constructors ----------------------------------------------------
+
+    /**
+     * Construct an <tt>ExpressionCache</tt> instance.
+     *
+     * @param maxSize the maximum number of compiled expressions to cache
+     */
+    public ExpressionCache(int maxSize) {
+        this.maxSize = Math.max(maxSize, 0);
+
+        // segment sizes add up to the maximum size of the cache
+        int segmentCount = Math.max(1, Math.min(SEGMENTS, this.maxSize));
+        segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(this.maxSize / segmentCount
+                                      + (i < this.maxSize % segmentCount ? 1 : 0));
+        }
+    }
+
+    /**
+     * Return the shared expression cache.
+     *
+     * @return the shared expression cache
+     */
+    public static ExpressionCache getInstance() {
+        return INSTANCE;
+    }
+
+    // ---- public methods --------------------------------------------------
+
+    /**
+     * Return the compiled form of the specified expression, compiling and
+     * caching it if necessary.
+     *
+     * @param language   the language of the expression; compiled forms that
+     *                   are not interchangeable must use different languages
+     * @param expression the expression text
+     * @param compiler   the compiler to use if the expression is not cached
+     *
+     * @return the compiled expression
+     */
+    @SuppressWarnings("unchecked")
+    public <V> V get(String language, String expression, Compiler<V> compiler) {
+        if (maxSize == 0) {
+            misses.incrementAndGet();
+            return compiler.compile(expression);
+        }
+
+        Key     key     = new Key(language, expression);
+        Segment segment = segments[(key.hashCode() & 0x7FFFFFFF) % segments.length];
+
+        Object compiled;
+        synchronized (segment) {
+            compiled = segment.get(key);
+        }
+        if (compiled != null) {
+            hits.incrementAndGet();
+            return (V) compiled;
+        }
+
+        misses.incrementAndGet();
+        compiled = compiler.compile(expression);
+        synchronized (segment) {
+            Object existing = segment.get(key);
+            if (existing != null) {
+                // compiled concurrently by another thread
+                return (V) existing;
+            }
+            segment.put(key, compiled);
+        }
+        return (V) compiled;
+    }
+
+    /**
+     * Remove all compiled expressions from this cache.
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    /**
+     * Reset the hit, miss and eviction statistics.
+     */
+    public void resetStatistics() {
+        hits.set(0);
+        misses.set(0);
+        evictions.set(0);
+    }
+
+    /**
+     * Return the number of compiled expressions in this cache.
+     *
+     * @return the number of cached expressions
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Return the maximum number of compiled expressions in this cache.
+     *
+     * @return the maximum size of this cache
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Return the number of lookups that found a compiled expression.
+     *
+     * @return the number of cache hits
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * Return the number of lookups that had to compile the expression.
+     *
+     * @return the number of cache misses
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Return the number of compiled expressions evicted from this cache.
+     *
+     * @return the number of evictions
+     */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    /**
+     * Return the ratio of cache hits to all lookups.
+     *
+     * @return the hit rate, or zero if there were no lookups
+     */
+    public double getHitRate() {
+        long hits  = getHitCount();
+        long total = hits + getMissCount();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    // ---- Object methods --------------------------------------------------
+
+    /**
+     * Return string representation of this object.
+     *
+     * @return string representation of this object
+     */
+    @Override
+    public String toString() {
+        return "ExpressionCache{" +
+               "size=" + size() +
+               ", maxSize=" + maxSize +
+               ", hits=" + getHitCount() +
+               ", misses=" + getMissCount() +
+               ", evictions=" + getEvictionCount() +
+               '}';
+    }
+
+    // ---- inner interface: Compiler ---------------------------------------
+
+    /**
+     * Compiles expressions that are not cached.
+     *
+     * @param <V> the type of compiled expressions
+     */
+    public interface Compiler<V> {
+        /**
+         * Compile the specified expression.
+         *
+         * @param expression the expression text
+         *
+         * @return the compiled expression
+         */
+        V compile(String expression);
+    }
+
+    // ---- inner class: Key ------------------------------------------------
+
+    /**
+     * Cache key, which consists of the expression language and text.
+     */
+    private static final class Key {
+        private final String language;
+        private final String expression;
+
+        Key(String language, String expression) {
+            this.language   = language;
+            this.expression = expression;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+
+            Key that = (Key) o;
+            return language.equals(that.language)
+                   && expression.equals(that.expression);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * language.hashCode() + expression.hashCode();
+        }
+    }
+
+    // ---- inner class: Segment --------------------------------------------
+
+    /**
+     * A segment of the cache, which evicts the least recently used entry once
+     * its maximum size is exceeded. Access must be synchronized on the
+     * segment.
+     */
+    private class Segment
+            extends LinkedHashMap<Key, Object> {
+        private final int maxSize;
+
+        Segment(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Object> eldest) {
+            if (size() > maxSize) {
+                evictions.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    }
+}
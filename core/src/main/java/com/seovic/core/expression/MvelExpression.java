@@ -52,6 +52,20 @@ public class MvelExpression<T>
         PARSER_CONTEXT = parserContext;
     }
 
+    private static final ExpressionCache.Compiler<Serializable> COMPILER =
+            new ExpressionCache.Compiler<Serializable>() {
+                public Serializable compile(String expression) {
+                    return MVEL.compileExpression(expression, PARSER_CONTEXT);
+                }
+            };
+
+    private static final ExpressionCache.Compiler<Serializable> SET_COMPILER =
+            new ExpressionCache.Compiler<Serializable>() {
+                public Serializable compile(String expression) {
+                    return MVEL.compileSetExpression(expression, PARSER_CONTEXT);
+                }
+            };
+
     // ---- data members ----------------------------------------------------
 
     /**
@@ -102,12 +116,16 @@ public class MvelExpression<T>
 
     /**
      * Return a compiled MVEL expression.
+     * <p/>
+     * Compiled expressions are shared with other instances through the
+     * {@link ExpressionCache}.
      *
      * @return compiled MVEL expression
      */
     protected Serializable getCompiledExpression() {
         if (compiledExpression == null) {
-            compiledExpression = MVEL.compileExpression(getExpression(), PARSER_CONTEXT);
+            compiledExpression = ExpressionCache.getInstance()
+                    .get("mvel", getExpression(), COMPILER);
         }
         return compiledExpression;
     }
@@ -119,7 +137,8 @@ public class MvelExpression<T>
      */
     protected Serializable getCompiledSetExpression() {
         if (compiledSetExpression == null) {
-            compiledSetExpression = MVEL.compileSetExpression(getExpression(), PARSER_CONTEXT);
+            compiledSetExpression = ExpressionCache.getInstance()
+                    .get("mvel-set", getExpression(), SET_COMPILER);
         }
         return compiledSetExpression;
     }
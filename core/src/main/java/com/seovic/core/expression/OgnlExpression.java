@@ -37,6 +37,18 @@ public class OgnlExpression<T>
 
     private static final long serialVersionUID = -6874530880255164106L;
 
+    private static final ExpressionCache.Compiler<Object> COMPILER =
+            new ExpressionCache.Compiler<Object>() {
+                public Object compile(String expression) {
+                    try {
+                        return Ognl.parseExpression(expression);
+                    }
+                    catch (OgnlException e) {
+                        throw new IllegalArgumentException("[" + expression + "] is not a valid OGNL expression", e);
+                    }
+                }
+            };
+
     // ---- data members ----------------------------------------------------
 
     /**
@@ -99,17 +111,16 @@ public class OgnlExpression<T>
 
     /**
      * Return a compiled OGNL expression.
+     * <p/>
+     * Compiled expressions are shared with other instances through the
+     * {@link ExpressionCache}.
      *
      * @return compiled OGNL expression
      */
     protected synchronized Object getCompiledExpression() {
         if (compiledExpression == null) {
-            try {
-                compiledExpression = Ognl.parseExpression(getExpression());
-            }
-            catch (OgnlException e) {
-                throw new IllegalArgumentException("[" + getExpression() + "] is not a valid OGNL expression", e);
-            }
+            compiledExpression = ExpressionCache.getInstance()
+                    .get("ognl", getExpression(), COMPILER);
         }
         return compiledExpression;
     }
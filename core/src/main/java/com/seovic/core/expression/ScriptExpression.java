@@ -26,10 +26,17 @@ import com.tangosol.io.pof.PofWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
 
+import javax.script.Bindings;
 import javax.script.Compilable;
 import javax.script.CompiledScript;
+import javax.script.ScriptContext;
 import javax.script.ScriptEngine;
+import javax.script.ScriptEngineFactory;
 import javax.script.ScriptEngineManager;
 import javax.script.ScriptException;
 import javax.script.SimpleBindings;
@@ -43,6 +50,14 @@ import javax.script.SimpleBindings;
  * not have a notion of a "root object" for expression evaluation. Because of
  * this, the target object is bound to a variable called <tt>target</tt> and
  * must be referenced explicitly within the expression.
+ * <p/>
+ * Compiled scripts are shared with other instances through the
+ * {@link ExpressionCache}, and can be evaluated by multiple threads
+ * concurrently. If the script engine declares itself as thread-safe via the
+ * <tt>THREADING</tt> engine parameter, a single compiled script is shared by
+ * all threads. Otherwise, each evaluation borrows a compiled script and its
+ * engine from a pool, which grows to the peak number of threads evaluating
+ * the script concurrently. In both cases the bindings are reused.
  *
  * @author Aleksandar Seovic  2009.09.27
  */
@@ -54,6 +69,12 @@ public class ScriptExpression<T>
 
     private static final ScriptEngineManager MANAGER = new ScriptEngineManager();
 
+    /**
+     * Flags specifying whether the engine for a given language is thread-safe.
+     */
+    private static final ConcurrentMap<String, Boolean> THREAD_SAFE =
+            new ConcurrentHashMap<String, Boolean>();
+
     // ---- data members ----------------------------------------------------
 
     /**
@@ -61,15 +82,10 @@ public class ScriptExpression<T>
      */
     private String language;
 
-    /**
-     * Scripting engine to use.
-     */
-    private transient ScriptEngine scriptEngine;
-
     /**
      * Compiled script
      */
-    private transient CompiledScript script;
+    private transient ScriptRunner script;
 
     // ---- constructors ----------------------------------------------------
 
@@ -122,15 +138,16 @@ public class ScriptExpression<T>
     }
 
     private void init() {
-        try {
-            scriptEngine = MANAGER.getEngineByName(language);
-            if (scriptEngine instanceof Compilable) {
-                script = ((Compilable) scriptEngine).compile(getExpression());
-            }
-        }
-        catch (ScriptException e) {
-            throw new RuntimeException(e);
-        }
+        final String language = this.language;
+        script = ExpressionCache.getInstance().get(
+                "script:" + language, getExpression(),
+                new ExpressionCache.Compiler<ScriptRunner>() {
+                    public ScriptRunner compile(String expression) {
+                        return isThreadSafe(language)
+                               ? new SharedScript(language, expression)
+                               : new PooledScript(language, expression);
+                    }
+                });
     }
 
     // ---- Expression implementation ----------------------------------------
@@ -139,15 +156,8 @@ public class ScriptExpression<T>
      * {@inheritDoc}
      */
     public T evaluate(Object target, Map<String, Object> variables) {
-        SimpleBindings bindings = variables == null
-                                  ? new SimpleBindings()
-                                  : new SimpleBindings(variables);
-        bindings.put("target", target);
-
         try {
-            return (T) (script == null
-                        ? scriptEngine.eval(getExpression(), bindings)
-                        : script.eval(bindings));
+            return (T) script.eval(target, variables);
         }
         catch (ScriptException e) {
             throw new RuntimeException(e);
@@ -163,6 +173,202 @@ public class ScriptExpression<T>
     }
 
 
+    // ---- helper methods --------------------------------------------------
+
+    /**
+     * Compile the specified script using a new engine for the specified
+     * language.
+     *
+     * @param language   scripting language to use
+     * @param expression the script to compile
+     *
+     * @return compiled script
+     */
+    private static CompiledScript compile(String language, String expression) {
+        ScriptEngine engine = MANAGER.getEngineByName(language);
+        if (engine == null) {
+            throw new IllegalArgumentException("Scripting language "
+                                               + language + " is not supported");
+        }
+        if (!(engine instanceof Compilable)) {
+            return new InterpretedScript(engine, expression);
+        }
+
+        try {
+            return ((Compilable) engine).compile(expression);
+        }
+        catch (ScriptException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Return <tt>true</tt> if the engine for the specified language can be
+     * used by multiple threads concurrently.
+     *
+     * @param language scripting language
+     *
+     * @return <tt>true</tt> if the engine is thread-safe
+     */
+    private static boolean isThreadSafe(String language) {
+        Boolean threadSafe = THREAD_SAFE.get(language);
+        if (threadSafe == null) {
+            threadSafe = Boolean.FALSE;
+            for (ScriptEngineFactory factory : MANAGER.getEngineFactories()) {
+                if (factory.getNames().contains(language)) {
+                    threadSafe = factory.getParameter("THREADING") != null;
+                    break;
+                }
+            }
+            THREAD_SAFE.put(language, threadSafe);
+        }
+        return threadSafe;
+    }
+
+
+    // ---- inner class: ScriptRunner ---------------------------------------
+
+    /**
+     * Evaluates a compiled script on behalf of all expression instances with
+     * the same language and script.
+     */
+    private abstract static class ScriptRunner {
+        /**
+         * Evaluate the script.
+         *
+         * @param target    the target object
+         * @param variables the variables to bind, may be <tt>null</tt>
+         *
+         * @return the result of the evaluation
+         *
+         * @throws ScriptException if the evaluation fails
+         */
+        abstract Object eval(Object target, Map<String, Object> variables)
+                throws ScriptException;
+
+        /**
+         * Evaluate the script using the specified, reusable bindings.
+         */
+        static Object run(CompiledScript script, Bindings bindings,
+                          Object target, Map<String, Object> variables)
+                throws ScriptException {
+            if (variables != null) {
+                bindings.putAll(variables);
+            }
+            bindings.put("target", target);
+            try {
+                return script.eval(bindings);
+            }
+            finally {
+                bindings.clear();
+            }
+        }
+    }
+
+
+    // ---- inner class: SharedScript ---------------------------------------
+
+    /**
+     * Script compiled by a thread-safe engine, which is evaluated by all
+     * threads concurrently using per-thread bindings.
+     */
+    private static class SharedScript
+            extends ScriptRunner {
+        private final CompiledScript script;
+
+        private final ThreadLocal<Bindings> bindings = new ThreadLocal<Bindings>() {
+            @Override
+            protected Bindings initialValue() {
+                return new SimpleBindings();
+            }
+        };
+
+        SharedScript(String language, String expression) {
+            script = compile(language, expression);
+        }
+
+        Object eval(Object target, Map<String, Object> variables)
+                throws ScriptException {
+            return run(script, bindings.get(), target, variables);
+        }
+    }
+
+
+    // ---- inner class: PooledScript ---------------------------------------
+
+    /**
+     * Pool of scripts compiled by engines that are not thread-safe, each of
+     * which is used by a single thread at a time.
+     */
+    private static class PooledScript
+            extends ScriptRunner {
+        private final String language;
+        private final String expression;
+        private final Queue<PooledEntry> pool = new ConcurrentLinkedQueue<PooledEntry>();
+
+        PooledScript(String language, String expression) {
+            this.language   = language;
+            this.expression = expression;
+
+            // compile eagerly, so invalid scripts are reported immediately
+            pool.offer(new PooledEntry(compile(language, expression)));
+        }
+
+        Object eval(Object target, Map<String, Object> variables)
+                throws ScriptException {
+            PooledEntry entry = pool.poll();
+            if (entry == null) {
+                entry = new PooledEntry(compile(language, expression));
+            }
+            try {
+                return run(entry.script, entry.bindings, target, variables);
+            }
+            finally {
+                pool.offer(entry);
+            }
+        }
+    }
+
+    /**
+     * Compiled script and the bindings it is evaluated with.
+     */
+    private static class PooledEntry {
+        final CompiledScript script;
+        final Bindings bindings = new SimpleBindings();
+
+        PooledEntry(CompiledScript script) {
+            this.script = script;
+        }
+    }
+
+
+    // ---- inner class: InterpretedScript ----------------------------------
+
+    /**
+     * Adapter that allows scripts for engines that do not support compilation
+     * to be evaluated the same way as compiled scripts.
+     */
+    private static class InterpretedScript
+            extends CompiledScript {
+        private final ScriptEngine engine;
+        private final String script;
+
+        InterpretedScript(ScriptEngine engine, String script) {
+            this.engine = engine;
+            this.script = script;
+        }
+
+        public Object eval(ScriptContext context)
+                throws ScriptException {
+            return engine.eval(script, context);
+        }
+
+        public ScriptEngine getEngine() {
+            return engine;
+        }
+    }
+
+
     // ---- PortableObject implementation -----------------------------------
 
     /**
@@ -43,6 +43,18 @@ public class SpelExpression<T>
     private static final ExpressionParser EXPRESSION_PARSER = new SpelExpressionParser();
     private static final long serialVersionUID = 400321438177955162L;
 
+    private static final ExpressionCache.Compiler<Expression> COMPILER =
+            new ExpressionCache.Compiler<Expression>() {
+                public Expression compile(String expression) {
+                    try {
+                        return EXPRESSION_PARSER.parseExpression(expression);
+                    }
+                    catch (ParseException e) {
+                        throw new IllegalArgumentException("[" + expression + "] is not a valid SpEL expression", e);
+                    }
+                }
+            };
+
     // ---- data members ----------------------------------------------------
 
     private transient StandardEvaluationContext context = new StandardEvaluationContext();
@@ -106,17 +118,16 @@ public class SpelExpression<T>
 
     /**
      * Return a parsed SpEL expression.
+     * <p/>
+     * Parsed expressions are shared with other instances through the
+     * {@link ExpressionCache}.
      *
      * @return parsed SpEL expression
      */
     protected synchronized Expression getParsedExpression() {
         if (parsedExpression == null) {
-            try {
-                parsedExpression = EXPRESSION_PARSER.parseExpression(getExpression());
-            }
-            catch (ParseException e) {
-                throw new IllegalArgumentException("[" + getExpression() + "] is not a valid SpEL expression", e);
-            }
+            parsedExpression = ExpressionCache.getInstance()
+                    .get("spel", getExpression(), COMPILER);
         }
         return parsedExpression;
     }
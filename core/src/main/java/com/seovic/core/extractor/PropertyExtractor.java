@@ -18,19 +18,27 @@ package com.seovic.core.extractor;
 
 
 import com.seovic.core.Extractor;
+import com.seovic.core.util.PropertyAccessors;
 
 import com.tangosol.io.pof.PofReader;
 import com.tangosol.io.pof.PofWriter;
 import com.tangosol.io.pof.PortableObject;
+import com.tangosol.util.Base;
 
 import java.io.IOException;
 import java.io.Serializable;
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Method;
 
 
 /**
  * Simple implementation of {@link Extractor} that extracts value from a target
  * object using introspection.
+ * <p/>
+ * Property accessors are resolved once per target class and shared by all
+ * instances, see {@link PropertyAccessors}. Subclasses that override
+ * {@link #findReadMethod(String, Class)} bypass the shared cache, and the
+ * accessors they find are cached by each instance instead.
  *
  * @author Aleksandar Seovic  2009.06.17
  */
@@ -40,7 +48,17 @@ public class PropertyExtractor<T>
 
     private static final long serialVersionUID = -6077207711822880508L;
 
-    private static final String[] PREFIXES = new String[] {"get", "is"};
+    /**
+     * Whether an extractor class overrides the read method lookup.
+     */
+    private static final ClassValue<Boolean> CUSTOM_LOOKUP =
+            new ClassValue<Boolean>() {
+                protected Boolean computeValue(Class<?> cls) {
+                    return PropertyAccessors.isOverridden(
+                            cls, PropertyExtractor.class, "findReadMethod",
+                            String.class, Class.class);
+                }
+            };
 
     // ---- data members ----------------------------------------------------
 
@@ -50,9 +68,10 @@ public class PropertyExtractor<T>
     private String propertyName;
 
     /**
-     * Property accessor.
+     * Target class and read accessor found by an overridden
+     * {@link #findReadMethod(String, Class)}.
      */
-    private transient Method propertyAccessor;
+    private transient volatile Object[] customReader;
 
 
     // ---- constructors ----------------------------------------------------
@@ -85,28 +104,49 @@ public class PropertyExtractor<T>
         }
 
         Class targetClass = target.getClass();
+        MethodHandle reader = CUSTOM_LOOKUP.get(getClass())
+                              ? getCustomReader(targetClass)
+                              : PropertyAccessors.getReader(targetClass, propertyName);
+        if (reader == null) {
+            throw new RuntimeException("Readable property " + propertyName +
+                                       " does not exist in the class "
+                                       + targetClass);
+        }
+
         try {
-            if (propertyAccessor == null || propertyAccessor.getDeclaringClass() != targetClass) {
-                propertyAccessor = findReadMethod(propertyName, target.getClass());
-            }
-
-            if (propertyAccessor != null) {
-                return (T) propertyAccessor.invoke(target);
-            }
-            else {
-                throw new RuntimeException("Readable property " + propertyName +
-                                           " does not exist in the class "
-                                           + targetClass);
-            }
+            return (T) (Object) reader.invokeExact(target);
         }
-        catch (Exception e) {
-            throw new RuntimeException(e);
+        catch (Error e) {
+            throw e;
+        }
+        catch (Throwable e) {
+            throw Base.ensureRuntimeException(e);
         }
     }
 
 
     // ---- helper methods --------------------------------------------------
 
+    /**
+     * Return a read accessor found by an overridden
+     * {@link #findReadMethod(String, Class)}.
+     *
+     * @param targetClass class containing the property
+     *
+     * @return read accessor for the property, or <tt>null</tt> if the read
+     *         method cannot be found
+     */
+    private MethodHandle getCustomReader(Class targetClass) {
+        Object[] cached = customReader;
+        if (cached == null || cached[0] != targetClass) {
+            Method method = findReadMethod(propertyName, targetClass);
+            cached = new Object[] {targetClass,
+                    method == null ? null : PropertyAccessors.toReader(method)};
+            customReader = cached;
+        }
+        return (MethodHandle) cached[1];
+    }
+
     /**
      * Attempt to find a read method for the specified property name.
      * <p/>
@@ -118,20 +158,11 @@ public class PropertyExtractor<T>
      *
      * @return read method for the property, or <tt>null</tt> if the method
      *         cannot be found
+     *
+     * @see PropertyAccessors#findReadMethod(Class, String)
      */
     protected Method findReadMethod(String propertyName, Class cls) {
-        String name = Character.toUpperCase(propertyName.charAt(0))
-                      + propertyName.substring(1);
-
-        for (String prefix : PREFIXES) {
-            try {
-                return cls.getMethod(prefix + name);
-            }
-            catch (NoSuchMethodException ignore) {
-            }
-        }
-
-        return null;
+        return PropertyAccessors.findReadMethod(cls, propertyName);
     }
 
 
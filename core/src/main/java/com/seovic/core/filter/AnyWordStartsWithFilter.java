@@ -19,22 +19,42 @@ package com.seovic.core.filter;
 
 import com.seovic.core.Condition;
 import com.seovic.core.extractor.PropertyExtractor;
+import com.seovic.core.index.BaseIndex;
+import com.seovic.core.index.WordPrefixIndex;
+import com.seovic.core.util.Strings;
 import com.tangosol.io.pof.PofReader;
 import com.tangosol.io.pof.PofWriter;
+import com.tangosol.util.Filter;
+import com.tangosol.util.MapIndex;
 import com.tangosol.util.ValueExtractor;
 import com.tangosol.util.filter.ComparisonFilter;
+import com.tangosol.util.filter.IndexAwareFilter;
 import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 
 /**
+ * A filter that evaluates to <tt>true</tt> if each whitespace separated part
+ * of the search string is a prefix of at least one word of the extracted
+ * value.
+ * <p/>
+ * When the extractor used by this filter is a
+ * {@link com.seovic.core.index.WordPrefixIndexExtractor} that an index was
+ * created for, the filter is resolved by intersecting the key sets of the
+ * indexed words that start with each part of the search string.
+ *
  * @author Ivan Cikic  2011.04.19
  */
+@SuppressWarnings("unchecked")
 public class AnyWordStartsWithFilter
                 extends ComparisonFilter
-                implements Condition, Serializable {
+                implements Condition, IndexAwareFilter, Serializable {
 
     // ---- data members ----------------------------------------------------
 
@@ -43,6 +63,11 @@ public class AnyWordStartsWithFilter
      */
     private boolean ignoreCase;
 
+    /**
+     * Whitespace separated parts of the search string.
+     */
+    private transient String[] prefixes;
+
 
     // ---- constructors ----------------------------------------------------
     /**
@@ -87,25 +112,83 @@ public class AnyWordStartsWithFilter
      */
     protected boolean evaluateExtracted(Object o)
         {
-        String sWords   = (String) o;
-        String sFilter  = getFilterString();
-        boolean matches = false;
-        if (sWords != null && !sWords.isEmpty() && sFilter != null && !sFilter.isEmpty())
+        String sWords = (String) o;
+        String[] arrPrefixes = getPrefixes();
+        if (sWords == null || sWords.isEmpty() || arrPrefixes.length == 0)
             {
-            String[] arrWords = sWords.split("[\\s\\-/]");
-            matches = true;
-            for (String sPart : sFilter.split("\\s"))
+            return false;
+            }
+
+        for (String sPrefix : arrPrefixes)
+            {
+            if (!Strings.anyWordStartsWith(sWords, sPrefix, ignoreCase))
                 {
-                if (!isMatch(arrWords, sPart))
+                return false;
+                }
+            }
+        return true;
+        }
+
+
+    // ---- IndexAwareFilter implementation ---------------------------------
+
+    /**
+     * {@inheritDoc}
+     */
+    public int calculateEffectiveness(Map mapIndexes, Set setKeys)
+        {
+        return calculateRangeEffectiveness(mapIndexes, setKeys);
+        }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Filter applyIndex(Map mapIndexes, Set setKeys)
+        {
+        MapIndex index = (MapIndex) mapIndexes.get(getValueExtractor());
+        if (index == null)
+            {
+            // there is no relevant index
+            return this;
+            }
+
+        String[] arrPrefixes = getPrefixes();
+        if (arrPrefixes.length == 0)
+            {
+            setKeys.clear();
+            return null;
+            }
+
+        if (index instanceof WordPrefixIndex)
+            {
+            WordPrefixIndex wordIndex = (WordPrefixIndex) index;
+            for (String sPrefix : arrPrefixes)
+                {
+                BaseIndex.retainKeys(setKeys, wordIndex.getKeySets(sPrefix, ignoreCase));
+                if (setKeys.isEmpty())
                     {
-                        matches = false;
-                        break;
+                    break;
                     }
                 }
+
+            // case-insensitive index only narrows down the candidates
+            // for a case-sensitive search
+            return wordIndex.isIgnoreCase() && !ignoreCase ? this : null;
             }
-        return matches;
-        }
 
+        // regular index: evaluate each distinct value only once
+        List<Set> keySets = new ArrayList<Set>();
+        for (Object entry : index.getIndexContents().entrySet())
+            {
+            Map.Entry indexEntry = (Map.Entry) entry;
+            if (evaluateExtracted(indexEntry.getKey()))
+                {
+                keySets.add((Set) indexEntry.getValue());
+                }
+            }
+        BaseIndex.retainKeys(setKeys, keySets);
+        return null;
+        }
 
 
     // ---- helper methods --------------------------------------------------
@@ -121,21 +204,24 @@ public class AnyWordStartsWithFilter
         }
 
     /**
-     * Return <tt>true</tt> if the specified value matches this filter.
+     * Return whitespace separated parts of the filter string, each of which
+     * has to match the start of a word for this filter to evaluate to
+     * <tt>true</tt>.
      *
-     * TODO: javadoc
+     * @return the prefixes to match
      */
-    protected boolean isMatch(String[] words, String filter)
+    protected String[] getPrefixes()
         {
-        for (String word : words)
+        String[] arrPrefixes = prefixes;
+        if (arrPrefixes == null)
             {
-            int len = filter.length();
-            if (word.regionMatches(ignoreCase, 0, filter, 0, len))
-                {
-                return true;
-                }
+            String sFilter = getFilterString();
+            List<String> listPrefixes = sFilter == null
+                                        ? new ArrayList<String>()
+                                        : Strings.splitWhitespace(sFilter);
+            prefixes = arrPrefixes = listPrefixes.toArray(new String[listPrefixes.size()]);
             }
-        return false;
+        return arrPrefixes;
         }
 
     // ---- ExternalizableLite implementation -------------------------------
@@ -19,6 +19,8 @@ package com.seovic.core.filter;
 
 import com.seovic.core.Condition;
 import com.seovic.core.extractor.PropertyExtractor;
+import com.seovic.core.index.BaseIndex;
+import com.seovic.core.index.CaseInsensitiveIndex;
 import com.tangosol.io.pof.PofReader;
 import com.tangosol.io.pof.PofWriter;
 import com.tangosol.util.Filter;
@@ -30,7 +32,8 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 import java.io.Serializable;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.SortedMap;
@@ -44,7 +47,11 @@ import java.util.SortedMap;
  * <tt>LikeFilter</tt>, but is slightly lighter and faster as it only has to
  * evaluate one special, although very common case supported by the
  * <tt>LikeFilter</tt>.
- * 
+ * <p/>
+ * Case-insensitive searches can only use a range scan over an index created
+ * by {@link com.seovic.core.index.CaseInsensitiveIndexExtractor}, which needs
+ * to be used as this filter's extractor as well.
+ *
  * @author Aleksandar Seovic  2009.06.07
  */
 @SuppressWarnings("unchecked")
@@ -130,9 +137,19 @@ public class StartsWithFilter
             return this;
             }
 
-        Map     candidates     = index.getIndexContents();
-        Set     matches        = new HashSet();
-        boolean abortIfNoMatch = false;
+        if (index instanceof CaseInsensitiveIndex)
+            {
+            BaseIndex.retainKeys(setKeys,
+                    ((CaseInsensitiveIndex) index).getKeySets(getFilterString()));
+
+            // case-insensitive index only narrows down the candidates
+            // for a case-sensitive search
+            return m_ignoreCase ? null : this;
+            }
+
+        Map       candidates     = index.getIndexContents();
+        List<Set> matches        = new ArrayList<Set>();
+        boolean   abortIfNoMatch = false;
 
         if (!m_ignoreCase && index.isOrdered())
             {
@@ -146,7 +163,7 @@ public class StartsWithFilter
             String    propertyValue = (String) indexEntry.getKey();
             if (isMatch(propertyValue))
                 {
-                matches.addAll((Set) indexEntry.getValue());
+                matches.add((Set) indexEntry.getValue());
                 }
             else if (abortIfNoMatch)
                 {
@@ -154,7 +171,7 @@ public class StartsWithFilter
                 }
             }
 
-        setKeys.retainAll(matches);
+        BaseIndex.retainKeys(setKeys, matches);
         return null;
         }
 
@@ -184,7 +201,7 @@ public class StartsWithFilter
         String filter = getFilterString();
         int    len    = filter.length();
 
-        return value.regionMatches(m_ignoreCase, 0, filter, 0, len);
+        return value != null && value.regionMatches(m_ignoreCase, 0, filter, 0, len);
         }
 
 
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2009 Aleksandar Seovic
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.seovic.core.index;
+
+
+import com.tangosol.io.ExternalizableLite;
+import com.tangosol.io.pof.PofReader;
+import com.tangosol.io.pof.PofWriter;
+import com.tangosol.io.pof.PortableObject;
+import com.tangosol.net.BackingMapContext;
+import com.tangosol.util.InvocableMapHelper;
+import com.tangosol.util.MapIndex;
+import com.tangosol.util.MapTrigger;
+import com.tangosol.util.ValueExtractor;
+import com.tangosol.util.extractor.AbstractExtractor;
+import com.tangosol.util.extractor.IndexAwareExtractor;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.Map;
+
+
+/**
+ * Base class for extractors that create custom {@link BaseIndex}
+ * implementations.
+ * <p/>
+ * Values are extracted using the wrapped extractor, but by default the index
+ * is registered under this extractor, so only the filters that are constructed
+ * with an equal extractor will use it. This prevents the built-in filters from
+ * misinterpreting the contents of a specialized index. Subclasses that create
+ * indexes with standard semantics can override {@link #getIndexKey()} to make
+ * them available to all filters.
+ */
+@SuppressWarnings("unchecked")
+public abstract class AbstractIndexAwareExtractor
+        extends AbstractExtractor
+        implements IndexAwareExtractor, ExternalizableLite, PortableObject
+    {
+    /**
+     * The extractor to use.
+     */
+    protected ValueExtractor extractor;
+
+    /**
+     * Deserialization constructor (for internal use only).
+     */
+    protected AbstractIndexAwareExtractor()
+        {
+        }
+
+    /**
+     * Construct <tt>AbstractIndexAwareExtractor</tt> instance.
+     *
+     * @param extractor  the extractor to use
+     */
+    protected AbstractIndexAwareExtractor(ValueExtractor extractor)
+        {
+        this.extractor = extractor;
+        }
+
+    /**
+     * Return the extractor used to extract values.
+     *
+     * @return the wrapped extractor
+     */
+    public ValueExtractor getExtractor()
+        {
+        return extractor;
+        }
+
+    /**
+     * Return the extractor the index should be registered under.
+     *
+     * @return the extractor to register the index under
+     */
+    protected ValueExtractor getIndexKey()
+        {
+        return this;
+        }
+
+    /**
+     * Create the index this extractor is responsible for.
+     *
+     * @param fOrdered    flag specifying whether the index should be ordered
+     * @param comparator  the comparator to use for an ordered index
+     * @param context     the context of the indexed backing map
+     *
+     * @return a new index instance
+     */
+    protected abstract MapIndex instantiateIndex(boolean fOrdered, Comparator comparator,
+                                                 BackingMapContext context);
+
+    // ---- ValueExtractor implementation -----------------------------------
+
+    @Override
+    public Object extract(Object target)
+        {
+        return extractor.extract(target);
+        }
+
+    @Override
+    public Object extractFromEntry(Map.Entry entry)
+        {
+        return InvocableMapHelper.extractFromEntry(extractor, entry);
+        }
+
+    @Override
+    public Object extractOriginalFromEntry(MapTrigger.Entry entry)
+        {
+        return InvocableMapHelper.extractOriginalFromEntry(extractor, entry);
+        }
+
+    // ---- IndexAwareExtractor implementation ------------------------------
+
+    @Override
+    public MapIndex createIndex(boolean fOrdered, Comparator comparator, Map mapIndex,
+                                BackingMapContext context)
+        {
+        ValueExtractor key = getIndexKey();
+        if (mapIndex.get(key) != null)
+            {
+            // the index already exists
+            return null;
+            }
+
+        MapIndex index = instantiateIndex(fOrdered, comparator, context);
+        mapIndex.put(key, index);
+        return index;
+        }
+
+    @Override
+    public MapIndex destroyIndex(Map mapIndex)
+        {
+        return (MapIndex) mapIndex.remove(getIndexKey());
+        }
+
+    // ---- ExternalizableLite implementation -------------------------------
+
+    public void readExternal(DataInput in)
+            throws IOException
+        {
+        extractor = (ValueExtractor) readObject(in);
+        }
+
+    public void writeExternal(DataOutput out)
+            throws IOException
+        {
+        writeObject(out, extractor);
+        }
+
+    // ---- PortableObject implementation -----------------------------------
+
+    public void readExternal(PofReader reader)
+            throws IOException
+        {
+        extractor = (ValueExtractor) reader.readObject(0);
+        }
+
+    public void writeExternal(PofWriter writer)
+            throws IOException
+        {
+        writer.writeObject(0, extractor);
+        }
+
+    // ---- Object methods --------------------------------------------------
+
+    @Override
+    public boolean equals(Object o)
+        {
+        if (this == o)
+            {
+            return true;
+            }
+        if (o == null || getClass() != o.getClass())
+            {
+            return false;
+            }
+
+        AbstractIndexAwareExtractor that = (AbstractIndexAwareExtractor) o;
+        return extractor.equals(that.extractor);
+        }
+
+    @Override
+    public int hashCode()
+        {
+        return extractor.hashCode();
+        }
+
+    @Override
+    public String toString()
+        {
+        return getClass().getSimpleName() + "{" +
+               "extractor=" + extractor +
+               '}';
+        }
+    }
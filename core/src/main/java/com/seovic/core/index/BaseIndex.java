@@ -5,13 +5,27 @@ import com.tangosol.util.*;
 import com.tangosol.util.extractor.IdentityExtractor;
 import com.tangosol.util.filter.NotEqualsFilter;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 
 
 /**
+ * Base class for custom {@link MapIndex} implementations.
+ * <p/>
+ * By default, index maintenance is serialized on the index instance. Indexes
+ * constructed with a concurrency level greater than one instead lock only the
+ * stripe that the indexed value hashes to, so entries with different values
+ * can be indexed concurrently. Both the forward and the inverse maps are
+ * thread-safe, so only the per-value key sets need to be guarded.
+ * <p/>
+ * Striping relies on the hash codes of indexed values being consistent with
+ * the ordering of the inverse map, so ordered indexes that use a comparator
+ * which is inconsistent with <tt>equals</tt> should not be concurrent.
  */
 @SuppressWarnings("unchecked")
 public class BaseIndex
@@ -27,8 +41,21 @@ public class BaseIndex
     protected Comparator comparator;
     protected Map inverseIndex;
     protected Map forwardIndex;
+    protected Object[] locks;
 
     protected BaseIndex(ValueExtractor extractor, boolean fInverse, boolean fForward, Filter partialFilter, boolean fOrdered, Comparator comparator)
+        {
+        this(extractor, fInverse, fForward, partialFilter, fOrdered, comparator, 1);
+        }
+
+    /**
+     * Construct <tt>BaseIndex</tt> instance.
+     *
+     * @param concurrencyLevel  the number of lock stripes to use for index
+     *                          maintenance; a value of one or less serializes
+     *                          all maintenance on the index instance
+     */
+    protected BaseIndex(ValueExtractor extractor, boolean fInverse, boolean fForward, Filter partialFilter, boolean fOrdered, Comparator comparator, int concurrencyLevel)
         {
         this.extractor = extractor;
         this.fInverse = fInverse;
@@ -46,6 +73,36 @@ public class BaseIndex
             {
             forwardIndex = new SegmentedHashMap();
             }
+        if (concurrencyLevel > 1)
+            {
+            int cStripes = Integer.highestOneBit(concurrencyLevel - 1) << 1;
+            locks = new Object[cStripes];
+            for (int i = 0; i < cStripes; i++)
+                {
+                locks[i] = new Object();
+                }
+            }
+        }
+
+    /**
+     * Return the default concurrency level, which is four lock stripes per
+     * available processor.
+     *
+     * @return the default concurrency level
+     */
+    public static int getDefaultConcurrencyLevel()
+        {
+        return 4 * Runtime.getRuntime().availableProcessors();
+        }
+
+    /**
+     * Return <tt>true</tt> if this index uses striped locks for maintenance.
+     *
+     * @return <tt>true</tt> if this index can be maintained concurrently
+     */
+    public boolean isConcurrent()
+        {
+        return locks != null;
         }
 
     @Override
@@ -102,15 +159,15 @@ public class BaseIndex
         Object newValue = extractNewValue(entry);
         Object oldValue = extractOldValue(entry, key);
 
-        synchronized (this)
+        if (isConcurrent())
             {
-            if (oldValue != null && !Base.equalsDeep(oldValue, newValue))
-                {
-                removeFromIndex(oldValue, key);
-                }
-            if (partialFilter == null || partialFilter.evaluate(newValue))
+            updateIndex(oldValue, newValue, key);
+            }
+        else
+            {
+            synchronized (this)
                 {
-                addToIndex(newValue, key);
+                updateIndex(oldValue, newValue, key);
                 }
             }
         }
@@ -123,9 +180,51 @@ public class BaseIndex
         removeFromIndex(value, key);
         }
 
-    protected synchronized void addToIndex(Object value, Object key)
+    protected void updateIndex(Object oldValue, Object newValue, Object key)
+        {
+        if (oldValue != null && !Base.equalsDeep(oldValue, newValue))
+            {
+            removeFromIndex(oldValue, key);
+            }
+        if (partialFilter == null || partialFilter.evaluate(newValue))
+            {
+            addToIndex(newValue, key);
+            }
+        }
+
+    protected void addToIndex(Object value, Object key)
+        {
+        if (fInverse)
+            {
+            addKey(value, key);
+            }
+        if (fForward)
+            {
+            forwardIndex.put(key, value);
+            }
+        }
+
+    protected void removeFromIndex(Object value, Object key)
         {
         if (fInverse)
+            {
+            removeKey(value, key);
+            }
+        if (fForward)
+            {
+            forwardIndex.remove(key);
+            }
+        }
+
+    /**
+     * Add a key to the key set of the specified value in the inverse index.
+     *
+     * @param value  the value to add the key for
+     * @param key    the key to add
+     */
+    protected void addKey(Object value, Object key)
+        {
+        synchronized (getLock(value))
             {
             Set keys = (Set) inverseIndex.get(value);
             if (keys == null)
@@ -135,25 +234,100 @@ public class BaseIndex
                 }
             keys.add(key);
             }
-        if (fForward)
-            {
-            forwardIndex.put(key, value);
-            }
         }
 
-    protected synchronized void removeFromIndex(Object value, Object key)
+    /**
+     * Remove a key from the key set of the specified value in the inverse
+     * index, and remove the value from the index if that was its last key.
+     *
+     * @param value  the value to remove the key for
+     * @param key    the key to remove
+     */
+    protected void removeKey(Object value, Object key)
         {
-        if (fInverse)
+        synchronized (getLock(value))
             {
             Set keys = (Set) inverseIndex.get(value);
             if (keys != null)
                 {
                 keys.remove(key);
+                if (keys.isEmpty())
+                    {
+                    inverseIndex.remove(value);
+                    }
                 }
             }
-        if (fForward)
+        }
+
+    /**
+     * Return the lock that guards the key set of the specified value.
+     *
+     * @param value  the value to return the lock for
+     *
+     * @return the lock stripe for the value, or this index if it is not
+     *         concurrent
+     */
+    protected Object getLock(Object value)
+        {
+        Object[] locks = this.locks;
+        if (locks == null)
             {
-            forwardIndex.remove(key);
+            return this;
+            }
+
+        int h = value == null ? 0 : value.hashCode();
+        h ^= h >>> 16;
+        return locks[h & (locks.length - 1)];
+        }
+
+    public static void retainKeys(Set setKeys, Collection<? extends Set> keySets)
+        {
+        int cSets = keySets.size();
+        if (cSets == 0)
+            {
+            setKeys.clear();
+            }
+        else if (cSets == 1)
+            {
+            setKeys.retainAll(keySets.iterator().next());
+            }
+        else
+            {
+            long cKeys  = setKeys.size();
+            long cUnion = 0;
+            for (Set keys : keySets)
+                {
+                cUnion += keys.size();
+                }
+
+            if (cKeys * cSets > cUnion + cKeys)
+                {
+                Set union = new HashSet((int) Math.min(cUnion, Integer.MAX_VALUE));
+                for (Set keys : keySets)
+                    {
+                    union.addAll(keys);
+                    }
+                setKeys.retainAll(union);
+                return;
+                }
+
+            for (Iterator it = setKeys.iterator(); it.hasNext(); )
+                {
+                Object key = it.next();
+                boolean found = false;
+                for (Set keys : keySets)
+                    {
+                    if (keys.contains(key))
+                        {
+                        found = true;
+                        break;
+                        }
+                    }
+                if (!found)
+                    {
+                    it.remove();
+                    }
+                }
             }
         }
 
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2009 Aleksandar Seovic
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.seovic.core.index;
+
+
+import com.seovic.core.util.Strings;
+import com.tangosol.util.ValueExtractor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+
+
+/**
+ * An ordered index of string values whose inverse map is keyed by the
+ * case-folded values, which allows case-insensitive prefix lookups to be
+ * performed using a range scan.
+ * <p/>
+ * The forward map still contains the original values. The contents of this
+ * index are folded values, which is why it should only be created through a
+ * {@link CaseInsensitiveIndexExtractor}.
+ *
+ * @see com.seovic.core.filter.StartsWithFilter
+ */
+@SuppressWarnings("unchecked")
+public class CaseInsensitiveIndex
+        extends BaseIndex
+    {
+    public CaseInsensitiveIndex(ValueExtractor extractor)
+        {
+        super(extractor, true, true, null, true, null, getDefaultConcurrencyLevel());
+        }
+
+    /**
+     * Return key sets for all indexed values that start with the specified
+     * prefix, ignoring case.
+     *
+     * @param prefix  the prefix to look for
+     *
+     * @return a list of key sets for the matching values
+     */
+    public List<Set> getKeySets(String prefix)
+        {
+        String start = Strings.fold(prefix);
+
+        List<Set> keySets = new ArrayList<Set>();
+        for (Object o : ((SortedMap) inverseIndex).tailMap(start).entrySet())
+            {
+            Map.Entry entry = (Map.Entry) o;
+            if (!((String) entry.getKey()).startsWith(start))
+                {
+                break;
+                }
+            keySets.add((Set) entry.getValue());
+            }
+        return keySets;
+        }
+
+    @Override
+    protected void addToIndex(Object value, Object key)
+        {
+        if (value instanceof String)
+            {
+            addKey(Strings.fold((String) value), key);
+            }
+        forwardIndex.put(key, value);
+        }
+
+    @Override
+    protected void removeFromIndex(Object value, Object key)
+        {
+        if (value instanceof String)
+            {
+            removeKey(Strings.fold((String) value), key);
+            }
+        forwardIndex.remove(key);
+        }
+    }
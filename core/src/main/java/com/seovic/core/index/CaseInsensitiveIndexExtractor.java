@@ -0,0 +1,75 @@
+/*
+ * Copyright 2009 Aleksandar Seovic
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.seovic.core.index;
+
+
+import com.seovic.core.extractor.PropertyExtractor;
+import com.tangosol.net.BackingMapContext;
+import com.tangosol.util.MapIndex;
+import com.tangosol.util.ValueExtractor;
+import java.util.Comparator;
+
+
+/**
+ * Extractor that creates a {@link CaseInsensitiveIndex} when passed to
+ * <tt>addIndex</tt>, and which should be used by the filters that need to
+ * query it.
+ * <p/>
+ * For example:
+ * <pre>
+ * ValueExtractor name = new CaseInsensitiveIndexExtractor("name");
+ * cache.addIndex(name, true, null);
+ * Set keys = cache.keySet(new StartsWithFilter(name, "sw", true));
+ * </pre>
+ */
+public class CaseInsensitiveIndexExtractor
+        extends AbstractIndexAwareExtractor
+    {
+    /**
+     * Deserialization constructor (for internal use only).
+     */
+    public CaseInsensitiveIndexExtractor()
+        {
+        }
+
+    /**
+     * Construct <tt>CaseInsensitiveIndexExtractor</tt> instance.
+     *
+     * @param propertyName  the name of the property to index
+     */
+    public CaseInsensitiveIndexExtractor(String propertyName)
+        {
+        this(new PropertyExtractor(propertyName));
+        }
+
+    /**
+     * Construct <tt>CaseInsensitiveIndexExtractor</tt> instance.
+     *
+     * @param extractor  the extractor to use
+     */
+    public CaseInsensitiveIndexExtractor(ValueExtractor extractor)
+        {
+        super(extractor);
+        }
+
+    @Override
+    protected MapIndex instantiateIndex(boolean fOrdered, Comparator comparator,
+                                        BackingMapContext context)
+        {
+        return new CaseInsensitiveIndex(this);
+        }
+    }
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2009 Aleksandar Seovic
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.seovic.core.index;
+
+
+import java.util.Arrays;
+
+
+/**
+ * Assigns small, dense integer ordinals to keys, so that indexes can refer
+ * to keys using primitive ints instead of object references.
+ * <p/>
+ * Keys are stored in an open addressing hash table with linear probing, which
+ * avoids allocating an entry object and a boxed ordinal per key. Ordinals of
+ * released keys are reused.
+ * <p/>
+ * This class is not thread-safe.
+ */
+class KeyOrdinals
+    {
+    private static final int NONE = -1;
+
+    private Object[] table    = new Object[32];
+    private int[]    ordinals = new int[32];
+    private int      size;
+
+    private Object[] keys = new Object[16];
+    private int[]    free = new int[16];
+    private int      freeCount;
+    private int      nextOrdinal;
+
+    /**
+     * Return the ordinal of the specified key.
+     *
+     * @param key  the key
+     *
+     * @return the ordinal of the key, or <tt>-1</tt> if the key does not
+     *         have an ordinal assigned
+     */
+    int get(Object key)
+        {
+        int mask = table.length - 1;
+        for (int i = hash(key) & mask; ; i = (i + 1) & mask)
+            {
+            Object k = table[i];
+            if (k == null)
+                {
+                return NONE;
+                }
+            if (k.equals(key))
+                {
+                return ordinals[i];
+                }
+            }
+        }
+
+    /**
+     * Return the ordinal of the specified key, assigning one if necessary.
+     *
+     * @param key  the key
+     *
+     * @return the ordinal of the key
+     */
+    int acquire(Object key)
+        {
+        int ordinal = get(key);
+        if (ordinal != NONE)
+            {
+            return ordinal;
+            }
+
+        ordinal = freeCount > 0 ? free[--freeCount] : nextOrdinal++;
+        if (ordinal == keys.length)
+            {
+            keys = Arrays.copyOf(keys, keys.length << 1);
+            }
+        keys[ordinal] = key;
+
+        if (++size > table.length >>> 1)
+            {
+            rehash(table.length << 1);
+            }
+        insert(key, ordinal);
+        return ordinal;
+        }
+
+    /**
+     * Release the specified ordinal, so that it can be assigned to another
+     * key.
+     *
+     * @param ordinal  the ordinal to release
+     */
+    void release(int ordinal)
+        {
+        Object key = keys[ordinal];
+        if (key == null)
+            {
+            return;
+            }
+        keys[ordinal] = null;
+
+        if (freeCount == free.length)
+            {
+            free = Arrays.copyOf(free, free.length << 1);
+            }
+        free[freeCount++] = ordinal;
+
+        int mask = table.length - 1;
+        int i    = hash(key) & mask;
+        while (!table[i].equals(key))
+            {
+            i = (i + 1) & mask;
+            }
+
+        // backward shift deletion keeps probe sequences intact
+        for (int j = (i + 1) & mask; table[j] != null; j = (j + 1) & mask)
+            {
+            int home = hash(table[j]) & mask;
+            if (((j - home) & mask) >= ((j - i) & mask))
+                {
+                table[i]    = table[j];
+                ordinals[i] = ordinals[j];
+                i = j;
+                }
+            }
+        table[i] = null;
+        size--;
+        }
+
+    /**
+     * Return the key the specified ordinal is assigned to.
+     *
+     * @param ordinal  the ordinal
+     *
+     * @return the key, or <tt>null</tt> if the ordinal is not assigned
+     */
+    Object getKey(int ordinal)
+        {
+        return ordinal < keys.length ? keys[ordinal] : null;
+        }
+
+    /**
+     * Return the number of keys that have an ordinal assigned.
+     *
+     * @return the number of keys
+     */
+    int size()
+        {
+        return size;
+        }
+
+    /**
+     * Return an upper bound for all assigned ordinals.
+     *
+     * @return a value greater than any assigned ordinal
+     */
+    int capacity()
+        {
+        return nextOrdinal;
+        }
+
+    private void insert(Object key, int ordinal)
+        {
+        int mask = table.length - 1;
+        int i    = hash(key) & mask;
+        while (table[i] != null)
+            {
+            i = (i + 1) & mask;
+            }
+        table[i]    = key;
+        ordinals[i] = ordinal;
+        }
+
+    private void rehash(int capacity)
+        {
+        Object[] oldTable    = table;
+        int[]    oldOrdinals = ordinals;
+
+        table    = new Object[capacity];
+        ordinals = new int[capacity];
+        for (int i = 0; i < oldTable.length; i++)
+            {
+            if (oldTable[i] != null)
+                {
+                insert(oldTable[i], oldOrdinals[i]);
+                }
+            }
+        }
+
+    private static int hash(Object key)
+        {
+        int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+        }
+    }
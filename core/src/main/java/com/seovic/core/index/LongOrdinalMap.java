@@ -0,0 +1,417 @@
+/*
+ * Copyright 2009 Aleksandar Seovic
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.seovic.core.index;
+
+
+import java.util.Arrays;
+
+
+/**
+ * Sorted map of primitive <tt>long</tt> values to sets of key ordinals.
+ * <p/>
+ * Values are kept in sorted primitive arrays of bounded size (chunks), so
+ * inserting a new value only shifts the elements of a single chunk. A value
+ * with a single ordinal, which is the common case for high cardinality values
+ * such as timestamps, stores it inline instead of allocating an
+ * {@link OrdinalSet}.
+ * <p/>
+ * This class is not thread-safe.
+ */
+class LongOrdinalMap
+    {
+    private static final int CHUNK_SIZE = 256;
+
+    private Chunk[] chunks = new Chunk[4];
+    private long[]  mins   = new long[4];
+    private int     chunkCount;
+    private int     size;
+
+    /**
+     * Return the number of distinct values in this map.
+     *
+     * @return the number of distinct values
+     */
+    int size()
+        {
+        return size;
+        }
+
+    /**
+     * Add an ordinal to the set of ordinals for the specified value.
+     *
+     * @param value    the value
+     * @param ordinal  the ordinal to add
+     */
+    void add(long value, int ordinal)
+        {
+        if (chunkCount == 0)
+            {
+            insertChunk(0, new Chunk());
+            }
+
+        int   c     = findChunk(value);
+        Chunk chunk = chunks[c];
+        int   pos   = chunk.find(value);
+        if (pos >= 0)
+            {
+            chunk.addOrdinal(pos, ordinal);
+            return;
+            }
+
+        pos = -(pos + 1);
+        if (chunk.size == CHUNK_SIZE)
+            {
+            Chunk right = chunk.split();
+            insertChunk(c + 1, right);
+            if (pos > chunk.size)
+                {
+                pos  -= chunk.size;
+                chunk = right;
+                c++;
+                }
+            }
+        chunk.insert(pos, value, ordinal);
+        mins[c] = chunk.values[0];
+        size++;
+        }
+
+    /**
+     * Remove an ordinal from the set of ordinals for the specified value, and
+     * remove the value if it has no ordinals left.
+     *
+     * @param value    the value
+     * @param ordinal  the ordinal to remove
+     */
+    void remove(long value, int ordinal)
+        {
+        if (chunkCount == 0)
+            {
+            return;
+            }
+
+        int   c     = findChunk(value);
+        Chunk chunk = chunks[c];
+        int   pos   = chunk.find(value);
+        if (pos >= 0 && chunk.removeOrdinal(pos, ordinal))
+            {
+            chunk.delete(pos);
+            size--;
+            if (chunk.size == 0)
+                {
+                deleteChunk(c);
+                }
+            else
+                {
+                mins[c] = chunk.values[0];
+                }
+            }
+        }
+
+    /**
+     * Return <tt>true</tt> if the specified value is mapped to the specified
+     * ordinal.
+     *
+     * @param value    the value
+     * @param ordinal  the ordinal
+     *
+     * @return <tt>true</tt> if the value is mapped to the ordinal
+     */
+    boolean contains(long value, int ordinal)
+        {
+        if (chunkCount == 0)
+            {
+            return false;
+            }
+
+        Chunk chunk = chunks[findChunk(value)];
+        int   pos   = chunk.find(value);
+        return pos >= 0 && chunk.containsOrdinal(pos, ordinal);
+        }
+
+    /**
+     * Return the number of ordinals mapped to the specified value.
+     *
+     * @param value  the value
+     *
+     * @return the number of ordinals, or zero if the value is not present
+     */
+    int count(long value)
+        {
+        if (chunkCount == 0)
+            {
+            return 0;
+            }
+
+        Chunk chunk = chunks[findChunk(value)];
+        int   pos   = chunk.find(value);
+        return pos < 0 ? 0 : chunk.countOrdinals(pos);
+        }
+
+    /**
+     * Return the ordinals mapped to the specified value.
+     *
+     * @param value  the value
+     *
+     * @return the ordinals mapped to the value, in ascending order
+     */
+    int[] get(long value)
+        {
+        if (chunkCount == 0)
+            {
+            return new int[0];
+            }
+
+        Chunk chunk = chunks[findChunk(value)];
+        int   pos   = chunk.find(value);
+        return pos < 0 ? new int[0] : chunk.getOrdinals(pos);
+        }
+
+    /**
+     * Return the distinct values within the specified range, in ascending
+     * order.
+     *
+     * @param from  the lowest value to include
+     * @param to    the highest value to include
+     *
+     * @return the values within the range
+     */
+    long[] values(long from, long to)
+        {
+        long[] result = new long[Math.min(count(from, to), size)];
+        int    n      = 0;
+        for (int c = chunkCount == 0 ? 0 : findChunk(from); c < chunkCount && n < result.length; c++)
+            {
+            Chunk chunk = chunks[c];
+            for (int i = 0; i < chunk.size && n < result.length; i++)
+                {
+                long v = chunk.values[i];
+                if (v >= from && v <= to)
+                    {
+                    result[n++] = v;
+                    }
+                }
+            }
+        return result;
+        }
+
+    /**
+     * Return the number of distinct values within the specified range.
+     *
+     * @param from  the lowest value to include
+     * @param to    the highest value to include
+     *
+     * @return the number of values within the range
+     */
+    int count(long from, long to)
+        {
+        if (chunkCount == 0 || from > to)
+            {
+            return 0;
+            }
+
+        int first = findChunk(from);
+        int last  = findChunk(to);
+        if (first == last)
+            {
+            return chunks[first].rank(to, true) - chunks[first].rank(from, false);
+            }
+
+        int count = chunks[first].size - chunks[first].rank(from, false);
+        for (int c = first + 1; c < last; c++)
+            {
+            count += chunks[c].size;
+            }
+        return count + chunks[last].rank(to, true);
+        }
+
+    /**
+     * Return the lowest value that is greater than or equal to the specified
+     * value. The caller must ensure that such a value exists.
+     *
+     * @param value  the value
+     *
+     * @return the lowest value greater than or equal to the specified one
+     */
+    long ceiling(long value)
+        {
+        int   c     = findChunk(value);
+        Chunk chunk = chunks[c];
+        int   pos   = chunk.rank(value, false);
+        return pos < chunk.size ? chunk.values[pos] : chunks[c + 1].values[0];
+        }
+
+    /**
+     * Return the highest value that is lower than or equal to the specified
+     * value. The caller must ensure that such a value exists.
+     *
+     * @param value  the value
+     *
+     * @return the highest value lower than or equal to the specified one
+     */
+    long floor(long value)
+        {
+        Chunk chunk = chunks[findChunk(value)];
+        return chunk.values[chunk.rank(value, true) - 1];
+        }
+
+    /**
+     * Return the index of the chunk that contains the specified value, or
+     * would contain it if it was present.
+     */
+    private int findChunk(long value)
+        {
+        int pos = Arrays.binarySearch(mins, 0, chunkCount, value);
+        return pos >= 0 ? pos : Math.max(-(pos + 1) - 1, 0);
+        }
+
+    private void insertChunk(int c, Chunk chunk)
+        {
+        if (chunkCount == chunks.length)
+            {
+            chunks = Arrays.copyOf(chunks, chunkCount << 1);
+            mins   = Arrays.copyOf(mins, chunkCount << 1);
+            }
+        System.arraycopy(chunks, c, chunks, c + 1, chunkCount - c);
+        System.arraycopy(mins, c, mins, c + 1, chunkCount - c);
+        chunks[c] = chunk;
+        mins[c]   = chunk.size > 0 ? chunk.values[0] : 0L;
+        chunkCount++;
+        }
+
+    private void deleteChunk(int c)
+        {
+        System.arraycopy(chunks, c + 1, chunks, c, chunkCount - c - 1);
+        System.arraycopy(mins, c + 1, mins, c, chunkCount - c - 1);
+        chunks[--chunkCount] = null;
+        }
+
+    // ---- inner class: Chunk ----------------------------------------------
+
+    /**
+     * Sorted array of values with their ordinals. The ordinal of a value
+     * with a single ordinal is stored in <tt>ordinals</tt>, otherwise all of
+     * its ordinals are stored in the corresponding element of <tt>sets</tt>.
+     */
+    private static class Chunk
+        {
+        long[]       values   = new long[CHUNK_SIZE];
+        int[]        ordinals = new int[CHUNK_SIZE];
+        OrdinalSet[] sets     = new OrdinalSet[CHUNK_SIZE];
+        int          size;
+
+        int find(long value)
+            {
+            return Arrays.binarySearch(values, 0, size, value);
+            }
+
+        /**
+         * Return the number of values lower than the specified value, or
+         * lower than or equal to it if <tt>inclusive</tt> is <tt>true</tt>.
+         */
+        int rank(long value, boolean inclusive)
+            {
+            int pos = find(value);
+            return pos >= 0 ? (inclusive ? pos + 1 : pos) : -(pos + 1);
+            }
+
+        void insert(int pos, long value, int ordinal)
+            {
+            System.arraycopy(values, pos, values, pos + 1, size - pos);
+            System.arraycopy(ordinals, pos, ordinals, pos + 1, size - pos);
+            System.arraycopy(sets, pos, sets, pos + 1, size - pos);
+            values[pos]   = value;
+            ordinals[pos] = ordinal;
+            sets[pos]     = null;
+            size++;
+            }
+
+        void delete(int pos)
+            {
+            System.arraycopy(values, pos + 1, values, pos, size - pos - 1);
+            System.arraycopy(ordinals, pos + 1, ordinals, pos, size - pos - 1);
+            System.arraycopy(sets, pos + 1, sets, pos, size - pos - 1);
+            sets[--size] = null;
+            }
+
+        Chunk split()
+            {
+            Chunk right = new Chunk();
+            int   half  = size >>> 1;
+            int   n     = size - half;
+            System.arraycopy(values, half, right.values, 0, n);
+            System.arraycopy(ordinals, half, right.ordinals, 0, n);
+            System.arraycopy(sets, half, right.sets, 0, n);
+            Arrays.fill(sets, half, size, null);
+            right.size = n;
+            size = half;
+            return right;
+            }
+
+        void addOrdinal(int pos, int ordinal)
+            {
+            OrdinalSet set = sets[pos];
+            if (set == null)
+                {
+                if (ordinals[pos] == ordinal)
+                    {
+                    return;
+                    }
+                set = sets[pos] = new OrdinalSet(ordinals[pos]);
+                }
+            set.add(ordinal);
+            }
+
+        /**
+         * Remove the ordinal and return <tt>true</tt> if the value has no
+         * ordinals left.
+         */
+        boolean removeOrdinal(int pos, int ordinal)
+            {
+            OrdinalSet set = sets[pos];
+            if (set == null)
+                {
+                return ordinals[pos] == ordinal;
+                }
+
+            set.remove(ordinal);
+            if (set.size() == 1)
+                {
+                ordinals[pos] = set.toArray()[0];
+                sets[pos]     = null;
+                }
+            return set.isEmpty();
+            }
+
+        boolean containsOrdinal(int pos, int ordinal)
+            {
+            OrdinalSet set = sets[pos];
+            return set == null ? ordinals[pos] == ordinal : set.contains(ordinal);
+            }
+
+        int countOrdinals(int pos)
+            {
+            OrdinalSet set = sets[pos];
+            return set == null ? 1 : set.size();
+            }
+
+        int[] getOrdinals(int pos)
+            {
+            OrdinalSet set = sets[pos];
+            return set == null ? new int[] {ordinals[pos]} : set.toArray();
+            }
+        }
+    }
@@ -0,0 +1,585 @@
+/*
+ * Copyright 2009 Aleksandar Seovic
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.seovic.core.index;
+
+
+import com.tangosol.util.ValueExtractor;
+import java.math.BigDecimal;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SortedMap;
+
+
+/**
+ * A compact, ordered index of numeric values.
+ * <p/>
+ * Instead of boxed values and per-value key sets, this index assigns each key
+ * a dense integer ordinal and stores values as primitive <tt>long</tt>s, both
+ * in a forward array indexed by ordinal and in sorted chunks that map each
+ * distinct value to its key ordinals. Key ordinals of values shared by many
+ * keys, such as status codes, are stored as bitmaps, while values with a
+ * single key, such as timestamps, store the ordinal inline.
+ * <p/>
+ * Floating point values are stored using an order-preserving encoding of
+ * their bits, so ranges of all supported types can be resolved by comparing
+ * <tt>long</tt>s.
+ * <p/>
+ * The contents of this index are exposed as a read-only {@link SortedMap} with
+ * the same semantics as the inverse map of a regular ordered index (including
+ * the <tt>null</tt> key, which sorts before all other values), so the built-in
+ * equality and range filters can use it as they would any other index. See
+ * {@link NumericIndexExtractor} for how to create it.
+ * <p/>
+ * Index maintenance and queries are serialized on the index instance.
+ */
+@SuppressWarnings("unchecked")
+public class NumericIndex
+        extends BaseIndex
+    {
+    private final Class type;
+    private final boolean integral;
+
+    private final KeyOrdinals    keyOrdinals = new KeyOrdinals();
+    private final LongOrdinalMap valueMap    = new LongOrdinalMap();
+    private final OrdinalSet     nullKeys    = new OrdinalSet();
+    private final BitSet         hasValue    = new BitSet();
+    private long[]               values      = new long[16];
+
+    /**
+     * Construct <tt>NumericIndex</tt> instance.
+     *
+     * @param extractor  the extractor used to extract indexed values
+     * @param type       the type of indexed values; one of <tt>Long</tt>,
+     *                   <tt>Integer</tt>, <tt>Short</tt>, <tt>Byte</tt>,
+     *                   <tt>Double</tt> or <tt>Float</tt>
+     */
+    public NumericIndex(ValueExtractor extractor, Class<? extends Number> type)
+        {
+        super(extractor, false, false, null, true, null);
+        if (type == Long.class || type == Integer.class || type == Short.class || type == Byte.class)
+            {
+            integral = true;
+            }
+        else if (type == Double.class || type == Float.class)
+            {
+            integral = false;
+            }
+        else
+            {
+            throw new IllegalArgumentException("Unsupported numeric index type: " + type);
+            }
+        this.type = type;
+        }
+
+    /**
+     * Return the type of indexed values.
+     *
+     * @return the type of indexed values
+     */
+    public Class getType()
+        {
+        return type;
+        }
+
+    // ---- MapIndex implementation -----------------------------------------
+
+    @Override
+    public Map getIndexContents()
+        {
+        return new Contents(true, Long.MIN_VALUE, Long.MAX_VALUE);
+        }
+
+    @Override
+    public synchronized Object get(Object key)
+        {
+        int ordinal = keyOrdinals.get(key);
+        if (ordinal < 0)
+            {
+            return NO_VALUE;
+            }
+        return hasValue.get(ordinal) ? decode(values[ordinal]) : null;
+        }
+
+    // ---- index maintenance -----------------------------------------------
+
+    @Override
+    protected synchronized void addToIndex(Object value, Object key)
+        {
+        if (value != null && !(value instanceof Number))
+            {
+            throw new IllegalArgumentException("Cannot index non-numeric value "
+                                               + value + " in " + this);
+            }
+
+        int ordinal = keyOrdinals.acquire(key);
+        unlink(ordinal);
+        if (value == null)
+            {
+            nullKeys.add(ordinal);
+            }
+        else
+            {
+            long encoded = encode((Number) value);
+            if (ordinal >= values.length)
+                {
+                values = Arrays.copyOf(values, Math.max(ordinal + 1, values.length << 1));
+                }
+            values[ordinal] = encoded;
+            hasValue.set(ordinal);
+            valueMap.add(encoded, ordinal);
+            }
+        }
+
+    @Override
+    protected synchronized void removeFromIndex(Object value, Object key)
+        {
+        // the stored value is used, as it is always accurate
+        int ordinal = keyOrdinals.get(key);
+        if (ordinal >= 0)
+            {
+            unlink(ordinal);
+            keyOrdinals.release(ordinal);
+            }
+        }
+
+    /**
+     * Remove the value of the specified ordinal from the index, if present.
+     */
+    private void unlink(int ordinal)
+        {
+        if (hasValue.get(ordinal))
+            {
+            valueMap.remove(values[ordinal], ordinal);
+            hasValue.clear(ordinal);
+            }
+        else
+            {
+            nullKeys.remove(ordinal);
+            }
+        }
+
+    // ---- value encoding --------------------------------------------------
+
+    /**
+     * Encode a number as a <tt>long</tt> whose natural ordering is consistent
+     * with the ordering of the values of this index.
+     */
+    private long encode(Number value)
+        {
+        return integral ? value.longValue() : encodeDouble(value.doubleValue());
+        }
+
+    private Number decode(long encoded)
+        {
+        if (type == Long.class)
+            {
+            return encoded;
+            }
+        if (type == Integer.class)
+            {
+            return (int) encoded;
+            }
+        if (type == Short.class)
+            {
+            return (short) encoded;
+            }
+        if (type == Byte.class)
+            {
+            return (byte) encoded;
+            }
+
+        double d = decodeDouble(encoded);
+        return type == Double.class ? (Number) d : (Number) (float) d;
+        }
+
+    private static long encodeDouble(double value)
+        {
+        long bits = Double.doubleToLongBits(value);
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+        }
+
+    private static double decodeDouble(long encoded)
+        {
+        return Double.longBitsToDouble(encoded ^ ((encoded >> 63) & Long.MAX_VALUE));
+        }
+
+    private static boolean isIntegral(Number n)
+        {
+        return !(n instanceof Double || n instanceof Float || n instanceof BigDecimal);
+        }
+
+    /**
+     * Return the lowest encoded value that is greater than (or equal to, if
+     * <tt>inclusive</tt> is <tt>true</tt>) the specified bound, or
+     * <tt>null</tt> if there is no such value.
+     */
+    private Long lowerBound(Number bound, boolean inclusive)
+        {
+        long lo;
+        if (integral && !isIntegral(bound))
+            {
+            double d = bound.doubleValue();
+            if (Double.isNaN(d) || d >= Long.MAX_VALUE)
+                {
+                return null;
+                }
+            lo = (long) Math.ceil(d);
+            return !inclusive && lo == d ? lo + 1 : lo;
+            }
+
+        lo = encode(bound);
+        if (!inclusive)
+            {
+            if (lo == Long.MAX_VALUE)
+                {
+                return null;
+                }
+            lo++;
+            }
+        return lo;
+        }
+
+    /**
+     * Return the highest encoded value that is lower than (or equal to, if
+     * <tt>inclusive</tt> is <tt>true</tt>) the specified bound, or
+     * <tt>null</tt> if there is no such value.
+     */
+    private Long upperBound(Number bound, boolean inclusive)
+        {
+        long hi;
+        if (integral && !isIntegral(bound))
+            {
+            double d = bound.doubleValue();
+            if (Double.isNaN(d))
+                {
+                return Long.MAX_VALUE;
+                }
+            if (d < Long.MIN_VALUE)
+                {
+                return null;
+                }
+            hi = (long) Math.floor(d);
+            if (!inclusive && hi == d)
+                {
+                return hi == Long.MIN_VALUE ? null : (Long) (hi - 1);
+                }
+            return hi;
+            }
+
+        hi = encode(bound);
+        if (!inclusive)
+            {
+            if (hi == Long.MIN_VALUE)
+                {
+                return null;
+                }
+            hi--;
+            }
+        return hi;
+        }
+
+    /**
+     * Return the encoded value equal to the specified number, or
+     * <tt>null</tt> if no value of this index can be equal to it.
+     */
+    private Long exact(Number value)
+        {
+        if (integral && !isIntegral(value))
+            {
+            double d = value.doubleValue();
+            return d == Math.rint(d) && d >= Long.MIN_VALUE && d < Long.MAX_VALUE
+                   ? (Long) (long) d
+                   : null;
+            }
+        return encode(value);
+        }
+
+    @Override
+    public synchronized String toString()
+        {
+        return "NumericIndex{" +
+               "extractor=" + extractor +
+               ", type=" + type.getSimpleName() +
+               ", keys=" + keyOrdinals.size() +
+               ", values=" + valueMap.size() +
+               '}';
+        }
+
+    // ---- inner class: Contents -------------------------------------------
+
+    /**
+     * Read-only sorted view of the contents of this index within a range of
+     * encoded values.
+     */
+    private class Contents
+            extends AbstractMap
+            implements SortedMap
+        {
+        private final boolean includeNull;
+        private final long lo;
+        private final long hi;
+
+        Contents(boolean includeNull, long lo, long hi)
+            {
+            this.includeNull = includeNull;
+            this.lo = lo;
+            this.hi = hi;
+            }
+
+        @Override
+        public Object get(Object value)
+            {
+            synchronized (NumericIndex.this)
+                {
+                if (value == null)
+                    {
+                    return includeNull && !nullKeys.isEmpty() ? new KeySet(true, 0L) : null;
+                    }
+                if (!(value instanceof Number))
+                    {
+                    return null;
+                    }
+
+                Long encoded = exact((Number) value);
+                return encoded != null && encoded >= lo && encoded <= hi
+                       && valueMap.count(encoded) > 0
+                       ? new KeySet(false, encoded)
+                       : null;
+                }
+            }
+
+        @Override
+        public boolean containsKey(Object value)
+            {
+            return get(value) != null;
+            }
+
+        @Override
+        public int size()
+            {
+            synchronized (NumericIndex.this)
+                {
+                return valueMap.count(lo, hi) + (hasNull() ? 1 : 0);
+                }
+            }
+
+        @Override
+        public boolean isEmpty()
+            {
+            return size() == 0;
+            }
+
+        @Override
+        public Set entrySet()
+            {
+            return new AbstractSet()
+                {
+                public Iterator iterator()
+                    {
+                    final boolean fNull;
+                    final long[]  encoded;
+                    synchronized (NumericIndex.this)
+                        {
+                        fNull   = hasNull();
+                        encoded = valueMap.values(lo, hi);
+                        }
+
+                    return new Iterator()
+                        {
+                        private int i = fNull ? -1 : 0;
+
+                        public boolean hasNext()
+                            {
+                            return i < encoded.length;
+                            }
+
+                        public Object next()
+                            {
+                            if (!hasNext())
+                                {
+                                throw new NoSuchElementException();
+                                }
+                            int n = i++;
+                            return n < 0
+                                   ? new SimpleImmutableEntry(null, new KeySet(true, 0L))
+                                   : new SimpleImmutableEntry(decode(encoded[n]),
+                                                              new KeySet(false, encoded[n]));
+                            }
+
+                        public void remove()
+                            {
+                            throw new UnsupportedOperationException();
+                            }
+                        };
+                    }
+
+                public int size()
+                    {
+                    return Contents.this.size();
+                    }
+                };
+            }
+
+        public Comparator comparator()
+            {
+            return null;
+            }
+
+        public SortedMap subMap(Object fromKey, Object toKey)
+            {
+            return ((Contents) tailMap(fromKey)).headMap(toKey);
+            }
+
+        public SortedMap headMap(Object toKey)
+            {
+            if (toKey == null)
+                {
+                return empty();
+                }
+            Long to = upperBound(toNumber(toKey), false);
+            return to == null ? empty() : new Contents(includeNull, lo, Math.min(hi, to));
+            }
+
+        public SortedMap tailMap(Object fromKey)
+            {
+            if (fromKey == null)
+                {
+                return this;
+                }
+            Long from = lowerBound(toNumber(fromKey), true);
+            return from == null ? empty() : new Contents(false, Math.max(lo, from), hi);
+            }
+
+        public Object firstKey()
+            {
+            synchronized (NumericIndex.this)
+                {
+                if (hasNull())
+                    {
+                    return null;
+                    }
+                if (valueMap.count(lo, hi) == 0)
+                    {
+                    throw new NoSuchElementException();
+                    }
+                return decode(valueMap.ceiling(lo));
+                }
+            }
+
+        public Object lastKey()
+            {
+            synchronized (NumericIndex.this)
+                {
+                if (valueMap.count(lo, hi) > 0)
+                    {
+                    return decode(valueMap.floor(hi));
+                    }
+                if (hasNull())
+                    {
+                    return null;
+                    }
+                throw new NoSuchElementException();
+                }
+            }
+
+        private boolean hasNull()
+            {
+            return includeNull && !nullKeys.isEmpty();
+            }
+
+        private Contents empty()
+            {
+            return new Contents(false, 0L, -1L);
+            }
+
+        private Number toNumber(Object key)
+            {
+            if (key instanceof Number)
+                {
+                return (Number) key;
+                }
+            throw new ClassCastException(key.getClass().getName()
+                                         + " cannot be compared to " + type.getName());
+            }
+        }
+
+    // ---- inner class: KeySet ---------------------------------------------
+
+    /**
+     * Read-only view of the keys mapped to a single value.
+     */
+    private class KeySet
+            extends AbstractSet
+        {
+        private final boolean fNull;
+        private final long encoded;
+
+        KeySet(boolean fNull, long encoded)
+            {
+            this.fNull = fNull;
+            this.encoded = encoded;
+            }
+
+        @Override
+        public boolean contains(Object key)
+            {
+            if (key == null)
+                {
+                return false;
+                }
+            synchronized (NumericIndex.this)
+                {
+                int ordinal = keyOrdinals.get(key);
+                return ordinal >= 0 && (fNull
+                                        ? nullKeys.contains(ordinal)
+                                        : valueMap.contains(encoded, ordinal));
+                }
+            }
+
+        @Override
+        public int size()
+            {
+            synchronized (NumericIndex.this)
+                {
+                return fNull ? nullKeys.size() : valueMap.count(encoded);
+                }
+            }
+
+        @Override
+        public Iterator iterator()
+            {
+            Object[] keys;
+            synchronized (NumericIndex.this)
+                {
+                int[] ordinals = fNull ? nullKeys.toArray() : valueMap.get(encoded);
+                keys = new Object[ordinals.length];
+                for (int i = 0; i < ordinals.length; i++)
+                    {
+                    keys[i] = keyOrdinals.getKey(ordinals[i]);
+                    }
+                }
+            return Arrays.asList(keys).iterator();
+            }
+        }
+    }
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2009 Aleksandar Seovic
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.seovic.core.index;
+
+
+import com.seovic.core.extractor.PropertyExtractor;
+import com.tangosol.io.pof.PofReader;
+import com.tangosol.io.pof.PofWriter;
+import com.tangosol.net.BackingMapContext;
+import com.tangosol.util.Base;
+import com.tangosol.util.MapIndex;
+import com.tangosol.util.ValueExtractor;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Comparator;
+
+
+/**
+ * Extractor that creates a {@link NumericIndex} when passed to
+ * <tt>addIndex</tt>.
+ * <p/>
+ * Unlike other index-aware extractors in this package, this extractor
+ * registers the index under the wrapped extractor, because the contents of a
+ * numeric index have the same semantics as a regular ordered index. This
+ * means that the built-in filters constructed with the wrapped extractor will
+ * use it. For example:
+ * <pre>
+ * cache.addIndex(new NumericIndexExtractor("timestamp", Long.class), true, null);
+ * Set keys = cache.keySet(new GreaterFilter(new PropertyExtractor("timestamp"), since));
+ * </pre>
+ */
+public class NumericIndexExtractor
+        extends AbstractIndexAwareExtractor
+    {
+    /**
+     * The type of indexed values.
+     */
+    private Class<? extends Number> type;
+
+    /**
+     * Deserialization constructor (for internal use only).
+     */
+    public NumericIndexExtractor()
+        {
+        }
+
+    /**
+     * Construct <tt>NumericIndexExtractor</tt> instance.
+     *
+     * @param propertyName  the name of the property to index
+     * @param type          the type of indexed values
+     */
+    public NumericIndexExtractor(String propertyName, Class<? extends Number> type)
+        {
+        this(new PropertyExtractor(propertyName), type);
+        }
+
+    /**
+     * Construct <tt>NumericIndexExtractor</tt> instance.
+     *
+     * @param extractor  the extractor to use
+     * @param type       the type of indexed values
+     */
+    public NumericIndexExtractor(ValueExtractor extractor, Class<? extends Number> type)
+        {
+        super(extractor);
+        this.type = type;
+        }
+
+    @Override
+    protected ValueExtractor getIndexKey()
+        {
+        return extractor;
+        }
+
+    @Override
+    protected MapIndex instantiateIndex(boolean fOrdered, Comparator comparator,
+                                        BackingMapContext context)
+        {
+        if (comparator != null)
+            {
+            throw new IllegalArgumentException("NumericIndex does not support custom comparators");
+            }
+        return new NumericIndex(extractor, type);
+        }
+
+    private static Class<? extends Number> loadType(String className)
+        {
+        try
+            {
+            return Class.forName(className).asSubclass(Number.class);
+            }
+        catch (ClassNotFoundException e)
+            {
+            throw Base.ensureRuntimeException(e);
+            }
+        }
+
+    // ---- ExternalizableLite implementation -------------------------------
+
+    @Override
+    public void readExternal(DataInput in)
+            throws IOException
+        {
+        super.readExternal(in);
+        type = loadType(in.readUTF());
+        }
+
+    @Override
+    public void writeExternal(DataOutput out)
+            throws IOException
+        {
+        super.writeExternal(out);
+        out.writeUTF(type.getName());
+        }
+
+    // ---- PortableObject implementation -----------------------------------
+
+    @Override
+    public void readExternal(PofReader reader)
+            throws IOException
+        {
+        super.readExternal(reader);
+        type = loadType(reader.readString(1));
+        }
+
+    @Override
+    public void writeExternal(PofWriter writer)
+            throws IOException
+        {
+        super.writeExternal(writer);
+        writer.writeString(1, type.getName());
+        }
+
+    // ---- Object methods --------------------------------------------------
+
+    @Override
+    public boolean equals(Object o)
+        {
+        return super.equals(o) && type == ((NumericIndexExtractor) o).type;
+        }
+
+    @Override
+    public int hashCode()
+        {
+        return 31 * super.hashCode() + type.hashCode();
+        }
+
+    @Override
+    public String toString()
+        {
+        return "NumericIndexExtractor{" +
+               "extractor=" + extractor +
+               ", type=" + type.getName() +
+               '}';
+        }
+    }
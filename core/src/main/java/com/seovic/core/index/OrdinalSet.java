@@ -0,0 +1,183 @@
+/*
+ * Copyright 2009 Aleksandar Seovic
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.seovic.core.index;
+
+
+import java.util.Arrays;
+
+
+/**
+ * Compact set of key ordinals.
+ * <p/>
+ * Sparse sets are stored as a sorted <tt>int</tt> array, and are converted to
+ * a bitmap once the bitmap becomes the smaller of the two representations,
+ * which is the case for low cardinality values, such as status codes.
+ * <p/>
+ * This class is not thread-safe.
+ */
+class OrdinalSet
+    {
+    private int[]  array = new int[2];
+    private long[] bits;
+    private int    size;
+
+    OrdinalSet()
+        {
+        }
+
+    OrdinalSet(int ordinal)
+        {
+        array[0] = ordinal;
+        size = 1;
+        }
+
+    int size()
+        {
+        return size;
+        }
+
+    boolean isEmpty()
+        {
+        return size == 0;
+        }
+
+    boolean contains(int ordinal)
+        {
+        if (bits != null)
+            {
+            int word = ordinal >>> 6;
+            return word < bits.length && (bits[word] & (1L << ordinal)) != 0;
+            }
+        return Arrays.binarySearch(array, 0, size, ordinal) >= 0;
+        }
+
+    boolean add(int ordinal)
+        {
+        if (bits != null)
+            {
+            int word = ordinal >>> 6;
+            if (word >= bits.length)
+                {
+                bits = Arrays.copyOf(bits, Math.max(word + 1, bits.length << 1));
+                }
+            long mask = 1L << ordinal;
+            if ((bits[word] & mask) != 0)
+                {
+                return false;
+                }
+            bits[word] |= mask;
+            size++;
+            return true;
+            }
+
+        int pos = Arrays.binarySearch(array, 0, size, ordinal);
+        if (pos >= 0)
+            {
+            return false;
+            }
+        pos = -(pos + 1);
+        if (size == array.length)
+            {
+            array = Arrays.copyOf(array, size << 1);
+            }
+        System.arraycopy(array, pos, array, pos + 1, size - pos);
+        array[pos] = ordinal;
+        size++;
+
+        // a bitmap needs one bit per ordinal up to the largest one
+        int maxOrdinal = array[size - 1];
+        if ((long) size * 32 > maxOrdinal + 64)
+            {
+            convertToBitmap(maxOrdinal);
+            }
+        return true;
+        }
+
+    boolean remove(int ordinal)
+        {
+        if (bits != null)
+            {
+            int word = ordinal >>> 6;
+            long mask = 1L << ordinal;
+            if (word >= bits.length || (bits[word] & mask) == 0)
+                {
+                return false;
+                }
+            bits[word] &= ~mask;
+            size--;
+            // convert back once the array would be half the size of the bitmap
+            if (size < bits.length)
+                {
+                convertToArray();
+                }
+            return true;
+            }
+
+        int pos = Arrays.binarySearch(array, 0, size, ordinal);
+        if (pos < 0)
+            {
+            return false;
+            }
+        System.arraycopy(array, pos + 1, array, pos, size - pos - 1);
+        size--;
+        return true;
+        }
+
+    /**
+     * Return the ordinals in this set, in ascending order.
+     *
+     * @return an array of ordinals
+     */
+    int[] toArray()
+        {
+        if (bits == null)
+            {
+            return Arrays.copyOf(array, size);
+            }
+
+        int[] result = new int[size];
+        int   n      = 0;
+        for (int word = 0; word < bits.length; word++)
+            {
+            long w = bits[word];
+            while (w != 0)
+                {
+                result[n++] = (word << 6) + Long.numberOfTrailingZeros(w);
+                w &= w - 1;
+                }
+            }
+        return result;
+        }
+
+    private void convertToBitmap(int maxOrdinal)
+        {
+        long[] b = new long[(maxOrdinal >>> 6) + 1];
+        for (int i = 0; i < size; i++)
+            {
+            b[array[i] >>> 6] |= 1L << array[i];
+            }
+        bits  = b;
+        array = null;
+        }
+
+    private void convertToArray()
+        {
+        int[] a = toArray();
+        array = Arrays.copyOf(a, Math.max(a.length, 2));
+        bits  = null;
+        }
+    }
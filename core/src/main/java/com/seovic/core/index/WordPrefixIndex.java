@@ -0,0 +1,148 @@
+/*
+ * Copyright 2009 Aleksandar Seovic
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.seovic.core.index;
+
+
+import com.seovic.core.util.Strings;
+import com.tangosol.util.ValueExtractor;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+
+
+/**
+ * An inverted index that maps each word of the indexed string values to the
+ * keys of the entries containing it.
+ * <p/>
+ * Values are tokenized once, when they are inserted or updated, and the words
+ * are kept in a sorted map, so all words starting with a given prefix can be
+ * found using a range scan. Optionally, the case of indexed words is folded,
+ * which allows case-insensitive prefix lookups to use the same range scan.
+ * <p/>
+ * The contents of this index are word to key set mappings, which is why it
+ * should only be created through a {@link WordPrefixIndexExtractor}.
+ *
+ * @see com.seovic.core.filter.AnyWordStartsWithFilter
+ * @see Strings#isWordDelimiter(char)
+ */
+@SuppressWarnings("unchecked")
+public class WordPrefixIndex
+        extends BaseIndex
+    {
+    protected boolean ignoreCase;
+
+    public WordPrefixIndex(ValueExtractor extractor, boolean ignoreCase)
+        {
+        super(extractor, true, true, null, true, null, getDefaultConcurrencyLevel());
+        this.ignoreCase = ignoreCase;
+        }
+
+    /**
+     * Return <tt>true</tt> if the case of indexed words is folded.
+     *
+     * @return <tt>true</tt> if this index is case-insensitive
+     */
+    public boolean isIgnoreCase()
+        {
+        return ignoreCase;
+        }
+
+    /**
+     * Return key sets for all indexed words that start with the specified
+     * prefix.
+     * <p/>
+     * If this index is case-insensitive and the lookup is not, the returned
+     * key sets are a superset of the actual matches and the corresponding
+     * entries need to be evaluated.
+     *
+     * @param prefix      the prefix to look for
+     * @param ignoreCase  flag specifying whether case should be ignored
+     *
+     * @return a list of key sets for the matching words
+     */
+    public List<Set> getKeySets(String prefix, boolean ignoreCase)
+        {
+        List<Set> keySets = new ArrayList<Set>();
+        if (this.ignoreCase || !ignoreCase)
+            {
+            String start = this.ignoreCase ? Strings.fold(prefix) : prefix;
+            for (Object o : ((SortedMap) inverseIndex).tailMap(start).entrySet())
+                {
+                Map.Entry entry = (Map.Entry) o;
+                if (!((String) entry.getKey()).startsWith(start))
+                    {
+                    break;
+                    }
+                keySets.add((Set) entry.getValue());
+                }
+            }
+        else
+            {
+            // case-insensitive lookup against a case-sensitive index
+            int len = prefix.length();
+            for (Object o : inverseIndex.entrySet())
+                {
+                Map.Entry entry = (Map.Entry) o;
+                if (((String) entry.getKey()).regionMatches(true, 0, prefix, 0, len))
+                    {
+                    keySets.add((Set) entry.getValue());
+                    }
+                }
+            }
+        return keySets;
+        }
+
+    @Override
+    protected void addToIndex(Object value, Object key)
+        {
+        for (String word : getWords(value))
+            {
+            addKey(word, key);
+            }
+        forwardIndex.put(key, value);
+        }
+
+    @Override
+    protected void removeFromIndex(Object value, Object key)
+        {
+        for (String word : getWords(value))
+            {
+            removeKey(word, key);
+            }
+        forwardIndex.remove(key);
+        }
+
+    /**
+     * Return the words to index for the specified value.
+     *
+     * @param value  the extracted value
+     *
+     * @return the words to index
+     */
+    protected List<String> getWords(Object value)
+        {
+        if (value instanceof String)
+            {
+            String text = (String) value;
+            return Strings.splitWords(ignoreCase ? Strings.fold(text) : text);
+            }
+        return Collections.emptyList();
+        }
+    }
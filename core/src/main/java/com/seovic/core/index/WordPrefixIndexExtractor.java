@@ -0,0 +1,149 @@
+/*
+ * Copyright 2009 Aleksandar Seovic
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.seovic.core.index;
+
+
+import com.seovic.core.extractor.PropertyExtractor;
+import com.tangosol.io.pof.PofReader;
+import com.tangosol.io.pof.PofWriter;
+import com.tangosol.net.BackingMapContext;
+import com.tangosol.util.MapIndex;
+import com.tangosol.util.ValueExtractor;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Comparator;
+
+
+/**
+ * Extractor that creates a {@link WordPrefixIndex} when passed to
+ * <tt>addIndex</tt>, and which should be used by the filters that need to
+ * query it.
+ * <p/>
+ * For example:
+ * <pre>
+ * ValueExtractor name = new WordPrefixIndexExtractor("name", true);
+ * cache.addIndex(name, false, null);
+ * Set keys = cache.keySet(new AnyWordStartsWithFilter(name, "united st", true));
+ * </pre>
+ */
+public class WordPrefixIndexExtractor
+        extends AbstractIndexAwareExtractor
+    {
+    /**
+     * Flag specifying if the case of indexed words should be folded.
+     */
+    private boolean ignoreCase;
+
+    /**
+     * Deserialization constructor (for internal use only).
+     */
+    public WordPrefixIndexExtractor()
+        {
+        }
+
+    /**
+     * Construct <tt>WordPrefixIndexExtractor</tt> instance.
+     *
+     * @param propertyName  the name of the property to index
+     * @param ignoreCase    flag specifying if the index should be
+     *                      case-insensitive
+     */
+    public WordPrefixIndexExtractor(String propertyName, boolean ignoreCase)
+        {
+        this(new PropertyExtractor(propertyName), ignoreCase);
+        }
+
+    /**
+     * Construct <tt>WordPrefixIndexExtractor</tt> instance.
+     *
+     * @param extractor   the extractor to use
+     * @param ignoreCase  flag specifying if the index should be
+     *                    case-insensitive
+     */
+    public WordPrefixIndexExtractor(ValueExtractor extractor, boolean ignoreCase)
+        {
+        super(extractor);
+        this.ignoreCase = ignoreCase;
+        }
+
+    @Override
+    protected MapIndex instantiateIndex(boolean fOrdered, Comparator comparator,
+                                        BackingMapContext context)
+        {
+        return new WordPrefixIndex(this, ignoreCase);
+        }
+
+    // ---- ExternalizableLite implementation -------------------------------
+
+    @Override
+    public void readExternal(DataInput in)
+            throws IOException
+        {
+        super.readExternal(in);
+        ignoreCase = in.readBoolean();
+        }
+
+    @Override
+    public void writeExternal(DataOutput out)
+            throws IOException
+        {
+        super.writeExternal(out);
+        out.writeBoolean(ignoreCase);
+        }
+
+    // ---- PortableObject implementation -----------------------------------
+
+    @Override
+    public void readExternal(PofReader reader)
+            throws IOException
+        {
+        super.readExternal(reader);
+        ignoreCase = reader.readBoolean(1);
+        }
+
+    @Override
+    public void writeExternal(PofWriter writer)
+            throws IOException
+        {
+        super.writeExternal(writer);
+        writer.writeBoolean(1, ignoreCase);
+        }
+
+    // ---- Object methods --------------------------------------------------
+
+    @Override
+    public boolean equals(Object o)
+        {
+        return super.equals(o) && ignoreCase == ((WordPrefixIndexExtractor) o).ignoreCase;
+        }
+
+    @Override
+    public int hashCode()
+        {
+        return 31 * super.hashCode() + (ignoreCase ? 1 : 0);
+        }
+
+    @Override
+    public String toString()
+        {
+        return "WordPrefixIndexExtractor{" +
+               "extractor=" + extractor +
+               ", ignoreCase=" + ignoreCase +
+               '}';
+        }
+    }
@@ -52,6 +52,12 @@ public class BinaryExtractorProcessor
      */
     private PofNavigator navigator;
 
+    /**
+     * BinaryPofPath that should be used to locate child object without
+     * parsing the binary value.
+     */
+    private transient BinaryPofPath binaryPath;
+
     // ---- constructors ----------------------------------------------------
 
     /**
@@ -97,6 +103,14 @@ public class BinaryExtractorProcessor
             return binValue;
         }
 
+        if (binaryPath == null) {
+            binaryPath = BinaryPofPath.create(navigator);
+        }
+        int of = binaryPath == null ? -1 : binaryPath.seek(binValue);
+        if (of >= 0) {
+            return BinaryPofPath.extract(binValue, of);
+        }
+
         PofValue root = PofValueParser.parse(binValue, getPofContext());
         PofValue child = navigator.navigate(root);
         return ((AbstractPofValue) child).getSerializedValue().toBinary();
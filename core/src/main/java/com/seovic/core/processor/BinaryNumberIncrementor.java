@@ -116,17 +116,50 @@ public class BinaryNumberIncrementor
             return binValue;
         }
 
+        int of = seek(binValue);
+        if (of >= 0 && BinaryPofPath.isInteger(numInc)) {
+            Number oldValue = BinaryPofPath.readInteger(binValue, of);
+            if (oldValue != null) {
+                Number newValue = addIntegers(oldValue, numInc);
+                entry.updateBinaryValue(BinaryPofPath.writeInteger(binValue, of, newValue));
+                return fPostInc ? oldValue : newValue;
+            }
+        }
+
         PofValue pofValue = getPofValue(binValue);
         Number oldValue = (Number) get(pofValue);
         if (oldValue == null) {
             oldValue = Numbers.getDefaultValue(numInc.getClass());
         }
 
-        Number newValue = Numbers.add(oldValue, numInc);
+        Number newValue = BinaryPofPath.isInteger(oldValue) && BinaryPofPath.isInteger(numInc)
+                          ? addIntegers(oldValue, numInc)
+                          : Numbers.add(oldValue, numInc);
         set(pofValue, newValue);
         entry.updateBinaryValue(pofValue.applyChanges());
 
-        return fPostInc ? newValue : oldValue;
+        return fPostInc ? oldValue : newValue;
+    }
+
+
+    // ---- helper methods --------------------------------------------------
+
+    /**
+     * Add two integer values, using the wider of their types for the result.
+     *
+     * @param m the first Short, Integer or Long value
+     * @param n the second Short, Integer or Long value
+     *
+     * @return the sum of the specified values
+     */
+    private static Number addIntegers(Number m, Number n) {
+        if (m instanceof Long || n instanceof Long) {
+            return m.longValue() + n.longValue();
+        }
+        if (m instanceof Integer || n instanceof Integer) {
+            return m.intValue() + n.intValue();
+        }
+        return (short) (m.shortValue() + n.shortValue());
     }
 
 
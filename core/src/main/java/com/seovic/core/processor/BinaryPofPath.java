@@ -0,0 +1,432 @@
+/*
+ * Copyright 2009 Aleksandar Seovic
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.seovic.core.processor;
+
+
+import com.tangosol.io.ReadBuffer;
+import com.tangosol.io.WriteBuffer;
+import com.tangosol.io.pof.PofConstants;
+import com.tangosol.io.pof.reflect.PofNavigator;
+import com.tangosol.io.pof.reflect.SimplePofPath;
+import com.tangosol.util.Binary;
+import com.tangosol.util.BinaryWriteBuffer;
+import com.tangosol.util.ExternalizableHelper;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+
+
+/**
+ * Locates a property within a POF-encoded binary value by scanning the POF
+ * stream, without parsing the value into a PofValue tree.
+ * <p/>
+ * Only the properties of the user types along the path are visited, and
+ * the properties that precede them are skipped over, so the cost of a seek
+ * does not depend on the number and complexity of the properties that follow
+ * the target property. The integer properties found this way can also be
+ * read and replaced in place.
+ * <p/>
+ * Seeking is supported for {@link SimplePofPath} navigators through nested
+ * user types only. Whenever the value cannot be located this way (for
+ * example, when the path navigates into a collection or through an object
+ * reference, or when the property is missing), {@link #seek(Binary)} returns
+ * -1 and the caller should fall back to PofValue-based navigation.
+ *
+ * @author Aleksandar Seovic  2012.06.30
+ */
+public final class BinaryPofPath
+        implements PofConstants {
+    // ---- data members ----------------------------------------------------
+
+    /**
+     * Method that returns the path elements of a SimplePofPath.
+     */
+    private static final Method GET_PATH_ELEMENTS = findPathElementsMethod();
+
+    /**
+     * Property indices along the path.
+     */
+    private final int[] indices;
+
+    // ---- constructors ----------------------------------------------------
+
+    /**
+     * Construct BinaryPofPath instance.
+     *
+     * @param indices property indices along the path
+     */
+    public BinaryPofPath(int... indices) {
+        this.indices = indices;
+    }
+
+    /**
+     * Create BinaryPofPath for the specified navigator.
+     *
+     * @param navigator navigator to create the path for
+     *
+     * @return BinaryPofPath for the navigator, or <tt>null</tt> if the
+     *         navigator is not a SimplePofPath
+     */
+    public static BinaryPofPath create(PofNavigator navigator) {
+        if (navigator instanceof SimplePofPath && GET_PATH_ELEMENTS != null) {
+            try {
+                return new BinaryPofPath((int[]) GET_PATH_ELEMENTS.invoke(navigator));
+            }
+            catch (Exception ignore) {
+            }
+        }
+        return null;
+    }
+
+    // ---- public API ------------------------------------------------------
+
+    /**
+     * Find the encoded value of the property this path points to.
+     *
+     * @param binValue POF-encoded binary value
+     *
+     * @return the offset of the property value within the binary, or -1 if
+     *         the property cannot be located by scanning the POF stream
+     */
+    public int seek(Binary binValue) {
+        if (binValue == null || binValue.length() == 0
+            || binValue.byteAt(0) != ExternalizableHelper.FMT_EXT) {
+            return -1;
+        }
+
+        try {
+            ReadBuffer.BufferInput in = binValue.getBufferInput();
+            in.setOffset(1);
+            for (int index : indices) {
+                int nType = in.readPackedInt();
+                if (nType < 0) {
+                    return -1;
+                }
+                in.readPackedInt(); // version id
+
+                int nProp = in.readPackedInt();
+                while (nProp >= 0 && nProp < index) {
+                    skipValue(in);
+                    nProp = in.readPackedInt();
+                }
+                if (nProp != index) {
+                    return -1;
+                }
+            }
+            return in.getOffset();
+        }
+        catch (IOException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Return the encoded value at the specified offset.
+     *
+     * @param binValue POF-encoded binary value
+     * @param of       the offset of the value, as returned by
+     *                 {@link #seek(Binary)}
+     *
+     * @return the encoded value, including its type identifier
+     */
+    public static Binary extract(Binary binValue, int of) {
+        return binValue.toBinary(of, getLength(binValue, of));
+    }
+
+    /**
+     * Read the integer value at the specified offset.
+     *
+     * @param binValue POF-encoded binary value
+     * @param of       the offset of the value, as returned by
+     *                 {@link #seek(Binary)}
+     *
+     * @return the value as a Short, Integer or Long, or <tt>null</tt> if the
+     *         value is not an integer
+     */
+    public static Number readInteger(Binary binValue, int of) {
+        try {
+            ReadBuffer.BufferInput in = binValue.getBufferInput();
+            in.setOffset(of);
+            int nType = in.readPackedInt();
+            switch (nType) {
+                case T_INT16:
+                    return (short) in.readPackedInt();
+                case T_INT32:
+                    return in.readPackedInt();
+                case T_INT64:
+                    return in.readPackedLong();
+                default:
+                    return nType <= V_INT_NEG_1 && nType >= V_INT_22
+                           ? (Number) (V_INT_0 - nType)
+                           : null;
+            }
+        }
+        catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Return a copy of the binary value with the value at the specified
+     * offset replaced by the specified integer.
+     *
+     * @param binValue POF-encoded binary value
+     * @param of       the offset of the value, as returned by
+     *                 {@link #seek(Binary)}
+     * @param value    the new value; must be a Short, Integer or Long
+     *
+     * @return the updated binary value
+     */
+    public static Binary writeInteger(Binary binValue, int of, Number value) {
+        int nType = value instanceof Short   ? T_INT16
+                  : value instanceof Integer ? T_INT32
+                  : value instanceof Long    ? T_INT64
+                  : 0;
+        if (nType == 0) {
+            throw new IllegalArgumentException("Not an integer value: " + value);
+        }
+
+        int  cbOld = getLength(binValue, of);
+        long n     = value.longValue();
+        try {
+            BinaryWriteBuffer buf = new BinaryWriteBuffer(binValue.length() + 10);
+            WriteBuffer.BufferOutput out = buf.getBufferOutput();
+            out.writeBuffer(binValue, 0, of);
+            if (n >= -1 && n <= 22) {
+                out.writePackedInt(V_INT_0 - (int) n);
+            }
+            else {
+                out.writePackedInt(nType);
+                out.writePackedLong(n);
+            }
+            out.writeBuffer(binValue, of + cbOld, binValue.length() - of - cbOld);
+            return buf.toBinary();
+        }
+        catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Return whether the specified value can be written by
+     * {@link #writeInteger(Binary, int, Number)}.
+     *
+     * @param value the value to check
+     *
+     * @return <tt>true</tt> if the value is a Short, Integer or Long
+     */
+    public static boolean isInteger(Object value) {
+        return value instanceof Short || value instanceof Integer || value instanceof Long;
+    }
+
+    /**
+     * Return the length of the encoded value at the specified offset.
+     *
+     * @param binValue POF-encoded binary value
+     * @param of       the offset of the value, including its type identifier
+     *
+     * @return the length of the encoded value
+     */
+    public static int getLength(Binary binValue, int of) {
+        try {
+            ReadBuffer.BufferInput in = binValue.getBufferInput();
+            in.setOffset(of);
+            skipValue(in);
+            return in.getOffset() - of;
+        }
+        catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // ---- helper methods --------------------------------------------------
+
+    /**
+     * Skip a value, including its type identifier.
+     */
+    private static void skipValue(ReadBuffer.BufferInput in) throws IOException {
+        skipUniformValue(in, in.readPackedInt());
+    }
+
+    /**
+     * Skip a value of the specified type.
+     */
+    private static void skipUniformValue(ReadBuffer.BufferInput in, int nType) throws IOException {
+        if (nType >= 0) {
+            in.readPackedInt(); // version id
+            for (int nProp = in.readPackedInt(); nProp >= 0; nProp = in.readPackedInt()) {
+                skipValue(in);
+            }
+            return;
+        }
+
+        switch (nType) {
+            case T_INT16:
+            case T_INT32:
+            case T_INT64:
+            case T_INT128:
+            case T_BOOLEAN:
+            case T_REFERENCE:
+                skipPacked(in, 1);
+                break;
+
+            case T_FLOAT32:
+                in.skipBytes(4);
+                break;
+            case T_FLOAT64:
+                in.skipBytes(8);
+                break;
+            case T_FLOAT128:
+                in.skipBytes(16);
+                break;
+            case T_OCTET:
+                in.skipBytes(1);
+                break;
+
+            case T_DECIMAL32:
+            case T_DECIMAL64:
+            case T_DECIMAL128:
+            case T_YEAR_MONTH_INTERVAL:
+                skipPacked(in, 2);
+                break;
+            case T_DATE:
+                skipPacked(in, 3);
+                break;
+            case T_TIME_INTERVAL:
+                skipPacked(in, 4);
+                break;
+            case T_DAY_TIME_INTERVAL:
+                skipPacked(in, 5);
+                break;
+            case T_TIME:
+                skipTime(in);
+                break;
+            case T_DATETIME:
+                skipPacked(in, 3);
+                skipTime(in);
+                break;
+
+            case T_CHAR: {
+                int b = in.readUnsignedByte();
+                in.skipBytes((b & 0x80) == 0 ? 0 : (b & 0xE0) == 0xC0 ? 1 : 2);
+                break;
+            }
+            case T_OCTET_STRING:
+            case T_CHAR_STRING:
+                in.skipBytes(in.readPackedInt());
+                break;
+
+            case T_COLLECTION:
+            case T_ARRAY:
+                for (int c = in.readPackedInt(); c > 0; c--) {
+                    skipValue(in);
+                }
+                break;
+            case T_UNIFORM_COLLECTION:
+            case T_UNIFORM_ARRAY: {
+                int nElementType = in.readPackedInt();
+                for (int c = in.readPackedInt(); c > 0; c--) {
+                    skipUniformValue(in, nElementType);
+                }
+                break;
+            }
+            case T_SPARSE_ARRAY:
+                in.readPackedInt(); // size
+                for (int i = in.readPackedInt(); i >= 0; i = in.readPackedInt()) {
+                    skipValue(in);
+                }
+                break;
+            case T_UNIFORM_SPARSE_ARRAY: {
+                int nElementType = in.readPackedInt();
+                in.readPackedInt(); // size
+                for (int i = in.readPackedInt(); i >= 0; i = in.readPackedInt()) {
+                    skipUniformValue(in, nElementType);
+                }
+                break;
+            }
+
+            case T_MAP:
+                for (int c = in.readPackedInt(); c > 0; c--) {
+                    skipValue(in);
+                    skipValue(in);
+                }
+                break;
+            case T_UNIFORM_KEYS_MAP: {
+                int nKeyType = in.readPackedInt();
+                for (int c = in.readPackedInt(); c > 0; c--) {
+                    skipUniformValue(in, nKeyType);
+                    skipValue(in);
+                }
+                break;
+            }
+            case T_UNIFORM_MAP: {
+                int nKeyType = in.readPackedInt();
+                int nValueType = in.readPackedInt();
+                for (int c = in.readPackedInt(); c > 0; c--) {
+                    skipUniformValue(in, nKeyType);
+                    skipUniformValue(in, nValueType);
+                }
+                break;
+            }
+
+            case T_IDENTITY:
+                in.readPackedInt(); // identity
+                skipValue(in);
+                break;
+
+            default:
+                // all other types are encoded as a type identifier only
+                break;
+        }
+    }
+
+    /**
+     * Skip the time portion of a time or date-time value.
+     */
+    private static void skipTime(ReadBuffer.BufferInput in) throws IOException {
+        skipPacked(in, 4);
+        if (in.readPackedInt() == 2) { // explicit time zone offset
+            skipPacked(in, 2);
+        }
+    }
+
+    /**
+     * Skip the specified number of packed integers of any size.
+     */
+    private static void skipPacked(ReadBuffer.BufferInput in, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            while ((in.readUnsignedByte() & 0x80) != 0) {
+            }
+        }
+    }
+
+    /**
+     * Find the method that returns the path elements of a SimplePofPath.
+     */
+    private static Method findPathElementsMethod() {
+        for (Class<?> cls = SimplePofPath.class; cls != null; cls = cls.getSuperclass()) {
+            try {
+                Method method = cls.getDeclaredMethod("getPathElements");
+                method.setAccessible(true);
+                return method;
+            }
+            catch (Exception ignore) {
+            }
+        }
+        return null;
+    }
+}
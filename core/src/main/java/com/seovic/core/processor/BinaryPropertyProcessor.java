@@ -22,6 +22,7 @@ import com.tangosol.io.pof.PofWriter;
 import com.tangosol.io.pof.PortableObject;
 import com.tangosol.io.pof.reflect.PofNavigator;
 import com.tangosol.io.pof.reflect.PofValue;
+import com.tangosol.util.Binary;
 import java.io.IOException;
 
 
@@ -41,6 +42,12 @@ public abstract class BinaryPropertyProcessor
      */
     protected PofNavigator navigator;
 
+    /**
+     * BinaryPofPath that should be used to locate a property without parsing
+     * the binary value.
+     */
+    private transient BinaryPofPath binaryPath;
+
     // ---- constructors ----------------------------------------------------
 
     /**
@@ -81,6 +88,25 @@ public abstract class BinaryPropertyProcessor
         navigator.navigate(target).setValue(value);
     }
 
+    /**
+     * Find the encoded property value within the specified binary value by
+     * scanning the POF stream.
+     *
+     * @param binValue binary value to find the property in
+     *
+     * @return the offset of the encoded property value, or -1 if the property
+     *         cannot be located without parsing the binary value into a
+     *         PofValue
+     *
+     * @see BinaryPofPath
+     */
+    protected int seek(Binary binValue) {
+        if (binaryPath == null) {
+            binaryPath = BinaryPofPath.create(navigator);
+        }
+        return binaryPath == null ? -1 : binaryPath.seek(binValue);
+    }
+
     // ---- PortableObject implementation -----------------------------------
 
     /**
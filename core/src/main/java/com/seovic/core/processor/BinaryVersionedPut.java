@@ -192,8 +192,23 @@ public class BinaryVersionedPut
             return fReturn ? null : NO_RESULT;
         }
 
+        Binary binNew = getBinaryValue("newValue");
+        int ofCurrent = seek(binCurrent);
+        int ofNew = seek(binNew);
+        if (ofCurrent >= 0 && ofNew >= 0) {
+            Number versionCurrent = BinaryPofPath.readInteger(binCurrent, ofCurrent);
+            Number versionNew = BinaryPofPath.readInteger(binNew, ofNew);
+            if (versionCurrent instanceof Integer && versionNew instanceof Integer) {
+                if (versionCurrent.equals(versionNew)) {
+                    entry.updateBinaryValue(BinaryPofPath.writeInteger(binNew, ofNew, versionNew.intValue() + 1));
+                    return NO_RESULT;
+                }
+                return fReturn ? fromBinary(binCurrent) : NO_RESULT;
+            }
+        }
+
         PofValue pvCurrent = getPofValue(binCurrent);
-        PofValue pvNew = getPofValue("newValue");
+        PofValue pvNew = getPofValue(binNew);
 
         Integer versionCurrent = (Integer) get(pvCurrent);
         Integer versionNew = (Integer) get(pvNew);
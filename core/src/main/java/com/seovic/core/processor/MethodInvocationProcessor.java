@@ -71,6 +71,28 @@ public class MethodInvocationProcessor
         }
     }
 
+    // ---- helper methods --------------------------------------------------
+
+    /**
+     * Return whether the invoked method modifies the target object.
+     *
+     * @return <tt>true</tt> if the invoked method is a mutator
+     */
+    protected boolean isMutator() {
+        return mutator;
+    }
+
+    /**
+     * Invoke the method on the specified target object.
+     *
+     * @param target object to invoke the method on
+     *
+     * @return the result of the method invocation
+     */
+    protected Object invoke(Object target) {
+        return new ReflectionExtractor(name, args).extract(target);
+    }
+
     // ---- PortableObject implementation -----------------------------------
 
     @Override
@@ -18,17 +18,25 @@ package com.seovic.core.updater;
 
 
 import com.seovic.core.Updater;
+import com.seovic.core.util.PropertyAccessors;
 import com.tangosol.io.pof.PofReader;
 import com.tangosol.io.pof.PofWriter;
 import com.tangosol.io.pof.PortableObject;
+import com.tangosol.util.Base;
 import java.io.IOException;
 import java.io.Serializable;
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Method;
 
 
 /**
  * Simple imlementation of {@link Updater} that updates single property of a
  * target value using introspection.
+ * <p/>
+ * Property mutators are resolved once per target class and shared by all
+ * instances, see {@link PropertyAccessors}. Subclasses that override
+ * {@link #findWriteMethod(String, Class, Class)} bypass the shared cache, and
+ * the mutators they find are cached by each instance instead.
  *
  * @author Aleksandar Seovic  2009.06.17
  */
@@ -39,6 +47,20 @@ public class PropertyUpdater
 
     private static final long serialVersionUID = 681827826766741360L;
 
+    /**
+     * Whether an updater class overrides the write method lookup.
+     */
+    private static final ClassValue<Boolean> CUSTOM_LOOKUP =
+            new ClassValue<Boolean>()
+                {
+                protected Boolean computeValue(Class<?> cls)
+                    {
+                    return PropertyAccessors.isOverridden(
+                            cls, PropertyUpdater.class, "findWriteMethod",
+                            String.class, Class.class, Class.class);
+                    }
+                };
+
     // ---- data members ----------------------------------------------------
 
     /**
@@ -46,11 +68,11 @@ public class PropertyUpdater
      */
     private String propertyName;
 
-
     /**
-     * Property accessor.
+     * Target class, value type and write accessor found by an overridden
+     * {@link #findWriteMethod(String, Class, Class)}.
      */
-    private transient Method propertyMutator;
+    private transient volatile Object[] customWriter;
 
 
     // ---- constructors ----------------------------------------------------
@@ -87,37 +109,57 @@ public class PropertyUpdater
             }
 
         Class targetClass = target.getClass();
+        Class valueType = value == null ? Object.class : value.getClass();
+        MethodHandle writer = CUSTOM_LOOKUP.get(getClass())
+                              ? getCustomWriter(targetClass, valueType)
+                              : PropertyAccessors.getWriter(targetClass, propertyName, valueType);
+        if (writer == null)
+            {
+            throw new RuntimeException("Writeable property " + propertyName +
+                                       " does not exist in the class "
+                                       + targetClass);
+            }
+
         try
             {
-            if (propertyMutator == null
-                || propertyMutator.getDeclaringClass() != targetClass)
-                {
-                propertyMutator = findWriteMethod(propertyName,
-                                                  target.getClass(),
-                                                  value == null
-                                                  ? Object.class
-                                                  : value.getClass());
-                }
-            if (propertyMutator != null)
-                {
-                propertyMutator.invoke(target, value);
-                }
-            else
-                {
-                throw new RuntimeException("Writeable property " + propertyName +
-                                           " does not exist in the class "
-                                           + targetClass);
-                }
+            writer.invokeExact(target, value);
             }
-        catch (Exception e)
+        catch (Error e)
             {
-            throw new RuntimeException(e);
+            throw e;
+            }
+        catch (Throwable e)
+            {
+            throw Base.ensureRuntimeException(e);
             }
         }
 
 
     // ---- helper methods --------------------------------------------------
 
+    /**
+     * Return a write accessor found by an overridden
+     * {@link #findWriteMethod(String, Class, Class)}.
+     *
+     * @param targetClass class containing the property
+     * @param valueType   the type of the value that will be written
+     *
+     * @return write accessor for the property, or <tt>null</tt> if the write
+     * method cannot be found
+     */
+    private MethodHandle getCustomWriter(Class targetClass, Class valueType)
+        {
+        Object[] cached = customWriter;
+        if (cached == null || cached[0] != targetClass || cached[1] != valueType)
+            {
+            Method method = findWriteMethod(propertyName, targetClass, valueType);
+            cached = new Object[] {targetClass, valueType,
+                    method == null ? null : PropertyAccessors.toWriter(method)};
+            customWriter = cached;
+            }
+        return (MethodHandle) cached[2];
+        }
+
     /**
      * Attempt to find a write method for the specified property name.
      * <p/>
@@ -130,31 +172,13 @@ public class PropertyUpdater
      *
      * @return write method for the property, or <tt>null</tt> if the method
      * cannot be found
+     *
+     * @see PropertyAccessors#findWriteMethod(Class, String, Class)
      */
     protected Method findWriteMethod(String propertyName, Class cls,
                                      Class propertyType)
         {
-        String name = "set"
-                      + Character.toUpperCase(propertyName.charAt(0))
-                      + propertyName.substring(1);
-
-        try
-            {
-            return cls.getMethod(name, propertyType);
-            }
-        catch (NoSuchMethodException e)
-            {
-            for (Method m : cls.getMethods())
-                {
-                if (m.getName().equals(name) && m.getParameterTypes().length == 1)
-                    {
-                    // best match, might need type conversion
-                    return m;
-                    }
-                }
-            }
-
-        return null;
+        return PropertyAccessors.findWriteMethod(cls, propertyName, propertyType);
         }
 
 
@@ -0,0 +1,325 @@
+/*
+ * Copyright 2009 Aleksandar Seovic
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.seovic.core.util;
+
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+
+/**
+ * Process-wide cache of JavaBean property accessors.
+ * <p/>
+ * Accessors are resolved once per class and property name, and are shared by
+ * all extractor and updater instances, including the ones that were just
+ * deserialized. Each accessor is a {@link MethodHandle} adapted to a generic
+ * signature, so it can be invoked using <tt>invokeExact</tt> without the
+ * argument array and access checks of reflective invocation.
+ * <p/>
+ * The cache is attached to the target classes themselves, so it does not
+ * prevent them from being unloaded.
+ */
+public abstract class PropertyAccessors
+    {
+    private static final String[] READ_PREFIXES = new String[] {"get", "is"};
+
+    private static final MethodType READER_TYPE =
+            MethodType.methodType(Object.class, Object.class);
+    private static final MethodType WRITER_TYPE =
+            MethodType.methodType(void.class, Object.class, Object.class);
+
+    /**
+     * Marker for properties that do not have an accessor.
+     */
+    private static final Object NONE = new Object();
+
+    private static final ClassValue<ConcurrentMap<String, Object>> READERS =
+            new ClassValue<ConcurrentMap<String, Object>>()
+                {
+                protected ConcurrentMap<String, Object> computeValue(Class<?> cls)
+                    {
+                    return new ConcurrentHashMap<String, Object>();
+                    }
+                };
+
+    private static final ClassValue<ConcurrentMap<String, Writers>> WRITERS =
+            new ClassValue<ConcurrentMap<String, Writers>>()
+                {
+                protected ConcurrentMap<String, Writers> computeValue(Class<?> cls)
+                    {
+                    return new ConcurrentHashMap<String, Writers>();
+                    }
+                };
+
+    /**
+     * Return a read accessor for the specified property.
+     * <p/>
+     * The returned handle has a <tt>(Object)Object</tt> signature.
+     *
+     * @param cls           class containing the property
+     * @param propertyName  property name
+     *
+     * @return read accessor for the property, or <tt>null</tt> if the class
+     *         does not have a readable property with the specified name
+     */
+    public static MethodHandle getReader(Class cls, String propertyName)
+        {
+        ConcurrentMap<String, Object> readers = READERS.get(cls);
+
+        Object reader = readers.get(propertyName);
+        if (reader == null)
+            {
+            Method method = findReadMethod(cls, propertyName);
+            reader = method == null ? NONE : toReader(method);
+            readers.putIfAbsent(propertyName, reader);
+            }
+        return reader == NONE ? null : (MethodHandle) reader;
+        }
+
+    /**
+     * Return a write accessor for the specified property.
+     * <p/>
+     * The returned handle has a <tt>(Object, Object)void</tt> signature.
+     *
+     * @param cls           class containing the property
+     * @param propertyName  property name
+     * @param valueType     the type of the value that will be written
+     *
+     * @return write accessor for the property, or <tt>null</tt> if the class
+     *         does not have a writeable property with the specified name
+     */
+    public static MethodHandle getWriter(Class cls, String propertyName, Class valueType)
+        {
+        ConcurrentMap<String, Writers> writers = WRITERS.get(cls);
+
+        Writers candidates = writers.get(propertyName);
+        if (candidates == null)
+            {
+            candidates = new Writers(cls, propertyName);
+            writers.putIfAbsent(propertyName, candidates);
+            }
+        return candidates.get(valueType);
+        }
+
+    /**
+     * Attempt to find a read method for the specified property name.
+     * <p/>
+     * This method attempts to find a read method by prepending prefixes 'get'
+     * and 'is' to the specified property name, in that order.
+     *
+     * @param cls           class containing the property
+     * @param propertyName  property name
+     *
+     * @return read method for the property, or <tt>null</tt> if the method
+     *         cannot be found
+     */
+    public static Method findReadMethod(Class cls, String propertyName)
+        {
+        String name = capitalize(propertyName);
+        for (String prefix : READ_PREFIXES)
+            {
+            try
+                {
+                return cls.getMethod(prefix + name);
+                }
+            catch (NoSuchMethodException ignore)
+                {
+                }
+            }
+
+        return null;
+        }
+
+    /**
+     * Attempt to find a write method for the specified property name.
+     * <p/>
+     * This method attempts to find a write method by prepending 'set' prefix
+     * to the specified property name. If there is no write method that
+     * accepts the specified property type, any single-argument method with
+     * that name is returned.
+     *
+     * @param cls           class containing the property
+     * @param propertyName  property name
+     * @param propertyType  property type
+     *
+     * @return write method for the property, or <tt>null</tt> if the method
+     *         cannot be found
+     */
+    public static Method findWriteMethod(Class cls, String propertyName, Class propertyType)
+        {
+        String name = "set" + capitalize(propertyName);
+        try
+            {
+            return cls.getMethod(name, propertyType);
+            }
+        catch (NoSuchMethodException e)
+            {
+            for (Method m : cls.getMethods())
+                {
+                if (m.getName().equals(name) && m.getParameterTypes().length == 1)
+                    {
+                    // best match, might need type conversion
+                    return m;
+                    }
+                }
+            }
+
+        return null;
+        }
+
+    /**
+     * Adapt the specified read method to a <tt>(Object)Object</tt> accessor.
+     *
+     * @param method  read method
+     *
+     * @return read accessor
+     */
+    public static MethodHandle toReader(Method method)
+        {
+        return unreflect(method, READER_TYPE);
+        }
+
+    /**
+     * Adapt the specified write method to a <tt>(Object, Object)void</tt>
+     * accessor.
+     *
+     * @param method  write method
+     *
+     * @return write accessor
+     */
+    public static MethodHandle toWriter(Method method)
+        {
+        return unreflect(method, WRITER_TYPE);
+        }
+
+    /**
+     * Determine whether a class overrides the specified method of its base
+     * class.
+     *
+     * @param cls             class to check
+     * @param base            base class that declares the method
+     * @param methodName      method name
+     * @param parameterTypes  method parameter types
+     *
+     * @return <tt>true</tt> if the method is declared by <tt>cls</tt> or any
+     *         of its superclasses below <tt>base</tt>
+     */
+    public static boolean isOverridden(Class cls, Class base, String methodName,
+                                       Class... parameterTypes)
+        {
+        for (Class c = cls; c != null && c != base; c = c.getSuperclass())
+            {
+            try
+                {
+                c.getDeclaredMethod(methodName, parameterTypes);
+                return true;
+                }
+            catch (NoSuchMethodException ignore)
+                {
+                }
+            }
+
+        return false;
+        }
+
+    // ---- helper methods --------------------------------------------------
+
+    private static String capitalize(String propertyName)
+        {
+        return Character.toUpperCase(propertyName.charAt(0)) + propertyName.substring(1);
+        }
+
+    private static MethodHandle unreflect(Method method, MethodType type)
+        {
+        try
+            {
+            // allows public methods of non-public classes to be invoked
+            method.setAccessible(true);
+            }
+        catch (RuntimeException ignore)
+            {
+            }
+
+        try
+            {
+            return MethodHandles.publicLookup().unreflect(method).asType(type);
+            }
+        catch (IllegalAccessException e)
+            {
+            throw new RuntimeException(e);
+            }
+        }
+
+    // ---- inner class: Writers --------------------------------------------
+
+    /**
+     * Write accessors for a single property.
+     * <p/>
+     * Most properties have a single write method, which is used regardless of
+     * the value type. Overloaded write methods are resolved and cached per
+     * value type.
+     */
+    private static class Writers
+        {
+        private final Class cls;
+        private final String propertyName;
+        private final MethodHandle single;
+        private final ConcurrentMap<Class, Object> byType;
+
+        Writers(Class cls, String propertyName)
+            {
+            String name = "set" + capitalize(propertyName);
+
+            List<Method> methods = new ArrayList<Method>();
+            for (Method m : cls.getMethods())
+                {
+                if (m.getName().equals(name) && m.getParameterTypes().length == 1)
+                    {
+                    methods.add(m);
+                    }
+                }
+
+            this.cls = cls;
+            this.propertyName = propertyName;
+            this.single = methods.size() == 1 ? toWriter(methods.get(0)) : null;
+            this.byType = methods.size() > 1 ? new ConcurrentHashMap<Class, Object>() : null;
+            }
+
+        MethodHandle get(Class valueType)
+            {
+            if (byType == null)
+                {
+                return single;
+                }
+
+            Object writer = byType.get(valueType);
+            if (writer == null)
+                {
+                Method method = findWriteMethod(cls, propertyName, valueType);
+                writer = method == null ? NONE : toWriter(method);
+                byType.putIfAbsent(valueType, writer);
+                }
+            return writer == NONE ? null : (MethodHandle) writer;
+            }
+        }
+    }
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2009 Aleksandar Seovic
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.seovic.core.util;
+
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Utility methods for string matching and tokenization that do not allocate
+ * regular expressions or intermediate arrays.
+ */
+public abstract class Strings
+    {
+    /**
+     * Return <tt>true</tt> if the specified character is whitespace, as
+     * defined by the <tt>\s</tt> regular expression character class.
+     *
+     * @param c  character to check
+     *
+     * @return <tt>true</tt> if the specified character is whitespace
+     */
+    public static boolean isWhitespace(char c)
+        {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\013'
+               || c == '\f' || c == '\r';
+        }
+
+    /**
+     * Return <tt>true</tt> if the specified character separates words, which
+     * is the case for whitespace, dashes and slashes.
+     *
+     * @param c  character to check
+     *
+     * @return <tt>true</tt> if the specified character separates words
+     */
+    public static boolean isWordDelimiter(char c)
+        {
+        return isWhitespace(c) || c == '-' || c == '/';
+        }
+
+    /**
+     * Split the specified text into non-empty, whitespace separated tokens.
+     *
+     * @param text  text to split
+     *
+     * @return a list of tokens
+     */
+    public static List<String> splitWhitespace(String text)
+        {
+        List<String> tokens = new ArrayList<String>();
+        int len   = text.length();
+        int start = -1;
+        for (int i = 0; i <= len; i++)
+            {
+            if (i == len || isWhitespace(text.charAt(i)))
+                {
+                if (start >= 0)
+                    {
+                    tokens.add(text.substring(start, i));
+                    start = -1;
+                    }
+                }
+            else if (start < 0)
+                {
+                start = i;
+                }
+            }
+        return tokens;
+        }
+
+    /**
+     * Split the specified text into non-empty words.
+     *
+     * @param text  text to split
+     *
+     * @return a list of words
+     *
+     * @see #isWordDelimiter(char)
+     */
+    public static List<String> splitWords(String text)
+        {
+        List<String> words = new ArrayList<String>();
+        int len   = text.length();
+        int start = -1;
+        for (int i = 0; i <= len; i++)
+            {
+            if (i == len || isWordDelimiter(text.charAt(i)))
+                {
+                if (start >= 0)
+                    {
+                    words.add(text.substring(start, i));
+                    start = -1;
+                    }
+                }
+            else if (start < 0)
+                {
+                start = i;
+                }
+            }
+        return words;
+        }
+
+    /**
+     * Return <tt>true</tt> if any word within the specified text starts with
+     * the specified prefix.
+     *
+     * @param text        text to search
+     * @param prefix      prefix to look for
+     * @param ignoreCase  flag specifying whether case should be ignored
+     *
+     * @return <tt>true</tt> if any word in the text starts with the prefix
+     */
+    public static boolean anyWordStartsWith(String text, String prefix, boolean ignoreCase)
+        {
+        int prefixLen = prefix.length();
+        for (int i = 0; i < prefixLen; i++)
+            {
+            if (isWordDelimiter(prefix.charAt(i)))
+                {
+                // words never contain delimiters
+                return false;
+                }
+            }
+
+        int last = text.length() - prefixLen;
+        for (int i = 0; i <= last; i++)
+            {
+            if ((i == 0 || isWordDelimiter(text.charAt(i - 1)))
+                && !isWordDelimiter(text.charAt(i))
+                && text.regionMatches(ignoreCase, i, prefix, 0, prefixLen))
+                {
+                return true;
+                }
+            }
+        return false;
+        }
+
+    /**
+     * Fold the case of the specified string.
+     * <p/>
+     * Two strings are equal after folding if and only if they are equal
+     * according to <tt>String.equalsIgnoreCase</tt>. Folding preserves the
+     * length of the string, so prefixes of a folded string are folded prefixes
+     * of the original string.
+     *
+     * @param s  string to fold
+     *
+     * @return case-folded string
+     */
+    public static String fold(String s)
+        {
+        char[] chars = null;
+        for (int i = 0, len = s.length(); i < len; i++)
+            {
+            char c      = s.charAt(i);
+            char folded = Character.toLowerCase(Character.toUpperCase(c));
+            if (c != folded)
+                {
+                if (chars == null)
+                    {
+                    chars = s.toCharArray();
+                    }
+                chars[i] = folded;
+                }
+            }
+        return chars == null ? s : new String(chars);
+        }
+    }
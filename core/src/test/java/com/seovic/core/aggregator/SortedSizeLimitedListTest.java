@@ -18,7 +18,9 @@ package com.seovic.core.aggregator;
 
 
 import com.tangosol.util.comparator.InverseComparator;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import org.junit.Test;
 
 import static com.seovic.core.aggregator.TopAggregator.*;
@@ -64,4 +66,70 @@ public class SortedSizeLimitedListTest {
         Collection res = l.toKeyList();
         assertEquals(5, res.size());
     }
+
+    @Test
+    public void testOrdering() {
+        SortedSizeLimitedList l = new SortedSizeLimitedList(3, null);
+        for (int i : new int[] {5, 9, 1, 7, 3, 8, 2}) {
+            l.add(new KeyValuePair(i, i * 10));
+        }
+
+        assertEquals(Arrays.asList(1, 2, 3), l.toKeyList());
+    }
+
+    @Test
+    public void testEmpty() {
+        SortedSizeLimitedList l = new SortedSizeLimitedList(5, null);
+        assertEquals(0, l.toList().size());
+
+        l = new SortedSizeLimitedList(0, null);
+        assertFalse(l.add(new KeyValuePair(1, "a")));
+        assertEquals(0, l.toList().size());
+    }
+
+    @Test
+    public void testMerge() {
+        List<KeyValuePair> l1 = Arrays.asList(new KeyValuePair(1, 1), new KeyValuePair(4, 4), new KeyValuePair(6, 6));
+        List<KeyValuePair> l2 = Arrays.asList(new KeyValuePair(2, 2), new KeyValuePair(3, 3));
+        List<KeyValuePair> l3 = Arrays.asList();
+
+        List<KeyValuePair> merged = merge(Arrays.asList(l1, l2, l3), 4, null);
+        assertEquals(4, merged.size());
+        for (int i = 0; i < 4; i++) {
+            assertEquals(i + 1, merged.get(i).getKey());
+        }
+    }
+
+    @Test
+    public void testLongList() {
+        LongSizeLimitedList asc = new LongSizeLimitedList(3, false);
+        LongSizeLimitedList desc = new LongSizeLimitedList(3, true);
+        for (long i : new long[] {5, 9, 1, 7, 3, 8, 2}) {
+            asc.add(i, i);
+            desc.add(i, i);
+        }
+
+        assertKeys(asc.toList(), 1L, 2L, 3L);
+        assertKeys(desc.toList(), 9L, 8L, 7L);
+    }
+
+    @Test
+    public void testDoubleList() {
+        DoubleSizeLimitedList asc = new DoubleSizeLimitedList(3, false);
+        DoubleSizeLimitedList desc = new DoubleSizeLimitedList(3, true);
+        for (double d : new double[] {0.5, 0.9, 0.1, 0.7, 0.3, 0.8, 0.2}) {
+            asc.add(d, d);
+            desc.add(d, d);
+        }
+
+        assertKeys(asc.toList(), 0.1, 0.2, 0.3);
+        assertKeys(desc.toList(), 0.9, 0.8, 0.7);
+    }
+
+    private static void assertKeys(List<KeyValuePair> pairs, Object... keys) {
+        assertEquals(keys.length, pairs.size());
+        for (int i = 0; i < keys.length; i++) {
+            assertEquals(keys[i], pairs.get(i).getKey());
+        }
+    }
 }
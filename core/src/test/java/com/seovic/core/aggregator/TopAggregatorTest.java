@@ -66,6 +66,28 @@ public class TopAggregatorTest {
         }
     }
 
+    @Test
+    public void testLongTop10() {
+        TopAggregator ta = new LongTopAggregator(new ExpressionExtractor("score"), false, 10);
+        List<Integer> results = (List<Integer>) test.aggregate(AlwaysFilter.INSTANCE, ta);
+
+        assertEquals(10, results.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i+1, results.get(i).intValue());
+        }
+    }
+
+    @Test
+    public void testDoubleBottom10() {
+        TopAggregator ta = new DoubleTopAggregator(new ExpressionExtractor("score"), true, 10);
+        List<Integer> results = (List<Integer>) test.aggregate(AlwaysFilter.INSTANCE, ta);
+
+        assertEquals(10, results.size());
+        for (int i = 0, s = 100; i < 10; i++, s--) {
+            assertEquals(s, results.get(i).intValue());
+        }
+    }
+
     public static class Score {
         private int score;
 
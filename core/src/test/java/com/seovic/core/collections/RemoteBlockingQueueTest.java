@@ -0,0 +1,108 @@
+/*
+ * Copyright 2009 Aleksandar Seovic
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.seovic.core.collections;
+
+
+import com.tangosol.net.CacheFactory;
+import com.tangosol.net.NamedCache;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * @author Aleksandar Seovic  2012.08.04
+ */
+public class RemoteBlockingQueueTest {
+    private static final NamedCache cache = CacheFactory.getCache("test-blocking-queues");
+
+    private RemoteBlockingQueue<String> queue;
+
+    @Before
+    public void setup() {
+        queue = new RemoteBlockingQueue<String>(cache, 1L);
+        queue.clear();
+    }
+
+    @After
+    public void cleanup() {
+        queue.release();
+    }
+
+    @Test
+    public void testPollWithTimeout() throws InterruptedException {
+        long start = System.currentTimeMillis();
+        assertNull(queue.poll(100, TimeUnit.MILLISECONDS));
+        assertTrue(System.currentTimeMillis() - start >= 100);
+
+        queue.put("one");
+        assertEquals("one", queue.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testTakeWaitsForElement() throws InterruptedException {
+        final RemoteBlockingQueue<String> producer = new RemoteBlockingQueue<String>(cache, 1L);
+        new Thread() {
+            public void run() {
+                try {
+                    Thread.sleep(200);
+                    producer.put("work");
+                }
+                catch (InterruptedException ignore) {
+                }
+                finally {
+                    producer.release();
+                }
+            }
+        }.start();
+
+        assertEquals("work", queue.take());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testTakeWithoutNotification() throws InterruptedException {
+        // events can be lost, which is simulated by unregistering the listener
+        queue.release();
+        queue.setPollInterval(50);
+
+        final RemoteBlockingQueue<String> producer = new RemoteBlockingQueue<String>(cache, 1L);
+        new Thread() {
+            public void run() {
+                try {
+                    Thread.sleep(200);
+                    producer.put("work");
+                }
+                catch (InterruptedException ignore) {
+                }
+                finally {
+                    producer.release();
+                }
+            }
+        }.start();
+
+        assertEquals("work", queue.take());
+    }
+
+    @Test
+    public void testRemainingCapacity() {
+        assertEquals(Integer.MAX_VALUE, queue.remainingCapacity());
+    }
+}
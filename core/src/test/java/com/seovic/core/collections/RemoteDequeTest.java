@@ -0,0 +1,159 @@
+/*
+ * Copyright 2009 Aleksandar Seovic
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.seovic.core.collections;
+
+
+import com.tangosol.net.CacheFactory;
+import com.tangosol.net.NamedCache;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * @author Aleksandar Seovic  2012.08.04
+ */
+public class RemoteDequeTest {
+    private static final NamedCache cache = CacheFactory.getCache("test-queues");
+
+    @Before
+    public void setup() {
+        new RemoteDeque(cache, 1L).clear();
+    }
+
+    @Test
+    public void testCreation() {
+        RemoteDeque q = new RemoteDeque(cache, 1L);
+        assertEquals(0, q.size());
+        assertTrue(q.isEmpty());
+        assertNull(q.poll());
+        assertNull(q.peek());
+    }
+
+    @Test
+    public void testQueueOperations() {
+        RemoteDeque<String> q = new RemoteDeque<String>(cache, 1L);
+
+        q.offer("one");
+        q.offer("two");
+        q.add("three");
+        assertEquals(3, q.size());
+        assertEquals("one", q.peek());
+
+        assertEquals("one", q.poll());
+        assertEquals("two", q.remove());
+        assertEquals("three", q.element());
+        assertEquals("three", q.poll());
+        assertTrue(q.isEmpty());
+    }
+
+    @Test
+    public void testDequeOperations() {
+        RemoteDeque<Integer> q = new RemoteDeque<Integer>(cache, 1L);
+
+        q.offerLast(2);
+        q.offerFirst(1);
+        q.addLast(3);
+        q.push(0);
+        assertEquals(Arrays.asList(0, 1, 2, 3), new ArrayList<Integer>(q));
+        assertEquals(0, (int) q.getFirst());
+        assertEquals(3, (int) q.getLast());
+
+        assertEquals(3, (int) q.pollLast());
+        assertEquals(0, (int) q.pop());
+        assertEquals(2, (int) q.removeLast());
+        assertEquals(1, (int) q.removeFirst());
+        assertNull(q.pollLast());
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testRemoveFromEmptyQueue() {
+        new RemoteDeque<String>(cache, 1L).removeFirst();
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullElement() {
+        new RemoteDeque<String>(cache, 1L).offer(null);
+    }
+
+    @Test
+    public void testBatchOperations() {
+        RemoteDeque<Integer> q = new RemoteDeque<Integer>(cache, 1L);
+
+        assertTrue(q.offerAll(Arrays.asList(0, 1, 2, 3, 4, 5)));
+        assertEquals(6, q.size());
+
+        List<Integer> drained = new ArrayList<Integer>();
+        assertEquals(4, q.drainTo(drained, 4));
+        assertEquals(Arrays.asList(0, 1, 2, 3), drained);
+
+        assertEquals(2, q.drainTo(drained));
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5), drained);
+        assertTrue(q.isEmpty());
+    }
+
+    @Test
+    public void testIterators() {
+        RemoteDeque<Integer> q = new RemoteDeque<Integer>(cache, 1L);
+        q.setPageSize(3);
+
+        q.addAll(Arrays.asList(0, 1, 2, 3, 4, 5, 6));
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5, 6), new ArrayList<Integer>(q));
+
+        List<Integer> descending = new ArrayList<Integer>();
+        for (Iterator<Integer> it = q.descendingIterator(); it.hasNext(); ) {
+            descending.add(it.next());
+        }
+        assertEquals(Arrays.asList(6, 5, 4, 3, 2, 1, 0), descending);
+        assertTrue(q.contains(4));
+    }
+
+    @Test
+    public void testClear() {
+        RemoteDeque<Integer> q = new RemoteDeque<Integer>(cache, 1L);
+
+        q.addAll(Arrays.asList(0, 1, 2));
+        q.clear();
+        assertTrue(q.isEmpty());
+
+        // only the head entry is kept
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testIteratorsDoNotReturnLaterElements() {
+        RemoteDeque<Integer> q = new RemoteDeque<Integer>(cache, 1L);
+
+        q.addAll(Arrays.asList(0, 1, 2));
+        Iterator<Integer> it = q.iterator();
+        q.drainTo(new ArrayList<Integer>());
+        q.addAll(Arrays.asList(3, 4, 5));
+        assertFalse(it.hasNext());
+
+        it = q.iterator();
+        q.clear();
+        q.addAll(Arrays.asList(6, 7, 8));
+        assertFalse(it.hasNext());
+        assertEquals(Arrays.asList(6, 7, 8), new ArrayList<Integer>(q));
+    }
+}
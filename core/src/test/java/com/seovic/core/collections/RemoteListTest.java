@@ -17,11 +17,15 @@
 package com.seovic.core.collections;
 
 
+import com.seovic.core.factory.ArrayListFactory;
 import com.seovic.core.factory.LinkedListFactory;
 import com.tangosol.net.CacheFactory;
 import com.tangosol.net.NamedCache;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
+import java.util.List;
 import java.util.ListIterator;
 import org.junit.Before;
 import org.junit.Test;
@@ -235,4 +239,173 @@ public class RemoteListTest {
 
 
     }
+
+    @Test
+    public void testElementOperations() {
+        RemoteList<Object> l = new RemoteList<Object>(cache, 1L);
+
+        l.add("one");
+        l.add(2);
+        l.add(300000L);
+        l.add(1, "one and a half");
+        l.add(null);
+        assertEquals(5, l.size());
+        assertEquals(Arrays.<Object>asList("one", "one and a half", 2, 300000L, null), l);
+
+        assertTrue(l.contains(300000L));
+        assertFalse(l.contains(300000));
+        assertEquals(2, l.get(2));
+
+        assertEquals("one and a half", l.remove(1));
+        assertTrue(l.remove((Object) 2));
+        assertFalse(l.remove("two"));
+        assertEquals(Arrays.<Object>asList("one", 300000L, null), l);
+
+        l.add(2);
+        assertTrue(l.contains(2));
+        assertFalse(l.contains(2L));
+        assertFalse(l.contains((short) 2));
+        assertFalse(l.remove((Object) 2L));
+        assertEquals(Arrays.<Object>asList("one", 300000L, null, 2), l);
+    }
+
+    @Test
+    public void testSegmentedList() {
+        RemoteList<Integer> l = new RemoteList<Integer>(cache, 1L, new ArrayListFactory<Integer>(), 4);
+        List<Integer> expected = new ArrayList<Integer>();
+
+        for (int i = 0; i < 20; i++) {
+            l.add(i);
+            expected.add(i);
+        }
+        l.add(5, 100);
+        expected.add(5, 100);
+        l.add(0, -1);
+        expected.add(0, -1);
+        assertEquals(expected.size(), l.size());
+        assertEquals(expected, l);
+
+        assertEquals(expected.remove(10), l.remove(10));
+        assertEquals(expected.set(15, 200), l.set(15, 200));
+        assertEquals(expected.get(7), l.get(7));
+        assertEquals(expected.indexOf(200), l.indexOf(200));
+        assertEquals(expected, l);
+
+        l.removeAll(Arrays.asList(1, 2, 3, 4));
+        expected.removeAll(Arrays.asList(1, 2, 3, 4));
+        assertEquals(expected, l);
+
+        l.clear();
+        assertTrue(l.isEmpty());
+    }
+
+    @Test
+    public void testPagedIterator() {
+        RemoteList<Integer> l = new RemoteList<Integer>(cache, 1L);
+        l.setPageSize(4);
+
+        List<Integer> expected = new ArrayList<Integer>();
+        for (int i = 0; i < 25; i++) {
+            expected.add(i);
+        }
+        l.addAll(expected);
+
+        for (List<Integer> list : Arrays.asList(expected, l)) {
+            for (ListIterator<Integer> it = list.listIterator(); it.hasNext(); ) {
+                int n = it.next();
+                if (n % 2 == 0) {
+                    it.remove();
+                }
+                else {
+                    it.set(n * 10);
+                }
+                if (n % 5 == 0) {
+                    it.add(-n);
+                }
+            }
+        }
+        assertEquals(expected, l);
+
+        for (List<Integer> list : Arrays.asList(expected, l)) {
+            for (ListIterator<Integer> it = list.listIterator(list.size()); it.hasPrevious(); ) {
+                if (it.previous() < 0) {
+                    it.remove();
+                }
+            }
+        }
+        assertEquals(expected, l);
+        assertTrue(Arrays.equals(expected.toArray(), l.toArray()));
+    }
+
+    @Test
+    public void testIteratorModificationAcrossPages() {
+        RemoteList<Integer> l = new RemoteList<Integer>(cache, 1L);
+        l.setPageSize(2);
+        l.addAll(Arrays.asList(0, 1, 2, 3, 4));
+
+        ListIterator<Integer> it = l.listIterator();
+        it.next();
+        it.next();
+        assertTrue(it.hasNext());
+        it.remove();
+        assertEquals(2, (int) it.next());
+        it.next();
+        assertTrue(it.hasNext());
+        it.set(30);
+        assertEquals(4, (int) it.next());
+        assertFalse(it.hasNext());
+        it.set(40);
+        assertFalse(it.hasNext());
+
+        assertEquals(Arrays.asList(0, 2, 30, 40), l);
+    }
+
+    @Test
+    public void testIteratorClose() {
+        RemoteList<String> l = new RemoteList<String>(cache, 1L);
+        l.addAll(Arrays.asList("one", "two", "three"));
+
+        RemoteList<String>.RemoteListIterator it = l.listIterator();
+        it.next();
+        it.set("ONE");
+        it.close();
+
+        assertEquals(Arrays.asList("ONE", "two", "three"), new RemoteList<String>(cache, 1L));
+    }
+
+    @Test
+    public void testAbandonedIterator() {
+        RemoteList<String> l = new RemoteList<String>(cache, 1L);
+        l.addAll(Arrays.asList("one", "two", "three"));
+
+        ListIterator<String> it = l.listIterator();
+        it.next();
+        it.set("ONE");
+        it = null;
+        System.gc();
+
+        assertEquals("ONE", l.get(0));
+    }
+
+    @Test
+    public void testIteratorConflict() {
+        RemoteList<String> l = new RemoteList<String>(cache, 1L);
+        l.addAll(Arrays.asList("one", "two", "three"));
+
+        RemoteList<String>.RemoteListIterator it = l.listIterator();
+        it.next();
+        it.set("ONE");
+
+        RemoteList<String> other = new RemoteList<String>(cache, 1L);
+        other.set(1, "TWO");
+
+        try {
+            it.close();
+            fail("ConcurrentModificationException expected");
+        }
+        catch (ConcurrentModificationException e) {
+            // expected
+        }
+        assertEquals(Arrays.asList("one", "TWO", "three"), other);
+    }
 }
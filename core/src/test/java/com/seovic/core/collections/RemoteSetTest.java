@@ -151,4 +151,37 @@ public class RemoteSetTest {
         }
         assertTrue(l.isEmpty());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testPagedIterator() {
+        RemoteSet<Integer> l = new RemoteSet<Integer>(cache, 1L, new TreeSetFactory<Integer>());
+        l.setPageSize(4);
+
+        for (int i = 0; i < 25; i++) {
+            l.add(i);
+        }
+
+        int count = 0;
+        for (Iterator<Integer> it = l.iterator(); it.hasNext(); ) {
+            if (it.next() % 3 != 0) {
+                it.remove();
+            }
+            count++;
+        }
+        assertEquals(25, count);
+        assertTrue(Arrays.equals(new Object[] {0, 3, 6, 9, 12, 15, 18, 21, 24}, l.toArray()));
+    }
+
+    @Test
+    public void testIteratorClose() {
+        RemoteSet<Integer> l = new RemoteSet<Integer>(cache, 1L, new TreeSetFactory<Integer>());
+        l.addAll(Arrays.asList(1, 2, 3));
+
+        RemoteSet<Integer>.RemoteSetIterator it = l.iterator();
+        it.next();
+        it.remove();
+        it.close();
+
+        assertTrue(Arrays.equals(new Object[] {2, 3}, new RemoteSet<Integer>(cache, 1L).toArray()));
+    }
+}
@@ -17,6 +17,10 @@
 package com.seovic.core.concurrent;
 
 
+import com.tangosol.net.CacheFactory;
+import com.tangosol.net.DistributedCacheService;
+import com.tangosol.net.Member;
+import com.tangosol.net.cache.KeyAssociation;
 import com.tangosol.util.Base;
 import java.io.Serializable;
 import java.util.concurrent.Callable;
@@ -62,6 +66,46 @@ public class ClusteredExecutorServiceTest
             }
         }
 
+    @Test
+    public void testLeastLoadedMemberSelection() throws Exception
+        {
+        LeastLoadedMemberSelector selector = new LeastLoadedMemberSelector();
+        ExecutorService exec = new ClusteredExecutorService("InvocationService", selector);
+
+        Future[] results = new Future[10];
+        for (int i = 0; i < 10; i++)
+            {
+            results[i] = exec.submit(new Echo("hello " + i));
+            }
+
+        for (int i = 0; i < 10; i++)
+            {
+            assertEquals("hello " + i, results[i].get());
+            }
+        assertEquals(0, selector.getOutstandingTasks(CacheFactory.getCluster().getLocalMember()));
+        }
+
+    @Test
+    public void testKeyAffinityMemberSelection() throws Exception
+        {
+        DistributedCacheService service = (DistributedCacheService)
+                CacheFactory.getCache("test-affinity").getCacheService();
+        LeastLoadedMemberSelector fallback = new LeastLoadedMemberSelector();
+        ExecutorService exec = new ClusteredExecutorService("InvocationService",
+                new KeyAffinityMemberSelector("test-affinity", fallback));
+
+        for (int i = 0; i < 10; i++)
+            {
+            Member owner = service.getKeyOwner(i);
+            if (owner != null)
+                {
+                assertEquals(owner.getId(), exec.submit(new WhereAmI(i)).get());
+                }
+            assertEquals("hello " + i, exec.submit(new Echo("hello " + i)).get());
+            }
+        assertEquals(0, fallback.getOutstandingTasks(CacheFactory.getCluster().getLocalMember()));
+        }
+
     public static class Logger
             implements Runnable, Serializable
         {
@@ -87,4 +131,25 @@ public class ClusteredExecutorServiceTest
 
         private String m_message;
         }
+
+    public static class WhereAmI
+            implements Callable<Integer>, KeyAssociation, Serializable
+        {
+        public WhereAmI(Object key)
+            {
+            m_key = key;
+            }
+
+        public Integer call() throws Exception
+            {
+            return CacheFactory.getCluster().getLocalMember().getId();
+            }
+
+        public Object getAssociatedKey()
+            {
+            return m_key;
+            }
+
+        private Object m_key;
+        }
     }
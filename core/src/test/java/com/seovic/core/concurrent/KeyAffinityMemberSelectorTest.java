@@ -0,0 +1,137 @@
+/*
+ * Copyright 2009 Aleksandar Seovic
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.seovic.core.concurrent;
+
+
+import com.tangosol.net.DistributedCacheService;
+import com.tangosol.net.Member;
+import com.tangosol.net.cache.KeyAssociation;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+
+import static com.seovic.core.concurrent.TestMembers.member;
+import static com.seovic.core.concurrent.TestMembers.members;
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests for {@link KeyAffinityMemberSelector}.
+ */
+public class KeyAffinityMemberSelectorTest {
+    private Member[] members = members(3);
+    private Map<Object, Member> owners = new HashMap<Object, Member>();
+    private RecordingSelector fallback = new RecordingSelector();
+    private MemberSelector selector;
+
+    @Before
+    public void setUp() {
+        owners.put("a", member(2));
+        owners.put("b", member(3));
+        owners.put("c", member(1));
+        // owns the key, but does not run the invocation service
+        owners.put("d", member(4));
+
+        selector = new KeyAffinityMemberSelector(createCacheService(), fallback);
+    }
+
+    @Test
+    public void testRoutingByKey() {
+        assertSame(members[1], selector.select(members, new Task("a")));
+        assertSame(members[2], selector.select(members, new Task("b")));
+        assertSame(members[0], selector.select(members, new Task("c")));
+        assertSame(members[1], selector.select(members, new Task("a")));
+        assertTrue(fallback.selected.isEmpty());
+    }
+
+    @Test
+    public void testFallback() {
+        Object notOwned = new Task("d");
+        Object unknown  = new Task("x");
+        Object noKey    = new Task(null);
+        Object plain    = new Object();
+
+        for (Object task : new Object[] {notOwned, unknown, noKey, plain}) {
+            assertSame(members[0], selector.select(members, task));
+        }
+        assertEquals(4, fallback.selected.size());
+    }
+
+    @Test
+    public void testCompletion() {
+        Object routed     = new Task("b");
+        Object fallenBack = new Task("d");
+        selector.completed(selector.select(members, routed), routed);
+        assertTrue(fallback.completed.isEmpty());
+
+        Member member = selector.select(members, fallenBack);
+        // a change of the key owner must not affect the completion
+        owners.put("d", member(3));
+        selector.completed(member, fallenBack);
+        selector.completed(member, fallenBack);
+        assertEquals(1, fallback.completed.size());
+        assertSame(fallenBack, fallback.completed.get(0));
+    }
+
+    private DistributedCacheService createCacheService() {
+        return (DistributedCacheService) Proxy.newProxyInstance(
+                DistributedCacheService.class.getClassLoader(),
+                new Class[] {DistributedCacheService.class},
+                new InvocationHandler() {
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        if (method.getName().equals("getKeyOwner")) {
+                            return owners.get(args[0]);
+                        }
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    public static class Task
+            implements KeyAssociation {
+        private final Object key;
+
+        public Task(Object key) {
+            this.key = key;
+        }
+
+        public Object getAssociatedKey() {
+            return key;
+        }
+    }
+
+    public static class RecordingSelector
+            implements MemberSelector {
+        List<Object> selected  = new ArrayList<Object>();
+        List<Object> completed = new ArrayList<Object>();
+
+        public Member select(Member[] members, Object task) {
+            selected.add(task);
+            return members[0];
+        }
+
+        public void completed(Member member, Object task) {
+            completed.add(task);
+        }
+    }
+}
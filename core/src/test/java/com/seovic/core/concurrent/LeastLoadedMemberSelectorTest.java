@@ -0,0 +1,71 @@
+/*
+ * Copyright 2009 Aleksandar Seovic
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.seovic.core.concurrent;
+
+
+import com.tangosol.net.Member;
+import java.util.Arrays;
+import org.junit.Test;
+
+import static com.seovic.core.concurrent.TestMembers.members;
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests for {@link LeastLoadedMemberSelector}.
+ */
+public class LeastLoadedMemberSelectorTest {
+    @Test
+    public void testSelection() {
+        LeastLoadedMemberSelector selector = new LeastLoadedMemberSelector();
+        Member[] members = members(3);
+
+        for (int i = 0; i < 6; i++) {
+            selector.select(members, new Object());
+        }
+        for (Member member : members) {
+            assertEquals(2, selector.getOutstandingTasks(member));
+        }
+
+        selector.completed(members[1], new Object());
+        selector.completed(members[1], new Object());
+        assertSame(members[1], selector.select(members, new Object()));
+        assertSame(members[1], selector.select(members, new Object()));
+        assertEquals(2, selector.getOutstandingTasks(members[1]));
+    }
+
+    @Test
+    public void testDepartedMembersAreDiscarded() {
+        LeastLoadedMemberSelector selector = new LeastLoadedMemberSelector();
+        Member[] members = members(3);
+
+        for (int i = 0; i < 3; i++) {
+            selector.select(members, new Object());
+        }
+        assertEquals(1, selector.getOutstandingTasks(members[2]));
+
+        Member[] remaining = Arrays.copyOf(members, 2);
+        selector.select(remaining, new Object());
+        assertEquals(0, selector.getOutstandingTasks(members[2]));
+        assertEquals(3, selector.getOutstandingTasks(members[0])
+                        + selector.getOutstandingTasks(members[1]));
+
+        // late completions of the tasks on the departed member are ignored
+        selector.completed(members[2], new Object());
+        assertEquals(0, selector.getOutstandingTasks(members[2]));
+    }
+}
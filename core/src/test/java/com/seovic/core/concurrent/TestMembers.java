@@ -0,0 +1,79 @@
+/*
+ * Copyright 2009 Aleksandar Seovic
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.seovic.core.concurrent;
+
+
+import com.tangosol.net.Member;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+
+/**
+ * Stub cluster members that allow member selectors to be tested without a
+ * cluster.
+ */
+class TestMembers {
+    /**
+     * Create a stub member.
+     * <p/>
+     * Members with the same id are equal, as they are in the cluster, but are
+     * not necessarily the same instance.
+     *
+     * @param id the member id
+     *
+     * @return stub member
+     */
+    static Member member(final int id) {
+        return (Member) Proxy.newProxyInstance(
+                Member.class.getClassLoader(), new Class[] {Member.class},
+                new InvocationHandler() {
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        String name = method.getName();
+                        if (name.equals("getId")) {
+                            return id;
+                        }
+                        if (name.equals("equals")) {
+                            return args[0] instanceof Member
+                                   && ((Member) args[0]).getId() == id;
+                        }
+                        if (name.equals("hashCode")) {
+                            return id;
+                        }
+                        if (name.equals("toString")) {
+                            return "Member(Id=" + id + ")";
+                        }
+                        throw new UnsupportedOperationException(name);
+                    }
+                });
+    }
+
+    /**
+     * Create stub members with ids 1 to <tt>count</tt>.
+     *
+     * @param count the number of members to create
+     *
+     * @return stub members
+     */
+    static Member[] members(int count) {
+        Member[] members = new Member[count];
+        for (int i = 0; i < count; i++) {
+            members[i] = member(i + 1);
+        }
+        return members;
+    }
+}
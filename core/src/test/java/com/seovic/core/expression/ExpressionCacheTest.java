@@ -0,0 +1,112 @@
+/*
+ * Copyright 2009 Aleksandar Seovic
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.seovic.core.expression;
+
+
+import com.seovic.test.objects.Person;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests for {@link ExpressionCache}.
+ */
+public class ExpressionCacheTest {
+    @Test
+    public void testHitsAndMisses() {
+        ExpressionCache cache = new ExpressionCache(100);
+        CountingCompiler compiler = new CountingCompiler();
+
+        Object compiled = cache.get("test", "a + b", compiler);
+        assertSame(compiled, cache.get("test", "a + b", compiler));
+        assertNotSame(compiled, cache.get("other", "a + b", compiler));
+
+        assertEquals(2, compiler.count.get());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(2, cache.size());
+        assertEquals(1.0 / 3, cache.getHitRate(), 0.0001);
+
+        cache.resetStatistics();
+        assertEquals(0, cache.getHitCount());
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEviction() {
+        ExpressionCache cache = new ExpressionCache(1);
+        CountingCompiler compiler = new CountingCompiler();
+
+        cache.get("test", "a", compiler);
+        cache.get("test", "b", compiler);
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+
+        cache.get("test", "b", compiler);
+        assertEquals(1, cache.getHitCount());
+        cache.get("test", "a", compiler);
+        assertEquals(3, compiler.count.get());
+    }
+
+    @Test
+    public void testMaxSizeIsEnforced() {
+        ExpressionCache cache = new ExpressionCache(50);
+        CountingCompiler compiler = new CountingCompiler();
+        for (int i = 0; i < 1000; i++) {
+            cache.get("test", "x + " + i, compiler);
+        }
+        assertTrue(cache.size() <= 50);
+        assertEquals(1000 - cache.size(), cache.getEvictionCount());
+    }
+
+    @Test
+    public void testDisabledCache() {
+        ExpressionCache cache = new ExpressionCache(0);
+        CountingCompiler compiler = new CountingCompiler();
+        cache.get("test", "a", compiler);
+        cache.get("test", "a", compiler);
+        assertEquals(2, compiler.count.get());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testSharedCompiledExpressions() {
+        ExpressionCache cache = ExpressionCache.getInstance();
+        long misses = cache.getMissCount();
+
+        String suffix     = Long.toString(System.nanoTime());
+        String expression = "name + '" + suffix + "'";
+
+        Person person = new Person(1L, "Homer");
+        assertEquals("Homer" + suffix, new MvelExpression(expression).evaluate(person));
+        assertEquals("Homer" + suffix, new MvelExpression(expression).evaluate(person));
+        assertEquals(misses + 1, cache.getMissCount());
+    }
+
+    private static class CountingCompiler
+            implements ExpressionCache.Compiler<Object> {
+        final AtomicInteger count = new AtomicInteger();
+
+        public Object compile(String expression) {
+            count.incrementAndGet();
+            return new Object();
+        }
+    }
+}
@@ -18,7 +18,14 @@ package com.seovic.core.expression;
 
 
 import com.seovic.core.Expression;
+import com.seovic.test.objects.Person;
 import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.junit.Ignore;
 import org.junit.Test;
 
@@ -66,4 +73,33 @@ public class ScriptExpressionTest
         Expression exp = new ScriptExpression(in);
         assertEquals(10, ((Number) exp.evaluate(null)).intValue());
     }
+
+    @Test
+    public void testConcurrentEvaluation() throws Exception {
+        final int cThreads = 8;
+
+        ExecutorService executor = Executors.newFixedThreadPool(cThreads);
+        try {
+            List<Future<Object>> futures = new ArrayList<Future<Object>>();
+            for (int t = 0; t < cThreads; t++) {
+                final String name = "Homer" + t;
+                futures.add(executor.submit(new Callable<Object>() {
+                    public Object call() {
+                        Expression exp    = createExpression("name");
+                        Person     person = new Person(1L, name);
+                        for (int i = 0; i < 1000; i++) {
+                            assertEquals(name, exp.evaluate(person));
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Object> future : futures) {
+                future.get();
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
 }
\ No newline at end of file
@@ -18,10 +18,15 @@ package com.seovic.core.extractor;
 
 
 import com.seovic.core.Extractor;
+import com.seovic.test.objects.Person;
 
 import com.tangosol.util.Base;
 import com.tangosol.util.ValueExtractor;
 import com.tangosol.util.extractor.ChainedExtractor;
+import java.lang.reflect.Method;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
 
 
 /**
@@ -51,4 +56,39 @@ public class PropertyExtractorTest
     protected String getName() {
         return "PropertyExtractor";
     }
+
+    @Test
+    public void testInheritedAndPolymorphicProperties() {
+        Extractor ext = createExtractor("name");
+        assertEquals("Homer", ext.extract(new Person(1L, "Homer")));
+        assertEquals("Marge", ext.extract(new Employee(2L, "Marge")));
+        assertEquals("Springfield Nuclear", createExtractor("employer").extract(new Employee(3L, "Lenny")));
+        assertEquals(true, createExtractor("employed").extract(new Employee(3L, "Lenny")));
+    }
+
+    @Test
+    public void testOverriddenReadMethodLookup() {
+        Extractor ext = new PropertyExtractor("fullName") {
+            protected Method findReadMethod(String propertyName, Class cls) {
+                return super.findReadMethod("name", cls);
+            }
+        };
+        assertEquals("Homer", ext.extract(new Person(1L, "Homer")));
+        assertEquals("Marge", ext.extract(new Employee(2L, "Marge")));
+    }
+
+    public static class Employee
+            extends Person {
+        public Employee(long id, String name) {
+            super(id, name);
+        }
+
+        public String getEmployer() {
+            return "Springfield Nuclear";
+        }
+
+        public boolean isEmployed() {
+            return true;
+        }
+    }
 }
\ No newline at end of file
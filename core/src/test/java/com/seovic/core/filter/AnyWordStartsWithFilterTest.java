@@ -18,6 +18,7 @@ package com.seovic.core.filter;
 
 
 import com.seovic.core.extractor.PropertyExtractor;
+import com.seovic.core.index.WordPrefixIndexExtractor;
 import com.seovic.test.objects.Country;
 import com.tangosol.io.DefaultSerializer;
 import com.tangosol.io.pof.PortableObjectSerializer;
@@ -26,6 +27,9 @@ import com.tangosol.net.CacheFactory;
 import com.tangosol.net.NamedCache;
 import com.tangosol.util.Binary;
 import com.tangosol.util.ExternalizableHelper;
+import com.tangosol.util.Filter;
+import com.tangosol.util.ValueExtractor;
+import java.util.Set;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -39,6 +43,8 @@ public class AnyWordStartsWithFilterTest
     {
     private static NamedCache countries = CacheFactory.getCache("countries");
 
+    private static ValueExtractor wordIndex = new WordPrefixIndexExtractor("name", true);
+
     @SuppressWarnings({"unchecked"})
     @Before
     public void createTestData()
@@ -52,6 +58,7 @@ public class AnyWordStartsWithFilterTest
         countries.put("USA", new Country("USA", "United States of America"));
 
         countries.addIndex(new PropertyExtractor("name"), true, null);
+        countries.addIndex(wordIndex, false, null);
         }
 
     @Test
@@ -84,6 +91,73 @@ public class AnyWordStartsWithFilterTest
         assertTrue(new AnyWordStartsWithFilter("name", "rep", true).evaluate(kor));
         }
 
+    @Test
+    public void testMultipleWordEvaluation()
+        {
+        Country usa = new Country("USA", "United States of America");
+
+        assertTrue(new AnyWordStartsWithFilter("name", "uni am", true).evaluate(usa));
+        assertTrue(new AnyWordStartsWithFilter("name", " St  Am ", false).evaluate(usa));
+        assertFalse(new AnyWordStartsWithFilter("name", "uni kin", true).evaluate(usa));
+        assertFalse(new AnyWordStartsWithFilter("name", "United-States", true).evaluate(usa));
+        assertFalse(new AnyWordStartsWithFilter("name", " ", true).evaluate(usa));
+        }
+
+    @Test
+    public void testEvaluationWithRegularIndex()
+        {
+        Filter filter = new AnyWordStartsWithFilter("name", "rep", true);
+
+        Set keys = countries.keySet(filter);
+        assertEquals(3, keys.size());
+        assertTrue(keys.contains("CAF"));
+        assertTrue(keys.contains("CZE"));
+        assertTrue(keys.contains("KOR"));
+        }
+
+    @Test
+    public void testCaseInsensitiveEvaluationWithWordIndex()
+        {
+        Set keys = countries.keySet(new AnyWordStartsWithFilter(wordIndex, "REP", true));
+        assertEquals(3, keys.size());
+        assertTrue(keys.contains("CAF"));
+        assertTrue(keys.contains("CZE"));
+        assertTrue(keys.contains("KOR"));
+
+        keys = countries.keySet(new AnyWordStartsWithFilter(wordIndex, "united st", true));
+        assertEquals(1, keys.size());
+        assertTrue(keys.contains("USA"));
+
+        keys = countries.keySet(new AnyWordStartsWithFilter(wordIndex, "of rep", true));
+        assertEquals(1, keys.size());
+        assertTrue(keys.contains("KOR"));
+        }
+
+    @Test
+    public void testCaseSensitiveEvaluationWithWordIndex()
+        {
+        Set keys = countries.keySet(new AnyWordStartsWithFilter(wordIndex, "Rep", false));
+        assertEquals(3, keys.size());
+
+        keys = countries.keySet(new AnyWordStartsWithFilter(wordIndex, "rep", false));
+        assertTrue(keys.isEmpty());
+        }
+
+    @Test
+    public void testWordIndexMaintenance()
+        {
+        countries.put("KOR", new Country("KOR", "South Korea"));
+        countries.remove("CAF");
+
+        Set keys = countries.keySet(new AnyWordStartsWithFilter(wordIndex, "rep", true));
+        assertEquals(1, keys.size());
+        assertTrue(keys.contains("CZE"));
+
+        keys = countries.keySet(new AnyWordStartsWithFilter(wordIndex, "south", true));
+        assertEquals(1, keys.size());
+        assertTrue(keys.contains("KOR"));
+        }
+
     @Test
     public void testDefaultSerialization()
         {
@@ -18,6 +18,7 @@ package com.seovic.core.filter;
 
 
 import com.seovic.core.extractor.PropertyExtractor;
+import com.seovic.core.index.CaseInsensitiveIndexExtractor;
 import com.seovic.test.objects.Country;
 import com.tangosol.io.DefaultSerializer;
 import com.tangosol.io.pof.PortableObjectSerializer;
@@ -27,6 +28,7 @@ import com.tangosol.net.NamedCache;
 import com.tangosol.util.Binary;
 import com.tangosol.util.ExternalizableHelper;
 import com.tangosol.util.Filter;
+import com.tangosol.util.ValueExtractor;
 import java.util.Set;
 import org.junit.Before;
 import org.junit.Test;
@@ -44,6 +46,8 @@ public class StartsWithFilterTest
     {
     private static NamedCache countries = CacheFactory.getCache("countries");
 
+    private static ValueExtractor caseInsensitiveName = new CaseInsensitiveIndexExtractor("name");
+
     @Before
     public void createTestData()
         {
@@ -56,6 +60,7 @@ public class StartsWithFilterTest
         countries.put("USA", new Country("USA", "United States"));
 
         countries.addIndex(new PropertyExtractor("name"), true, null);
+        countries.addIndex(caseInsensitiveName, true, null);
         }
 
     @Test
@@ -104,6 +109,43 @@ public class StartsWithFilterTest
         assertTrue(keys.contains("ESP"));
         }
 
+    @Test
+    public void testCaseInsensitiveEvaluationWithCaseInsensitiveIndex()
+        {
+        Set keys = countries.keySet(new StartsWithFilter(caseInsensitiveName, "sW", true));
+        assertEquals(2, keys.size());
+        assertTrue(keys.contains("SUI"));
+        assertTrue(keys.contains("SWE"));
+
+        keys = countries.keySet(new StartsWithFilter(caseInsensitiveName, "s", true));
+        assertEquals(4, keys.size());
+        assertFalse(keys.contains("USA"));
+        }
+
+    @Test
+    public void testCaseSensitiveEvaluationWithCaseInsensitiveIndex()
+        {
+        Set keys = countries.keySet(new StartsWithFilter(caseInsensitiveName, "Sw", false));
+        assertEquals(2, keys.size());
+
+        keys = countries.keySet(new StartsWithFilter(caseInsensitiveName, "sw", false));
+        assertTrue(keys.isEmpty());
+        }
+
+    @Test
+    public void testCaseInsensitiveIndexMaintenance()
+        {
+        countries.put("SWE", new Country("SWE", "Kingdom of Sweden"));
+
+        Set keys = countries.keySet(new StartsWithFilter(caseInsensitiveName, "sw", true));
+        assertEquals(1, keys.size());
+        assertTrue(keys.contains("SUI"));
+
+        keys = countries.keySet(new StartsWithFilter(caseInsensitiveName, "KING", true));
+        assertEquals(1, keys.size());
+        assertTrue(keys.contains("SWE"));
+        }
+
     @Test
     public void testEvaluationWithMissingIndex()
         {
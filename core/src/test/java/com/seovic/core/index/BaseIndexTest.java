@@ -0,0 +1,103 @@
+/*
+ * Copyright 2009 Aleksandar Seovic
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.seovic.core.index;
+
+
+import com.tangosol.util.SimpleMapEntry;
+import com.tangosol.util.extractor.IdentityExtractor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests for BaseIndex.
+ */
+public class BaseIndexTest
+    {
+    @Test
+    public void testEmptyKeySetsAreRemoved()
+        {
+        BaseIndex index = new BaseIndex(IdentityExtractor.INSTANCE, true, true, null, false, null);
+
+        index.insert(new SimpleMapEntry(1, "a"));
+        index.insert(new SimpleMapEntry(2, "a"));
+        index.update(new SimpleMapEntry(2, "b"));
+        assertEquals(2, index.getIndexContents().size());
+
+        index.delete(new SimpleMapEntry(1, "a"));
+        assertEquals(1, index.getIndexContents().size());
+        assertEquals("b", index.get(2));
+
+        index.delete(new SimpleMapEntry(2, "b"));
+        assertTrue(index.getIndexContents().isEmpty());
+        }
+
+    @Test
+    public void testConcurrentMaintenance()
+            throws Exception
+        {
+        final BaseIndex index = new BaseIndex(IdentityExtractor.INSTANCE, true, true, null, true, null, 16);
+        assertTrue(index.isConcurrent());
+
+        final int cThreads = 8;
+        final int cKeys    = 10000;
+
+        ExecutorService executor = Executors.newFixedThreadPool(cThreads);
+        try
+            {
+            List<Future> futures = new ArrayList<Future>();
+            for (int t = 0; t < cThreads; t++)
+                {
+                final int thread = t;
+                futures.add(executor.submit(new Callable<Object>()
+                    {
+                    public Object call()
+                        {
+                        for (int i = thread; i < cKeys; i += cThreads)
+                            {
+                            index.insert(new SimpleMapEntry(i, i % 100));
+                            index.update(new SimpleMapEntry(i, i % 10));
+                            }
+                        return null;
+                        }
+                    }));
+                }
+            for (Future future : futures)
+                {
+                future.get();
+                }
+            }
+        finally
+            {
+            executor.shutdown();
+            }
+
+        assertEquals(10, index.getIndexContents().size());
+        for (int i = 0; i < 10; i++)
+            {
+            assertEquals(cKeys / 10, ((Set) index.getIndexContents().get(i)).size());
+            }
+        }
+    }
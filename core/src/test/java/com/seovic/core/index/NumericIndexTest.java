@@ -0,0 +1,204 @@
+/*
+ * Copyright 2009 Aleksandar Seovic
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.seovic.core.index;
+
+
+import com.tangosol.util.MapIndex;
+import com.tangosol.util.SimpleMapEntry;
+import com.tangosol.util.extractor.IdentityExtractor;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests for NumericIndex.
+ */
+@SuppressWarnings("unchecked")
+public class NumericIndexTest
+    {
+    @Test
+    public void testForwardValues()
+        {
+        NumericIndex index = new NumericIndex(IdentityExtractor.INSTANCE, Integer.class);
+        index.insert(new SimpleMapEntry(1, 10));
+        index.insert(new SimpleMapEntry(2, null));
+
+        assertEquals(10, index.get(1));
+        assertNull(index.get(2));
+        assertSame(MapIndex.NO_VALUE, index.get(3));
+
+        index.update(new SimpleMapEntry(2, 20));
+        assertEquals(20, index.get(2));
+        assertNull(index.getIndexContents().get(null));
+
+        index.delete(new SimpleMapEntry(1, 10));
+        assertSame(MapIndex.NO_VALUE, index.get(1));
+        assertEquals(1, index.getIndexContents().size());
+        }
+
+    @Test
+    public void testContents()
+        {
+        NumericIndex index = new NumericIndex(IdentityExtractor.INSTANCE, Long.class);
+        for (int i = 0; i < 10; i++)
+            {
+            index.insert(new SimpleMapEntry(i, (long) i % 5));
+            }
+        index.insert(new SimpleMapEntry(10, null));
+
+        SortedMap contents = (SortedMap) index.getIndexContents();
+        assertEquals(6, contents.size());
+        assertNull(contents.firstKey());
+        assertEquals(4L, contents.lastKey());
+        assertEquals(set(3, 8), contents.get(3L));
+        assertEquals(set(10), contents.get(null));
+        assertNull(contents.get(5L));
+
+        // null sorts first, as it does in a regular ordered index
+        assertEquals(3, contents.headMap(2L).size());
+        assertEquals(3, contents.tailMap(2L).size());
+        assertEquals(2, contents.subMap(1L, 3L).size());
+        assertEquals(1L, contents.subMap(1L, 3L).firstKey());
+        assertEquals(2L, contents.subMap(1L, 3L).lastKey());
+        assertTrue(contents.subMap(1L, 3L).headMap(1L).isEmpty());
+
+        // bounds of other numeric types
+        assertEquals(2, contents.tailMap(2.5).size());
+        assertEquals(4, contents.headMap(2.5).size());
+        assertEquals(set(1, 6), contents.get(1));
+        assertNull(contents.get(1.5));
+        }
+
+    @Test
+    public void testFloatingPointOrdering()
+        {
+        NumericIndex index = new NumericIndex(IdentityExtractor.INSTANCE, Double.class);
+        double[] values = {-100.5, -1.0, -0.0, 0.0, 0.25, 3.0, 1e300};
+        for (int i = 0; i < values.length; i++)
+            {
+            index.insert(new SimpleMapEntry(i, values[i]));
+            }
+
+        SortedMap contents = (SortedMap) index.getIndexContents();
+        int i = 0;
+        for (Object o : contents.keySet())
+            {
+            assertEquals(values[i++], o);
+            }
+        assertEquals(2, contents.headMap(-0.0).size());
+        assertEquals(2, contents.subMap(0.0, 3.0).size());
+        assertEquals(-0.0, index.get(2));
+        }
+
+    @Test
+    public void testLowCardinalityValues()
+        {
+        NumericIndex index = new NumericIndex(IdentityExtractor.INSTANCE, Integer.class);
+        int cKeys = 10000;
+        for (int i = 0; i < cKeys; i++)
+            {
+            index.insert(new SimpleMapEntry(i, i % 3));
+            }
+        for (int i = 0; i < cKeys; i += 2)
+            {
+            index.update(new SimpleMapEntry(i, 3));
+            }
+
+        Map contents = index.getIndexContents();
+        Set keys = (Set) contents.get(3);
+        assertEquals(cKeys / 2, keys.size());
+        assertTrue(keys.contains(9998));
+        assertFalse(keys.contains(9999));
+        assertTrue(((Set) contents.get(1)).contains(1));
+        assertFalse(((Set) contents.get(1)).contains(4));
+
+        for (int i = 0; i < cKeys; i++)
+            {
+            index.delete(new SimpleMapEntry(i, null));
+            }
+        assertTrue(contents.isEmpty());
+        }
+
+    @Test
+    public void testRandomRanges()
+        {
+        Random random = new Random(42);
+        NumericIndex index = new NumericIndex(IdentityExtractor.INSTANCE, Long.class);
+        Map<Integer, Long> values = new HashMap<Integer, Long>();
+
+        for (int n = 0; n < 50000; n++)
+            {
+            int key = random.nextInt(5000);
+            long value = random.nextInt(2000) - 1000;
+            if (!values.containsKey(key))
+                {
+                index.insert(new SimpleMapEntry(key, value));
+                values.put(key, value);
+                }
+            else if (random.nextInt(4) == 0)
+                {
+                index.delete(new SimpleMapEntry(key, null));
+                values.remove(key);
+                }
+            else
+                {
+                index.update(new SimpleMapEntry(key, value));
+                values.put(key, value);
+                }
+            }
+
+        TreeMap<Long, Set> expected = new TreeMap<Long, Set>();
+        for (Map.Entry<Integer, Long> entry : values.entrySet())
+            {
+            Set keys = expected.get(entry.getValue());
+            if (keys == null)
+                {
+                expected.put(entry.getValue(), keys = new HashSet());
+                }
+            keys.add(entry.getKey());
+            }
+
+        SortedMap contents = (SortedMap) index.getIndexContents();
+        assertEquals(expected, contents);
+        for (int n = 0; n < 100; n++)
+            {
+            long from = random.nextInt(2200) - 1100;
+            long to   = from + random.nextInt(500);
+            assertEquals(expected.subMap(from, to), contents.subMap(from, to));
+            assertEquals(expected.headMap(to), contents.headMap(to));
+            assertEquals(expected.tailMap(from), contents.tailMap(from));
+            }
+        }
+
+    private static Set set(Object... keys)
+        {
+        Set set = new HashSet();
+        for (Object key : keys)
+            {
+            set.add(key);
+            }
+        return set;
+        }
+    }
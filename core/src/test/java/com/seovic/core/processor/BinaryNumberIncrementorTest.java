@@ -0,0 +1,104 @@
+/*
+ * Copyright 2009 Aleksandar Seovic
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.seovic.core.processor;
+
+
+import com.seovic.test.objects.Person;
+import com.tangosol.io.pof.PortableObjectSerializer;
+import com.tangosol.io.pof.SimplePofContext;
+import com.tangosol.io.pof.reflect.SimplePofPath;
+import com.tangosol.util.BinaryEntry;
+import com.tangosol.util.ExternalizableHelper;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests for {@link BinaryNumberIncrementor}.
+ */
+public class BinaryNumberIncrementorTest {
+    private static final SimplePofContext ctx = new SimplePofContext();
+
+    static {
+        ctx.registerUserType(1, Person.class, new PortableObjectSerializer(1));
+        ctx.registerUserType(2, SimplePofPath.class, new PortableObjectSerializer(2));
+        ctx.registerUserType(3, DelegatingPofNavigator.class, new PortableObjectSerializer(3));
+        ctx.registerUserType(4, BinaryNumberIncrementor.class, new PortableObjectSerializer(4));
+    }
+
+    @Test
+    public void testPreIncrement() {
+        BinaryEntry entry = createEntry(new Person(2504L, "Ivan"));
+
+        Object result = process(entry, new BinaryNumberIncrementor(1, false, 0));
+        assertEquals(2505L, ((Number) result).longValue());
+        assertEquals(2505L, getPerson(entry).getId());
+        assertEquals("Ivan", getPerson(entry).getName());
+    }
+
+    @Test
+    public void testPostIncrement() {
+        BinaryEntry entry = createEntry(new Person(2504L, "Ivan"));
+
+        Object result = process(entry, new BinaryNumberIncrementor(-2510L, true, 0));
+        assertEquals(2504L, ((Number) result).longValue());
+        assertEquals(-6L, getPerson(entry).getId());
+        assertEquals("Ivan", getPerson(entry).getName());
+    }
+
+    @Test
+    public void testCompactValues() {
+        // values from -1 to 22 are encoded without the type identifier
+        BinaryEntry entry = createEntry(new Person(21L, "Ivan"));
+
+        assertEquals(22L, ((Number) process(entry, new BinaryNumberIncrementor(1, false, 0))).longValue());
+        assertEquals(23L, ((Number) process(entry, new BinaryNumberIncrementor(1, false, 0))).longValue());
+        assertEquals(23L, getPerson(entry).getId());
+    }
+
+    @Test
+    public void testParsedValue() {
+        BinaryEntry entry = createEntry(new Person(2504L, "Ivan"));
+
+        BinaryNumberIncrementor processor =
+                new BinaryNumberIncrementor(1L, true, new DelegatingPofNavigator(0));
+        assertEquals(-1, processor.seek(entry.getBinaryValue()));
+
+        Object result = process(entry, processor);
+        assertEquals(2504L, ((Number) result).longValue());
+        assertEquals(2505L, getPerson(entry).getId());
+        assertEquals("Ivan", getPerson(entry).getName());
+    }
+
+    private static BinaryEntry createEntry(Person person) {
+        return new TestBinaryEntry(null, ExternalizableHelper.toBinary(person, ctx), ctx);
+    }
+
+    private static Person getPerson(BinaryEntry entry) {
+        return (Person) ExternalizableHelper.fromBinary(entry.getBinaryValue(), ctx);
+    }
+
+    /**
+     * Process the entry the way a storage member would, with a deserialized
+     * copy of the processor.
+     */
+    private static Object process(BinaryEntry entry, BinaryNumberIncrementor processor) {
+        BinaryNumberIncrementor copy = (BinaryNumberIncrementor) ExternalizableHelper.fromBinary(
+                ExternalizableHelper.toBinary(processor, ctx), ctx);
+        return copy.process(entry);
+    }
+}
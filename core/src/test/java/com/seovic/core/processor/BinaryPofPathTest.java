@@ -0,0 +1,96 @@
+/*
+ * Copyright 2009 Aleksandar Seovic
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.seovic.core.processor;
+
+
+import com.seovic.test.objects.Address;
+import com.seovic.test.objects.Person;
+import com.tangosol.io.pof.PortableObjectSerializer;
+import com.tangosol.io.pof.SimplePofContext;
+import com.tangosol.io.pof.reflect.SimplePofPath;
+import com.tangosol.util.Binary;
+import com.tangosol.util.ExternalizableHelper;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests for {@link BinaryPofPath}.
+ */
+public class BinaryPofPathTest {
+    private static final SimplePofContext ctx = new SimplePofContext();
+
+    static {
+        ctx.registerUserType(1, Person.class, new PortableObjectSerializer(1));
+        ctx.registerUserType(2, Address.class, new PortableObjectSerializer(2));
+    }
+
+    @Test
+    public void testReadInteger() {
+        Binary bin = toBinary(new Person(2504L, "Ivan"));
+        BinaryPofPath path = BinaryPofPath.create(new SimplePofPath(0));
+
+        int of = path.seek(bin);
+        assertTrue(of > 0);
+        assertEquals(2504L, BinaryPofPath.readInteger(bin, of).longValue());
+    }
+
+    @Test
+    public void testWriteInteger() {
+        Binary bin = toBinary(new Person(2504L, "Ivan"));
+        BinaryPofPath path = BinaryPofPath.create(new SimplePofPath(0));
+
+        // both a wider and a tiny value, which change the encoded length
+        for (long id : new long[] {Long.MAX_VALUE, 3L}) {
+            bin = BinaryPofPath.writeInteger(bin, path.seek(bin), id);
+
+            Person person = fromBinary(bin);
+            assertEquals(id, person.getId());
+            assertEquals("Ivan", person.getName());
+        }
+    }
+
+    @Test
+    public void testNestedPath() {
+        Person person = new Person(1L, "Ivan", null,
+                                   new Address("Merced", "Santiago", "Chile"));
+        Binary bin = toBinary(person);
+        BinaryPofPath path = BinaryPofPath.create(new SimplePofPath(new int[] {3, 1}));
+
+        int of = path.seek(bin);
+        assertTrue(of > 0);
+        assertNull(BinaryPofPath.readInteger(bin, of));
+    }
+
+    @Test
+    public void testMissingPath() {
+        Binary bin = toBinary(new Person(1L, "Ivan"));
+
+        // address is null, so there is nothing to navigate into
+        BinaryPofPath path = BinaryPofPath.create(new SimplePofPath(new int[] {3, 1}));
+        assertEquals(-1, path.seek(bin));
+    }
+
+    private static Binary toBinary(Object o) {
+        return ExternalizableHelper.toBinary(o, ctx);
+    }
+
+    private static Person fromBinary(Binary bin) {
+        return (Person) ExternalizableHelper.fromBinary(bin, ctx);
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2009 Aleksandar Seovic
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.seovic.core.processor;
+
+
+import com.tangosol.io.pof.PofReader;
+import com.tangosol.io.pof.PofWriter;
+import com.tangosol.io.pof.PortableObject;
+import com.tangosol.io.pof.PortableObjectSerializer;
+import com.tangosol.io.pof.SimplePofContext;
+import com.tangosol.io.pof.reflect.SimplePofPath;
+import com.tangosol.util.Binary;
+import com.tangosol.util.BinaryEntry;
+import com.tangosol.util.ExternalizableHelper;
+import java.io.IOException;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests for {@link BinaryVersionedPut}.
+ */
+public class BinaryVersionedPutTest {
+    private static final SimplePofContext ctx = new SimplePofContext();
+
+    static {
+        ctx.registerUserType(1, Document.class, new PortableObjectSerializer(1));
+        ctx.registerUserType(2, SimplePofPath.class, new PortableObjectSerializer(2));
+        ctx.registerUserType(3, DelegatingPofNavigator.class, new PortableObjectSerializer(3));
+        ctx.registerUserType(4, BinaryVersionedPut.class, new PortableObjectSerializer(4));
+    }
+
+    @Test
+    public void testVersionMatch() {
+        BinaryEntry entry = createEntry(new Document(100, "draft"));
+
+        assertNull(process(entry, new BinaryVersionedPut(new Document(100, "final"), 0, false, true)));
+        assertEquals(new Document(101, "final"), getDocument(entry));
+    }
+
+    @Test
+    public void testCompactVersionMatch() {
+        // versions from -1 to 22 are encoded without the type identifier
+        BinaryEntry entry = createEntry(new Document(22, "draft"));
+
+        assertNull(process(entry, new BinaryVersionedPut(new Document(22, "final"), 0, false, true)));
+        assertEquals(new Document(23, "final"), getDocument(entry));
+    }
+
+    @Test
+    public void testVersionMismatch() {
+        BinaryEntry entry = createEntry(new Document(100, "draft"));
+        Binary binOriginal = entry.getBinaryValue();
+
+        assertEquals(new Document(100, "draft"),
+                     process(entry, new BinaryVersionedPut(new Document(99, "final"), 0, false, true)));
+        assertNull(process(entry, new BinaryVersionedPut(new Document(99, "final"), 0, false, false)));
+        assertEquals(binOriginal, entry.getBinaryValue());
+    }
+
+    @Test
+    public void testParsedValue() {
+        BinaryEntry entry = createEntry(new Document(100, "draft"));
+        Binary binOriginal = entry.getBinaryValue();
+
+        BinaryVersionedPut mismatch = new BinaryVersionedPut(new Document(99, "final"),
+                new DelegatingPofNavigator(0), false, true);
+        assertEquals(-1, mismatch.seek(binOriginal));
+        assertEquals(new Document(100, "draft"), process(entry, mismatch));
+        assertEquals(binOriginal, entry.getBinaryValue());
+
+        BinaryVersionedPut match = new BinaryVersionedPut(new Document(100, "final"),
+                new DelegatingPofNavigator(0), false, true);
+        assertNull(process(entry, match));
+        assertEquals(new Document(101, "final"), getDocument(entry));
+    }
+
+    private static BinaryEntry createEntry(Document document) {
+        return new TestBinaryEntry(null, ExternalizableHelper.toBinary(document, ctx), ctx);
+    }
+
+    private static Document getDocument(BinaryEntry entry) {
+        return (Document) ExternalizableHelper.fromBinary(entry.getBinaryValue(), ctx);
+    }
+
+    /**
+     * Process the entry the way a storage member would, with a deserialized
+     * copy of the processor.
+     */
+    private static Object process(BinaryEntry entry, BinaryVersionedPut processor) {
+        BinaryVersionedPut copy = (BinaryVersionedPut) ExternalizableHelper.fromBinary(
+                ExternalizableHelper.toBinary(processor, ctx), ctx);
+        return copy.process(entry);
+    }
+
+    // ---- inner class: Document -------------------------------------------
+
+    /**
+     * Value with an integer version.
+     */
+    public static class Document implements PortableObject {
+        private int version;
+        private String text;
+
+        public Document() {
+        }
+
+        public Document(int version, String text) {
+            this.version = version;
+            this.text = text;
+        }
+
+        public void readExternal(PofReader reader) throws IOException {
+            version = reader.readInt(0);
+            text = reader.readString(1);
+        }
+
+        public void writeExternal(PofWriter writer) throws IOException {
+            writer.writeInt(0, version);
+            writer.writeString(1, text);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+
+            Document document = (Document) o;
+            return version == document.version && text.equals(document.text);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * version + text.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return "Document{version=" + version + ", text=" + text + '}';
+        }
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2009 Aleksandar Seovic
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.seovic.core.processor;
+
+
+import com.tangosol.io.pof.PofReader;
+import com.tangosol.io.pof.PofWriter;
+import com.tangosol.io.pof.PortableObject;
+import com.tangosol.io.pof.reflect.PofNavigator;
+import com.tangosol.io.pof.reflect.PofValue;
+import com.tangosol.io.pof.reflect.SimplePofPath;
+import java.io.IOException;
+
+
+/**
+ * Navigator that {@link BinaryPofPath} cannot scan for, which forces the
+ * binary processors to parse the values they update.
+ */
+public class DelegatingPofNavigator implements PofNavigator, PortableObject {
+    private PofNavigator delegate;
+
+    public DelegatingPofNavigator() {
+    }
+
+    public DelegatingPofNavigator(int... indices) {
+        this.delegate = new SimplePofPath(indices);
+    }
+
+    public PofValue navigate(PofValue value) {
+        return delegate.navigate(value);
+    }
+
+    public void readExternal(PofReader reader) throws IOException {
+        delegate = (PofNavigator) reader.readObject(0);
+    }
+
+    public void writeExternal(PofWriter writer) throws IOException {
+        writer.writeObject(0, delegate);
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2009 Aleksandar Seovic
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.seovic.core.updater;
+
+
+import com.seovic.test.objects.Address;
+import com.seovic.test.objects.Person;
+import com.tangosol.io.pof.PortableObjectSerializer;
+import com.tangosol.io.pof.SimplePofContext;
+import com.tangosol.util.Binary;
+import com.tangosol.util.ExternalizableHelper;
+import java.lang.reflect.Method;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests for {@link PropertyUpdater}.
+ */
+public class PropertyUpdaterTest {
+    @Test(expected = RuntimeException.class)
+    public void testWithBadPropertyName() {
+        PropertyUpdater updater = new PropertyUpdater("bad");
+        updater.update(new Person(), "value");
+    }
+
+    @Test
+    public void testWithStringPropertyType() {
+        PropertyUpdater updater = new PropertyUpdater("name");
+        Person person = new Person();
+
+        updater.update(person, "Ivan");
+        assertEquals("Ivan", person.getName());
+
+        updater.update(person, null);
+        assertNull(person.getName());
+    }
+
+    @Test
+    public void testWithPrimitivePropertyType() {
+        PropertyUpdater updater = new PropertyUpdater("id");
+        Person person = new Person();
+
+        updater.update(person, 2504L);
+        assertEquals(2504L, person.getId());
+
+        // widening conversion, as with reflection
+        updater.update(person, 42);
+        assertEquals(42L, person.getId());
+    }
+
+    @Test
+    public void testWithSubclassTarget() {
+        PropertyUpdater updater = new PropertyUpdater("address");
+        Address merced = new Address("Merced", "Santiago", "Chile");
+
+        Person person = new Person() {};
+        updater.update(person, merced);
+        assertEquals(merced, person.getAddress());
+    }
+
+    @Test
+    public void testWithOverloadedSetter() {
+        PropertyUpdater updater = new PropertyUpdater("value");
+        Overloaded target = new Overloaded();
+
+        updater.update(target, "text");
+        assertEquals("text", target.value);
+
+        updater.update(target, 5);
+        assertEquals(5, target.value);
+    }
+
+    @Test
+    public void testOverriddenWriteMethodLookup() {
+        PropertyUpdater updater = new PropertyUpdater("fullName") {
+            protected Method findWriteMethod(String propertyName, Class cls,
+                                             Class propertyType) {
+                return super.findWriteMethod("name", cls, propertyType);
+            }
+        };
+        Person person = new Person();
+
+        updater.update(person, "Ivan");
+        assertEquals("Ivan", person.getName());
+
+        updater.update(person, null);
+        assertNull(person.getName());
+    }
+
+    @Test
+    public void testSerialization() {
+        SimplePofContext ctx = new SimplePofContext();
+        ctx.registerUserType(1, PropertyUpdater.class, new PortableObjectSerializer(1));
+
+        PropertyUpdater expected = new PropertyUpdater("name");
+        Binary bin = ExternalizableHelper.toBinary(expected, ctx);
+        PropertyUpdater actual = (PropertyUpdater) ExternalizableHelper.fromBinary(bin, ctx);
+
+        assertEquals(expected, actual);
+        assertEquals(expected.hashCode(), actual.hashCode());
+        assertEquals(expected.toString(), actual.toString());
+    }
+
+    public static class Overloaded {
+        Object value;
+
+        public void setValue(String value) {
+            this.value = value;
+        }
+
+        public void setValue(Integer value) {
+            this.value = value;
+        }
+    }
+}
@@ -43,12 +43,24 @@ public class PortableTypeMojo
      */
     private File outputDirectory;
 
+    /**
+     * Whether to instrument classes in parallel.
+     * @parameter expression="${pof.parallel}" default-value="false"
+     */
+    private boolean parallel;
+
+    /**
+     * Whether to skip classes that have not changed since the last run.
+     * @parameter expression="${pof.incremental}" default-value="false"
+     */
+    private boolean incremental;
+
     public void execute()
         throws MojoExecutionException
     {
         try {
             PortableTypeGenerator.LOG = new PortableTypeGenerator.MavenLogger(getLog());
-            PortableTypeGenerator.instrumentClasses(outputDirectory);
+            PortableTypeGenerator.instrumentClasses(outputDirectory, parallel, incremental);
         }
         catch (IOException e) {
             throw new MojoExecutionException("Failed to instrument classes", e);
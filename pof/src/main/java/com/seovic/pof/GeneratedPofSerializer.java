@@ -0,0 +1,117 @@
+/*
+ * Copyright 2009 Aleksandar Seovic
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.seovic.pof;
+
+
+import com.tangosol.io.pof.PofContext;
+import com.tangosol.io.pof.PofReader;
+import com.tangosol.io.pof.PofSerializer;
+import com.tangosol.io.pof.PofWriter;
+
+import java.io.IOException;
+
+
+/**
+ * Base class for the serializers that {@link PortableTypeGenerator} emits for
+ * each instrumented portable type.
+ * <p/>
+ * A generated serializer creates instances of its type and invokes the
+ * instrumented <tt>readExternal</tt> and <tt>writeExternal</tt> methods of
+ * that type directly, without reflection. {@link PortableTypeSerializer} uses
+ * them for each class in the hierarchy of the object being serialized, but
+ * they can also be registered as the serializer for their type.
+ *
+ * @author Aleksandar Seovic  2012.05.27
+ */
+public abstract class GeneratedPofSerializer
+        implements PofSerializer {
+    /**
+     * The suffix appended to the name of the portable type to get the name
+     * of its generated serializer.
+     */
+    public static final String CLASS_NAME_SUFFIX = "$$PofSerializer";
+
+    private final PortableTypeSerializer.PlanCache planCache = new PortableTypeSerializer.PlanCache();
+
+    @Override
+    public void serialize(PofWriter out, Object o) throws IOException {
+        PofContext ctx = out.getPofContext();
+        PortableTypeSerializer.serialize(out, o, ctx, planCache.getPlan(ctx, o.getClass()));
+    }
+
+    @Override
+    public Object deserialize(PofReader in) throws IOException {
+        PofContext ctx = in.getPofContext();
+        Object o = newInstance();
+        return PortableTypeSerializer.deserialize(in, o, ctx, planCache.getPlan(ctx, o.getClass()));
+    }
+
+    /**
+     * Create a new instance of the portable type using its default
+     * constructor.
+     *
+     * @return a new instance of the portable type
+     */
+    protected Object newInstance() {
+        throw new UnsupportedOperationException("Cannot create an instance of an abstract portable type");
+    }
+
+    /**
+     * Read the attributes declared by the portable type from the nested
+     * reader for that type.
+     *
+     * @param o   the object to read attributes into
+     * @param in  the reader to use
+     *
+     * @throws IOException  if an error occurs during deserialization
+     */
+    protected abstract void readExternal(Object o, PofReader in) throws IOException;
+
+    /**
+     * Write the attributes declared by the portable type into the nested
+     * writer for that type.
+     *
+     * @param o    the object to write attributes of
+     * @param out  the writer to use
+     *
+     * @throws IOException  if an error occurs during serialization
+     */
+    protected abstract void writeExternal(Object o, PofWriter out) throws IOException;
+
+    /**
+     * Return whether the attributes declared by the portable type are
+     * deserialized lazily.
+     *
+     * @return <tt>true</tt> if the portable type is lazy
+     */
+    protected boolean isLazy() {
+        return false;
+    }
+
+    /**
+     * Associate the serialized attributes declared by the portable type with
+     * the object, so they can be read when first accessed.
+     *
+     * @param o     the object to associate attributes with
+     * @param data  the serialized attributes
+     *
+     * @throws IOException  if an error occurs during deserialization
+     */
+    protected void readLazy(Object o, LazyPofData data) throws IOException {
+        throw new UnsupportedOperationException("Portable type is not lazy");
+    }
+}
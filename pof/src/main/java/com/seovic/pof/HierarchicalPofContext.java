@@ -26,12 +26,33 @@ import com.tangosol.io.pof.PofSerializer;
 
 import java.io.IOException;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
 
 /**
+ * Base class for the POF contexts that delegate the lookups of the types
+ * they do not know about to the parent context.
+ * <p/>
+ * The results of the class to type identifier, type identifier to class and
+ * type identifier to serializer lookups are cached for the whole hierarchy,
+ * including the types that are not known to any context within it. The
+ * caches are tagged with a global generation number, and are discarded
+ * whenever the parent of any context changes; subclasses that allow types
+ * to be registered after the context is used have to call
+ * {@link #invalidateCache()} as well. Checking the generation does not
+ * require walking the hierarchy, so the cached lookups cost the same
+ * regardless of its depth.
+ *
  * @author Aleksandar Seovic  2012.05.08
  */
 public abstract class HierarchicalPofContext implements PofContext {
-    private PofContext parent;
+    private static final Object UNKNOWN = new Object();
+    private static final AtomicLong GENERATION = new AtomicLong();
+
+    private volatile PofContext parent;
+    private volatile Cache cache = new Cache(-1);
 
     protected HierarchicalPofContext() {
     }
@@ -42,6 +63,18 @@ public abstract class HierarchicalPofContext implements PofContext {
 
     protected void setParent(PofContext parentCtx) {
         parent = parentCtx;
+        invalidateCache();
+    }
+
+    /**
+     * Discard the cached lookup results of this context and all of its
+     * descendants.
+     * <p/>
+     * Because the caches do not track which hierarchy they belong to, the
+     * lookup results of all other contexts are discarded as well.
+     */
+    protected void invalidateCache() {
+        GENERATION.incrementAndGet();
     }
 
     protected abstract PofSerializer getPofSerializerInternal(int typeId);
@@ -54,8 +87,26 @@ public abstract class HierarchicalPofContext implements PofContext {
 
 
     public PofSerializer getPofSerializer(int typeId) {
-        PofSerializer serializer = getPofSerializerInternal(typeId);
-        return serializer == null ? parent.getPofSerializer(typeId) : serializer;
+        ConcurrentMap<Integer, Object> serializers = getCache().serializers;
+        Object serializer = serializers.get(typeId);
+        if (serializer == null) {
+            serializer = getPofSerializerInternal(typeId);
+            if (serializer == null) {
+                PofContext parent = this.parent;
+                try {
+                    serializer = parent == null ? UNKNOWN : parent.getPofSerializer(typeId);
+                }
+                catch (IllegalArgumentException e) {
+                    serializer = UNKNOWN;
+                }
+            }
+            serializers.put(typeId, serializer);
+        }
+
+        if (serializer == UNKNOWN) {
+            throw new IllegalArgumentException("Unknown user type: " + typeId);
+        }
+        return (PofSerializer) serializer;
     }
 
     public int getUserTypeIdentifier(Object o) {
@@ -67,8 +118,11 @@ public abstract class HierarchicalPofContext implements PofContext {
     }
 
     public int getUserTypeIdentifier(Class aClass) {
-        int typeId = getUserTypeIdentifierInternal(aClass);
-        return typeId == -1 ? parent.getUserTypeIdentifier(aClass) : typeId;
+        int typeId = getCachedUserTypeIdentifier(aClass);
+        if (typeId == -1) {
+            throw new IllegalArgumentException("Unknown user type: " + aClass.getName());
+        }
+        return typeId;
     }
 
     public int getUserTypeIdentifier(String className) {
@@ -82,8 +136,26 @@ public abstract class HierarchicalPofContext implements PofContext {
     }
 
     public Class getClass(int typeId) {
-        Class cls = getClassInternal(typeId);
-        return cls == null ? parent.getClass(typeId) : cls;
+        ConcurrentMap<Integer, Object> classes = getCache().classes;
+        Object cls = classes.get(typeId);
+        if (cls == null) {
+            cls = getClassInternal(typeId);
+            if (cls == null) {
+                PofContext parent = this.parent;
+                try {
+                    cls = parent == null ? UNKNOWN : parent.getClass(typeId);
+                }
+                catch (IllegalArgumentException e) {
+                    cls = UNKNOWN;
+                }
+            }
+            classes.put(typeId, cls);
+        }
+
+        if (cls == UNKNOWN) {
+            throw new IllegalArgumentException("Unknown user type: " + typeId);
+        }
+        return (Class) cls;
     }
 
     public boolean isUserType(Object o) {
@@ -95,13 +167,45 @@ public abstract class HierarchicalPofContext implements PofContext {
     }
 
     public boolean isUserType(Class aClass) {
-        return isUserTypeInternal(aClass) || parent.isUserType(aClass);
+        return getCachedUserTypeIdentifier(aClass) != -1;
     }
 
     public boolean isUserType(String className) {
         return isUserTypeInternal(className) || parent.isUserType(className);
     }
 
+    /**
+     * Return the type identifier of the class, or -1 if the class is not a
+     * user type within this hierarchy.
+     */
+    private int getCachedUserTypeIdentifier(Class aClass) {
+        ConcurrentMap<Class, Integer> typeIds = getCache().typeIds;
+        Integer typeId = typeIds.get(aClass);
+        if (typeId == null) {
+            typeId = getUserTypeIdentifierInternal(aClass);
+            if (typeId == -1) {
+                PofContext parent = this.parent;
+                if (parent != null && parent.isUserType(aClass)) {
+                    typeId = parent.getUserTypeIdentifier(aClass);
+                }
+            }
+            typeIds.put(aClass, typeId);
+        }
+        return typeId;
+    }
+
+    /**
+     * Return the cache for the current state of the hierarchy.
+     */
+    private Cache getCache() {
+        Cache cache = this.cache;
+        long generation = GENERATION.get();
+        if (cache.generation != generation) {
+            cache = this.cache = new Cache(generation);
+        }
+        return cache;
+    }
+
     @Override
     public void serialize(WriteBuffer.BufferOutput out, Object o) throws IOException {
         PofBufferWriter writer = new PofBufferWriter(out, this);
@@ -133,4 +237,20 @@ public abstract class HierarchicalPofContext implements PofContext {
             throw ex;
         }
     }
+
+    // ---- inner class: Cache ----------------------------------------------
+
+    /**
+     * Lookup results for a single generation of the hierarchy.
+     */
+    private static final class Cache {
+        final long generation;
+        final ConcurrentMap<Class, Integer> typeIds = new ConcurrentHashMap<Class, Integer>();
+        final ConcurrentMap<Integer, Object> classes = new ConcurrentHashMap<Integer, Object>();
+        final ConcurrentMap<Integer, Object> serializers = new ConcurrentHashMap<Integer, Object>();
+
+        Cache(long generation) {
+            this.generation = generation;
+        }
+    }
 }
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2009 Aleksandar Seovic
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.seovic.pof;
+
+
+import com.tangosol.io.WriteBuffer;
+import com.tangosol.io.pof.PofBufferReader;
+import com.tangosol.io.pof.PofContext;
+import com.tangosol.io.pof.PofReader;
+import com.tangosol.util.Binary;
+import com.tangosol.util.BinaryWriteBuffer;
+
+import java.io.IOException;
+
+import java.util.BitSet;
+
+
+/**
+ * Serialized attributes of a single class within the hierarchy of a lazily
+ * deserialized portable type.
+ * <p/>
+ * Instances of this class are retained by the objects of portable types
+ * annotated with <tt>@PortableType(lazy = true)</tt>, and are used by the
+ * instrumented code to read each attribute when it is first accessed.
+ * Attributes are read in index order using a single reader whenever
+ * possible; reading an attribute with a lower index than the last one read
+ * requires a new reader.
+ * <p/>
+ * Instances of this class are not thread-safe; the instrumented code only
+ * accesses them while holding the monitor of the object that retains them.
+ *
+ * @author Aleksandar Seovic  2012.06.10
+ */
+public final class LazyPofData {
+    private final Binary data;
+    private final PofContext ctx;
+    private final int typeId;
+    private final int versionId;
+    private final BitSet loaded = new BitSet();
+
+    private PofReader reader;
+    private int lastIndex = -1;
+    private boolean reading;
+
+    /**
+     * Construct LazyPofData instance.
+     *
+     * @param remainder  the unread properties of the nested POF stream
+     * @param ctx        the POF context to use
+     * @param typeId     the type identifier of the nested POF stream
+     * @param versionId  the version of the serialized data
+     *
+     * @throws IOException  if an error occurs
+     */
+    LazyPofData(Binary remainder, PofContext ctx, int typeId, int versionId) throws IOException {
+        this.data = terminate(remainder);
+        this.ctx = ctx;
+        this.typeId = typeId;
+        this.versionId = versionId;
+    }
+
+    /**
+     * Determine whether the attribute with the specified index should be
+     * read.
+     * <p/>
+     * The attributes that are not present in the serialized data are marked
+     * as loaded immediately. All other attributes are marked as loaded by
+     * {@link #setLoaded} once they have been read successfully, so an
+     * attribute that failed to deserialize is read again when it is next
+     * accessed.
+     *
+     * @param index  the index of the attribute
+     * @param since  the version of the type the attribute was introduced in
+     *
+     * @return <tt>true</tt> if the attribute should be read, or
+     *         <tt>false</tt> if it was already loaded or is not present in
+     *         the serialized data
+     */
+    public boolean load(int index, int since) {
+        if (loaded.get(index)) {
+            return false;
+        }
+        if (versionId < since) {
+            loaded.set(index);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Mark the attribute with the specified index as loaded.
+     *
+     * @param index  the index of the attribute that was read
+     */
+    public void setLoaded(int index) {
+        loaded.set(index);
+        reading = false;
+    }
+
+    /**
+     * Return a reader that can be used to read the attribute with the
+     * specified index.
+     *
+     * @param index  the index of the attribute that will be read
+     *
+     * @return a reader positioned before the specified attribute
+     *
+     * @throws IOException  if an error occurs
+     */
+    public PofReader getReader(int index) throws IOException {
+        // a reader that failed in the middle of an attribute cannot be reused
+        if (reader == null || reading || index <= lastIndex) {
+            reader = new PofBufferReader.UserTypeReader(data.getBufferInput(), ctx, typeId, versionId);
+        }
+        reading = true;
+        lastIndex = index;
+        return reader;
+    }
+
+    /**
+     * Complete deserialization of the specified object once all of its
+     * attributes have been loaded, by recording the properties written by
+     * the newer versions of the type as its future data.
+     *
+     * @param o          the deserialized object
+     * @param lastIndex  the index of the last attribute known to this
+     *                   version of the type, or -1 if it has none
+     *
+     * @throws IOException  if an error occurs
+     */
+    public void complete(Object o, int lastIndex) throws IOException {
+        if (o instanceof EvolvableObject) {
+            PofReader reader = this.reader;
+            if (lastIndex < 0) {
+                reader = getReader(0);
+            }
+            else if (reader == null || this.lastIndex < lastIndex) {
+                reader = getReader(lastIndex);
+                reader.readObject(lastIndex);
+            }
+            ((EvolvableObject) o).setFutureData(typeId, reader.readRemainder());
+        }
+    }
+
+    /**
+     * Wrap an exception that occurred while loading an attribute, so it can
+     * be thrown from the accessors that do not declare it.
+     *
+     * @param e  the exception to wrap
+     *
+     * @return the exception to throw
+     */
+    public static RuntimeException wrap(IOException e) {
+        return new IllegalStateException("Failed to deserialize attribute", e);
+    }
+
+    /**
+     * Append the terminating property index to the remainder, so it can be
+     * parsed as a complete user type.
+     */
+    private static Binary terminate(Binary remainder) throws IOException {
+        int cb = remainder == null ? 0 : remainder.length();
+        BinaryWriteBuffer buf = new BinaryWriteBuffer(cb + 1);
+        WriteBuffer.BufferOutput out = buf.getBufferOutput();
+        if (remainder != null) {
+            out.writeBuffer(remainder);
+        }
+        out.writePackedInt(-1);
+        return buf.toBinary();
+    }
+}
@@ -25,25 +25,77 @@ import com.tangosol.util.Base;
 import com.tangosol.util.extractor.PofExtractor;
 import com.tangosol.util.extractor.PofUpdater;
 import java.lang.reflect.Field;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 
 /**
+ * Helper methods that create POF navigators, extractors and updaters for the
+ * fields of portable types.
+ * <p/>
+ * Resolved paths are cached per class and field path, so extractors and
+ * updaters can be created cheaply for each query. The cache is kept in a
+ * {@link ClassValue}, so it does not prevent the classes, and the class
+ * loaders that loaded them, from being garbage collected.
+ *
  * @author Aleksandar Seovic  2012.06.06
  */
 @SuppressWarnings("unchecked")
 public abstract class PofUtil {
+    private static final ClassValue<ConcurrentMap<String, NavigatorAndType>> CACHE =
+            new ClassValue<ConcurrentMap<String, NavigatorAndType>>() {
+                @Override
+                protected ConcurrentMap<String, NavigatorAndType> computeValue(Class<?> clazz) {
+                    return new ConcurrentHashMap<String, NavigatorAndType>();
+                }
+            };
+
     public static PofNavigator getPofNavigator(Class clazz, String fieldPath) {
         return getNavigatorAndType(clazz, fieldPath).navigator;
     }
 
     public static PofExtractor getPofExtractor(Class clazz, String fieldPath) {
-        NavigatorAndType nt = getNavigatorAndType(clazz, fieldPath);
-        return new PofExtractor(nt.type, nt.navigator);
+        return getNavigatorAndType(clazz, fieldPath).extractor;
     }
     
     public static PofUpdater getPofUpdater(Class clazz, String fieldPath) {
-        NavigatorAndType nt = getNavigatorAndType(clazz, fieldPath);
-        return new PofUpdater(nt.navigator);
+        return getNavigatorAndType(clazz, fieldPath).updater;
+    }
+
+    /**
+     * Resolve navigators for all portable fields declared by the specified
+     * class and its portable superclasses.
+     * <p/>
+     * This is invoked when a {@link PortableTypeSerializer} is created for
+     * the class, so that subsequent lookups of top-level fields do not need
+     * to resolve them. Nested paths are resolved and cached on first use.
+     *
+     * @param clazz  the portable type to resolve navigators for
+     */
+    public static void precompute(Class clazz) {
+        ConcurrentMap<String, NavigatorAndType> paths = getPaths(clazz);
+        for (Class c = clazz; c.isAnnotationPresent(PortableType.class); c = c.getSuperclass()) {
+            int typeId = ((PortableType) c.getAnnotation(PortableType.class)).id();
+            for (Field field : c.getDeclaredFields()) {
+                PofIndex index = field.getAnnotation(PofIndex.class);
+                if (index != null && !paths.containsKey(field.getName())) {
+                    paths.putIfAbsent(field.getName(), new NavigatorAndType(
+                            new SimplePofPath(new int[] {typeId, index.value()}), field.getType()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Return true if the specified field path has already been resolved for
+     * the class.
+     */
+    static boolean isResolved(Class clazz, String fieldPath) {
+        return getPaths(clazz).containsKey(fieldPath);
+    }
+
+    private static ConcurrentMap<String, NavigatorAndType> getPaths(Class clazz) {
+        return CACHE.get(clazz);
     }
 
     private static Field findField(Class clazz, String name) {
@@ -59,6 +111,16 @@ public abstract class PofUtil {
     }
 
     private static NavigatorAndType getNavigatorAndType(Class clazz, String fieldPath) {
+        ConcurrentMap<String, NavigatorAndType> paths = getPaths(clazz);
+        NavigatorAndType nt = paths.get(fieldPath);
+        if (nt == null) {
+            nt = resolve(clazz, fieldPath);
+            paths.put(fieldPath, nt);
+        }
+        return nt;
+    }
+
+    private static NavigatorAndType resolve(Class clazz, String fieldPath) {
         String[] fieldNames = Base.parseDelimitedString(fieldPath, '.');
         int[] indexes = new int[fieldNames.length * 2];
         int n = 0;
@@ -85,13 +147,19 @@ public abstract class PofUtil {
         return new NavigatorAndType(new SimplePofPath(indexes), clazz);
     }
 
+    /**
+     * Resolved navigator for a field path, along with the extractor and
+     * updater that use it. All of them are immutable and can be shared.
+     */
     private static class NavigatorAndType {
-        private PofNavigator navigator;
-        private Class type;
+        private final PofNavigator navigator;
+        private final PofExtractor extractor;
+        private final PofUpdater updater;
 
         private NavigatorAndType(PofNavigator navigator, Class type) {
             this.navigator = navigator;
-            this.type = type;
+            this.extractor = new PofExtractor(type, navigator);
+            this.updater = new PofUpdater(navigator);
         }
     }
 }
@@ -33,6 +33,7 @@ import com.seovic.pof.internal.SerializerType;
 import com.seovic.pof.internal.UserType;
 import com.seovic.pof.internal.UserTypeList;
 import com.seovic.pof.util.AsmUtils;
+import com.seovic.pof.util.PrimitiveArrays;
 
 import com.tangosol.io.pof.PofSerializer;
 import org.objectweb.asm.ClassReader;
@@ -40,14 +41,20 @@ import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.Label;
 import org.objectweb.asm.Type;
 import org.objectweb.asm.commons.Method;
+import org.objectweb.asm.tree.AbstractInsnNode;
 import org.objectweb.asm.tree.AnnotationNode;
 import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldInsnNode;
 import org.objectweb.asm.tree.FieldNode;
+import org.objectweb.asm.tree.InsnList;
+import org.objectweb.asm.tree.InsnNode;
 import org.objectweb.asm.tree.MemberNode;
+import org.objectweb.asm.tree.MethodInsnNode;
 import org.objectweb.asm.tree.MethodNode;
 import com.tangosol.util.Binary;
 
 import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -59,6 +66,8 @@ import java.lang.instrument.IllegalClassFormatException;
 import java.lang.instrument.Instrumentation;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.ProtectionDomain;
 import java.sql.Timestamp;
 import java.util.ArrayDeque;
@@ -80,6 +89,7 @@ import java.util.Map;
 import java.util.NavigableMap;
 import java.util.NavigableSet;
 import java.util.PriorityQueue;
+import java.util.Properties;
 import java.util.Queue;
 import java.util.Set;
 import java.util.SortedMap;
@@ -101,9 +111,11 @@ import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.DelayQueue;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.SynchronousQueue;
 import org.apache.maven.plugin.logging.Log;
 import org.slf4j.LoggerFactory;
@@ -118,6 +130,18 @@ import static org.objectweb.asm.Opcodes.*;
 public class PortableTypeGenerator {
     public static Logger LOG = new ConsoleLogger();
     private static final Type OBJECT_TYPE = Type.getType(Object.class);
+    private static final String PRIMITIVE_ARRAYS = Type.getInternalName(PrimitiveArrays.class);
+
+    /**
+     * Final classes that the uniform element, key and value types of the
+     * collections, maps and arrays are inferred for, when they are not
+     * specified explicitly.
+     */
+    private static final Set<Type> UNIFORM_TYPES = new HashSet<Type>(Arrays.asList(
+            Type.getType(String.class), Type.getType(Boolean.class), Type.getType(Byte.class),
+            Type.getType(Character.class), Type.getType(Short.class), Type.getType(Integer.class),
+            Type.getType(Long.class), Type.getType(Float.class), Type.getType(Double.class)
+    ));
 
     protected static final Class[] PORTABLE_ANNOTATIONS = new Class[]{
             Portable.class, PortableArray.class, PortableDate.class, PortableList.class, PortableMap.class, PortableSet.class};
@@ -155,7 +179,26 @@ public class PortableTypeGenerator {
 
     public static boolean DEBUG = false;
 
+    private static final String READ_EXTERNAL_BRIDGE  = "$readExternal";
+    private static final String WRITE_EXTERNAL_BRIDGE = "$writeExternal";
+    private static final String READ_LAZY_BRIDGE      = "$readLazy";
+    private static final String LAZY_FIELD            = "$lazy";
+    private static final String LAZY_LOADER_PREFIX    = "$lazy$";
+    private static final String LAZY_READER_PREFIX    = "$load$";
+    private static final String MATERIALIZE           = "$materialize";
+    private static final String LAZY_DATA             = "com/seovic/pof/LazyPofData";
+    private static final String LAZY_DATA_DESC        = "L" + LAZY_DATA + ";";
+
+    /**
+     * The maximum number of attributes read or written by a single generated
+     * method. Larger types are handled by several methods, which keeps each
+     * of them well below the size the JIT compiler refuses to compile.
+     */
+    private static final int MAX_ATTRIBUTES_PER_METHOD = 128;
+
     private ClassNode cn;
+    private ClassNode serializer;
+    private boolean lazy;
     private TreeMap<Integer, SortedSet<FieldNode>> properties = new TreeMap<Integer, SortedSet<FieldNode>>();
 
     public PortableTypeGenerator(InputStream in) throws IOException {
@@ -169,26 +212,47 @@ public class PortableTypeGenerator {
             LOG.info("Instrumenting portable type " + cn.name);
 
             populatePropertyMap();
+            lazy = isLazy();
+            if (lazy) {
+                implementLazyLoading();
+            }
             implementDefaultConstructor();
             implementReadExternal();
             implementWriteExternal();
+            implementBridges();
+            generateSerializer();
 
             // mark as instrumented
             cn.visibleAnnotations.add(new AnnotationNode(Type.getDescriptor(Instrumented.class)));
 
-            Type serializerClass = getPofSerializer();
-            SerializerType serializerType = serializerClass.getClassName().equals(PortableTypeSerializer.class.getName())
-                                            ? null
-                                            : new SerializerType(serializerClass.getClassName(), null);
-
-            return new UserType(BigInteger.valueOf(getTypeId()),
-                                cn.name.replace("/", "."),
-                                serializerType);
+            return getUserType();
         }
 
         return null;
     }
 
+    /**
+     * Return the POF configuration entry for the class, whether it was
+     * instrumented by this generator or before.
+     *
+     * @return the user type for the class, or <tt>null</tt> if the class is
+     *         not a portable type
+     */
+    public UserType getUserType() {
+        if (!isPortableType() || isEnum()) {
+            return null;
+        }
+
+        Type serializerClass = getPofSerializer();
+        SerializerType serializerType = serializerClass.getClassName().equals(PortableTypeSerializer.class.getName())
+                                        ? null
+                                        : new SerializerType(serializerClass.getClassName(), null);
+
+        return new UserType(BigInteger.valueOf(getTypeId()),
+                            cn.name.replace("/", "."),
+                            serializerType);
+    }
+
     private int getTypeId() {
         return (Integer) getAnnotationAttribute(getAnnotation(cn, PortableType.class), "id");
     }
@@ -207,6 +271,32 @@ public class PortableTypeGenerator {
         out.write(getClassBytes());
     }
 
+    /**
+     * Return the name of the serializer generated for the instrumented class.
+     *
+     * @return the name of the generated serializer, or <tt>null</tt> if the
+     *         class was not instrumented
+     */
+    public String getSerializerClassName() {
+        return serializer == null ? null : serializer.name.replace('/', '.');
+    }
+
+    /**
+     * Return the bytecode of the serializer generated for the instrumented
+     * class.
+     *
+     * @return the bytecode of the generated serializer, or <tt>null</tt> if
+     *         the class was not instrumented
+     */
+    public byte[] getSerializerClassBytes() {
+        if (serializer == null) {
+            return null;
+        }
+        ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        serializer.accept(writer);
+        return writer.toByteArray();
+    }
+
     private void populatePropertyMap() {
         int count = 0;
         for (FieldNode fn : ((List<FieldNode>) cn.fields)) {
@@ -236,6 +326,26 @@ public class PortableTypeGenerator {
         return (cn.access & ACC_ENUM) == ACC_ENUM;
     }
 
+    private boolean isLazy() {
+        if (!Boolean.TRUE.equals(getAnnotationAttribute(getAnnotation(cn, PortableType.class), "lazy"))) {
+            return false;
+        }
+        if (findMethod("readExternal", "(Lcom/tangosol/io/pof/PofReader;)V") != null
+            || findMethod("writeExternal", "(Lcom/tangosol/io/pof/PofWriter;)V") != null) {
+            LOG.info("Class " + cn.name + " implements readExternal or writeExternal, ignoring lazy attribute");
+            return false;
+        }
+        for (SortedSet<FieldNode> fields : properties.values()) {
+            for (FieldNode fn : fields) {
+                if ((fn.access & ACC_PRIVATE) == 0) {
+                    throw new IllegalStateException("Property " + cn.name + "." + fn.name
+                                                    + " must be private, as " + cn.name + " is deserialized lazily");
+                }
+            }
+        }
+        return true;
+    }
+
     private boolean isInstrumented() {
         return hasAnnotation(cn, Instrumented.class);
     }
@@ -256,6 +366,15 @@ public class PortableTypeGenerator {
         return null;
     }
 
+    private boolean hasAnnotationAttribute(AnnotationNode an, String name) {
+        if (an.values != null) {
+            for (int i = 0; i < an.values.size(); i += 2) {
+                if (name.equals(an.values.get(i))) return true;
+            }
+        }
+        return false;
+    }
+
     private Object getAnnotationAttribute(AnnotationNode an, String name) {
         if (an.values != null) {
             for (int i = 0; i < an.values.size(); i += 2) {
@@ -303,46 +422,375 @@ public class PortableTypeGenerator {
     }
 
     private void implementReadExternal() {
-        int index = 0;
-
-        MethodNode mn = new MethodNode(ACC_PRIVATE, "readExternal", "(Lcom/tangosol/io/pof/PofReader;)V", null, new String[]{"java/io/IOException"});
+        String desc = "(Lcom/tangosol/io/pof/PofReader;)V";
+        MethodNode mn = new MethodNode(ACC_PRIVATE, "readExternal", desc, null, new String[]{"java/io/IOException"});
+        boolean implemented = !hasMethod(mn);
         mn.visitCode();
 
+        int count = getAttributeCount();
+        if (count <= MAX_ATTRIBUTES_PER_METHOD) {
+            readAttributes(mn, 0, count);
+        }
+        else if (implemented) {
+            for (int from = 0, part = 0; from < count; from += MAX_ATTRIBUTES_PER_METHOD, part++) {
+                MethodNode pn = new MethodNode(ACC_PRIVATE | ACC_SYNTHETIC, mn.name + "$" + part, desc, null, new String[]{"java/io/IOException"});
+                pn.visitCode();
+                readAttributes(pn, from, Math.min(from + MAX_ATTRIBUTES_PER_METHOD, count));
+                pn.visitInsn(RETURN);
+                pn.visitMaxs(0, 0);
+                pn.visitEnd();
+                cn.methods.add(pn);
+
+                mn.visitVarInsn(ALOAD, 0);
+                mn.visitVarInsn(ALOAD, 1);
+                mn.visitMethodInsn(INVOKESPECIAL, cn.name, pn.name, desc);
+            }
+        }
+
+        mn.visitInsn(RETURN);
+        mn.visitMaxs(0, 0);
+        mn.visitEnd();
+
+        if (implemented) {
+            cn.methods.add(mn);
+        }
+        LOG.debug("Implemented method: " + mn.name);
+    }
+
+    /**
+     * Read the attributes with indexes in the specified range, skipping the
+     * ones introduced in the versions newer than the version of the data.
+     */
+    private void readAttributes(MethodNode mn, int from, int to) {
+        int index = 0;
         for (int version : properties.keySet()) {
+            SortedSet<FieldNode> fields = properties.get(version);
+            if (index + fields.size() <= from || index >= to) {
+                index += fields.size();
+                continue;
+            }
+
             mn.visitVarInsn(ALOAD, 1);
             mn.visitMethodInsn(INVOKEINTERFACE, "com/tangosol/io/pof/PofReader", "getVersionId", "()I");
-            mn.visitIntInsn(BIPUSH, version);
+            pushInt(mn, version);
             Label l = new Label();
             mn.visitJumpInsn(IF_ICMPLT, l);
 
-            SortedSet<FieldNode> fields = properties.get(version);
             for (FieldNode fn : fields) {
-                Type type = Type.getType(fn.desc);
+                if (index >= from && index < to) {
+                    if (isDebugEnabled()) {
+                        mn.visitLdcInsn("reading attribute " + index + " (" + fn.name + ") from POF stream");
+                        mn.visitIntInsn(BIPUSH, 7);
+                        mn.visitMethodInsn(INVOKESTATIC, "com/tangosol/net/CacheFactory", "log", "(Ljava/lang/String;I)V");
+                    }
+                    mn.visitVarInsn(ALOAD, 0);
+                    mn.visitVarInsn(ALOAD, 1);
+                    pushInt(mn, index);
+                    readAttribute(mn, fn);
+                }
+                index++;
+            }
+
+            mn.visitLabel(l);
+            mn.visitFrame(F_SAME, 0, null, 0, null);
+        }
+    }
+
+    /**
+     * Read the value of an attribute and assign it to the field. Expects the
+     * object, the reader and the attribute index on the stack.
+     */
+    private void readAttribute(MethodNode mn, FieldNode fn) {
+        Type type = Type.getType(fn.desc);
+        ReadMethod readMethod = getReadMethod(fn, type);
+        readMethod.createTemplate(mn, fn, type);
+        mn.visitMethodInsn(INVOKEINTERFACE, "com/tangosol/io/pof/PofReader", readMethod.getName(), readMethod.getDescriptor());
+        readMethod.convertValue(mn, fn, type);
+        if (type.getSort() == Type.OBJECT || "readObjectArray".equals(readMethod.getName())) {
+            mn.visitTypeInsn(CHECKCAST, type.getInternalName());
+        }
+        mn.visitFieldInsn(PUTFIELD, cn.name, fn.name, fn.desc);
+    }
+
+    /**
+     * Implement lazy deserialization of the attributes declared by this
+     * class.
+     * <p/>
+     * A field holding the serialized attributes and a loader method for each
+     * attribute are added, and the reads of attributes within the existing
+     * methods of this class are replaced by the calls to their loaders. The
+     * writes to attributes are preceded by the deserialization of all
+     * attributes that have not been loaded yet.
+     * <p/>
+     * The serialized attributes are read while holding the monitor of the
+     * object, so a lazily deserialized object can be read by multiple
+     * threads. Once all attributes have been loaded the field holding the
+     * serialized attributes is cleared, and the loaders no longer lock.
+     */
+    private void implementLazyLoading() {
+        Map<String, FieldNode> attributes = new HashMap<String, FieldNode>();
+        for (SortedSet<FieldNode> fields : properties.values()) {
+            for (FieldNode fn : fields) {
+                attributes.put(fn.name, fn);
+            }
+        }
+
+        for (MethodNode mn : (List<MethodNode>) cn.methods) {
+            redirectFieldAccess(mn, attributes);
+        }
+
+        cn.fields.add(new FieldNode(ACC_PRIVATE | ACC_TRANSIENT | ACC_VOLATILE | ACC_SYNTHETIC, LAZY_FIELD, LAZY_DATA_DESC, null, null));
+
+        int index = 0;
+        for (int version : properties.keySet()) {
+            for (FieldNode fn : properties.get(version)) {
+                implementLoader(fn, index++, version);
+            }
+        }
+        implementMaterialize(index - 1);
+        LOG.debug("Implemented lazy loading of " + index + " attribute(s)");
+    }
+
+    private void redirectFieldAccess(MethodNode mn, Map<String, FieldNode> attributes) {
+        boolean ctor = "<init>".equals(mn.name);
+        for (AbstractInsnNode insn : mn.instructions.toArray()) {
+            if (insn.getOpcode() != GETFIELD && insn.getOpcode() != PUTFIELD) {
+                continue;
+            }
 
-                if (isDebugEnabled()) {
-                    mn.visitLdcInsn("reading attribute " + index + " (" + fn.name + ") from POF stream");
-                    mn.visitIntInsn(BIPUSH, 7);
-                    mn.visitMethodInsn(INVOKESTATIC, "com/tangosol/net/CacheFactory", "log", "(Ljava/lang/String;I)V");
+            FieldInsnNode fi = (FieldInsnNode) insn;
+            FieldNode fn = fi.owner.equals(cn.name) ? attributes.get(fi.name) : null;
+            if (fn == null || !fn.desc.equals(fi.desc)) {
+                continue;
+            }
+
+            if (insn.getOpcode() == GETFIELD) {
+                mn.instructions.set(insn, new MethodInsnNode(INVOKESPECIAL, cn.name, LAZY_LOADER_PREFIX + fn.name, "()" + fn.desc));
+            }
+            else if (!ctor) {
+                // materialize the object the field is written to, which is
+                // below the new value on the stack
+                InsnList il = new InsnList();
+                if (Type.getType(fn.desc).getSize() == 1) {
+                    il.add(new InsnNode(SWAP));
+                    il.add(new InsnNode(DUP));
+                    il.add(new MethodInsnNode(INVOKESPECIAL, cn.name, MATERIALIZE, "()V"));
+                    il.add(new InsnNode(SWAP));
                 }
+                else {
+                    il.add(new InsnNode(DUP2_X1));
+                    il.add(new InsnNode(POP2));
+                    il.add(new InsnNode(DUP));
+                    il.add(new MethodInsnNode(INVOKESPECIAL, cn.name, MATERIALIZE, "()V"));
+                    il.add(new InsnNode(DUP_X2));
+                    il.add(new InsnNode(POP));
+                }
+                mn.instructions.insertBefore(insn, il);
+            }
+        }
+    }
+
+    /**
+     * Implement the method that reads an attribute from the serialized data
+     * when it is first accessed, and returns its value.
+     */
+    private void implementLoader(FieldNode fn, int index, int since) {
+        implementReader(fn, index, since);
+
+        MethodNode mn = new MethodNode(ACC_PRIVATE | ACC_SYNTHETIC, LAZY_LOADER_PREFIX + fn.name, "()" + fn.desc, null, null);
+        Label loaded = new Label();
+
+        mn.visitCode();
+        mn.visitVarInsn(ALOAD, 0);
+        mn.visitFieldInsn(GETFIELD, cn.name, LAZY_FIELD, LAZY_DATA_DESC);
+        mn.visitJumpInsn(IFNULL, loaded);
+        mn.visitVarInsn(ALOAD, 0);
+        mn.visitMethodInsn(INVOKESPECIAL, cn.name, LAZY_READER_PREFIX + fn.name, "()V");
+        mn.visitLabel(loaded);
+        mn.visitFrame(F_SAME, 0, null, 0, null);
+        mn.visitVarInsn(ALOAD, 0);
+        mn.visitFieldInsn(GETFIELD, cn.name, fn.name, fn.desc);
+        mn.visitInsn(Type.getType(fn.desc).getOpcode(IRETURN));
+        mn.visitMaxs(0, 0);
+        mn.visitEnd();
+
+        cn.methods.add(mn);
+    }
+
+    /**
+     * Implement the synchronized method that reads an attribute from the
+     * serialized data, unless it has been read already.
+     * <p/>
+     * The attribute is marked as loaded only once it has been read, so a
+     * failed read is repeated, and fails again, on the next access.
+     */
+    private void implementReader(FieldNode fn, int index, int since) {
+        MethodNode mn = new MethodNode(ACC_PRIVATE | ACC_SYNCHRONIZED | ACC_SYNTHETIC, LAZY_READER_PREFIX + fn.name, "()V", null, null);
+        Label start = new Label();
+        Label end = new Label();
+        Label handler = new Label();
+        Label done = new Label();
+
+        mn.visitCode();
+        mn.visitTryCatchBlock(start, end, handler, "java/io/IOException");
+        mn.visitVarInsn(ALOAD, 0);
+        mn.visitFieldInsn(GETFIELD, cn.name, LAZY_FIELD, LAZY_DATA_DESC);
+        mn.visitVarInsn(ASTORE, 1);
+        mn.visitVarInsn(ALOAD, 1);
+        mn.visitJumpInsn(IFNULL, done);
+        mn.visitVarInsn(ALOAD, 1);
+        pushInt(mn, index);
+        pushInt(mn, since);
+        mn.visitMethodInsn(INVOKEVIRTUAL, LAZY_DATA, "load", "(II)Z");
+        mn.visitJumpInsn(IFEQ, done);
+
+        mn.visitLabel(start);
+        mn.visitVarInsn(ALOAD, 0);
+        mn.visitVarInsn(ALOAD, 1);
+        pushInt(mn, index);
+        mn.visitMethodInsn(INVOKEVIRTUAL, LAZY_DATA, "getReader", "(I)Lcom/tangosol/io/pof/PofReader;");
+        pushInt(mn, index);
+        readAttribute(mn, fn);
+        mn.visitVarInsn(ALOAD, 1);
+        pushInt(mn, index);
+        mn.visitMethodInsn(INVOKEVIRTUAL, LAZY_DATA, "setLoaded", "(I)V");
+        mn.visitLabel(end);
+        visitLazyExceptionHandler(mn, handler, done);
+
+        mn.visitInsn(RETURN);
+        mn.visitMaxs(0, 0);
+        mn.visitEnd();
+
+        cn.methods.add(mn);
+    }
+
+    /**
+     * Implement the method that loads all attributes that have not been
+     * loaded yet and discards the serialized data.
+     */
+    private void implementMaterialize(int lastIndex) {
+        MethodNode mn = new MethodNode(ACC_PRIVATE | ACC_SYNCHRONIZED | ACC_SYNTHETIC, MATERIALIZE, "()V", null, null);
+        Label start = new Label();
+        Label end = new Label();
+        Label handler = new Label();
+        Label done = new Label();
+
+        mn.visitCode();
+        mn.visitTryCatchBlock(start, end, handler, "java/io/IOException");
+        mn.visitVarInsn(ALOAD, 0);
+        mn.visitFieldInsn(GETFIELD, cn.name, LAZY_FIELD, LAZY_DATA_DESC);
+        mn.visitVarInsn(ASTORE, 1);
+        mn.visitVarInsn(ALOAD, 1);
+        mn.visitJumpInsn(IFNULL, done);
+
+        int count = lastIndex + 1;
+        if (count <= MAX_ATTRIBUTES_PER_METHOD) {
+            loadAttributes(mn, 0, count);
+        }
+        else {
+            for (int from = 0, part = 0; from < count; from += MAX_ATTRIBUTES_PER_METHOD, part++) {
+                MethodNode pn = new MethodNode(ACC_PRIVATE | ACC_SYNTHETIC, MATERIALIZE + "$" + part, "()V", null, null);
+                pn.visitCode();
+                loadAttributes(pn, from, Math.min(from + MAX_ATTRIBUTES_PER_METHOD, count));
+                pn.visitInsn(RETURN);
+                pn.visitMaxs(0, 0);
+                pn.visitEnd();
+                cn.methods.add(pn);
+
                 mn.visitVarInsn(ALOAD, 0);
-                mn.visitVarInsn(ALOAD, 1);
-                mn.visitIntInsn(BIPUSH, index++);
+                mn.visitMethodInsn(INVOKESPECIAL, cn.name, pn.name, "()V");
+            }
+        }
+        mn.visitLabel(start);
+        mn.visitVarInsn(ALOAD, 1);
+        mn.visitVarInsn(ALOAD, 0);
+        pushInt(mn, lastIndex);
+        mn.visitMethodInsn(INVOKEVIRTUAL, LAZY_DATA, "complete", "(Ljava/lang/Object;I)V");
+        mn.visitLabel(end);
+
+        // the attributes are read without locking once this field is cleared
+        mn.visitVarInsn(ALOAD, 0);
+        mn.visitInsn(ACONST_NULL);
+        mn.visitFieldInsn(PUTFIELD, cn.name, LAZY_FIELD, LAZY_DATA_DESC);
+        visitLazyExceptionHandler(mn, handler, done);
+
+        mn.visitInsn(RETURN);
+        mn.visitMaxs(0, 0);
+        mn.visitEnd();
 
-                ReadMethod readMethod = getReadMethod(fn, type);
-                readMethod.createTemplate(mn, fn, type);
-                mn.visitMethodInsn(INVOKEINTERFACE, "com/tangosol/io/pof/PofReader", readMethod.getName(), readMethod.getDescriptor());
-                if (type.getSort() == Type.OBJECT || "readObjectArray".equals(readMethod.getName())) {
-                    mn.visitTypeInsn(CHECKCAST, type.getInternalName());
+        cn.methods.add(mn);
+    }
+
+    /**
+     * Invoke the loaders of the attributes with indexes in the specified
+     * range.
+     */
+    private void loadAttributes(MethodNode mn, int from, int to) {
+        int index = 0;
+        for (SortedSet<FieldNode> fields : properties.values()) {
+            for (FieldNode fn : fields) {
+                if (index >= from && index < to) {
+                    mn.visitVarInsn(ALOAD, 0);
+                    mn.visitMethodInsn(INVOKESPECIAL, cn.name, LAZY_LOADER_PREFIX + fn.name, "()" + fn.desc);
+                    mn.visitInsn(Type.getType(fn.desc).getSize() == 1 ? POP : POP2);
                 }
-                mn.visitFieldInsn(PUTFIELD, cn.name, fn.name, fn.desc);
+                index++;
             }
+        }
+    }
 
-            mn.visitLabel(l);
-            mn.visitFrame(F_SAME, 0, null, 0, null);
+    /**
+     * Jump over the handler that rethrows the exceptions thrown by the
+     * protected block of a lazy loading method, and start the block that
+     * follows it.
+     */
+    private void visitLazyExceptionHandler(MethodNode mn, Label handler, Label done) {
+        Object[] locals = new Object[] {cn.name, LAZY_DATA};
+
+        mn.visitJumpInsn(GOTO, done);
+        mn.visitLabel(handler);
+        mn.visitFrame(F_FULL, 2, locals, 1, new Object[] {"java/io/IOException"});
+        mn.visitMethodInsn(INVOKESTATIC, LAZY_DATA, "wrap", "(Ljava/io/IOException;)Ljava/lang/RuntimeException;");
+        mn.visitInsn(ATHROW);
+        mn.visitLabel(done);
+        mn.visitFrame(F_FULL, 2, locals, 0, new Object[0]);
+    }
+
+    /**
+     * Implement static methods that allow the generated serializer to invoke
+     * private <tt>readExternal</tt> and <tt>writeExternal</tt> methods of this
+     * class directly.
+     */
+    private void implementBridges() {
+        implementBridge(READ_EXTERNAL_BRIDGE, "readExternal", "Lcom/tangosol/io/pof/PofReader;");
+        implementBridge(WRITE_EXTERNAL_BRIDGE, "writeExternal", "Lcom/tangosol/io/pof/PofWriter;");
+        if (lazy) {
+            implementLazyBridge();
         }
+    }
 
+    private void implementLazyBridge() {
+        MethodNode mn = new MethodNode(ACC_STATIC | ACC_SYNTHETIC, READ_LAZY_BRIDGE, "(L" + cn.name + ";" + LAZY_DATA_DESC + ")V", null, null);
+        mn.visitCode();
+        mn.visitVarInsn(ALOAD, 0);
+        mn.visitVarInsn(ALOAD, 1);
+        mn.visitFieldInsn(PUTFIELD, cn.name, LAZY_FIELD, LAZY_DATA_DESC);
         mn.visitInsn(RETURN);
-        mn.visitMaxs(0, 0);
+        mn.visitMaxs(2, 2);
+        mn.visitEnd();
+
+        cn.methods.add(mn);
+        LOG.debug("Implemented method: " + mn.name);
+    }
+
+    private void implementBridge(String name, String target, String argDesc) {
+        MethodNode mn = new MethodNode(ACC_STATIC | ACC_SYNTHETIC, name, "(L" + cn.name + ";" + argDesc + ")V", null, new String[]{"java/io/IOException"});
+        mn.visitCode();
+        mn.visitVarInsn(ALOAD, 0);
+        mn.visitVarInsn(ALOAD, 1);
+        mn.visitMethodInsn(INVOKESPECIAL, cn.name, target, "(" + argDesc + ")V");
+        mn.visitInsn(RETURN);
+        mn.visitMaxs(2, 2);
         mn.visitEnd();
 
         if (!hasMethod(mn)) {
@@ -351,6 +799,71 @@ public class PortableTypeGenerator {
         LOG.debug("Implemented method: " + mn.name);
     }
 
+    /**
+     * Generate a {@link GeneratedPofSerializer} for this class, which creates
+     * instances and reads and writes attributes without reflection.
+     */
+    private void generateSerializer() {
+        String superName = Type.getInternalName(GeneratedPofSerializer.class);
+
+        serializer = new ClassNode();
+        serializer.version = cn.version;
+        serializer.access = ACC_PUBLIC | ACC_FINAL | ACC_SUPER | ACC_SYNTHETIC;
+        serializer.name = cn.name + GeneratedPofSerializer.CLASS_NAME_SUFFIX;
+        serializer.superName = superName;
+
+        MethodNode ctor = new MethodNode(ACC_PUBLIC, "<init>", "()V", null, null);
+        ctor.visitCode();
+        ctor.visitVarInsn(ALOAD, 0);
+        ctor.visitMethodInsn(INVOKESPECIAL, superName, "<init>", "()V");
+        ctor.visitInsn(RETURN);
+        ctor.visitMaxs(1, 1);
+        ctor.visitEnd();
+        serializer.methods.add(ctor);
+
+        if ((cn.access & ACC_ABSTRACT) == 0) {
+            MethodNode mn = new MethodNode(ACC_PROTECTED, "newInstance", "()Ljava/lang/Object;", null, null);
+            mn.visitCode();
+            mn.visitTypeInsn(NEW, cn.name);
+            mn.visitInsn(DUP);
+            mn.visitMethodInsn(INVOKESPECIAL, cn.name, "<init>", "()V");
+            mn.visitInsn(ARETURN);
+            mn.visitMaxs(2, 1);
+            mn.visitEnd();
+            serializer.methods.add(mn);
+        }
+
+        serializer.methods.add(createDelegate("readExternal", READ_EXTERNAL_BRIDGE, "Lcom/tangosol/io/pof/PofReader;"));
+        serializer.methods.add(createDelegate("writeExternal", WRITE_EXTERNAL_BRIDGE, "Lcom/tangosol/io/pof/PofWriter;"));
+
+        if (lazy) {
+            MethodNode mn = new MethodNode(ACC_PROTECTED, "isLazy", "()Z", null, null);
+            mn.visitCode();
+            mn.visitInsn(ICONST_1);
+            mn.visitInsn(IRETURN);
+            mn.visitMaxs(1, 1);
+            mn.visitEnd();
+            serializer.methods.add(mn);
+
+            serializer.methods.add(createDelegate("readLazy", READ_LAZY_BRIDGE, LAZY_DATA_DESC));
+        }
+
+        LOG.debug("Generated serializer: " + serializer.name);
+    }
+
+    private MethodNode createDelegate(String name, String bridge, String argDesc) {
+        MethodNode mn = new MethodNode(ACC_PROTECTED, name, "(Ljava/lang/Object;" + argDesc + ")V", null, new String[]{"java/io/IOException"});
+        mn.visitCode();
+        mn.visitVarInsn(ALOAD, 1);
+        mn.visitTypeInsn(CHECKCAST, cn.name);
+        mn.visitVarInsn(ALOAD, 2);
+        mn.visitMethodInsn(INVOKESTATIC, cn.name, bridge, "(L" + cn.name + ";" + argDesc + ")V");
+        mn.visitInsn(RETURN);
+        mn.visitMaxs(2, 3);
+        mn.visitEnd();
+        return mn;
+    }
+
     private Type getFactoryType(AnnotationNode an) {
         Type factoryClass = (Type) getAnnotationAttribute(an, "factory");
         return !factoryClass.equals(Type.getType(Factory.class))
@@ -386,6 +899,7 @@ public class PortableTypeGenerator {
                 if ("[J".equals(type.getDescriptor())) return new ReadMethod("readLongArray", "(I)[J");
                 if ("[F".equals(type.getDescriptor())) return new ReadMethod("readFloatArray", "(I)[F");
                 if ("[D".equals(type.getDescriptor())) return new ReadMethod("readDoubleArray", "(I)[D");
+                if (isPrimitiveArray(field, type))     return new PrimitiveArrayReadMethod(getPrimitiveElementClass(field, type));
                 return new ObjectArrayReadMethod();
 
             default:
@@ -394,6 +908,7 @@ public class PortableTypeGenerator {
                 if (type.getClassName().equals(BigDecimal.class.getName())) return new ReadMethod("readBigDecimal", "(I)Ljava/math/BigDecimal;");
                 if (type.getClassName().equals(BigInteger.class.getName())) return new ReadMethod("readBigInteger", "(I)Ljava/math/BigInteger;");
                 if (type.getClassName().equals(Binary.class.getName()))     return new ReadMethod("readBinary", "(I)Lcom/tangosol/util/Binary;");
+                if (isPrimitiveArray(field, type))                          return new PrimitiveCollectionReadMethod(getPrimitiveElementClass(field, type));
                 if (isCollection(field, type))                              return new CollectionReadMethod();
                 if (isMap(field, type))                                     return new MapReadMethod();
                 return new ReadMethod("readObject", "(I)Ljava/lang/Object;");
@@ -401,30 +916,35 @@ public class PortableTypeGenerator {
     }
 
     private void implementWriteExternal() {
-        int index = 0;
-
-        MethodNode mn = new MethodNode(ACC_PRIVATE, "writeExternal", "(Lcom/tangosol/io/pof/PofWriter;)V", null, new String[]{"java/io/IOException"});
+        String desc = "(Lcom/tangosol/io/pof/PofWriter;)V";
+        MethodNode mn = new MethodNode(ACC_PRIVATE, "writeExternal", desc, null, new String[]{"java/io/IOException"});
+        boolean implemented = !hasMethod(mn);
         mn.visitCode();
 
-        for (int version : properties.keySet()) {
-            SortedSet<FieldNode> fields = properties.get(version);
-            for (FieldNode fn : fields) {
-                addPofIndex(fn, index);
-                Type type = Type.getType(fn.desc);
+        if (lazy) {
+            mn.visitVarInsn(ALOAD, 0);
+            mn.visitMethodInsn(INVOKESPECIAL, cn.name, MATERIALIZE, "()V");
+        }
 
-                if (isDebugEnabled()) {
-                    mn.visitLdcInsn("writing attribute " + index + " (" + fn.name + ") to POF stream");
-                    mn.visitIntInsn(BIPUSH, 7);
-                    mn.visitMethodInsn(INVOKESTATIC, "com/tangosol/net/CacheFactory", "log", "(Ljava/lang/String;I)V");
+        int count = getAttributeCount();
+        if (count <= MAX_ATTRIBUTES_PER_METHOD) {
+            writeAttributes(mn, 0, count);
+        }
+        else {
+            for (int from = 0, part = 0; from < count; from += MAX_ATTRIBUTES_PER_METHOD, part++) {
+                MethodNode pn = new MethodNode(ACC_PRIVATE | ACC_SYNTHETIC, mn.name + "$" + part, desc, null, new String[]{"java/io/IOException"});
+                pn.visitCode();
+                writeAttributes(pn, from, Math.min(from + MAX_ATTRIBUTES_PER_METHOD, count));
+                pn.visitInsn(RETURN);
+                pn.visitMaxs(0, 0);
+                pn.visitEnd();
+                if (implemented) {
+                    cn.methods.add(pn);
                 }
-                mn.visitVarInsn(ALOAD, 1);
-                mn.visitIntInsn(BIPUSH, index++);
-                mn.visitVarInsn(ALOAD, 0);
-                mn.visitFieldInsn(GETFIELD, cn.name, fn.name, fn.desc);
 
-                WriteMethod writeMethod = getWriteMethod(fn, type);
-                writeMethod.pushUniformTypes(mn);
-                mn.visitMethodInsn(INVOKEINTERFACE, "com/tangosol/io/pof/PofWriter", writeMethod.getName(), writeMethod.getDescriptor());
+                mn.visitVarInsn(ALOAD, 0);
+                mn.visitVarInsn(ALOAD, 1);
+                mn.visitMethodInsn(INVOKESPECIAL, cn.name, pn.name, desc);
             }
         }
 
@@ -432,12 +952,72 @@ public class PortableTypeGenerator {
         mn.visitMaxs(0, 0);
         mn.visitEnd();
 
-        if (!hasMethod(mn)) {
+        if (implemented) {
             cn.methods.add(mn);
         }
         LOG.debug("Implemented method: " + mn.name);
     }
 
+    /**
+     * Write the attributes with indexes in the specified range, and record
+     * the index of each attribute written.
+     */
+    private void writeAttributes(MethodNode mn, int from, int to) {
+        int index = 0;
+        for (int version : properties.keySet()) {
+            SortedSet<FieldNode> fields = properties.get(version);
+            for (FieldNode fn : fields) {
+                if (index >= from && index < to) {
+                    addPofIndex(fn, index);
+                    Type type = Type.getType(fn.desc);
+
+                    if (isDebugEnabled()) {
+                        mn.visitLdcInsn("writing attribute " + index + " (" + fn.name + ") to POF stream");
+                        mn.visitIntInsn(BIPUSH, 7);
+                        mn.visitMethodInsn(INVOKESTATIC, "com/tangosol/net/CacheFactory", "log", "(Ljava/lang/String;I)V");
+                    }
+                    mn.visitVarInsn(ALOAD, 1);
+                    pushInt(mn, index);
+                    mn.visitVarInsn(ALOAD, 0);
+                    mn.visitFieldInsn(GETFIELD, cn.name, fn.name, fn.desc);
+
+                    WriteMethod writeMethod = getWriteMethod(fn, type);
+                    writeMethod.convertValue(mn);
+                    writeMethod.pushUniformTypes(mn);
+                    mn.visitMethodInsn(INVOKEINTERFACE, "com/tangosol/io/pof/PofWriter", writeMethod.getName(), writeMethod.getDescriptor());
+                }
+                index++;
+            }
+        }
+    }
+
+    private int getAttributeCount() {
+        int count = 0;
+        for (SortedSet<FieldNode> fields : properties.values()) {
+            count += fields.size();
+        }
+        return count;
+    }
+
+    /**
+     * Push an integer constant using the shortest instruction that can
+     * represent it.
+     */
+    private static void pushInt(MethodNode mn, int value) {
+        if (value >= -1 && value <= 5) {
+            mn.visitInsn(ICONST_0 + value);
+        }
+        else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            mn.visitIntInsn(BIPUSH, value);
+        }
+        else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            mn.visitIntInsn(SIPUSH, value);
+        }
+        else {
+            mn.visitLdcInsn(value);
+        }
+    }
+
     private MethodNode findMethod(String name, String desc) {
         for (MethodNode node : (List<MethodNode>) cn.methods) {
             if (node.name.equals(name) && node.desc.equals(desc))
@@ -492,6 +1072,7 @@ public class PortableTypeGenerator {
                 if ("[I".equals(type.getDescriptor())) return new WriteMethod("writeIntArray", "(I[I)V");
                 if ("[J".equals(type.getDescriptor())) return new WriteMethod("writeLongArray", "(I[J)V");
                 if ("[S".equals(type.getDescriptor())) return new WriteMethod("writeShortArray", "(I[S)V");
+                if (isPrimitiveArray(field, type))     return new PrimitiveArrayWriteMethod(getPrimitiveElementClass(field, type), type);
                 return getObjectArrayWriteMethod(field, type);
 
             default: // Type.OBJECT
@@ -501,6 +1082,7 @@ public class PortableTypeGenerator {
                 if (type.getClassName().equals(Binary.class.getName()))     return new WriteMethod("writeBinary", "(ILcom/tangosol/util/Binary;)V");
                 if (type.getClassName().equals(Date.class.getName()))       return getDateWriteMethod(field, type);
                 if (type.getClassName().equals(Timestamp.class.getName()))  return getDateWriteMethod(field, type);
+                if (isPrimitiveArray(field, type))                          return new PrimitiveArrayWriteMethod(getPrimitiveElementClass(field, type), type);
                 if (isCollection(field, type))                              return getCollectionWriteMethod(field, type);
                 if (isMap(field, type))                                     return getMapWriteMethod(field, type);
                 return new WriteMethod("writeObject", "(ILjava/lang/Object;)V");
@@ -537,10 +1119,10 @@ public class PortableTypeGenerator {
     }
 
     private WriteMethod getCollectionWriteMethod(FieldNode field, Type type) {
-        Type elementClass = OBJECT_TYPE;
+        Type elementClass = getUniformType(getTypeArguments(field), 0);
 
         AnnotationNode an = getAnnotation(field, PortableList.class, PortableSet.class);
-        if (an != null) {
+        if (an != null && hasAnnotationAttribute(an, "elementClass")) {
             elementClass = (Type) getAnnotationAttribute(an, "elementClass");
         }
 
@@ -548,31 +1130,144 @@ public class PortableTypeGenerator {
     }
 
     private WriteMethod getMapWriteMethod(FieldNode field, Type type) {
-        Type keyClass   = OBJECT_TYPE;
-        Type valueClass = OBJECT_TYPE;
+        Type[] typeArguments = getTypeArguments(field);
+        Type keyClass   = getUniformType(typeArguments, 0);
+        Type valueClass = getUniformType(typeArguments, 1);
 
         AnnotationNode an = getAnnotation(field, PortableMap.class);
         if (an != null) {
-            keyClass = (Type) getAnnotationAttribute(an, "keyClass");
-            if (!OBJECT_TYPE.equals(keyClass)) {
+            if (hasAnnotationAttribute(an, "keyClass")) {
+                keyClass = (Type) getAnnotationAttribute(an, "keyClass");
+            }
+            if (hasAnnotationAttribute(an, "valueClass")) {
                 valueClass = (Type) getAnnotationAttribute(an, "valueClass");
             }
         }
 
-        return new MapWriteMethod(keyClass, valueClass);
+        return new MapWriteMethod(keyClass, OBJECT_TYPE.equals(keyClass) ? OBJECT_TYPE : valueClass);
     }
 
     private WriteMethod getObjectArrayWriteMethod(FieldNode field, Type type) {
-        Type elementClass = OBJECT_TYPE;
+        Type elementClass = type.getDimensions() == 1
+                            ? getUniformType(new Type[] {type.getElementType()}, 0)
+                            : OBJECT_TYPE;
 
         AnnotationNode an = getAnnotation(field, PortableArray.class);
-        if (an != null) {
+        if (an != null && hasAnnotationAttribute(an, "elementClass")) {
             elementClass = (Type) getAnnotationAttribute(an, "elementClass");
         }
 
         return new ObjectArrayWriteMethod(elementClass);
     }
 
+    /**
+     * Return the uniform type that can be used for the type argument with
+     * the specified index, or <tt>Object</tt> if the values of the type
+     * argument may be of different classes.
+     */
+    private static Type getUniformType(Type[] typeArguments, int index) {
+        return index < typeArguments.length && UNIFORM_TYPES.contains(typeArguments[index])
+               ? typeArguments[index]
+               : OBJECT_TYPE;
+    }
+
+    /**
+     * Return the type arguments of the generic type of the field.
+     * <p/>
+     * The arguments that are not plain classes, such as wildcards, type
+     * variables, arrays and parameterized types, are returned as
+     * <tt>null</tt>. If the field type is not parameterized, an empty array
+     * is returned.
+     */
+    private static Type[] getTypeArguments(FieldNode field) {
+        String sig = field.signature;
+        if (sig == null || sig.indexOf('<') < 0) {
+            return new Type[0];
+        }
+
+        List<Type> args = new ArrayList<Type>();
+        int i = sig.indexOf('<') + 1;
+        while (sig.charAt(i) != '>') {
+            int begin = i;
+            char c = sig.charAt(i);
+            if (c == '*') {
+                i++;
+            }
+            else {
+                while (c == '+' || c == '-' || c == '[') {
+                    c = sig.charAt(++i);
+                }
+                if (c == 'L' || c == 'T') {
+                    for (int depth = 0; c != ';' || depth > 0; c = sig.charAt(++i)) {
+                        if (c == '<') depth++;
+                        if (c == '>') depth--;
+                    }
+                }
+                i++;
+            }
+
+            String arg = sig.substring(begin, i);
+            args.add(arg.charAt(0) == 'L' && arg.indexOf('<') < 0 ? Type.getType(arg) : null);
+        }
+        return args.toArray(new Type[args.size()]);
+    }
+
+    /**
+     * Return whether the attribute is a collection or an array of wrapper
+     * objects that should be serialized as a uniform primitive array,
+     * because its element class is a primitive type.
+     */
+    private boolean isPrimitiveArray(FieldNode field, Type type) {
+        if (type.getSort() != Type.ARRAY && !isCollection(field, type)) {
+            return false;
+        }
+
+        Type elementClass = getPrimitiveElementClass(field, type);
+        if (elementClass == null) {
+            return false;
+        }
+        if (type.getSort() == Type.ARRAY
+                && (type.getDimensions() != 1 || !type.getElementType().equals(getWrapperType(elementClass)))) {
+            throw new IllegalStateException("Property " + cn.name + "." + field.name + " must be an array of "
+                                            + getWrapperType(elementClass).getClassName());
+        }
+        return true;
+    }
+
+    private Type getPrimitiveElementClass(FieldNode field, Type type) {
+        AnnotationNode an = type.getSort() == Type.ARRAY
+                            ? getAnnotation(field, PortableArray.class)
+                            : getAnnotation(field, PortableList.class, PortableSet.class);
+        if (an == null) {
+            return null;
+        }
+
+        Type elementClass = (Type) getAnnotationAttribute(an, "elementClass");
+        return elementClass.getSort() >= Type.BOOLEAN && elementClass.getSort() <= Type.DOUBLE
+               ? elementClass
+               : null;
+    }
+
+    private static Type getWrapperType(Type primitiveType) {
+        switch (primitiveType.getSort()) {
+            case Type.BOOLEAN: return Type.getType(Boolean.class);
+            case Type.BYTE:    return Type.getType(Byte.class);
+            case Type.CHAR:    return Type.getType(Character.class);
+            case Type.SHORT:   return Type.getType(Short.class);
+            case Type.INT:     return Type.getType(Integer.class);
+            case Type.LONG:    return Type.getType(Long.class);
+            case Type.FLOAT:   return Type.getType(Float.class);
+            case Type.DOUBLE:  return Type.getType(Double.class);
+            default:
+                throw new IllegalArgumentException("Not a primitive type: " + primitiveType);
+        }
+    }
+
+    private static String getArrayTypeName(Type primitiveType) {
+        String name = primitiveType.getClassName();
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1) + "Array";
+    }
+
     private boolean isCollection(FieldNode field, Type type) {
         return COLLECTION_CLASSES.contains(type.getClassName())
                 || hasAnnotation(field, PortableList.class)
@@ -611,6 +1306,8 @@ public class PortableTypeGenerator {
         }
 
         public void createTemplate(MethodNode mn, FieldNode field, Type type) {}
+
+        public void convertValue(MethodNode mn, FieldNode field, Type type) {}
     }
 
     private static class WriteMethod extends Method {
@@ -618,6 +1315,8 @@ public class PortableTypeGenerator {
             super(name, desc);
         }
 
+        public void convertValue(MethodNode mn) {}
+
         public void pushUniformTypes(MethodNode mn) {}
     }
 
@@ -759,6 +1458,62 @@ public class PortableTypeGenerator {
         }
     }
 
+    private static class PrimitiveArrayReadMethod extends ReadMethod {
+        private Type elementClass;
+
+        public PrimitiveArrayReadMethod(Type elementClass) {
+            super("read" + getArrayTypeName(elementClass), "(I)[" + elementClass.getDescriptor());
+            this.elementClass = elementClass;
+        }
+
+        @Override
+        public void convertValue(MethodNode mn, FieldNode field, Type type) {
+            mn.visitMethodInsn(INVOKESTATIC, PRIMITIVE_ARRAYS, "box",
+                               "([" + elementClass.getDescriptor() + ")[" + getWrapperType(elementClass).getDescriptor());
+        }
+    }
+
+    private class PrimitiveCollectionReadMethod extends CollectionReadMethod {
+        private Type elementClass;
+
+        public PrimitiveCollectionReadMethod(Type elementClass) {
+            super("read" + getArrayTypeName(elementClass), "(I)[" + elementClass.getDescriptor());
+            this.elementClass = elementClass;
+        }
+
+        @Override
+        public void createTemplate(MethodNode mn, FieldNode field, Type type) {
+            // the collection is created after the array is read
+        }
+
+        @Override
+        public void convertValue(MethodNode mn, FieldNode field, Type type) {
+            super.createTemplate(mn, field, type);
+            mn.visitMethodInsn(INVOKESTATIC, PRIMITIVE_ARRAYS, "fill",
+                               "([" + elementClass.getDescriptor() + "Ljava/util/Collection;)Ljava/util/Collection;");
+        }
+    }
+
+    private static class PrimitiveArrayWriteMethod extends WriteMethod {
+        private Type elementClass;
+        private Type sourceType;
+
+        public PrimitiveArrayWriteMethod(Type elementClass, Type sourceType) {
+            super("write" + getArrayTypeName(elementClass), "(I[" + elementClass.getDescriptor() + ")V");
+            this.elementClass = elementClass;
+            this.sourceType   = sourceType;
+        }
+
+        @Override
+        public void convertValue(MethodNode mn) {
+            String sourceDesc = sourceType.getSort() == Type.ARRAY
+                                ? sourceType.getDescriptor()
+                                : "Ljava/util/Collection;";
+            mn.visitMethodInsn(INVOKESTATIC, PRIMITIVE_ARRAYS, "to" + getArrayTypeName(elementClass),
+                               "(" + sourceDesc + ")[" + elementClass.getDescriptor());
+        }
+    }
+
     public static interface Logger {
         void debug(String message);
         void info(String message);
@@ -808,7 +1563,36 @@ public class PortableTypeGenerator {
         }
     }
 
+    // ---- build-time instrumentation --------------------------------------------------------------------------------
+
+    private static final String MANIFEST_FILE = ".pof-instrumentation";
+    private static final String POF_CONFIG_FILE = "pof-config.xml";
+    private static final int PARALLEL_THRESHOLD = 16;
+
     public static void instrumentClasses(File classDir) throws IOException {
+        instrumentClasses(classDir, false, false);
+    }
+
+    /**
+     * Instrument all portable types within the specified directory and its
+     * subdirectories, and write a <tt>pof-config.xml</tt> file into each
+     * directory that contains them.
+     * <p/>
+     * In parallel mode, class files are instrumented using a fork-join pool.
+     * In incremental mode, the hashes of processed class files are recorded
+     * in a manifest within the specified directory. Class files that have not
+     * changed since the last run are skipped, and POF configuration files are
+     * only written when the set of portable types within a directory changes.
+     *
+     * @param classDir     the directory to instrument classes in
+     * @param parallel     flag specifying whether to instrument classes in
+     *                     parallel
+     * @param incremental  flag specifying whether to skip classes that have
+     *                     not changed since the last run
+     *
+     * @throws IOException  if an error occurs while reading or writing files
+     */
+    public static void instrumentClasses(File classDir, boolean parallel, boolean incremental) throws IOException {
         if (!classDir.exists()) {
             throw new IllegalArgumentException("Specified path [" + classDir.getAbsolutePath() + "] does not exist");
         }
@@ -816,40 +1600,281 @@ public class PortableTypeGenerator {
             throw new IllegalArgumentException("Specified path [" + classDir.getAbsolutePath() + "] is not a directory");
         }
 
-        File[] files = classDir.listFiles();
-        if (files != null) {
-            PofConfig cfg = null;
+        List<String> paths = new ArrayList<String>();
+        findClassFiles(classDir, "", paths);
 
-            for (File file : files) {
-                if (file.isDirectory()) {
-                    instrumentClasses(file);
-                }
-                else if (file.getName().endsWith(".class")) {
-                    FileInputStream in = new FileInputStream(file);
-                    PortableTypeGenerator gen = new PortableTypeGenerator(in);
-                    in.close();
-
-                    UserType type = gen.instrumentClass();
-                    if (type != null) {
-                        if (cfg == null) {
-                            cfg = new PofConfig();
-                            cfg.setUserTypeList(new UserTypeList());
-                            cfg.setDefaultSerializer(new SerializerType("com.seovic.pof.PortableTypeSerializer", null));
-                        }
-                        cfg.getUserTypeList().getUserTypeOrInclude().add(type);
+        Properties manifest = incremental ? loadManifest(classDir) : new Properties();
+        ClassFileResult[] results = new ClassFileResult[paths.size()];
+        InstrumentationTask task = new InstrumentationTask(classDir, paths, manifest, results, 0, paths.size());
+
+        if (parallel) {
+            ForkJoinPool pool = new ForkJoinPool();
+            try {
+                pool.invoke(task);
+            }
+            catch (RuntimeException e) {
+                for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+                    if (cause instanceof IOException) {
+                        throw (IOException) cause;
                     }
-                    FileOutputStream out = new FileOutputStream(file);
-                    gen.writeClass(out);
-                    out.flush();
-                    out.close();
                 }
+                throw e;
+            }
+            finally {
+                pool.shutdown();
+            }
+        }
+        else {
+            task.instrument(0, paths.size());
+        }
+
+        writePofConfigs(classDir, results, manifest, incremental);
+        if (incremental) {
+            saveManifest(classDir, results);
+        }
+    }
+
+    private static void findClassFiles(File dir, String prefix, List<String> paths) {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files);
+        for (File file : files) {
+            String name = file.getName();
+            if (file.isDirectory()) {
+                findClassFiles(file, prefix + name + "/", paths);
+            }
+            else if (name.endsWith(".class") && !name.endsWith(GeneratedPofSerializer.CLASS_NAME_SUFFIX + ".class")) {
+                paths.add(prefix + name);
+            }
+        }
+    }
+
+    private static ClassFileResult instrumentClassFile(File classDir, String path, Properties manifest) throws IOException {
+        File file = new File(classDir, path);
+        byte[] bytes = readFile(file);
+        String hash = hash(bytes);
+
+        String entry = manifest.getProperty(path);
+        if (entry != null && entry.startsWith(hash)) {
+            return new ClassFileResult(path, hash, parseUserType(entry.substring(hash.length()).trim()), false);
+        }
+
+        PortableTypeGenerator gen = new PortableTypeGenerator(new ByteArrayInputStream(bytes));
+        if (gen.instrumentClass() == null) {
+            return new ClassFileResult(path, hash, gen.getUserType(), false);
+        }
+
+        bytes = gen.getClassBytes();
+        writeFile(file, bytes);
+
+        String name = gen.getSerializerClassName();
+        writeFile(new File(file.getParentFile(), name.substring(name.lastIndexOf('.') + 1) + ".class"),
+                  gen.getSerializerClassBytes());
+
+        return new ClassFileResult(path, hash(bytes), gen.getUserType(), true);
+    }
+
+    private static void writePofConfigs(File classDir, ClassFileResult[] results, Properties manifest, boolean incremental)
+            throws IOException {
+        Map<String, List<UserType>> types = new TreeMap<String, List<UserType>>();
+        Map<String, Set<String>> currentTypes = new HashMap<String, Set<String>>();
+        for (ClassFileResult result : results) {
+            if (result.type != null && (incremental || result.instrumented)) {
+                String dir = getDirectory(result.path);
+                if (!types.containsKey(dir)) {
+                    types.put(dir, new ArrayList<UserType>());
+                    currentTypes.put(dir, new HashSet<String>());
+                }
+                types.get(dir).add(result.type);
+                currentTypes.get(dir).add(toString(result.type));
+            }
+        }
+
+        Map<String, Set<String>> previousTypes = new HashMap<String, Set<String>>();
+        for (String path : manifest.stringPropertyNames()) {
+            String[] entry = manifest.getProperty(path).split(" ", 2);
+            if (entry.length > 1) {
+                String dir = getDirectory(path);
+                if (!previousTypes.containsKey(dir)) {
+                    previousTypes.put(dir, new HashSet<String>());
+                }
+                previousTypes.get(dir).add(entry[1]);
             }
+        }
+
+        for (Map.Entry<String, List<UserType>> entry : types.entrySet()) {
+            File dir = new File(classDir, entry.getKey());
+            File pofConfig = new File(dir, POF_CONFIG_FILE);
+            if (incremental && pofConfig.exists()
+                && currentTypes.get(entry.getKey()).equals(previousTypes.get(entry.getKey()))) {
+                LOG.debug(pofConfig.getAbsolutePath() + " is up to date");
+                continue;
+            }
+
+            PofConfig cfg = new PofConfig();
+            cfg.setUserTypeList(new UserTypeList());
+            cfg.setDefaultSerializer(new SerializerType("com.seovic.pof.PortableTypeSerializer", null));
+            cfg.getUserTypeList().getUserTypeOrInclude().addAll(entry.getValue());
+
+            JAXBMarshaller marshaller = new JAXBMarshaller(PofConfig.class, true);
+            FileOutputStream out = new FileOutputStream(pofConfig);
+            try {
+                marshaller.marshal(cfg, out);
+            }
+            finally {
+                out.close();
+            }
+            LOG.info("Created " + pofConfig.getAbsolutePath());
+        }
+    }
+
+    private static String getDirectory(String path) {
+        int i = path.lastIndexOf('/');
+        return i < 0 ? "" : path.substring(0, i);
+    }
 
-            if (cfg != null) {
-                File pofConfig = new File(classDir, "pof-config.xml");
-                JAXBMarshaller marshaller = new JAXBMarshaller(PofConfig.class, true);
-                marshaller.marshal(cfg, new FileOutputStream(pofConfig));
-                LOG.info("Created " + pofConfig.getAbsolutePath());
+    private static Properties loadManifest(File classDir) throws IOException {
+        Properties manifest = new Properties();
+        File file = new File(classDir, MANIFEST_FILE);
+        if (file.exists()) {
+            FileInputStream in = new FileInputStream(file);
+            try {
+                manifest.load(in);
+            }
+            finally {
+                in.close();
+            }
+        }
+        return manifest;
+    }
+
+    private static void saveManifest(File classDir, ClassFileResult[] results) throws IOException {
+        Properties manifest = new Properties();
+        for (ClassFileResult result : results) {
+            manifest.setProperty(result.path, result.type == null
+                                              ? result.hash
+                                              : result.hash + " " + toString(result.type));
+        }
+
+        FileOutputStream out = new FileOutputStream(new File(classDir, MANIFEST_FILE));
+        try {
+            manifest.store(out, "Portable type instrumentation manifest");
+        }
+        finally {
+            out.close();
+        }
+    }
+
+    private static String toString(UserType type) {
+        SerializerType serializer = type.getSerializer();
+        return type.getTypeId() + " " + type.getClassName()
+               + (serializer == null ? "" : " " + serializer.getClassName());
+    }
+
+    private static UserType parseUserType(String s) {
+        if (s.length() == 0) {
+            return null;
+        }
+        String[] parts = s.split(" ");
+        return new UserType(new BigInteger(parts[0]),
+                            parts[1],
+                            parts.length > 2 ? new SerializerType(parts[2], null) : null);
+    }
+
+    private static String hash(byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(bytes);
+            return String.format("%040x", new BigInteger(1, digest));
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] readFile(File file) throws IOException {
+        byte[] bytes = new byte[(int) file.length()];
+        DataInputStream in = new DataInputStream(new FileInputStream(file));
+        try {
+            in.readFully(bytes);
+        }
+        finally {
+            in.close();
+        }
+        return bytes;
+    }
+
+    private static void writeFile(File file, byte[] bytes) throws IOException {
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(bytes);
+        }
+        finally {
+            out.close();
+        }
+    }
+
+    /**
+     * The outcome of processing a single class file.
+     */
+    private static class ClassFileResult {
+        private final String path;
+        private final String hash;
+        private final UserType type;
+        private final boolean instrumented;
+
+        private ClassFileResult(String path, String hash, UserType type, boolean instrumented) {
+            this.path = path;
+            this.hash = hash;
+            this.type = type;
+            this.instrumented = instrumented;
+        }
+    }
+
+    /**
+     * Fork-join task that instruments a range of class files, splitting it
+     * in half until it is small enough to process directly.
+     */
+    private static class InstrumentationTask
+            extends RecursiveAction {
+        private final File classDir;
+        private final List<String> paths;
+        private final Properties manifest;
+        private final ClassFileResult[] results;
+        private final int from;
+        private final int to;
+
+        private InstrumentationTask(File classDir, List<String> paths, Properties manifest,
+                                    ClassFileResult[] results, int from, int to) {
+            this.classDir = classDir;
+            this.paths = paths;
+            this.manifest = manifest;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                try {
+                    instrument(from, to);
+                }
+                catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new InstrumentationTask(classDir, paths, manifest, results, from, mid),
+                          new InstrumentationTask(classDir, paths, manifest, results, mid, to));
+            }
+        }
+
+        private void instrument(int from, int to) throws IOException {
+            for (int i = from; i < to; i++) {
+                results[i] = instrumentClassFile(classDir, paths.get(i), manifest);
             }
         }
     }
@@ -858,12 +1883,15 @@ public class PortableTypeGenerator {
 
     public static void main(String[] args) {
         if (args.length < 1) {
-            System.out.println("Usage: PortableTypeGenerator <classDir>");
+            System.out.println("Usage: PortableTypeGenerator [-parallel] [-incremental] <classDir>");
             System.exit(0);
         }
 
+        List<String> options = Arrays.asList(args).subList(0, args.length - 1);
         try {
-            instrumentClasses(new File(args[0]));
+            instrumentClasses(new File(args[args.length - 1]),
+                              options.contains("-parallel"),
+                              options.contains("-incremental"));
         }
         catch (Exception e) {
             System.out.println("ERROR:" + e.getMessage());
@@ -882,12 +1910,35 @@ public class PortableTypeGenerator {
         public byte[] transform(ClassLoader classLoader, String s, Class<?> aClass, ProtectionDomain protectionDomain, byte[] bytes) throws IllegalClassFormatException {
             try {
                 PortableTypeGenerator gen = new PortableTypeGenerator(new ByteArrayInputStream(bytes));
-                gen.instrumentClass();
+                if (gen.instrumentClass() != null) {
+                    defineClass(classLoader, gen.getSerializerClassName(), gen.getSerializerClassBytes(), protectionDomain);
+                }
                 return gen.getClassBytes();
             }
             catch (IOException e) {
                 throw new IllegalClassFormatException(e.getMessage());
             }
         }
+
+        /**
+         * Define generated serializer within the class loader of the
+         * instrumented class, so it can access package-private members of
+         * that class. If the serializer cannot be defined, the instrumented
+         * class will be serialized using reflection.
+         */
+        private void defineClass(ClassLoader classLoader, String name, byte[] bytes, ProtectionDomain protectionDomain) {
+            if (classLoader == null) {
+                return;
+            }
+            try {
+                java.lang.reflect.Method define = ClassLoader.class.getDeclaredMethod(
+                        "defineClass", String.class, byte[].class, int.class, int.class, ProtectionDomain.class);
+                define.setAccessible(true);
+                define.invoke(classLoader, name, bytes, 0, bytes.length, protectionDomain);
+            }
+            catch (Exception e) {
+                LOG.info("Cannot define serializer " + name + " (" + e + "), reflection will be used instead");
+            }
+        }
     }
 }
@@ -27,11 +27,14 @@ import com.tangosol.util.Binary;
 
 import java.io.IOException;
 
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 
+import java.util.Arrays;
 import java.util.Map;
-import java.util.Set;
-import java.util.TreeSet;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
@@ -39,62 +42,105 @@ import org.slf4j.LoggerFactory;
 
 
 /**
+ * Serializer for the classes annotated with {@link PortableType}.
+ * <p/>
+ * Each class in the hierarchy of a serialized object is written into its own
+ * nested POF stream, using the serializer that {@link PortableTypeGenerator}
+ * generated for that class. Classes that do not have a generated serializer,
+ * because they were instrumented by an older version of the generator or
+ * implement <tt>readExternal</tt> and <tt>writeExternal</tt> themselves, are
+ * serialized using reflection.
+ * <p/>
+ * The type identifiers, versions and serializers of the classes in the
+ * hierarchy are resolved once per class and POF context, and cached as a
+ * {@link Plan}.
+ *
  * @author Aleksandar Seovic  2012.05.27
  */
 @SuppressWarnings("unchecked")
 public class PortableTypeSerializer
         implements PofSerializer {
     private static final Logger LOG = LoggerFactory.getLogger(PortableTypeSerializer.class);
-    private static final Map<Class, Method> READ_EXTERNAL_CACHE  = new ConcurrentHashMap<Class, Method>();
-    private static final Map<Class, Method> WRITE_EXTERNAL_CACHE = new ConcurrentHashMap<Class, Method>();
+    private static final Map<Class, GeneratedPofSerializer> SERIALIZER_CACHE = new ConcurrentHashMap<Class, GeneratedPofSerializer>();
     private static final Map<Class, PortableType> PORTABLE_TYPE_CACHE = new ConcurrentHashMap<Class, PortableType>();
+    private static final Map<PofContext, Map<Class, Plan>> PLAN_CACHE = new WeakHashMap<PofContext, Map<Class, Plan>>();
 
+    private final PlanCache planCache = new PlanCache();
     private int typeId;
 
     public PortableTypeSerializer(int typeId, Class<?> clz) {
         if (!clz.isAnnotationPresent(PortableType.class)) {
             LOG.error("Class [" + clz + "] does not have @PortableType annotation");
         }
+        else {
+            PofUtil.precompute(clz);
+        }
         this.typeId = typeId;
     }
 
     @Override
     public void serialize(PofWriter out, Object o)
             throws IOException {
+        PofContext ctx = out.getPofContext();
+        serialize(out, o, ctx, planCache.getPlan(ctx, o.getClass()));
+    }
 
-        if (getPortableTypeAnnotation(o.getClass()) == null) {
-            throw new IOException("Class [" + o.getClass() + "] does not have @PortableType annotation");
+    @Override
+    public Object deserialize(PofReader in)
+            throws IOException {
+        PofContext ctx = in.getPofContext();
+        Plan plan;
+        Object o;
+        try {
+            plan = planCache.getPlan(ctx, getClassForTypeId(ctx, typeId));
+            o = plan.serializer.newInstance();
+        }
+        catch (Exception ex) {
+            throw new IOException("An exception occurred during deserialization", ex);
         }
+        return deserialize(in, o, ctx, plan);
+    }
+
+    static void serialize(PofWriter out, Object o, PofContext ctx, Plan plan)
+            throws IOException {
 
-        boolean fEvolvable = o instanceof EvolvableObject;
-        EvolvableObject e = fEvolvable ? (EvolvableObject) o : null;
+        if (plan.typeIds.length == 0) {
+            throw new IOException("Class [" + o.getClass() + "] does not have @PortableType annotation");
+        }
 
         try {
             LOG.trace("Serializing " + o.getClass());
 
-            PofContext ctx = out.getPofContext();
-            Set<Integer> typeIds;
-            if (fEvolvable) {
-                refreshVersions(e, ctx);
+            if (plan.evolvable) {
+                EvolvableObject e = (EvolvableObject) o;
+                refreshVersions(e, plan);
                 out.writeMap(0, e.getVersions(), Integer.class, Integer.class);
-                typeIds = e.getVersions().keySet();
-            }
-            else {
-                typeIds = getTypeIds(o, ctx);
-            }
 
-            for (int typeId : typeIds) {
-                PofWriter writer = out.createNestedPofWriter(typeId);
+                for (int typeId : e.getVersions().keySet()) {
+                    PofWriter writer = out.createNestedPofWriter(typeId);
 
-                Class cls = getClassForTypeId(ctx, typeId);
-                if (cls != null) {
-                    writer.setVersionId(fEvolvable ? e.getDataVersion(typeId) : getPortableTypeAnnotation(cls).version());
+                    GeneratedPofSerializer serializer = plan.getSerializer(ctx, typeId);
+                    if (serializer != null) {
+                        writer.setVersionId(e.getDataVersion(typeId));
+                        serializer.writeExternal(o, writer);
+                    }
 
-                    Method writeExternal = getWriteExternal(cls);
-                    writeExternal.invoke(o, writer);
+                    writer.writeRemainder(e.getFutureData(typeId));
                 }
+            }
+            else {
+                int[] typeIds = plan.typeIds;
+                for (int i = 0; i < typeIds.length; i++) {
+                    PofWriter writer = out.createNestedPofWriter(typeIds[i]);
 
-                writer.writeRemainder(fEvolvable ? e.getFutureData(typeId) : null);
+                    GeneratedPofSerializer serializer = plan.serializers[i];
+                    if (serializer != null) {
+                        writer.setVersionId(plan.versions[i]);
+                        serializer.writeExternal(o, writer);
+                    }
+
+                    writer.writeRemainder(null);
+                }
             }
 
             out.writeRemainder(null);
@@ -104,42 +150,27 @@ public class PortableTypeSerializer
         }
     }
 
-    @Override
-    public Object deserialize(PofReader in)
+    static Object deserialize(PofReader in, Object o, PofContext ctx, Plan plan)
             throws IOException {
 
         try {
-            PofContext ctx = in.getPofContext();
-            Object o = createInstance(getClassForTypeId(in.getPofContext(), typeId));
             LOG.trace("Deserializing " + o.getClass());
 
-            boolean fEvolvable = o instanceof EvolvableObject;
-            EvolvableObject e = fEvolvable ? (EvolvableObject) o : null;
-            Set<Integer> typeIds;
-            if (fEvolvable) {
+            if (plan.evolvable) {
+                EvolvableObject e = (EvolvableObject) o;
                 in.readMap(0, e.getVersions());
-                typeIds = e.getVersions().keySet();
-            }
-            else {
-                typeIds = getTypeIds(o, ctx);
-            }
 
-            for (int typeId : typeIds) {
-                PofReader reader = in.createNestedPofReader(typeId);
-                int versionId = reader.getVersionId();
-                if (fEvolvable) {
-                    e.setDataVersion(typeId, versionId);
+                for (int typeId : e.getVersions().keySet()) {
+                    PofReader reader = in.createNestedPofReader(typeId);
+                    e.setDataVersion(typeId, reader.getVersionId());
+                    e.setFutureData(typeId, read(reader, o, plan.getSerializer(ctx, typeId), ctx, typeId));
                 }
-
-                Class cls = getClassForTypeId(ctx, typeId);
-                if (cls != null) {
-                    Method readExternal = getReadExternal(cls);
-                    readExternal.invoke(o, reader);
-                }
-
-                Binary remainder = reader.readRemainder();
-                if (fEvolvable) {
-                    e.setFutureData(typeId, remainder);
+            }
+            else {
+                int[] typeIds = plan.typeIds;
+                for (int i = 0; i < typeIds.length; i++) {
+                    PofReader reader = in.createNestedPofReader(typeIds[i]);
+                    read(reader, o, plan.serializers[i], ctx, typeIds[i]);
                 }
             }
 
@@ -151,27 +182,104 @@ public class PortableTypeSerializer
         }
     }
 
-    private Method getWriteExternal(Class cls) throws NoSuchMethodException {
-        Method method = WRITE_EXTERNAL_CACHE.get(cls);
-        if (method == null) {
-            method = cls.getDeclaredMethod("writeExternal", PofWriter.class);
-            method.setAccessible(true);
-            WRITE_EXTERNAL_CACHE.put(cls, method);
+    /**
+     * Read the attributes declared by a single class in the hierarchy of the
+     * deserialized object from the nested reader for that class.
+     * <p/>
+     * If the class is lazy, the attributes are not read, but associated with
+     * the object instead, so they can be read when first accessed.
+     *
+     * @param reader      the nested reader for the class
+     * @param o           the object being deserialized
+     * @param serializer  the serializer for the class, or <tt>null</tt> if
+     *                    the class is not known to the POF context
+     * @param ctx         the POF context
+     * @param typeId      the type identifier of the class
+     *
+     * @return the properties that were not read from the nested reader
+     *
+     * @throws IOException  if an error occurs during deserialization
+     */
+    private static Binary read(PofReader reader, Object o, GeneratedPofSerializer serializer, PofContext ctx, int typeId)
+            throws IOException {
+        if (serializer != null) {
+            if (serializer.isLazy()) {
+                int versionId = reader.getVersionId();
+                serializer.readLazy(o, new LazyPofData(reader.readRemainder(), ctx, typeId, versionId));
+                return null;
+            }
+            serializer.readExternal(o, reader);
+        }
+        return reader.readRemainder();
+    }
+
+    /**
+     * Return the serialization plan for the specified class within the
+     * specified POF context.
+     * <p/>
+     * Plans are cached for as long as the POF context they were created for
+     * is reachable.
+     *
+     * @param ctx  the POF context
+     * @param cls  the class to return the plan for
+     *
+     * @return the serialization plan for the specified class
+     */
+    static Plan getPlan(PofContext ctx, Class cls) {
+        Map<Class, Plan> plans;
+        synchronized (PLAN_CACHE) {
+            plans = PLAN_CACHE.get(ctx);
+            if (plans == null) {
+                plans = new ConcurrentHashMap<Class, Plan>();
+                PLAN_CACHE.put(ctx, plans);
+            }
+        }
+
+        Plan plan = plans.get(cls);
+        if (plan == null) {
+            plan = new Plan(ctx, cls);
+            plans.put(cls, plan);
+        }
+        return plan;
+    }
+
+    /**
+     * Return the serializer for the attributes declared by the specified
+     * class.
+     *
+     * @param cls  the portable type
+     *
+     * @return the generated serializer for the specified class, or a
+     *         reflection-based one if the class does not have it
+     */
+    static GeneratedPofSerializer getSerializer(Class cls) {
+        GeneratedPofSerializer serializer = SERIALIZER_CACHE.get(cls);
+        if (serializer == null) {
+            serializer = createSerializer(cls);
+            SERIALIZER_CACHE.put(cls, serializer);
         }
-        return method;
+        return serializer;
     }
 
-    private Method getReadExternal(Class cls) throws NoSuchMethodException {
-        Method method = READ_EXTERNAL_CACHE.get(cls);
-        if (method == null) {
-            method = cls.getDeclaredMethod("readExternal", PofReader.class);
-            method.setAccessible(true);
-            READ_EXTERNAL_CACHE.put(cls, method);
+    private static GeneratedPofSerializer createSerializer(Class cls) {
+        String name = cls.getName() + GeneratedPofSerializer.CLASS_NAME_SUFFIX;
+        try {
+            Class serializerClass = Class.forName(name, true, cls.getClassLoader());
+            if (GeneratedPofSerializer.class.isAssignableFrom(serializerClass)) {
+                return (GeneratedPofSerializer) serializerClass.newInstance();
+            }
+            LOG.warn("Class [" + name + "] is not a generated POF serializer");
         }
-        return method;
+        catch (ClassNotFoundException e) {
+            LOG.debug("Class [" + cls + "] does not have a generated POF serializer, using reflection");
+        }
+        catch (Exception e) {
+            LOG.warn("Cannot create generated POF serializer for class [" + cls + "], using reflection", e);
+        }
+        return new ReflectionSerializer(cls);
     }
 
-    private PortableType getPortableTypeAnnotation(Class cls) {
+    private static PortableType getPortableTypeAnnotation(Class cls) {
         if (cls.equals(Object.class) || cls.equals(AbstractEvolvableObject.class)) {
             return null;
         }
@@ -186,7 +294,7 @@ public class PortableTypeSerializer
         return pt;
     }
 
-    private Class getClassForTypeId(PofContext ctx, int typeId) {
+    private static Class getClassForTypeId(PofContext ctx, int typeId) {
         try {
             return ctx.getClass(typeId);
         }
@@ -195,36 +303,184 @@ public class PortableTypeSerializer
         }
     }
 
-    private Set<Integer> getTypeIds(Object o, PofContext pofContext) {
-        Set<Integer> typeIds = new TreeSet<Integer>();
+    private static void refreshVersions(EvolvableObject e, Plan plan) {
+        int[] typeIds = plan.typeIds;
+        for (int i = 0; i < typeIds.length; i++) {
+            int typeId = typeIds[i];
+            e.setDataVersion(typeId, Math.max(plan.versions[i], e.getDataVersion(typeId)));
+        }
+    }
 
-        Class clazz = o.getClass();
-        while (getPortableTypeAnnotation(clazz) != null) {
-            typeIds.add(pofContext.getUserTypeIdentifier(clazz));
-            clazz = clazz.getSuperclass();
+    // ---- inner class: Plan -----------------------------------------------
+
+    /**
+     * Immutable serialization plan for a portable type within a POF context.
+     * <p/>
+     * The plan contains the type identifiers of all portable classes in the
+     * hierarchy of the type in ascending order, which is the order in which
+     * they are written into the POF stream, along with their versions and
+     * serializers.
+     */
+    static final class Plan {
+        final Class cls;
+        final boolean evolvable;
+        final GeneratedPofSerializer serializer;
+        final int[] typeIds;
+        final int[] versions;
+        final GeneratedPofSerializer[] serializers;
+
+        Plan(PofContext ctx, Class cls) {
+            this.cls = cls;
+            this.evolvable = EvolvableObject.class.isAssignableFrom(cls);
+            this.serializer = PortableTypeSerializer.getSerializer(cls);
+
+            SortedMap<Integer, PortableType> types = new TreeMap<Integer, PortableType>();
+            PortableType portableType;
+            for (Class c = cls; (portableType = getPortableTypeAnnotation(c)) != null; c = c.getSuperclass()) {
+                types.put(ctx.getUserTypeIdentifier(c), portableType);
+            }
+
+            int count = types.size();
+            typeIds = new int[count];
+            versions = new int[count];
+            serializers = new GeneratedPofSerializer[count];
+
+            int i = 0;
+            for (Map.Entry<Integer, PortableType> entry : types.entrySet()) {
+                Class typeClass = getClassForTypeId(ctx, entry.getKey());
+                typeIds[i] = entry.getKey();
+                versions[i] = entry.getValue().version();
+                serializers[i] = typeClass == null ? null : PortableTypeSerializer.getSerializer(typeClass);
+                i++;
+            }
         }
 
-        return typeIds;
+        /**
+         * Return the serializer for the specified type identifier.
+         * <p/>
+         * Evolvable objects may contain data for the types that are not part
+         * of the plan, in which case the serializer is looked up using the
+         * POF context.
+         *
+         * @param ctx     the POF context
+         * @param typeId  the type identifier
+         *
+         * @return the serializer for the specified type identifier, or
+         *         <tt>null</tt> if the type is not known to the POF context
+         */
+        GeneratedPofSerializer getSerializer(PofContext ctx, int typeId) {
+            int i = Arrays.binarySearch(typeIds, typeId);
+            if (i >= 0) {
+                return serializers[i];
+            }
+            Class cls = getClassForTypeId(ctx, typeId);
+            return cls == null ? null : PortableTypeSerializer.getSerializer(cls);
+        }
     }
 
-    private void refreshVersions(EvolvableObject e, PofContext pofContext) {
-        Class clazz = e.getClass();
-        PortableType portableType;
-        while ((portableType = getPortableTypeAnnotation(clazz)) != null) {
-            int typeId  = pofContext.getUserTypeIdentifier(clazz);
-            int version = Math.max(portableType.version(), e.getDataVersion(typeId));
+    // ---- inner class: PlanCache ------------------------------------------
+
+    /**
+     * Remembers the last serialization plan used by a serializer, which
+     * allows serializers that are registered for a single type within a
+     * single POF context to avoid the lookup in the shared plan cache.
+     */
+    static final class PlanCache {
+        private volatile Entry last;
+
+        Plan getPlan(PofContext ctx, Class cls) {
+            Entry entry = last;
+            if (entry == null || entry.ctx != ctx || entry.plan.cls != cls) {
+                entry = new Entry(ctx, PortableTypeSerializer.getPlan(ctx, cls));
+                last = entry;
+            }
+            return entry.plan;
+        }
+
+        private static final class Entry {
+            final PofContext ctx;
+            final Plan plan;
 
-            e.setDataVersion(typeId, version);
-            clazz = clazz.getSuperclass();
+            Entry(PofContext ctx, Plan plan) {
+                this.ctx = ctx;
+                this.plan = plan;
+            }
         }
     }
 
-    private <T> T createInstance(Class<T> clazz) {
-        try {
-            return clazz.newInstance();
+    // ---- inner class: ReflectionSerializer -------------------------------
+
+    /**
+     * Serializer that invokes <tt>readExternal</tt> and
+     * <tt>writeExternal</tt> methods of a class that does not have a
+     * generated serializer using reflection.
+     */
+    private static class ReflectionSerializer
+            extends GeneratedPofSerializer {
+        private final Class cls;
+        private final Method readExternal;
+        private final Method writeExternal;
+
+        ReflectionSerializer(Class cls) {
+            this.cls = cls;
+            this.readExternal = findMethod(cls, "readExternal", PofReader.class);
+            this.writeExternal = findMethod(cls, "writeExternal", PofWriter.class);
         }
-        catch (Exception e) {
-            throw new IllegalStateException("Cannot create object", e);
+
+        @Override
+        protected Object newInstance() {
+            try {
+                return cls.newInstance();
+            }
+            catch (Exception e) {
+                throw new IllegalStateException("Cannot create object", e);
+            }
+        }
+
+        @Override
+        protected void readExternal(Object o, PofReader in) throws IOException {
+            invoke(readExternal, o, in);
+        }
+
+        @Override
+        protected void writeExternal(Object o, PofWriter out) throws IOException {
+            invoke(writeExternal, o, out);
+        }
+
+        private static Method findMethod(Class cls, String name, Class argType) {
+            try {
+                Method method = cls.getDeclaredMethod(name, argType);
+                method.setAccessible(true);
+                return method;
+            }
+            catch (NoSuchMethodException e) {
+                return null;
+            }
+        }
+
+        private void invoke(Method method, Object o, Object arg) throws IOException {
+            if (method == null) {
+                throw new IOException("Class [" + cls + "] is not instrumented");
+            }
+            try {
+                method.invoke(o, arg);
+            }
+            catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new IOException(cause);
+            }
+            catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
         }
     }
 }
@@ -46,6 +46,9 @@ public @interface PortableArray {
     /**
      * Element class.
      *
+     * If a primitive class such as <tt>long.class</tt> is specified, the array of wrapper objects will be
+     * serialized as a uniform primitive array, without the type information for each element.
+     *
      * @return element class
      */
     Class elementClass() default Object.class;
@@ -50,6 +50,9 @@ public @interface PortableSet {
     /**
      * Element class.
      *
+     * If a primitive class such as <tt>long.class</tt> is specified, the set will be serialized as a
+     * uniform primitive array, without the type information for each element.
+     *
      * @return element class
      */
     Class elementClass() default Object.class;
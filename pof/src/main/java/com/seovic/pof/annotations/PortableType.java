@@ -50,4 +50,23 @@ public @interface PortableType {
      * @return serializer class
      */
     Class<? extends PofSerializer> serializer() default PortableTypeSerializer.class;
+
+    /**
+     * Whether the attributes of this type should be deserialized lazily.
+     * <p/>
+     * Lazily deserialized objects retain the serialized form of their
+     * attributes and read each attribute only when it is first accessed,
+     * which reduces the cost of deserializing wide objects that are only
+     * partially read, such as within entry processors and filters. The
+     * first modification of any attribute deserializes all of them.
+     * <p/>
+     * Attributes are read lazily when accessed from the methods of the
+     * declaring class, so all attributes of a lazily deserialized type must
+     * be private. The attributes are read while holding the monitor of the
+     * object, which allows lazily deserialized objects to be shared by
+     * multiple threads.
+     *
+     * @return <tt>true</tt> if the attributes should be deserialized lazily
+     */
+    boolean lazy() default false;
 }
@@ -0,0 +1,374 @@
+/*
+ * Copyright 2009 Aleksandar Seovic
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.seovic.pof.util;
+
+
+import java.util.Collection;
+
+
+/**
+ * Conversions between primitive arrays and the collections and arrays of
+ * the corresponding wrapper types.
+ * <p/>
+ * The code generated by the {@link com.seovic.pof.PortableTypeGenerator} uses
+ * these methods to serialize collections and wrapper arrays with a primitive
+ * element class as uniform primitive arrays, which avoids writing type
+ * information for each element.
+ * <p/>
+ * All methods return <tt>null</tt> if their argument is <tt>null</tt>, and
+ * throw a <tt>NullPointerException</tt> if a source contains
+ * <tt>null</tt> elements.
+ *
+ * @author Aleksandar Seovic  2012.06.24
+ */
+public class PrimitiveArrays {
+    // ---- boolean ----
+
+    public static boolean[] toBooleanArray(Collection<Boolean> col) {
+        if (col == null) return null;
+
+        boolean[] a = new boolean[col.size()];
+        int i = 0;
+        for (Boolean value : col) {
+            a[i++] = value;
+        }
+        return a;
+    }
+
+    public static boolean[] toBooleanArray(Boolean[] values) {
+        if (values == null) return null;
+
+        boolean[] a = new boolean[values.length];
+        for (int i = 0; i < a.length; i++) {
+            a[i] = values[i];
+        }
+        return a;
+    }
+
+    public static Collection<Boolean> fill(boolean[] a, Collection<Boolean> col) {
+        if (a == null) return null;
+
+        for (boolean value : a) {
+            col.add(value);
+        }
+        return col;
+    }
+
+    public static Boolean[] box(boolean[] a) {
+        if (a == null) return null;
+
+        Boolean[] values = new Boolean[a.length];
+        for (int i = 0; i < a.length; i++) {
+            values[i] = a[i];
+        }
+        return values;
+    }
+
+    // ---- byte ----
+
+    public static byte[] toByteArray(Collection<Byte> col) {
+        if (col == null) return null;
+
+        byte[] a = new byte[col.size()];
+        int i = 0;
+        for (Byte value : col) {
+            a[i++] = value;
+        }
+        return a;
+    }
+
+    public static byte[] toByteArray(Byte[] values) {
+        if (values == null) return null;
+
+        byte[] a = new byte[values.length];
+        for (int i = 0; i < a.length; i++) {
+            a[i] = values[i];
+        }
+        return a;
+    }
+
+    public static Collection<Byte> fill(byte[] a, Collection<Byte> col) {
+        if (a == null) return null;
+
+        for (byte value : a) {
+            col.add(value);
+        }
+        return col;
+    }
+
+    public static Byte[] box(byte[] a) {
+        if (a == null) return null;
+
+        Byte[] values = new Byte[a.length];
+        for (int i = 0; i < a.length; i++) {
+            values[i] = a[i];
+        }
+        return values;
+    }
+
+    // ---- char ----
+
+    public static char[] toCharArray(Collection<Character> col) {
+        if (col == null) return null;
+
+        char[] a = new char[col.size()];
+        int i = 0;
+        for (Character value : col) {
+            a[i++] = value;
+        }
+        return a;
+    }
+
+    public static char[] toCharArray(Character[] values) {
+        if (values == null) return null;
+
+        char[] a = new char[values.length];
+        for (int i = 0; i < a.length; i++) {
+            a[i] = values[i];
+        }
+        return a;
+    }
+
+    public static Collection<Character> fill(char[] a, Collection<Character> col) {
+        if (a == null) return null;
+
+        for (char value : a) {
+            col.add(value);
+        }
+        return col;
+    }
+
+    public static Character[] box(char[] a) {
+        if (a == null) return null;
+
+        Character[] values = new Character[a.length];
+        for (int i = 0; i < a.length; i++) {
+            values[i] = a[i];
+        }
+        return values;
+    }
+
+    // ---- short ----
+
+    public static short[] toShortArray(Collection<Short> col) {
+        if (col == null) return null;
+
+        short[] a = new short[col.size()];
+        int i = 0;
+        for (Short value : col) {
+            a[i++] = value;
+        }
+        return a;
+    }
+
+    public static short[] toShortArray(Short[] values) {
+        if (values == null) return null;
+
+        short[] a = new short[values.length];
+        for (int i = 0; i < a.length; i++) {
+            a[i] = values[i];
+        }
+        return a;
+    }
+
+    public static Collection<Short> fill(short[] a, Collection<Short> col) {
+        if (a == null) return null;
+
+        for (short value : a) {
+            col.add(value);
+        }
+        return col;
+    }
+
+    public static Short[] box(short[] a) {
+        if (a == null) return null;
+
+        Short[] values = new Short[a.length];
+        for (int i = 0; i < a.length; i++) {
+            values[i] = a[i];
+        }
+        return values;
+    }
+
+    // ---- int ----
+
+    public static int[] toIntArray(Collection<Integer> col) {
+        if (col == null) return null;
+
+        int[] a = new int[col.size()];
+        int i = 0;
+        for (Integer value : col) {
+            a[i++] = value;
+        }
+        return a;
+    }
+
+    public static int[] toIntArray(Integer[] values) {
+        if (values == null) return null;
+
+        int[] a = new int[values.length];
+        for (int i = 0; i < a.length; i++) {
+            a[i] = values[i];
+        }
+        return a;
+    }
+
+    public static Collection<Integer> fill(int[] a, Collection<Integer> col) {
+        if (a == null) return null;
+
+        for (int value : a) {
+            col.add(value);
+        }
+        return col;
+    }
+
+    public static Integer[] box(int[] a) {
+        if (a == null) return null;
+
+        Integer[] values = new Integer[a.length];
+        for (int i = 0; i < a.length; i++) {
+            values[i] = a[i];
+        }
+        return values;
+    }
+
+    // ---- long ----
+
+    public static long[] toLongArray(Collection<Long> col) {
+        if (col == null) return null;
+
+        long[] a = new long[col.size()];
+        int i = 0;
+        for (Long value : col) {
+            a[i++] = value;
+        }
+        return a;
+    }
+
+    public static long[] toLongArray(Long[] values) {
+        if (values == null) return null;
+
+        long[] a = new long[values.length];
+        for (int i = 0; i < a.length; i++) {
+            a[i] = values[i];
+        }
+        return a;
+    }
+
+    public static Collection<Long> fill(long[] a, Collection<Long> col) {
+        if (a == null) return null;
+
+        for (long value : a) {
+            col.add(value);
+        }
+        return col;
+    }
+
+    public static Long[] box(long[] a) {
+        if (a == null) return null;
+
+        Long[] values = new Long[a.length];
+        for (int i = 0; i < a.length; i++) {
+            values[i] = a[i];
+        }
+        return values;
+    }
+
+    // ---- float ----
+
+    public static float[] toFloatArray(Collection<Float> col) {
+        if (col == null) return null;
+
+        float[] a = new float[col.size()];
+        int i = 0;
+        for (Float value : col) {
+            a[i++] = value;
+        }
+        return a;
+    }
+
+    public static float[] toFloatArray(Float[] values) {
+        if (values == null) return null;
+
+        float[] a = new float[values.length];
+        for (int i = 0; i < a.length; i++) {
+            a[i] = values[i];
+        }
+        return a;
+    }
+
+    public static Collection<Float> fill(float[] a, Collection<Float> col) {
+        if (a == null) return null;
+
+        for (float value : a) {
+            col.add(value);
+        }
+        return col;
+    }
+
+    public static Float[] box(float[] a) {
+        if (a == null) return null;
+
+        Float[] values = new Float[a.length];
+        for (int i = 0; i < a.length; i++) {
+            values[i] = a[i];
+        }
+        return values;
+    }
+
+    // ---- double ----
+
+    public static double[] toDoubleArray(Collection<Double> col) {
+        if (col == null) return null;
+
+        double[] a = new double[col.size()];
+        int i = 0;
+        for (Double value : col) {
+            a[i++] = value;
+        }
+        return a;
+    }
+
+    public static double[] toDoubleArray(Double[] values) {
+        if (values == null) return null;
+
+        double[] a = new double[values.length];
+        for (int i = 0; i < a.length; i++) {
+            a[i] = values[i];
+        }
+        return a;
+    }
+
+    public static Collection<Double> fill(double[] a, Collection<Double> col) {
+        if (a == null) return null;
+
+        for (double value : a) {
+            col.add(value);
+        }
+        return col;
+    }
+
+    public static Double[] box(double[] a) {
+        if (a == null) return null;
+
+        Double[] values = new Double[a.length];
+        for (int i = 0; i < a.length; i++) {
+            values[i] = a[i];
+        }
+        return values;
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2009 Aleksandar Seovic
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.seovic.pof;
+
+
+import com.tangosol.io.pof.EnumPofSerializer;
+import com.tangosol.io.pof.PofContext;
+import com.tangosol.io.pof.PofSerializer;
+import com.tangosol.io.pof.SimplePofContext;
+import com.tangosol.util.Binary;
+import com.tangosol.util.ExternalizableHelper;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+import test.Color;
+
+import static org.junit.Assert.*;
+
+
+public class HierarchicalPofContextTest {
+    private SimplePofContext root;
+    private MapPofContext ctx;
+
+    @Before
+    public void setup() {
+        root = new SimplePofContext();
+        root.registerUserType(5, Color.class, new EnumPofSerializer());
+
+        ctx = new MapPofContext(root);
+        ctx.registerUserType(1, test.v1.Pet.class, new PortableTypeSerializer(1, test.v1.Pet.class));
+        ctx.registerUserType(2, test.v1.Dog.class, new PortableTypeSerializer(2, test.v1.Dog.class));
+    }
+
+    @Test
+    public void testCachedLookups() {
+        assertEquals(2, ctx.getUserTypeIdentifier(test.v1.Dog.class));
+        assertEquals(2, ctx.getUserTypeIdentifier(test.v1.Dog.class));
+        assertTrue(ctx.isUserType(test.v1.Dog.class));
+        assertEquals(1, ctx.lookups);
+
+        assertEquals(5, ctx.getUserTypeIdentifier(Color.class));
+        assertTrue(ctx.isUserType(Color.class));
+        assertEquals(2, ctx.lookups);
+
+        assertSame(Color.class, ctx.getClass(5));
+        assertSame(Color.class, ctx.getClass(5));
+        assertSame(ctx.getPofSerializer(2), ctx.getPofSerializer(2));
+        assertEquals(4, ctx.lookups);
+    }
+
+    @Test
+    public void testUnknownTypes() {
+        assertFalse(ctx.isUserType(String.class));
+        assertFalse(ctx.isUserType(String.class));
+        assertEquals(1, ctx.lookups);
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                ctx.getClass(42);
+                fail("should've thrown IllegalArgumentException");
+            }
+            catch (IllegalArgumentException e) {
+                assertEquals("Unknown user type: 42", e.getMessage());
+            }
+        }
+        assertEquals(2, ctx.lookups);
+    }
+
+    @Test
+    public void testInvalidation() {
+        MapPofContext child = new MapPofContext(ctx);
+        assertFalse(child.isUserType(test.v2.Animal.class));
+
+        ctx.registerUserType(3, test.v2.Animal.class, new PortableTypeSerializer(3, test.v2.Animal.class));
+        assertEquals(3, child.getUserTypeIdentifier(test.v2.Animal.class));
+
+        ctx.setParent(new SimplePofContext());
+        assertFalse(child.isUserType(Color.class));
+    }
+
+    @Test
+    public void testReparenting() {
+        MapPofContext child = new MapPofContext(ctx);
+        assertEquals(2, child.getUserTypeIdentifier(test.v1.Dog.class));
+
+        // the new parent has seen fewer registrations than the old one, so
+        // the number of invalidations along the chain can stay the same
+        MapPofContext other = new MapPofContext(new SimplePofContext());
+        other.registerUserType(3, test.v2.Animal.class, new PortableTypeSerializer(3, test.v2.Animal.class));
+        child.setParent(other);
+
+        assertFalse(child.isUserType(test.v1.Dog.class));
+        assertEquals(3, child.getUserTypeIdentifier(test.v2.Animal.class));
+    }
+
+    @Test
+    public void testRoundTrip() {
+        test.v1.Dog dog = new test.v1.Dog("Nadia", "Boxer");
+        MapPofContext child = new MapPofContext(ctx);
+        Binary bin = ExternalizableHelper.toBinary(dog, child);
+        assertEquals(dog, ExternalizableHelper.fromBinary(bin, child));
+    }
+
+    // ---- inner class: MapPofContext ------------------------------------------
+
+    /**
+     * Context that keeps its types in maps and counts the lookups that were
+     * not answered from the cache.
+     */
+    private static class MapPofContext extends HierarchicalPofContext {
+        private final Map<Integer, Class> classes = new HashMap<Integer, Class>();
+        private final Map<Class, Integer> typeIds = new HashMap<Class, Integer>();
+        private final Map<Integer, PofSerializer> serializers = new HashMap<Integer, PofSerializer>();
+        private int lookups;
+
+        MapPofContext(PofContext parent) {
+            super(parent);
+        }
+
+        void registerUserType(int typeId, Class aClass, PofSerializer serializer) {
+            classes.put(typeId, aClass);
+            typeIds.put(aClass, typeId);
+            serializers.put(typeId, serializer);
+            invalidateCache();
+        }
+
+        @Override
+        protected PofSerializer getPofSerializerInternal(int typeId) {
+            lookups++;
+            return serializers.get(typeId);
+        }
+
+        @Override
+        protected int getUserTypeIdentifierInternal(Class aClass) {
+            lookups++;
+            Integer typeId = typeIds.get(aClass);
+            return typeId == null ? -1 : typeId;
+        }
+
+        @Override
+        protected int getUserTypeIdentifierInternal(String className) {
+            for (Map.Entry<Class, Integer> entry : typeIds.entrySet()) {
+                if (entry.getKey().getName().equals(className)) {
+                    return entry.getValue();
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        protected String getClassNameInternal(int typeId) {
+            Class aClass = classes.get(typeId);
+            return aClass == null ? null : aClass.getName();
+        }
+
+        @Override
+        protected Class getClassInternal(int typeId) {
+            lookups++;
+            return classes.get(typeId);
+        }
+
+        @Override
+        protected boolean isUserTypeInternal(Class aClass) {
+            return typeIds.containsKey(aClass);
+        }
+
+        @Override
+        protected boolean isUserTypeInternal(String className) {
+            return getUserTypeIdentifierInternal(className) != -1;
+        }
+    }
+}
@@ -87,4 +87,25 @@ public class PofUtilTest {
         assertEquals("OR", getState.invoke(getAddress.invoke(zoo2)));
     }
 
+    @Test
+    public void testCachedPaths() throws Exception {
+        Class dogClass = loader.loadClass("test.v3.Dog");
+        Class zooClass = loader.loadClass("test.v3.Zoo");
+
+        // top-level fields are resolved when the serializer is created
+        assertTrue(PofUtil.isResolved(dogClass, "name"));
+        assertTrue(PofUtil.isResolved(dogClass, "age"));
+        assertSame(PofUtil.getPofNavigator(dogClass, "name"), PofUtil.getPofNavigator(dogClass, "name"));
+        assertSame(PofUtil.getPofExtractor(dogClass, "age"), PofUtil.getPofExtractor(dogClass, "age"));
+        assertSame(PofUtil.getPofUpdater(dogClass, "age"), PofUtil.getPofUpdater(dogClass, "age"));
+
+        // nested paths are resolved on first use
+        assertFalse(PofUtil.isResolved(zooClass, "address.city"));
+        assertSame(PofUtil.getPofExtractor(zooClass, "address.city"), PofUtil.getPofExtractor(zooClass, "address.city"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingField() throws Exception {
+        PofUtil.getPofExtractor(loader.loadClass("test.v3.Dog"), "owner");
+    }
 }
@@ -24,10 +24,20 @@ import com.tangosol.io.pof.reflect.PofValueParser;
 import com.tangosol.util.Binary;
 import com.tangosol.util.BinaryEntry;
 import com.tangosol.util.ExternalizableHelper;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.lang.reflect.Constructor;
+import java.util.Arrays;
 import java.util.Date;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import test.Color;
 import test.DateTypes;
 
@@ -38,6 +48,9 @@ import static org.junit.Assert.*;
  * @author Aleksandar Seovic  2012.05.27
  */
 public class PortableTypeGeneratorTest {
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
     private SimplePofContext ctx;
     private ClassLoader loader = new PortableTypeLoader();
     private Constructor allTypesCtor;
@@ -98,6 +111,67 @@ public class PortableTypeGeneratorTest {
         assertEquals(Color.BRINDLE, dog.getPofExtractor("color").extractFromEntry(binEntry));
     }
 
+    @Test
+    public void testIncrementalInstrumentation() throws Exception {
+        File classDir = tempFolder.newFolder("classes");
+        File dogClass = copyClass("test.v3.Dog", classDir);
+        copyClass("test.v3.Pet", classDir);
+        copyClass("test.v3.Animal", classDir);
+
+        PortableTypeGenerator.instrumentClasses(classDir, true, true);
+        File pofConfig = new File(dogClass.getParentFile(), "pof-config.xml");
+        assertTrue(pofConfig.exists());
+        assertTrue(new File(dogClass.getParentFile(), "Dog" + GeneratedPofSerializer.CLASS_NAME_SUFFIX + ".class").exists());
+
+        // unchanged classes are skipped and POF config is not rewritten
+        writeFile(pofConfig, "unchanged".getBytes());
+        byte[] instrumented = readFile(dogClass);
+        PortableTypeGenerator.instrumentClasses(classDir, true, true);
+        assertEquals("unchanged", new String(readFile(pofConfig)));
+        assertTrue(Arrays.equals(instrumented, readFile(dogClass)));
+
+        // recompiled classes are instrumented again, but the type set is the same
+        copyClass("test.v3.Dog", classDir);
+        PortableTypeGenerator.instrumentClasses(classDir, true, true);
+        assertEquals("unchanged", new String(readFile(pofConfig)));
+        assertTrue(Arrays.equals(instrumented, readFile(dogClass)));
+
+        // removed classes change the type set
+        assertTrue(dogClass.delete());
+        PortableTypeGenerator.instrumentClasses(classDir, true, true);
+        assertFalse("unchanged".equals(new String(readFile(pofConfig))));
+    }
+
+    private static File copyClass(String className, File classDir) throws IOException {
+        String path = className.replace('.', '/') + ".class";
+        InputStream in = PortableTypeGeneratorTest.class.getClassLoader().getResourceAsStream(path);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buf = new byte[4096];
+        for (int n = in.read(buf); n > 0; n = in.read(buf)) {
+            bytes.write(buf, 0, n);
+        }
+        in.close();
+
+        File file = new File(classDir, path);
+        file.getParentFile().mkdirs();
+        writeFile(file, bytes.toByteArray());
+        return file;
+    }
+
+    private static byte[] readFile(File file) throws IOException {
+        byte[] bytes = new byte[(int) file.length()];
+        DataInputStream in = new DataInputStream(new FileInputStream(file));
+        in.readFully(bytes);
+        in.close();
+        return bytes;
+    }
+
+    private static void writeFile(File file, byte[] bytes) throws IOException {
+        FileOutputStream out = new FileOutputStream(file);
+        out.write(bytes);
+        out.close();
+    }
+
     private static void assertDateEquals(Date expected, Date actual) {
         assertEquals(expected.getYear(), actual.getYear());
         assertEquals(expected.getMonth(), actual.getMonth());
@@ -17,10 +17,19 @@
 package com.seovic.pof;
 
 
+import com.seovic.pof.annotations.PortableType;
+import java.io.ByteArrayInputStream;
 import java.io.FileInputStream;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.AnnotationNode;
+import org.objectweb.asm.tree.ClassNode;
 import test.Color;
 import test.DateTypes;
 
@@ -31,19 +40,45 @@ import test.DateTypes;
 class PortableTypeLoader
         extends ClassLoader {
     private Map<String, Class> loadedClasses = new HashMap<String, Class>();
+    private Map<String, byte[]> generatedClasses = new HashMap<String, byte[]>();
+    private boolean lazy;
+
+    PortableTypeLoader() {
+        this(false);
+    }
+
+    /**
+     * @param lazy  whether the loaded types should be deserialized lazily,
+     *              regardless of their PortableType annotation
+     */
+    PortableTypeLoader(boolean lazy) {
+        this.lazy = lazy;
+    }
 
     @Override
     public Class<?> loadClass(String className) throws ClassNotFoundException {
         if (loadedClasses.containsKey(className)) {
             return loadedClasses.get(className);
         }
+        if (generatedClasses.containsKey(className)) {
+            byte[] clsBytes = generatedClasses.remove(className);
+            Class<?> clazz = defineClass(className, clsBytes, 0, clsBytes.length);
+            loadedClasses.put(className, clazz);
+
+            return clazz;
+        }
         try {
             if (className.startsWith("test.")
                     && !className.equals(Color.class.getName())
                     && !className.equals(DateTypes.class.getName())) {
                 InputStream in = new FileInputStream("target/test-classes/" + className.replace('.', '/') + ".class");
+                if (lazy) {
+                    in = makeLazy(in);
+                }
                 PortableTypeGenerator gen = new PortableTypeGenerator(in);
-                gen.instrumentClass();
+                if (gen.instrumentClass() != null) {
+                    generatedClasses.put(gen.getSerializerClassName(), gen.getSerializerClassBytes());
+                }
                 byte[] clsBytes = gen.getClassBytes();
                 Class<?> clazz = defineClass(className, clsBytes, 0, clsBytes.length);
                 loadedClasses.put(className, clazz);
@@ -57,4 +92,33 @@ class PortableTypeLoader
 
         return super.loadClass(className);
     }
+
+    @SuppressWarnings("unchecked")
+    private static InputStream makeLazy(InputStream in) throws Exception {
+        ClassNode cn = new ClassNode();
+        new ClassReader(in).accept(cn, 0);
+        in.close();
+
+        String desc = Type.getDescriptor(PortableType.class);
+        for (AnnotationNode an : (List<AnnotationNode>) cn.visibleAnnotations) {
+            if (an.desc.equals(desc)) {
+                List<Object> values = new ArrayList<Object>();
+                if (an.values != null) {
+                    for (int i = 0; i < an.values.size(); i += 2) {
+                        if (!"lazy".equals(an.values.get(i))) {
+                            values.add(an.values.get(i));
+                            values.add(an.values.get(i + 1));
+                        }
+                    }
+                }
+                values.add("lazy");
+                values.add(Boolean.TRUE);
+                an.values = values;
+            }
+        }
+
+        ClassWriter cw = new ClassWriter(0);
+        cn.accept(cw);
+        return new ByteArrayInputStream(cw.toByteArray());
+    }
 }
@@ -25,6 +25,15 @@ import com.tangosol.io.pof.SimplePofContext;
 import com.tangosol.util.Binary;
 import com.tangosol.util.ExternalizableHelper;
 import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.junit.Before;
 import org.junit.Test;
 import test.Color;
@@ -114,6 +123,175 @@ public class PortableTypeSerializerTest {
         assertEquals(dogV2, dog);
     }
 
+    @Test
+    public void testGeneratedSerializer() throws Exception {
+        Class v3Dog = v3loader.loadClass("test.v3.Dog");
+        GeneratedPofSerializer serializer = PortableTypeSerializer.getSerializer(v3Dog);
+        assertEquals(v3Dog.getName() + GeneratedPofSerializer.CLASS_NAME_SUFFIX, serializer.getClass().getName());
+
+        // classes that implement readExternal and writeExternal themselves
+        // are serialized using reflection
+        assertFalse(PortableTypeSerializer.getSerializer(test.v2.Dog.class).getClass().getName()
+                            .endsWith(GeneratedPofSerializer.CLASS_NAME_SUFFIX));
+
+        // generated serializer can also be registered directly
+        SimplePofContext ctx = new SimplePofContext();
+        ctx.registerUserType(1, v3loader.loadClass("test.v3.Pet"), new PortableTypeSerializer(1, v3loader.loadClass("test.v3.Pet")));
+        ctx.registerUserType(2, v3Dog, serializer);
+        ctx.registerUserType(3, v3loader.loadClass("test.v3.Animal"), new PortableTypeSerializer(3, v3loader.loadClass("test.v3.Animal")));
+        ctx.registerUserType(5, Color.class, new EnumPofSerializer());
+
+        Object dog = v3DogCtor.newInstance("Nadia", 10, "Boxer", Color.BRINDLE);
+        Binary binDog = ExternalizableHelper.toBinary(dog, ctx);
+        assertEquals(dog, ExternalizableHelper.fromBinary(binDog, ctx));
+        assertEquals(binDog, ExternalizableHelper.toBinary(dog, v3));
+    }
+
+    @Test
+    public void testSerializationPlan() throws Exception {
+        PortableTypeSerializer.Plan plan = PortableTypeSerializer.getPlan(v2, test.v2.Dog.class);
+        assertSame(plan, PortableTypeSerializer.getPlan(v2, test.v2.Dog.class));
+        assertTrue(plan.evolvable);
+        assertArrayEquals(new int[] {1, 2, 3}, plan.typeIds);
+        assertArrayEquals(new int[] {2, 2, 1}, plan.versions);
+        assertSame(PortableTypeSerializer.getSerializer(test.v2.Animal.class), plan.serializers[2]);
+
+        // plans are specific to the POF context
+        assertNotSame(plan, PortableTypeSerializer.getPlan(v1, test.v1.Dog.class));
+        assertArrayEquals(new int[] {1, 2}, PortableTypeSerializer.getPlan(v1, test.v1.Dog.class).typeIds);
+    }
+
+    @Test
+    public void testLazyDeserialization() throws Exception {
+        Class lazyType = v3loader.loadClass("test.LazyType");
+        v3.registerUserType(7, lazyType, new PortableTypeSerializer(7, lazyType));
+
+        Object expected = lazyType.getConstructor(String.class, Long.TYPE, Double.TYPE, String.class)
+                .newInstance("lazy", 42L, 1.5, "read on demand");
+        Binary bin = ExternalizableHelper.toBinary(expected, v3);
+        Object actual = ExternalizableHelper.fromBinary(bin, v3);
+
+        // attributes are not read until accessed
+        Field name = lazyType.getDeclaredField("name");
+        Field count = lazyType.getDeclaredField("count");
+        name.setAccessible(true);
+        count.setAccessible(true);
+        assertNull(name.get(actual));
+        assertEquals(42L, lazyType.getMethod("getCount").invoke(actual));
+        assertEquals(42L, count.get(actual));
+        assertNull(name.get(actual));
+
+        assertEquals(expected, actual);
+        assertEquals(bin, ExternalizableHelper.toBinary(actual, v3));
+
+        // modification deserializes all attributes
+        actual = ExternalizableHelper.fromBinary(bin, v3);
+        lazyType.getMethod("setName", String.class).invoke(actual, "modified");
+        assertEquals("read on demand", lazyType.getMethod("getDescription").invoke(actual));
+        Object modified = ExternalizableHelper.fromBinary(ExternalizableHelper.toBinary(actual, v3), v3);
+        assertEquals("modified", lazyType.getMethod("getName").invoke(modified));
+        assertEquals(1.5, lazyType.getMethod("getScore").invoke(modified));
+    }
+
+    @Test
+    public void testLazyDeserializationFailure() throws Exception {
+        Class holderType = v3loader.loadClass("test.LazyHolder");
+        v3.registerUserType(11, holderType, new PortableTypeSerializer(11, holderType));
+        Binary bin = ExternalizableHelper.toBinary(
+                holderType.getConstructor(Object.class).newInstance(Color.BRINDLE), v3);
+
+        // the value cannot be read until its type is known
+        SimplePofContext ctx = new SimplePofContext();
+        ctx.registerUserType(11, holderType, new PortableTypeSerializer(11, holderType));
+        Object actual = ExternalizableHelper.fromBinary(bin, ctx);
+        Method getValue = holderType.getMethod("getValue");
+        for (int i = 0; i < 2; i++) {
+            try {
+                getValue.invoke(actual);
+                fail("unknown user type should not be deserialized");
+            }
+            catch (InvocationTargetException expected) {
+            }
+        }
+
+        ctx.registerUserType(5, Color.class, new EnumPofSerializer());
+        assertEquals(Color.BRINDLE, getValue.invoke(actual));
+    }
+
+    @Test
+    public void testLazyDeserializationConcurrentReads() throws Exception {
+        final Class lazyType = v3loader.loadClass("test.LazyType");
+        v3.registerUserType(7, lazyType, new PortableTypeSerializer(7, lazyType));
+
+        final Object expected = lazyType.getConstructor(String.class, Long.TYPE, Double.TYPE, String.class)
+                .newInstance("lazy", 42L, 1.5, "read on demand");
+        Binary bin = ExternalizableHelper.toBinary(expected, v3);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (int i = 0; i < 100; i++) {
+                final Object actual = ExternalizableHelper.fromBinary(bin, v3);
+                List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+                for (int j = 0; j < 4; j++) {
+                    results.add(executor.submit(new Callable<Boolean>() {
+                        public Boolean call() throws Exception {
+                            return expected.equals(actual)
+                                   && "read on demand".equals(lazyType.getMethod("getDescription").invoke(actual));
+                        }
+                    }));
+                }
+                for (Future<Boolean> result : results) {
+                    assertTrue(result.get());
+                }
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testRoundTripWideType() throws Exception {
+        Class wideType = v3loader.loadClass("test.WideType");
+        v3.registerUserType(8, wideType, new PortableTypeSerializer(8, wideType));
+
+        Object expected = wideType.getConstructor(Integer.TYPE).newInstance(42);
+        Binary bin = ExternalizableHelper.toBinary(expected, v3);
+        assertEquals(expected, ExternalizableHelper.fromBinary(bin, v3));
+    }
+
+    @Test
+    public void testLazyDeserializationWideType() throws Exception {
+        // the same type, loaded with lazy deserialization enabled
+        Class wideType = new PortableTypeLoader(true).loadClass("test.WideType");
+        v3.registerUserType(9, wideType, new PortableTypeSerializer(9, wideType));
+
+        Object expected = wideType.getConstructor(Integer.TYPE).newInstance(42);
+        Binary bin = ExternalizableHelper.toBinary(expected, v3);
+
+        // attributes past the first generated method are read on demand as well
+        Object actual = ExternalizableHelper.fromBinary(bin, v3);
+        Field first = wideType.getDeclaredField("f200");
+        Field last = wideType.getDeclaredField("f299");
+        first.setAccessible(true);
+        last.setAccessible(true);
+        assertNull(last.get(actual));
+        assertEquals("f299.42", wideType.getMethod("getLast").invoke(actual));
+        assertEquals("f299.42", last.get(actual));
+        assertNull(first.get(actual));
+
+        assertEquals(expected, actual);
+        assertEquals(bin, ExternalizableHelper.toBinary(actual, v3));
+
+        // modification deserializes all attributes
+        actual = ExternalizableHelper.fromBinary(bin, v3);
+        wideType.getMethod("setLast", String.class).invoke(actual, "modified");
+        assertEquals("f200.42", first.get(actual));
+        Object modified = ExternalizableHelper.fromBinary(ExternalizableHelper.toBinary(actual, v3), v3);
+        wideType.getMethod("setLast", String.class).invoke(expected, "modified");
+        assertEquals(expected, modified);
+    }
+
     @Test
     public void testRoundTripEmptyClass() throws Exception {
         Object ec = emptyClassCtor.newInstance();
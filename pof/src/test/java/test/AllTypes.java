@@ -41,6 +41,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.TreeSet;
 
 
 /**
@@ -105,6 +106,8 @@ public class AllTypes
     private String[] m_stringArray = new String[] {"one", "two", "three"};
     @PortableArray
     private Object[] m_objectArray = new Object[] {"one", 2, 3L};
+    @PortableArray(elementClass = double.class)
+    private Double[] m_wrapperArray = new Double[] {Double.MIN_VALUE, 0.0, Double.MAX_VALUE};
 
     // collections
     @PortableSet
@@ -117,6 +120,12 @@ public class AllTypes
     @PortableList(elementClass = String.class)
     private List<String> m_listOfStrings = new ArrayList<String>(Arrays.asList(m_stringArray));
 
+    // primitive collections
+    @PortableList(elementClass = long.class)
+    private List<Long> m_listOfLongs = new ArrayList<Long>(Arrays.asList(Long.MIN_VALUE, 0L, Long.MAX_VALUE));
+    @PortableSet(elementClass = int.class, clazz = TreeSet.class)
+    private Set<Integer> m_setOfInts = new TreeSet<Integer>(Arrays.asList(3, 1, 2));
+
     @PortableMap
     private Map m_map = createMap();
     @PortableMap(keyClass = Integer.class)
@@ -124,6 +133,12 @@ public class AllTypes
     @PortableMap(keyClass = Integer.class, valueClass = String.class, clazz = TreeMap.class)
     private Map<Integer, String> m_uniformMap = createUniformMap();
 
+    // collections with inferred element types
+    @Portable
+    private List<String> m_inferredList = new ArrayList<String>(Arrays.asList(m_stringArray));
+    @PortableMap(clazz = TreeMap.class)
+    private Map<String, Long> m_inferredMap = createInferredMap();
+
     private static Map createMap() {
         Map map = new HashMap();
         map.put(1, "one");
@@ -148,6 +163,14 @@ public class AllTypes
         return map;
     }
 
+    private static Map<String, Long> createInferredMap() {
+        Map<String, Long> map = new TreeMap<String, Long>();
+        map.put("one", 1L);
+        map.put("two", 2L);
+        map.put("three", 3L);
+        return map;
+    }
+
     @Override
     public Date getDate() {
         return m_date;
@@ -210,6 +233,11 @@ public class AllTypes
         if (m_object != null ? !m_object.equals(allTypes.m_object) : allTypes.m_object != null) return false;
         // Probably incorrect - comparing Object[] arrays with Arrays.equals
         if (!Arrays.equals(m_objectArray, allTypes.m_objectArray)) return false;
+        if (!Arrays.equals(m_wrapperArray, allTypes.m_wrapperArray)) return false;
+        if (m_listOfLongs != null ? !m_listOfLongs.equals(allTypes.m_listOfLongs) : allTypes.m_listOfLongs != null)
+            return false;
+        if (m_setOfInts != null ? !m_setOfInts.equals(allTypes.m_setOfInts) : allTypes.m_setOfInts != null)
+            return false;
         if (m_setOfObjects != null ? !m_setOfObjects.equals(allTypes.m_setOfObjects) : allTypes.m_setOfObjects != null)
             return false;
         if (m_setOfStrings != null ? !m_setOfStrings.equals(allTypes.m_setOfStrings) : allTypes.m_setOfStrings != null)
@@ -221,6 +249,10 @@ public class AllTypes
             return false;
         if (m_uniformMap != null ? !m_uniformMap.equals(allTypes.m_uniformMap) : allTypes.m_uniformMap != null)
             return false;
+        if (m_inferredList != null ? !m_inferredList.equals(allTypes.m_inferredList) : allTypes.m_inferredList != null)
+            return false;
+        if (m_inferredMap != null ? !m_inferredMap.equals(allTypes.m_inferredMap) : allTypes.m_inferredMap != null)
+            return false;
 
         return true;
     }
@@ -264,13 +296,18 @@ public class AllTypes
         result = 31 * result + (m_dateTimeWithZone != null ? m_dateTimeWithZone.hashCode() : 0);
         result = 31 * result + (m_stringArray != null ? Arrays.hashCode(m_stringArray) : 0);
         result = 31 * result + (m_objectArray != null ? Arrays.hashCode(m_objectArray) : 0);
+        result = 31 * result + (m_wrapperArray != null ? Arrays.hashCode(m_wrapperArray) : 0);
         result = 31 * result + (m_setOfObjects != null ? m_setOfObjects.hashCode() : 0);
         result = 31 * result + (m_setOfStrings != null ? m_setOfStrings.hashCode() : 0);
         result = 31 * result + (m_listOfObjects != null ? m_listOfObjects.hashCode() : 0);
         result = 31 * result + (m_listOfStrings != null ? m_listOfStrings.hashCode() : 0);
+        result = 31 * result + (m_listOfLongs != null ? m_listOfLongs.hashCode() : 0);
+        result = 31 * result + (m_setOfInts != null ? m_setOfInts.hashCode() : 0);
         result = 31 * result + (m_map != null ? m_map.hashCode() : 0);
         result = 31 * result + (m_uniformKeysMap != null ? m_uniformKeysMap.hashCode() : 0);
         result = 31 * result + (m_uniformMap != null ? m_uniformMap.hashCode() : 0);
+        result = 31 * result + (m_inferredList != null ? m_inferredList.hashCode() : 0);
+        result = 31 * result + (m_inferredMap != null ? m_inferredMap.hashCode() : 0);
         return result;
     }
 
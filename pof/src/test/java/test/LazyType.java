@@ -0,0 +1,94 @@
+/*
+ * Copyright 2009 Aleksandar Seovic
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package test;
+
+
+import com.seovic.pof.AbstractEvolvableObject;
+import com.seovic.pof.annotations.Portable;
+import com.seovic.pof.annotations.PortableType;
+
+
+@PortableType(id = 7, version = 1, lazy = true)
+public class LazyType
+        extends AbstractEvolvableObject {
+    @Portable private String name;
+    @Portable private long count;
+    @Portable private double score;
+    @Portable(since = 1) private String description;
+
+    public LazyType() {
+    }
+
+    public LazyType(String name, long count, double score, String description) {
+        this.name = name;
+        this.count = count;
+        this.score = score;
+        this.description = description;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        LazyType lazyType = (LazyType) o;
+
+        if (count != lazyType.count) return false;
+        if (Double.compare(lazyType.score, score) != 0) return false;
+        if (description != null ? !description.equals(lazyType.description) : lazyType.description != null) return false;
+        if (name != null ? !name.equals(lazyType.name) : lazyType.name != null) return false;
+
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = name != null ? name.hashCode() : 0;
+        result = 31 * result + (int) (count ^ (count >>> 32));
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "LazyType{" +
+                "name='" + name + '\'' +
+                ", count=" + count +
+                ", score=" + score +
+                ", description='" + description + '\'' +
+                '}';
+    }
+}
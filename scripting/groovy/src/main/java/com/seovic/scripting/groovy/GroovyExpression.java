@@ -19,11 +19,13 @@ package com.seovic.scripting.groovy;
 
 import com.seovic.core.Expression;
 import com.seovic.core.expression.AbstractExpression;
+import com.seovic.core.expression.ExpressionCache;
 import groovy.lang.Binding;
 import groovy.lang.GroovyShell;
 import groovy.lang.Script;
 import java.io.InputStream;
 import java.util.Map;
+import org.codehaus.groovy.runtime.InvokerHelper;
 
 
 /**
@@ -34,6 +36,12 @@ import java.util.Map;
  * notion of a "root object" for expression evaluation. Because of this, the
  * target object is bound to a variable called <tt>target</tt> and must be
  * referenced explicitly within the expression.
+ * <p/>
+ * Each expression is compiled into a script class once, and the class is
+ * shared by all instances with the same expression through the
+ * {@link ExpressionCache}. Because a <tt>Script</tt> instance holds the binding
+ * it is evaluated against, every thread evaluates the expression using its own
+ * script instance, so expressions can be evaluated concurrently.
  *
  * @author Aleksandar Seovic  2009.09.20
  */
@@ -43,22 +51,37 @@ public class GroovyExpression<T>
 
     private static final long serialVersionUID = 8565991664974395148L;
 
-    // ---- data members ----------------------------------------------------
-
     /**
-     * Monitor object.
+     * Binding that scripts are reset to after evaluation, so they do not
+     * hold on to the last target.
      */
-    private final transient Object monitor = new Object();
+    private static final Binding EMPTY_BINDING = new Binding();
+
+    private static final ExpressionCache.Compiler<ScriptFactory> COMPILER =
+            new ExpressionCache.Compiler<ScriptFactory>() {
+                public ScriptFactory compile(String expression) {
+                    return new ScriptFactory(expression);
+                }
+            };
+
+    private static final ExpressionCache.Compiler<ScriptFactory> SET_COMPILER =
+            new ExpressionCache.Compiler<ScriptFactory>() {
+                public ScriptFactory compile(String expression) {
+                    return new ScriptFactory(expression + " = value");
+                }
+            };
+
+    // ---- data members ----------------------------------------------------
 
     /**
      * Compiled Groovy script
      */
-    private transient Script getScript;
+    private transient ScriptFactory getScript;
 
     /**
      * Compiled Groovy set script
      */
-    private transient Script setScript;
+    private transient ScriptFactory setScript;
 
 
     // ---- constructors ----------------------------------------------------
@@ -97,11 +120,14 @@ public class GroovyExpression<T>
         Binding binding = new Binding(variables);
         binding.setVariable("target", target);
 
-        synchronized (monitor) {
-            Script script = getCompiledScript();
-            script.setBinding(binding);
+        Script script = getCompiledScript();
+        script.setBinding(binding);
+        try {
             return (T) script.run();
         }
+        finally {
+            script.setBinding(EMPTY_BINDING);
+        }
     }
 
     /**
@@ -112,38 +138,64 @@ public class GroovyExpression<T>
         binding.setVariable("target", target);
         binding.setVariable("value", value);
 
-        synchronized (monitor) {
-            Script script = getCompiledSetScript();
-            script.setBinding(binding);
+        Script script = getCompiledSetScript();
+        script.setBinding(binding);
+        try {
             script.run();
         }
+        finally {
+            script.setBinding(EMPTY_BINDING);
+        }
     }
 
     // ---- helper methods --------------------------------------------------
 
     /**
-     * Return a compiled Groovy script for this expression.
+     * Return the calling thread's instance of the compiled Groovy script for
+     * this expression.
      *
      * @return compiled Groovy script
      */
     protected Script getCompiledScript() {
         if (getScript == null) {
-            GroovyShell shell = new GroovyShell();
-            getScript = shell.parse(getExpression());
+            getScript = ExpressionCache.getInstance()
+                    .get("groovy", getExpression(), COMPILER);
         }
-        return getScript;
+        return getScript.get();
     }
 
     /**
-     * Return a compiled Groovy script for this expression.
+     * Return the calling thread's instance of the compiled Groovy set script
+     * for this expression.
      *
      * @return compiled Groovy script
      */
     protected Script getCompiledSetScript() {
         if (setScript == null) {
-            GroovyShell shell = new GroovyShell();
-            setScript = shell.parse(getExpression() + " = value");
+            setScript = ExpressionCache.getInstance()
+                    .get("groovy-set", getExpression(), SET_COMPILER);
+        }
+        return setScript.get();
+    }
+
+
+    // ---- inner class: ScriptFactory --------------------------------------
+
+    /**
+     * Compiled script class, which provides each thread with its own
+     * instance of the script.
+     */
+    private static class ScriptFactory
+            extends ThreadLocal<Script> {
+        private final Class<? extends Script> scriptClass;
+
+        ScriptFactory(String script) {
+            scriptClass = new GroovyShell().parse(script).getClass();
+        }
+
+        @Override
+        protected Script initialValue() {
+            return InvokerHelper.createScript(scriptClass, EMPTY_BINDING);
         }
-        return setScript;
     }
-}
\ No newline at end of file
+}
@@ -19,7 +19,14 @@ package com.seovic.scripting.groovy;
 
 import com.seovic.core.Expression;
 import com.seovic.core.expression.AbstractExpressionTest;
+import com.seovic.test.objects.Person;
 import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
@@ -55,4 +62,33 @@ public class GroovyExpressionTest
         Expression exp = new GroovyExpression(in);
         assertEquals(10, ((Number) exp.evaluate(null)).intValue());
     }
+
+    @Test
+    public void testConcurrentEvaluation() throws Exception {
+        final Expression exp = createExpression("target.name + target.id");
+        final int cThreads = 8;
+
+        ExecutorService executor = Executors.newFixedThreadPool(cThreads);
+        try {
+            List<Future<Object>> futures = new ArrayList<Future<Object>>();
+            for (int t = 0; t < cThreads; t++) {
+                final long id = t;
+                futures.add(executor.submit(new Callable<Object>() {
+                    public Object call() {
+                        Person person = new Person(id, "Homer");
+                        for (int i = 0; i < 10000; i++) {
+                            assertEquals("Homer" + id, exp.evaluate(person));
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Object> future : futures) {
+                future.get();
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
 }
\ No newline at end of file